@@ -0,0 +1,44 @@
+package com.jeffrey.sort.fast;
+
+/**
+ * Quiet insertion sort on a sub-range, used as the small-partition cutoff
+ * of {@link IntroSort}. Unlike {@code InsertSort} it does no printing.
+ */
+public final class InsertionSort {
+    
+    private InsertionSort() {
+    }
+    
+    /**
+     * Sorts a[fromIndex, toIndex) in ascending order
+     * Time Complexity: O(n²) worst case, O(n) on sorted input
+     * Space Complexity: O(1)
+     * Stability: Stable sort
+     */
+    public static void sort(int[] a, int fromIndex, int toIndex) {
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            int key = a[i];
+            int j = i - 1;
+            while (j >= fromIndex && a[j] > key) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
+    
+    /**
+     * Sorts a[fromIndex, toIndex) in ascending order
+     */
+    public static void sort(long[] a, int fromIndex, int toIndex) {
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            long key = a[i];
+            int j = i - 1;
+            while (j >= fromIndex && a[j] > key) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.jeffrey.sort.fast;
+
+/**
+ * Hybrid introsort for primitive arrays
+ * Partitions with dual-pivot quicksort (pivots are the 2nd and 4th of five
+ * samples), switches to heapsort when the recursion gets deeper than
+ * 2·log2(n), and finishes partitions shorter than
+ * {@link #INSERTION_SORT_THRESHOLD} with {@link InsertionSort}.
+ * Sorting is in place and allocates nothing.
+ * <p>
+ * Time Complexity: O(n log n) worst case
+ * Space Complexity: O(log n) stack
+ * Stability: Not stable
+ */
+public final class IntroSort {
+    
+    /** Partitions shorter than this are finished with insertion sort */
+    static final int INSERTION_SORT_THRESHOLD = 47;
+    
+    private IntroSort() {
+    }
+    
+    public static void sort(int[] a) {
+        sort(a, 0, a.length);
+    }
+    
+    /**
+     * Sorts a[fromIndex, toIndex) in ascending order
+     */
+    public static void sort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        sort(a, fromIndex, toIndex - 1, depthLimit(toIndex - fromIndex));
+    }
+    
+    public static void sort(long[] a) {
+        sort(a, 0, a.length);
+    }
+    
+    /**
+     * Sorts a[fromIndex, toIndex) in ascending order
+     */
+    public static void sort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        sort(a, fromIndex, toIndex - 1, depthLimit(toIndex - fromIndex));
+    }
+    
+    /**
+     * Sorts the inclusive range a[left, right]
+     */
+    static void sort(int[] a, int left, int right, int depth) {
+        // Recurse into the two outer parts, loop on the middle one
+        while (right - left + 1 >= INSERTION_SORT_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a, left, right);
+                return;
+            }
+            
+            // Sort five evenly spaced samples, the 2nd and 4th become the pivots
+            int length = right - left + 1;
+            int seventh = (length >> 3) + (length >> 6) + 1;
+            int e3 = (left + right) >>> 1;
+            int e2 = e3 - seventh;
+            int e1 = e2 - seventh;
+            int e4 = e3 + seventh;
+            int e5 = e4 + seventh;
+            sortSamples(a, e1, seventh);
+            
+            int pivot1 = a[e2];
+            int pivot2 = a[e4];
+            // The pivots are put back at the end, the end values take their slots
+            a[e2] = a[left];
+            a[e4] = a[right];
+            
+            // left part < pivot1 <= middle part <= pivot2 < right part
+            int less = left + 1;
+            int great = right - 1;
+            for (int k = less; k <= great; k++) {
+                int ak = a[k];
+                if (ak < pivot1) {
+                    a[k] = a[less];
+                    a[less++] = ak;
+                } else if (ak > pivot2) {
+                    while (k < great && a[great] > pivot2) {
+                        great--;
+                    }
+                    a[k] = a[great];
+                    a[great--] = ak;
+                    ak = a[k];
+                    if (ak < pivot1) {
+                        a[k] = a[less];
+                        a[less++] = ak;
+                    }
+                }
+            }
+            a[left] = a[less - 1];
+            a[less - 1] = pivot1;
+            a[right] = a[great + 1];
+            a[great + 1] = pivot2;
+            
+            sort(a, left, less - 2, depth);
+            sort(a, great + 2, right, depth);
+            if (pivot1 == pivot2) {
+                // Every element of the middle part equals the pivots
+                return;
+            }
+            if (less < e1 && e5 < great) {
+                // The middle part spans the outer samples, probably because of many keys equal to
+                // the pivots: move those out so the remaining middle is strictly between the pivots
+                for (int k = less; k <= great; k++) {
+                    int ak = a[k];
+                    if (ak == pivot1) {
+                        a[k] = a[less];
+                        a[less++] = ak;
+                    } else if (ak == pivot2) {
+                        while (k < great && a[great] == pivot2) {
+                            great--;
+                        }
+                        a[k] = a[great];
+                        a[great--] = ak;
+                        ak = a[k];
+                        if (ak == pivot1) {
+                            a[k] = a[less];
+                            a[less++] = ak;
+                        }
+                    }
+                }
+            }
+            left = less;
+            right = great;
+        }
+        InsertionSort.sort(a, left, right + 1);
+    }
+    
+    /**
+     * Sorts the inclusive range a[left, right]
+     */
+    static void sort(long[] a, int left, int right, int depth) {
+        while (right - left + 1 >= INSERTION_SORT_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a, left, right);
+                return;
+            }
+            
+            int length = right - left + 1;
+            int seventh = (length >> 3) + (length >> 6) + 1;
+            int e3 = (left + right) >>> 1;
+            int e2 = e3 - seventh;
+            int e1 = e2 - seventh;
+            int e4 = e3 + seventh;
+            int e5 = e4 + seventh;
+            sortSamples(a, e1, seventh);
+            
+            long pivot1 = a[e2];
+            long pivot2 = a[e4];
+            a[e2] = a[left];
+            a[e4] = a[right];
+            
+            int less = left + 1;
+            int great = right - 1;
+            for (int k = less; k <= great; k++) {
+                long ak = a[k];
+                if (ak < pivot1) {
+                    a[k] = a[less];
+                    a[less++] = ak;
+                } else if (ak > pivot2) {
+                    while (k < great && a[great] > pivot2) {
+                        great--;
+                    }
+                    a[k] = a[great];
+                    a[great--] = ak;
+                    ak = a[k];
+                    if (ak < pivot1) {
+                        a[k] = a[less];
+                        a[less++] = ak;
+                    }
+                }
+            }
+            a[left] = a[less - 1];
+            a[less - 1] = pivot1;
+            a[right] = a[great + 1];
+            a[great + 1] = pivot2;
+            
+            sort(a, left, less - 2, depth);
+            sort(a, great + 2, right, depth);
+            if (pivot1 == pivot2) {
+                return;
+            }
+            if (less < e1 && e5 < great) {
+                for (int k = less; k <= great; k++) {
+                    long ak = a[k];
+                    if (ak == pivot1) {
+                        a[k] = a[less];
+                        a[less++] = ak;
+                    } else if (ak == pivot2) {
+                        while (k < great && a[great] == pivot2) {
+                            great--;
+                        }
+                        a[k] = a[great];
+                        a[great--] = ak;
+                        ak = a[k];
+                        if (ak == pivot1) {
+                            a[k] = a[less];
+                            a[less++] = ak;
+                        }
+                    }
+                }
+            }
+            left = less;
+            right = great;
+        }
+        InsertionSort.sort(a, left, right + 1);
+    }
+    
+    /**
+     * Insertion sort over the five samples a[first], a[first + step], ... a[first + 4·step]
+     */
+    private static void sortSamples(int[] a, int first, int step) {
+        int last = first + 4 * step;
+        for (int i = first + step; i <= last; i += step) {
+            int key = a[i];
+            int j = i - step;
+            while (j >= first && a[j] > key) {
+                a[j + step] = a[j];
+                j -= step;
+            }
+            a[j + step] = key;
+        }
+    }
+    
+    private static void sortSamples(long[] a, int first, int step) {
+        int last = first + 4 * step;
+        for (int i = first + step; i <= last; i += step) {
+            long key = a[i];
+            int j = i - step;
+            while (j >= first && a[j] > key) {
+                a[j + step] = a[j];
+                j -= step;
+            }
+            a[j + step] = key;
+        }
+    }
+    
+    /**
+     * Heapsort of the inclusive range a[left, right], the fallback when partitioning degenerates
+     */
+    private static void heapSort(int[] a, int left, int right) {
+        int n = right - left + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) {
+            siftDown(a, left, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            int top = a[left];
+            a[left] = a[left + end];
+            a[left + end] = top;
+            siftDown(a, left, 0, end);
+        }
+    }
+    
+    private static void siftDown(int[] a, int base, int node, int n) {
+        int value = a[base + node];
+        int child;
+        while ((child = 2 * node + 1) < n) {
+            if (child + 1 < n && a[base + child + 1] > a[base + child]) {
+                child++;
+            }
+            if (a[base + child] <= value) {
+                break;
+            }
+            a[base + node] = a[base + child];
+            node = child;
+        }
+        a[base + node] = value;
+    }
+    
+    private static void heapSort(long[] a, int left, int right) {
+        int n = right - left + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) {
+            siftDown(a, left, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            long top = a[left];
+            a[left] = a[left + end];
+            a[left + end] = top;
+            siftDown(a, left, 0, end);
+        }
+    }
+    
+    private static void siftDown(long[] a, int base, int node, int n) {
+        long value = a[base + node];
+        int child;
+        while ((child = 2 * node + 1) < n) {
+            if (child + 1 < n && a[base + child + 1] > a[base + child]) {
+                child++;
+            }
+            if (a[base + child] <= value) {
+                break;
+            }
+            a[base + node] = a[base + child];
+            node = child;
+        }
+        a[base + node] = value;
+    }
+    
+    /**
+     * 2·floor(log2(n)), the partitioning depth allowed before falling back to heapsort
+     */
+    static int depthLimit(int n) {
+        return n <= 1 ? 0 : 2 * (31 - Integer.numberOfLeadingZeros(n));
+    }
+    
+    static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException(fromIndex);
+        }
+        if (toIndex > arrayLength) {
+            throw new ArrayIndexOutOfBoundsException(toIndex);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.jeffrey.sort.fast;
+
+/**
+ * LSD radix sort for int[] and long[] with 8-bit digits
+ * The sign bit is flipped when computing digits so negative numbers sort before
+ * positive ones. Histograms for all digits are built in a single pass, and passes
+ * in which every key has the same digit are skipped, so small-range data needs
+ * fewer than 4 (int) or 8 (long) scatter passes.
+ * <p>
+ * Time Complexity: O(n·w/8) for w-bit keys
+ * Space Complexity: O(n) scratch buffer, which callers may supply to avoid allocation
+ * Stability: Stable sort
+ */
+public final class RadixSort {
+    
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int MASK = RADIX - 1;
+    
+    private RadixSort() {
+    }
+    
+    public static void sort(int[] a) {
+        sort(a, 0, a.length, new int[a.length]);
+    }
+    
+    /**
+     * Sorts a[fromIndex, toIndex) in ascending order
+     *
+     * @param buffer scratch space of at least toIndex - fromIndex elements
+     */
+    public static void sort(int[] a, int fromIndex, int toIndex, int[] buffer) {
+        IntroSort.rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (buffer.length < n) {
+            throw new IllegalArgumentException("buffer length " + buffer.length + " < " + n);
+        }
+        if (n < 2) {
+            return;
+        }
+        
+        int passes = Integer.SIZE / RADIX_BITS;
+        int[] counts = new int[passes * RADIX];
+        for (int i = fromIndex; i < toIndex; i++) {
+            int key = a[i] ^ Integer.MIN_VALUE;
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass * RADIX + ((key >>> (pass * RADIX_BITS)) & MASK)]++;
+            }
+        }
+        
+        // src/dst alternate between the array range and the buffer
+        int[] src = a;
+        int srcOffset = fromIndex;
+        int[] dst = buffer;
+        int dstOffset = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            int base = pass * RADIX;
+            if (toOffsets(counts, base, n)) {
+                continue;
+            }
+            int shift = pass * RADIX_BITS;
+            for (int i = srcOffset, end = srcOffset + n; i < end; i++) {
+                int value = src[i];
+                dst[dstOffset + counts[base + (((value ^ Integer.MIN_VALUE) >>> shift) & MASK)]++] = value;
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpOffset = srcOffset;
+            srcOffset = dstOffset;
+            dstOffset = tmpOffset;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcOffset, a, fromIndex, n);
+        }
+    }
+    
+    public static void sort(long[] a) {
+        sort(a, 0, a.length, new long[a.length]);
+    }
+    
+    /**
+     * Sorts a[fromIndex, toIndex) in ascending order
+     *
+     * @param buffer scratch space of at least toIndex - fromIndex elements
+     */
+    public static void sort(long[] a, int fromIndex, int toIndex, long[] buffer) {
+        IntroSort.rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (buffer.length < n) {
+            throw new IllegalArgumentException("buffer length " + buffer.length + " < " + n);
+        }
+        if (n < 2) {
+            return;
+        }
+        
+        int passes = Long.SIZE / RADIX_BITS;
+        int[] counts = new int[passes * RADIX];
+        for (int i = fromIndex; i < toIndex; i++) {
+            long key = a[i] ^ Long.MIN_VALUE;
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass * RADIX + (int) ((key >>> (pass * RADIX_BITS)) & MASK)]++;
+            }
+        }
+        
+        long[] src = a;
+        int srcOffset = fromIndex;
+        long[] dst = buffer;
+        int dstOffset = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            int base = pass * RADIX;
+            if (toOffsets(counts, base, n)) {
+                continue;
+            }
+            int shift = pass * RADIX_BITS;
+            for (int i = srcOffset, end = srcOffset + n; i < end; i++) {
+                long value = src[i];
+                dst[dstOffset + counts[base + (int) (((value ^ Long.MIN_VALUE) >>> shift) & MASK)]++] = value;
+            }
+            long[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpOffset = srcOffset;
+            srcOffset = dstOffset;
+            dstOffset = tmpOffset;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcOffset, a, fromIndex, n);
+        }
+    }
+    
+    /**
+     * Turns the histogram of one digit into starting offsets in place
+     *
+     * @return true if every key has the same digit, so the pass can be skipped
+     */
+    private static boolean toOffsets(int[] counts, int base, int n) {
+        int offset = 0;
+        for (int digit = base, end = base + RADIX; digit < end; digit++) {
+            int count = counts[digit];
+            if (count == n) {
+                return true;
+            }
+            counts[digit] = offset;
+            offset += count;
+        }
+        return false;
+    }
+}
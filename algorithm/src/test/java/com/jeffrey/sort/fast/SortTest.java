@@ -0,0 +1,232 @@
+package com.jeffrey.sort.fast;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks every sort against Arrays.sort on a range of sizes and input distributions
+ */
+public class SortTest extends TestCase {
+    
+    private static final int[] SIZES = {0, 1, 2, 3, 7, 46, 47, 48, 100, 1000, 10007, 100000};
+    
+    private static final String[] DISTRIBUTIONS = {
+            "random", "sorted", "reversed", "equal", "fewUnique", "organPipe",
+            "sawtooth", "stagger", "extremes", "nearlySorted", "twoValues"
+    };
+    
+    private final Random random = new Random(42);
+    
+    public void testIntroSortInt() {
+        for (int size : SIZES) {
+            for (String distribution : DISTRIBUTIONS) {
+                int[] data = ints(distribution, size);
+                int[] expected = data.clone();
+                Arrays.sort(expected);
+                IntroSort.sort(data);
+                assertTrue(distribution + "/" + size, Arrays.equals(expected, data));
+            }
+        }
+    }
+    
+    public void testIntroSortLong() {
+        for (int size : SIZES) {
+            for (String distribution : DISTRIBUTIONS) {
+                long[] data = longs(distribution, size);
+                long[] expected = data.clone();
+                Arrays.sort(expected);
+                IntroSort.sort(data);
+                assertTrue(distribution + "/" + size, Arrays.equals(expected, data));
+            }
+        }
+    }
+    
+    public void testRadixSortInt() {
+        for (int size : SIZES) {
+            for (String distribution : DISTRIBUTIONS) {
+                int[] data = ints(distribution, size);
+                int[] expected = data.clone();
+                Arrays.sort(expected);
+                RadixSort.sort(data);
+                assertTrue(distribution + "/" + size, Arrays.equals(expected, data));
+            }
+        }
+    }
+    
+    public void testRadixSortLong() {
+        for (int size : SIZES) {
+            for (String distribution : DISTRIBUTIONS) {
+                long[] data = longs(distribution, size);
+                long[] expected = data.clone();
+                Arrays.sort(expected);
+                RadixSort.sort(data);
+                assertTrue(distribution + "/" + size, Arrays.equals(expected, data));
+            }
+        }
+    }
+    
+    public void testInsertionSort() {
+        for (String distribution : DISTRIBUTIONS) {
+            int[] ints = ints(distribution, 300);
+            int[] expectedInts = ints.clone();
+            Arrays.sort(expectedInts);
+            InsertionSort.sort(ints, 0, ints.length);
+            assertTrue(distribution, Arrays.equals(expectedInts, ints));
+            
+            long[] longs = longs(distribution, 300);
+            long[] expectedLongs = longs.clone();
+            Arrays.sort(expectedLongs);
+            InsertionSort.sort(longs, 0, longs.length);
+            assertTrue(distribution, Arrays.equals(expectedLongs, longs));
+        }
+    }
+    
+    public void testSubRangesLeaveOutsideUntouched() {
+        for (String distribution : DISTRIBUTIONS) {
+            int[] data = ints(distribution, 5000);
+            int[] expected = data.clone();
+            Arrays.sort(expected, 100, 4000);
+            
+            int[] intro = data.clone();
+            IntroSort.sort(intro, 100, 4000);
+            assertTrue(distribution, Arrays.equals(expected, intro));
+            
+            int[] radix = data.clone();
+            RadixSort.sort(radix, 100, 4000, new int[3900]);
+            assertTrue(distribution, Arrays.equals(expected, radix));
+            
+            long[] longData = longs(distribution, 5000);
+            long[] expectedLongs = longData.clone();
+            Arrays.sort(expectedLongs, 100, 4000);
+            long[] longIntro = longData.clone();
+            IntroSort.sort(longIntro, 100, 4000);
+            assertTrue(distribution, Arrays.equals(expectedLongs, longIntro));
+            long[] longRadix = longData.clone();
+            RadixSort.sort(longRadix, 100, 4000, new long[4000]);
+            assertTrue(distribution, Arrays.equals(expectedLongs, longRadix));
+        }
+    }
+    
+    public void testRadixSortIsStableOnKeys() {
+        // The low 16 bits hold the original index, sorting on the full value
+        // must keep equal high halves in index order
+        int[] data = new int[20000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (random.nextInt(8) - 4) << 16 | i;
+        }
+        int[] expected = data.clone();
+        Arrays.sort(expected);
+        RadixSort.sort(data);
+        assertTrue(Arrays.equals(expected, data));
+    }
+    
+    public void testHeapSortFallback() {
+        assertEquals(0, IntroSort.depthLimit(1));
+        assertEquals(2 * 16, IntroSort.depthLimit(100000));
+        // Depth budgets of 0 and 1 send the first or second level of partitions to heapsort
+        for (int depth = 0; depth <= 1; depth++) {
+            for (String distribution : DISTRIBUTIONS) {
+                int[] data = ints(distribution, 10007);
+                int[] expected = data.clone();
+                Arrays.sort(expected);
+                IntroSort.sort(data, 0, data.length - 1, depth);
+                assertTrue(distribution, Arrays.equals(expected, data));
+                
+                long[] longs = longs(distribution, 10007);
+                long[] expectedLongs = longs.clone();
+                Arrays.sort(expectedLongs);
+                IntroSort.sort(longs, 0, longs.length - 1, depth);
+                assertTrue(distribution, Arrays.equals(expectedLongs, longs));
+            }
+        }
+    }
+    
+    public void testInvalidRange() {
+        try {
+            IntroSort.sort(new int[4], 3, 2);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // fromIndex > toIndex
+        }
+        try {
+            RadixSort.sort(new int[4], 0, 5, new int[5]);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+            // toIndex > length
+        }
+        try {
+            RadixSort.sort(new long[4], 0, 4, new long[3]);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // buffer too small
+        }
+    }
+    
+    private int[] ints(String distribution, int n) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) {
+            switch (distribution) {
+                case "random":
+                    a[i] = random.nextInt();
+                    break;
+                case "sorted":
+                    a[i] = i;
+                    break;
+                case "reversed":
+                    a[i] = n - i;
+                    break;
+                case "equal":
+                    a[i] = 7;
+                    break;
+                case "fewUnique":
+                    a[i] = random.nextInt(5) - 2;
+                    break;
+                case "organPipe":
+                    a[i] = i < n / 2 ? i : n - i;
+                    break;
+                case "sawtooth":
+                    a[i] = i % 64;
+                    break;
+                case "stagger":
+                    a[i] = (i * 31 + n / 2) % Math.max(1, n);
+                    break;
+                case "extremes":
+                    a[i] = random.nextBoolean() ? Integer.MIN_VALUE + random.nextInt(3) : Integer.MAX_VALUE - random.nextInt(3);
+                    break;
+                case "nearlySorted":
+                    a[i] = random.nextInt(100) == 0 ? random.nextInt() : i;
+                    break;
+                case "twoValues":
+                    a[i] = random.nextBoolean() ? -1 : 1;
+                    break;
+                default:
+                    throw new IllegalArgumentException(distribution);
+            }
+        }
+        return a;
+    }
+    
+    private long[] longs(String distribution, int n) {
+        long[] a = new long[n];
+        if ("random".equals(distribution)) {
+            for (int i = 0; i < n; i++) {
+                a[i] = random.nextLong();
+            }
+            return a;
+        }
+        if ("extremes".equals(distribution)) {
+            for (int i = 0; i < n; i++) {
+                a[i] = random.nextBoolean() ? Long.MIN_VALUE + random.nextInt(3) : Long.MAX_VALUE - random.nextInt(3);
+            }
+            return a;
+        }
+        // Other shapes reuse the int generator, spread across the high bits
+        int[] ints = ints(distribution, n);
+        for (int i = 0; i < n; i++) {
+            a[i] = (long) ints[i] << 20 ^ ints[i];
+        }
+        return a;
+    }
+}
@@ -0,0 +1,102 @@
+package com.jeffrey.factory;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 享元工厂
+ * 每种(类型, 颜色)只创建一个 ShapeTemplate 并缓存，spawn 返回只带外在状态的 PlacedShape，
+ * 大量同类实体共享轮廓等不可变数据。模板按类型、颜色两级查找，命中时不分配对象，可以在任意线程调用。
+ * <p>
+ * 类型需要先在 RegistryShapeFactory 中注册产品，再用 defineType 给出轮廓；定义应在启动阶段完成。
+ */
+public class FlyweightShapeFactory {
+
+    private final RegistryShapeFactory products;
+    // 小写类型 -> 轮廓顶点
+    private final Map<String, float[]> outlines = new HashMap<>();
+    // 小写类型 -> 颜色 -> 模板
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, ShapeTemplate>> templates =
+            new ConcurrentHashMap<>();
+
+    public FlyweightShapeFactory(RegistryShapeFactory products) {
+        this.products = products;
+    }
+
+    public static FlyweightShapeFactory withDefaultShapes() {
+        FlyweightShapeFactory factory = new FlyweightShapeFactory(RegistryShapeFactory.withDefaultShapes());
+        factory.defineType("circle", polygon(64));
+        factory.defineType("square", new float[]{-0.5f, -0.5f, 0.5f, -0.5f, 0.5f, 0.5f, -0.5f, 0.5f});
+        factory.defineType("rectangle", new float[]{-1f, -0.5f, 1f, -0.5f, 1f, 0.5f, -1f, 0.5f});
+        return factory;
+    }
+
+    /**
+     * 定义类型的轮廓，数组会被复制
+     */
+    public void defineType(String type, float[] outline) {
+        if (products.idOf(type) < 0) {
+            throw new IllegalArgumentException("Shape type not registered: " + type);
+        }
+        if (outline.length % 2 != 0) {
+            throw new IllegalArgumentException("Outline must contain x/y pairs");
+        }
+        String key = type.toLowerCase(Locale.ROOT);
+        outlines.put(key, outline.clone());
+        templates.put(key, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 获取共享模板，类型未定义时返回null
+     */
+    public ShapeTemplate template(String type, String color) {
+        if (type == null || color == null) {
+            return null;
+        }
+        ConcurrentHashMap<String, ShapeTemplate> byColor = templates.get(type);
+        if (byColor == null) {
+            type = type.toLowerCase(Locale.ROOT);
+            byColor = templates.get(type);
+            if (byColor == null) {
+                return null;
+            }
+        }
+        ShapeTemplate template = byColor.get(color);
+        if (template != null) {
+            return template;
+        }
+        String key = type;
+        // 共享产品不从对象池中取，否则池中对象被永久占用，而且池不是线程安全的
+        return byColor.computeIfAbsent(color,
+                c -> new ShapeTemplate(key, c, products.newShape(products.idOf(key)), outlines.get(key)));
+    }
+
+    /**
+     * 生成一个实体句柄，类型未定义时返回null
+     */
+    public PlacedShape spawn(String type, String color, float x, float y) {
+        ShapeTemplate template = template(type, color);
+        return template == null ? null : new PlacedShape(template, x, y);
+    }
+
+    public int templateCount() {
+        int count = 0;
+        for (ConcurrentHashMap<String, ShapeTemplate> byColor : templates.values()) {
+            count += byColor.size();
+        }
+        return count;
+    }
+
+    // 单位圆的正多边形近似
+    private static float[] polygon(int sides) {
+        float[] outline = new float[sides * 2];
+        for (int i = 0; i < sides; i++) {
+            double angle = 2 * Math.PI * i / sides;
+            outline[i * 2] = (float) Math.cos(angle);
+            outline[i * 2 + 1] = (float) Math.sin(angle);
+        }
+        return outline;
+    }
+}
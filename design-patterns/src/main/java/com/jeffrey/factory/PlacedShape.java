@@ -0,0 +1,59 @@
+package com.jeffrey.factory;
+
+/**
+ * 享元的轻量句柄，只保存外在状态(位置、缩放)，其余全部引用共享的 ShapeTemplate
+ * 每个实例只有一个引用和三个float，大量生成时内存占用与模板的大小无关。
+ */
+public class PlacedShape implements Shape {
+
+    private final ShapeTemplate template;
+    private float x;
+    private float y;
+    private float scale;
+
+    PlacedShape(ShapeTemplate template, float x, float y) {
+        this.template = template;
+        this.x = x;
+        this.y = y;
+        this.scale = 1f;
+    }
+
+    @Override
+    public void draw() {
+        template.getShape().draw();
+    }
+
+    public void moveTo(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    // 顶点在世界坐标中的位置，由模板顶点和外在状态算出，不复制轮廓
+    public float worldX(int vertex) {
+        return x + template.getVertexX(vertex) * scale;
+    }
+
+    public float worldY(int vertex) {
+        return y + template.getVertexY(vertex) * scale;
+    }
+
+    public ShapeTemplate getTemplate() {
+        return template;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public void setScale(float scale) {
+        this.scale = scale;
+    }
+}
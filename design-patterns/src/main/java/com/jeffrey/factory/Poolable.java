@@ -0,0 +1,8 @@
+package com.jeffrey.factory;
+
+/**
+ * 可放回对象池的产品，release 时先 reset 清掉上一次使用留下的状态
+ */
+public interface Poolable {
+    void reset();
+}
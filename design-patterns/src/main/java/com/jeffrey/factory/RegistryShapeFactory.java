@@ -0,0 +1,189 @@
+package com.jeffrey.factory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 基于注册表的形状工厂
+ * 类型在启动时注册并得到一个整数ID：按ID创建是一次数组下标访问，按名称创建是一次哈希查找，
+ * 不再像 ShapeFactory 那样逐个 equalsIgnoreCase 比较。
+ * 产品可以由构造函数创建、从原型克隆，或者从对象池取出，短生命周期的产品用完后 release 放回池中复用。
+ * <p>
+ * 注册应在启动阶段完成，之后不带对象池的类型可以在任意线程创建；
+ * 对象池不加锁，带池类型的 getShape/release 应在同一个线程(如tick线程)上调用。
+ */
+public class RegistryShapeFactory {
+
+    // withDefaultShapes 注册的类型ID
+    public static final int CIRCLE = 0;
+    public static final int SQUARE = 1;
+    public static final int RECTANGLE = 2;
+
+    // 小写名称 -> 类型ID
+    private final Map<String, Integer> ids = new HashMap<>();
+    private Entry[] entries = new Entry[8];
+    private int size;
+
+    public static RegistryShapeFactory withDefaultShapes() {
+        RegistryShapeFactory factory = new RegistryShapeFactory();
+        factory.register("circle", Circle::new);
+        factory.register("square", Square::new);
+        factory.register("rectangle", Rectangle::new);
+        return factory;
+    }
+
+    /**
+     * 注册每次调用 creator 创建新对象的类型，返回类型ID
+     */
+    public int register(String name, Supplier<? extends Shape> creator) {
+        return add(name, new Entry(name, creator, 0));
+    }
+
+    /**
+     * 注册从原型克隆的类型，适合初始化代价高、只需复制字段的产品
+     */
+    public <T extends Shape> int registerPrototype(String name, T prototype, UnaryOperator<T> cloner) {
+        return register(name, () -> cloner.apply(prototype));
+    }
+
+    /**
+     * 注册带对象池的类型，池中最多保留 maxIdle 个空闲对象，池空时由 creator 创建
+     */
+    public int registerPooled(String name, Supplier<? extends Shape> creator, int maxIdle) {
+        if (maxIdle <= 0) {
+            throw new IllegalArgumentException("maxIdle must be positive: " + maxIdle);
+        }
+        return add(name, new Entry(name, creator, maxIdle));
+    }
+
+    /**
+     * 按名称查找类型ID，忽略大小写，未注册时返回-1
+     */
+    public int idOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = ids.get(name.toLowerCase(Locale.ROOT));
+        }
+        return id == null ? -1 : id;
+    }
+
+    public Shape getShape(String name) {
+        int id = idOf(name);
+        return id < 0 ? null : entries[id].acquire();
+    }
+
+    public Shape getShape(int id) {
+        if (id < 0 || id >= size) {
+            return null;
+        }
+        return entries[id].acquire();
+    }
+
+    /**
+     * 直接由 creator 创建新对象，不经过对象池，也不计入池的统计
+     */
+    public Shape newShape(int id) {
+        if (id < 0 || id >= size) {
+            return null;
+        }
+        return entries[id].creator.get();
+    }
+
+    /**
+     * 归还产品，类型带对象池且池未满时放回池中并返回true，否则交给GC
+     * 归还后调用方不能再使用该对象
+     */
+    public boolean release(int id, Shape shape) {
+        if (id < 0 || id >= size || shape == null) {
+            return false;
+        }
+        return entries[id].release(shape);
+    }
+
+    public String nameOf(int id) {
+        return id < 0 || id >= size ? null : entries[id].name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int idleCount(int id) {
+        Entry entry = entries[id];
+        return entry.idle == null ? 0 : entry.idle.size();
+    }
+
+    // 带池类型因池空而新建的对象数
+    public long createdCount(int id) {
+        return entries[id].created;
+    }
+
+    // 从池中复用的次数
+    public long reusedCount(int id) {
+        return entries[id].reused;
+    }
+
+    private int add(String name, Entry entry) {
+        String key = name.toLowerCase(Locale.ROOT);
+        if (ids.containsKey(key)) {
+            throw new IllegalArgumentException("Shape type already registered: " + name);
+        }
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        int id = size++;
+        entries[id] = entry;
+        ids.put(key, id);
+        return id;
+    }
+
+    private static final class Entry {
+
+        final String name;
+        final Supplier<? extends Shape> creator;
+        final int maxIdle;
+        // 不带对象池的类型为null
+        final ArrayDeque<Shape> idle;
+        long created;
+        long reused;
+
+        Entry(String name, Supplier<? extends Shape> creator, int maxIdle) {
+            this.name = name;
+            this.creator = creator;
+            this.maxIdle = maxIdle;
+            this.idle = maxIdle > 0 ? new ArrayDeque<>(Math.min(maxIdle, 1024)) : null;
+        }
+
+        Shape acquire() {
+            if (idle == null) {
+                return creator.get();
+            }
+            Shape shape = idle.pollLast();
+            if (shape != null) {
+                reused++;
+                return shape;
+            }
+            created++;
+            return creator.get();
+        }
+
+        boolean release(Shape shape) {
+            if (idle == null || idle.size() >= maxIdle) {
+                return false;
+            }
+            if (shape instanceof Poolable) {
+                ((Poolable) shape).reset();
+            }
+            idle.addLast(shape);
+            return true;
+        }
+    }
+}
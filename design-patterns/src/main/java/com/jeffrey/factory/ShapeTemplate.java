@@ -0,0 +1,56 @@
+package com.jeffrey.factory;
+
+import java.util.Arrays;
+
+/**
+ * 享元：形状的内在状态(类型、颜色、轮廓顶点、绘制用的产品对象)
+ * 创建后不再修改，相同类型和颜色的所有实例共享同一个对象，只能由 FlyweightShapeFactory 创建。
+ */
+public final class ShapeTemplate {
+
+    private final String type;
+    private final String color;
+    private final Shape shape;
+    // 轮廓顶点 x0, y0, x1, y1 ...，不对外暴露数组本身
+    private final float[] outline;
+
+    ShapeTemplate(String type, String color, Shape shape, float[] outline) {
+        this.type = type;
+        this.color = color;
+        this.shape = shape;
+        this.outline = outline;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public int getVertexCount() {
+        return outline.length / 2;
+    }
+
+    public float getVertexX(int index) {
+        return outline[index * 2];
+    }
+
+    public float getVertexY(int index) {
+        return outline[index * 2 + 1];
+    }
+
+    public float[] copyOutline() {
+        return Arrays.copyOf(outline, outline.length);
+    }
+
+    @Override
+    public String toString() {
+        return "ShapeTemplate{" + type + ", " + color + ", vertices=" + getVertexCount() + "}";
+    }
+}
@@ -0,0 +1,184 @@
+package com.jeffrey.listener.game.task;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 异步事件分发器
+ * 调用方只把事件放进预分配的环形缓冲区就返回，监听器在消费者线程上执行，战斗逻辑不再同步承担任务统计的开销。
+ * <p>
+ * 单写多读：publish 只能由一个线程调用(通常是场景或战斗线程)，不需要CAS；
+ * 每个 EventBus 对应一个消费者线程和一个序号，都会收到全部事件，彼此互不等待。
+ * 消费者一次取走生产者已发布的全部事件，处理完整批后才更新一次自己的序号；
+ * 生产者只在缓冲区写满时读取消费者序号，等待最慢的消费者腾出槽位。
+ */
+public class AsyncEventDispatcher {
+
+    private final String name;
+    private final GameEvent[] ring;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    /** 已发布的最大序号，生产者写入，消费者读取 */
+    private final Sequence cursor = new Sequence();
+
+    private final EventConsumer[] consumers;
+
+    /** 只有一个消费者时由它在处理后清空槽位，不让已处理的事件一直被缓冲区引用 */
+    private final boolean clearSlots;
+
+    /** 上次读到的最慢消费者序号，只在生产者线程中访问 */
+    private long gatingSequence = -1;
+
+    private volatile boolean running;
+
+    public AsyncEventDispatcher(int bufferSize, WaitStrategy waitStrategy, EventBus... eventBuses) {
+        this("EventDispatcher", bufferSize, waitStrategy, eventBuses);
+    }
+
+    /**
+     * @param name 消费者线程名的前缀
+     */
+    public AsyncEventDispatcher(String name, int bufferSize, WaitStrategy waitStrategy, EventBus... eventBuses) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2: " + bufferSize);
+        }
+        if (eventBuses.length == 0) {
+            throw new IllegalArgumentException("at least one event bus is required");
+        }
+        this.name = name;
+        this.ring = new GameEvent[bufferSize];
+        this.mask = bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+        this.clearSlots = eventBuses.length == 1;
+        this.consumers = new EventConsumer[eventBuses.length];
+        for (int i = 0; i < eventBuses.length; i++) {
+            consumers[i] = new EventConsumer(eventBuses[i]);
+        }
+    }
+
+    public void start() {
+        running = true;
+        for (int i = 0; i < consumers.length; i++) {
+            Thread thread = new Thread(consumers[i], name + "-" + i);
+            thread.setDaemon(true);
+            consumers[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * 发布事件，缓冲区满时按等待策略等待最慢的消费者
+     *
+     * @throws IllegalStateException 未启动或已经停止，消费者不会再腾出槽位
+     */
+    public void publish(GameEvent event) {
+        if (!running) {
+            throw new IllegalStateException(name + " is not running");
+        }
+        long next = cursor.value + 1;
+        long wrapPoint = next - ring.length;
+        if (wrapPoint > gatingSequence) {
+            long min;
+            while (wrapPoint > (min = minConsumerSequence())) {
+                // 等待期间被停止时消费者退出后不会再推进序号
+                if (!running) {
+                    throw new IllegalStateException(name + " is not running");
+                }
+                waitStrategy.idle();
+            }
+            gatingSequence = min;
+        }
+        ring[(int) next & mask] = event;
+        // 有序写：槽位的写入先于序号对消费者可见
+        cursor.lazySet(next);
+    }
+
+    /**
+     * 停止分发，等待消费者处理完已发布的事件
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (EventConsumer consumer : consumers) {
+            if (consumer.thread != null) {
+                consumer.thread.join();
+            }
+        }
+        // 多个消费者时槽位在这里统一释放
+        Arrays.fill(ring, null);
+    }
+
+    private long minConsumerSequence() {
+        long min = Long.MAX_VALUE;
+        for (EventConsumer consumer : consumers) {
+            min = Math.min(min, consumer.sequence.value);
+        }
+        return min;
+    }
+
+    private class EventConsumer implements Runnable {
+
+        private final EventBus eventBus;
+
+        /** 已处理的最大序号 */
+        private final Sequence sequence = new Sequence();
+
+        private Thread thread;
+
+        EventConsumer(EventBus eventBus) {
+            this.eventBus = eventBus;
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.value + 1;
+            while (true) {
+                long available = cursor.value;
+                if (available < next) {
+                    if (!running && cursor.value < next) {
+                        return;
+                    }
+                    waitStrategy.idle();
+                    continue;
+                }
+                for (long s = next; s <= available; s++) {
+                    int index = (int) s & mask;
+                    dispatch(ring[index]);
+                    if (clearSlots) {
+                        ring[index] = null;
+                    }
+                }
+                sequence.lazySet(available);
+                next = available + 1;
+            }
+        }
+
+        private void dispatch(GameEvent event) {
+            try {
+                eventBus.notify(event);
+            } catch (RuntimeException e) {
+                // 单个监听器出错不影响后续事件
+                System.err.println("事件处理失败：" + event);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 带缓存行填充的序号，生产者和各消费者的序号不会落在同一缓存行上
+     */
+    @SuppressWarnings("unused")
+    private static final class Sequence {
+
+        private static final AtomicLongFieldUpdater<Sequence> VALUE =
+                AtomicLongFieldUpdater.newUpdater(Sequence.class, "value");
+
+        private long p1, p2, p3, p4, p5, p6, p7;
+        private volatile long value = -1;
+        private long p9, p10, p11, p12, p13, p14, p15;
+
+        void lazySet(long newValue) {
+            VALUE.lazySet(this, newValue);
+        }
+    }
+}
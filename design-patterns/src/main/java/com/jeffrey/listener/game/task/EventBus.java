@@ -0,0 +1,92 @@
+package com.jeffrey.listener.game.task;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 事件总线，按事件的Class分发
+ * 每种事件的监听器保存在写时复制的数组里：notify 只读一次 volatile 数组然后遍历，不加锁、不分配对象；
+ * register/unregister 用CAS整体替换数组，可以和 notify 并发执行，正在进行的分发继续使用旧数组。
+ */
+public class EventBus {
+
+    private static final GameEventListener[] EMPTY = new GameEventListener[0];
+
+    // ClassValue 按Class缓存监听器槽位，查找不需要计算哈希，也不需要加锁
+    private final ClassValue<ListenerSlot> slots = new ClassValue<ListenerSlot>() {
+        @Override
+        protected ListenerSlot computeValue(Class<?> eventType) {
+            return new ListenerSlot();
+        }
+    };
+
+    public void register(Class<? extends GameEvent> eventType, GameEventListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener");
+        }
+        slots.get(eventType).add(listener);
+    }
+
+    public boolean unregister(Class<? extends GameEvent> eventType, GameEventListener listener) {
+        return slots.get(eventType).remove(listener);
+    }
+
+    public void notify(GameEvent event) {
+        // 只匹配事件的实际类型，不向父类型的监听器分发
+        GameEventListener[] listeners = slots.get(event.getClass()).listeners;
+        for (GameEventListener listener : listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    public int listenerCount(Class<? extends GameEvent> eventType) {
+        return slots.get(eventType).listeners.length;
+    }
+
+    private static final class ListenerSlot {
+
+        private static final AtomicReferenceFieldUpdater<ListenerSlot, GameEventListener[]> LISTENERS =
+                AtomicReferenceFieldUpdater.newUpdater(ListenerSlot.class, GameEventListener[].class, "listeners");
+
+        private volatile GameEventListener[] listeners = EMPTY;
+
+        void add(GameEventListener listener) {
+            GameEventListener[] current;
+            GameEventListener[] updated;
+            do {
+                current = listeners;
+                updated = new GameEventListener[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, current.length);
+                updated[current.length] = listener;
+            } while (!LISTENERS.compareAndSet(this, current, updated));
+        }
+
+        boolean remove(GameEventListener listener) {
+            GameEventListener[] current;
+            GameEventListener[] updated;
+            do {
+                current = listeners;
+                int index = indexOf(current, listener);
+                if (index < 0) {
+                    return false;
+                }
+                if (current.length == 1) {
+                    updated = EMPTY;
+                } else {
+                    updated = new GameEventListener[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, index);
+                    System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                }
+            } while (!LISTENERS.compareAndSet(this, current, updated));
+            return true;
+        }
+
+        private static int indexOf(GameEventListener[] array, GameEventListener listener) {
+            for (int i = 0; i < array.length; i++) {
+                if (array[i] == listener) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
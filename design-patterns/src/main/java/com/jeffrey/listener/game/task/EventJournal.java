@@ -0,0 +1,472 @@
+package com.jeffrey.listener.game.task;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.zip.CRC32;
+
+/**
+ * 事件日志，重启后恢复任务进度
+ * 事件按发生顺序追加到内存映射的段文件(journal-起始序号.log)，追加只是一次内存拷贝；
+ * 后台线程每隔 commitIntervalMillis 把这段时间内追加的全部事件一次性刷盘(组提交)，多个事件共用一次 force。
+ * <p>
+ * 定期调用 {@link #writeSnapshot} 保存所有任务的进度和对应的事件序号，同时删除快照已覆盖的段文件和旧快照。
+ * 启动时 {@link #recover} 加载最新的快照，只重放快照之后的事件。
+ * <p>
+ * 记录格式: [4字节长度][4字节CRC32][8字节序号][事件类型][玩家ID][目标ID]，字符串为2字节长度加UTF-8；
+ * 长度最后写入，段文件中长度为0或CRC不符的位置就是日志末尾。
+ */
+public class EventJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".dat";
+    private static final int SNAPSHOT_MAGIC = 0x54534E50;
+
+    // 长度 + CRC + 序号
+    private static final int RECORD_HEADER = 16;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitIntervalMillis;
+
+    // 事件类型 -> 从(玩家ID, 目标ID)重建事件
+    private final Map<String, BiFunction<String, String, TargetedEvent>> eventFactories = new ConcurrentHashMap<>();
+
+    // 追加时先把记录编码到数组，整体计算CRC后一次写入映射缓冲区；受对象锁保护
+    private final CRC32 crc = new CRC32();
+    private byte[] writeScratch = new byte[256];
+
+    private MappedByteBuffer segment;
+    private long segmentFirstSeq;
+
+    // 已追加的最大序号
+    private long lastSeq;
+
+    // 已刷盘的最大序号，受 commitLock 保护
+    private final Object commitLock = new Object();
+    private volatile long committedSeq;
+
+    private Thread committer;
+    private volatile boolean closed;
+
+    public EventJournal(Path directory, int segmentSize, long commitIntervalMillis) {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitIntervalMillis = commitIntervalMillis;
+        registerEventType("KillMonster", KillMonsterEvent::new);
+    }
+
+    public void registerEventType(String eventType, BiFunction<String, String, TargetedEvent> factory) {
+        eventFactories.put(eventType, factory);
+    }
+
+    /**
+     * 找到日志末尾并启动组提交线程，之后才能追加
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments();
+        if (segments.isEmpty()) {
+            mapSegment(1);
+            lastSeq = 0;
+        } else {
+            long firstSeq = segments.get(segments.size() - 1);
+            MappedByteBuffer last = map(segmentPath(firstSeq));
+            lastSeq = firstSeq - 1;
+            RecordReader reader = new RecordReader();
+            while (true) {
+                long seq = readRecord(last, reader);
+                if (seq < 0) {
+                    break;
+                }
+                lastSeq = seq;
+            }
+            segment = last;
+            segmentFirstSeq = firstSeq;
+        }
+        committedSeq = lastSeq;
+
+        committer = new Thread(this::commitLoop, "EventJournal-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * 追加事件，返回分配的序号；调用返回时事件在页缓存中，由组提交线程刷盘
+     */
+    public synchronized long append(TargetedEvent event) throws IOException {
+        long seq = lastSeq + 1;
+        if (!tryWrite(segment, seq, event)) {
+            // 当前段写满，刷盘后切换到新段
+            segment.force();
+            mapSegment(seq);
+            if (!tryWrite(segment, seq, event)) {
+                throw new IOException("event larger than segment: " + event.getEventType());
+            }
+        }
+        lastSeq = seq;
+        return seq;
+    }
+
+    /**
+     * 立即刷盘已追加的全部事件
+     */
+    public void commit() {
+        MappedByteBuffer current;
+        long seq;
+        synchronized (this) {
+            current = segment;
+            seq = lastSeq;
+        }
+        synchronized (commitLock) {
+            // 刷盘期间追加不受阻塞，下一次提交一起刷
+            if (seq > committedSeq) {
+                current.force();
+                committedSeq = seq;
+            }
+        }
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    public long getCommittedSeq() {
+        return committedSeq;
+    }
+
+    /**
+     * 按顺序把序号大于 afterSeq 的事件交给监听器
+     *
+     * @return 重放的最后一个序号，没有事件时返回 afterSeq
+     */
+    public long replay(long afterSeq, GameEventListener listener) throws IOException {
+        List<Long> segments = listSegments();
+        RecordReader reader = new RecordReader();
+        long seq = afterSeq;
+        for (int i = 0; i < segments.size(); i++) {
+            // 整段都不晚于 afterSeq 时跳过
+            if (i + 1 < segments.size() && segments.get(i + 1) <= afterSeq + 1) {
+                continue;
+            }
+            MappedByteBuffer buffer = map(segmentPath(segments.get(i)));
+            while (true) {
+                long recordSeq = readRecord(buffer, reader);
+                if (recordSeq < 0) {
+                    break;
+                }
+                if (recordSeq <= afterSeq) {
+                    continue;
+                }
+                TargetedEvent event = decodeEvent(reader);
+                if (event != null) {
+                    listener.onEvent(event);
+                }
+                seq = recordSeq;
+            }
+        }
+        return seq;
+    }
+
+    /**
+     * 保存任务进度快照，对应已追加的最后一个事件；之后删除快照已覆盖的段文件和旧快照。
+     * 调用方需要保证此时没有线程在修改这些任务(例如在处理事件的线程上调用)。
+     */
+    public void writeSnapshot(Map<String, ? extends Collection<? extends Task>> tasksByPlayer) throws IOException {
+        long seq;
+        synchronized (this) {
+            seq = lastSeq;
+        }
+        // 快照之前的事件必须先落盘，否则崩溃后快照领先于日志
+        commit();
+
+        Path tmp = directory.resolve(SNAPSHOT_PREFIX + "tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(tmp)))) {
+            int count = 0;
+            for (Collection<? extends Task> tasks : tasksByPlayer.values()) {
+                count += tasks.size();
+            }
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(seq);
+            out.writeInt(count);
+            for (Map.Entry<String, ? extends Collection<? extends Task>> entry : tasksByPlayer.entrySet()) {
+                for (Task task : entry.getValue()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(task.getTaskId());
+                    out.writeInt(task.getProgress());
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, snapshotPath(seq), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteBefore(seq);
+    }
+
+    /**
+     * 启动时恢复任务进度：按最新快照恢复，未完成的任务放入索引，再重放快照之后的事件
+     *
+     * @return 恢复到的事件序号
+     */
+    public long recover(Map<String, ? extends Collection<? extends Task>> tasksByPlayer, TaskIndex taskIndex)
+            throws IOException {
+        Snapshot snapshot = loadLatestSnapshot();
+        for (Map.Entry<String, ? extends Collection<? extends Task>> entry : tasksByPlayer.entrySet()) {
+            for (Task task : entry.getValue()) {
+                Integer progress = snapshot.progress.get(entry.getKey() + '\u0000' + task.getTaskId());
+                if (progress != null) {
+                    task.restore(progress);
+                }
+                taskIndex.register(entry.getKey(), task);
+            }
+        }
+        return replay(snapshot.seq, taskIndex);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (committer != null) {
+            committer.interrupt();
+            try {
+                committer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (segment != null) {
+            commit();
+        }
+    }
+
+    private void commitLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(commitIntervalMillis);
+            } catch (InterruptedException e) {
+                break;
+            }
+            commit();
+        }
+    }
+
+    private boolean tryWrite(MappedByteBuffer buffer, long seq, TargetedEvent event) {
+        int length = encode(event);
+        if (buffer.remaining() < RECORD_HEADER + length) {
+            // 剩余空间不够，这个位置保持为0作为本段的结尾
+            return false;
+        }
+        int start = buffer.position();
+        crc.reset();
+        crc.update(writeScratch, 0, length);
+        buffer.position(start + 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.putLong(seq);
+        buffer.put(writeScratch, 0, length);
+        // 长度最后写入，记录完整后才可见
+        buffer.putInt(start, length);
+        return true;
+    }
+
+    private int encode(TargetedEvent event) {
+        int pos = putString(event.getEventType(), 0);
+        pos = putString(event.getPlayerId(), pos);
+        return putString(event.getTargetId(), pos);
+    }
+
+    private int putString(String value, int pos) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("string too long: " + bytes.length);
+        }
+        if (pos + 2 + bytes.length > writeScratch.length) {
+            writeScratch = Arrays.copyOf(writeScratch, Math.max(writeScratch.length * 2, pos + 2 + bytes.length));
+        }
+        writeScratch[pos] = (byte) (bytes.length >>> 8);
+        writeScratch[pos + 1] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, writeScratch, pos + 2, bytes.length);
+        return pos + 2 + bytes.length;
+    }
+
+    /**
+     * 读取 position 处的记录内容到 reader 并移到下一条，返回记录序号；到达末尾或记录损坏时返回-1，position 不变
+     */
+    private static long readRecord(MappedByteBuffer buffer, RecordReader reader) {
+        int start = buffer.position();
+        if (buffer.remaining() < RECORD_HEADER) {
+            return -1;
+        }
+        int length = buffer.getInt(start);
+        if (length <= 0 || length > buffer.remaining() - RECORD_HEADER) {
+            return -1;
+        }
+        if (!reader.read(buffer, start + RECORD_HEADER, length, buffer.getInt(start + 4))) {
+            buffer.position(start);
+            return -1;
+        }
+        return buffer.getLong(start + 8);
+    }
+
+    private TargetedEvent decodeEvent(RecordReader reader) {
+        String eventType = reader.readString();
+        String playerId = reader.readString();
+        String targetId = reader.readString();
+        BiFunction<String, String, TargetedEvent> factory = eventFactories.get(eventType);
+        return factory != null ? factory.apply(playerId, targetId) : null;
+    }
+
+    private void mapSegment(long firstSeq) throws IOException {
+        segment = map(segmentPath(firstSeq));
+        segmentFirstSeq = firstSeq;
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射在通道关闭后仍然有效
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private Snapshot loadLatestSnapshot() throws IOException {
+        List<Long> snapshots = listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try (InputStream in = Files.newInputStream(snapshotPath(snapshots.get(i)))) {
+                DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+                if (data.readInt() != SNAPSHOT_MAGIC) {
+                    continue;
+                }
+                long seq = data.readLong();
+                int count = data.readInt();
+                Map<String, Integer> progress = new HashMap<>(count * 2);
+                for (int j = 0; j < count; j++) {
+                    String playerId = data.readUTF();
+                    String taskId = data.readUTF();
+                    progress.put(playerId + '\u0000' + taskId, data.readInt());
+                }
+                return new Snapshot(seq, progress);
+            } catch (IOException e) {
+                // 损坏的快照跳过，使用更早的快照
+                System.err.println("快照损坏：" + snapshots.get(i) + "，" + e);
+            }
+        }
+        return new Snapshot(0, Collections.<String, Integer>emptyMap());
+    }
+
+    /**
+     * 删除旧快照和全部事件都不晚于 seq 的段文件，当前写入的段保留
+     */
+    private void deleteBefore(long seq) throws IOException {
+        for (Long snapshotSeq : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (snapshotSeq < seq) {
+                Files.deleteIfExists(snapshotPath(snapshotSeq));
+            }
+        }
+        long activeFirstSeq;
+        synchronized (this) {
+            activeFirstSeq = segmentFirstSeq;
+        }
+        List<Long> segments = listSegments();
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            long firstSeq = segments.get(i);
+            if (firstSeq != activeFirstSeq && segments.get(i + 1) <= seq + 1) {
+                Files.deleteIfExists(segmentPath(firstSeq));
+            }
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        return listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+    }
+
+    private List<Long> listFiles(String prefix, String suffix) throws IOException {
+        List<Long> seqs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    seqs.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // 不是日志文件
+                }
+            }
+        }
+        Collections.sort(seqs);
+        return seqs;
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+    }
+
+    private Path snapshotPath(long seq) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, seq, SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * 读取记录内容并校验CRC，字符串从复用的数组中解码
+     */
+    private static final class RecordReader {
+        private final CRC32 crc = new CRC32();
+        private byte[] bytes = new byte[256];
+        private int pos;
+
+        boolean read(MappedByteBuffer buffer, int offset, int length, int checksum) {
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(bytes.length * 2, length)];
+            }
+            buffer.position(offset);
+            buffer.get(bytes, 0, length);
+            crc.reset();
+            crc.update(bytes, 0, length);
+            pos = 0;
+            return (int) crc.getValue() == checksum;
+        }
+
+        String readString() {
+            int length = ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+            String value = new String(bytes, pos + 2, length, StandardCharsets.UTF_8);
+            pos += 2 + length;
+            return value;
+        }
+    }
+
+    private static final class Snapshot {
+        private final long seq;
+        // 玩家ID + '\0' + 任务ID -> 进度
+        private final Map<String, Integer> progress;
+
+        Snapshot(long seq, Map<String, Integer> progress) {
+            this.seq = seq;
+            this.progress = progress;
+        }
+    }
+}
@@ -3,16 +3,24 @@ package com.jeffrey.listener.game.task;
 public class GameMain {
 
     public static void main(String[] args) {
-        EventManager eventManager = new EventManager();
-        Player player = new Player();
+        EventBus eventBus = new EventBus();
+        TaskIndex taskIndex = new TaskIndex(eventBus);
+        Player player = new Player("player1");
 
-        Task killSlimeTask = new KillMonsterTask("slime", 3);
-        player.acceptTask(killSlimeTask, eventManager);
+        KillMonsterTask killSlimeTask = new KillMonsterTask("slime", 3);
+        player.acceptTask(killSlimeTask, taskIndex);
 
-        // 模拟击杀怪物事件
-        player.triggerEvent(new KillMonsterEvent("slime"), eventManager);
-        player.triggerEvent(new KillMonsterEvent("slime"), eventManager);
-        player.triggerEvent(new KillMonsterEvent("slime"), eventManager);
-        player.triggerEvent(new KillMonsterEvent("goblin"), eventManager); // 无效
+        // 模拟击杀怪物事件，第4次时任务已完成不再收到事件，goblin 无效
+        String[] kills = {"slime", "slime", "slime", "slime", "goblin"};
+        for (String monsterId : kills) {
+            int before = killSlimeTask.getProgress();
+            player.killMonster(monsterId, eventBus);
+            if (killSlimeTask.getProgress() != before) {
+                System.out.println("已击杀：" + killSlimeTask.getProgress() + "/" + killSlimeTask.getRequiredCount());
+                if (killSlimeTask.isCompleted()) {
+                    System.out.println("任务完成：击杀 slime");
+                }
+            }
+        }
     }
 }
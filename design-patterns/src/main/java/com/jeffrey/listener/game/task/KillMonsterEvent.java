@@ -1,10 +1,16 @@
 package com.jeffrey.listener.game.task;
 
-public class KillMonsterEvent implements GameEvent {
+public class KillMonsterEvent implements TargetedEvent {
 
+    private final String playerId;
     private final String monsterId;
 
     public KillMonsterEvent(String monsterId) {
+        this(null, monsterId);
+    }
+
+    public KillMonsterEvent(String playerId, String monsterId) {
+        this.playerId = playerId;
         this.monsterId = monsterId;
     }
 
@@ -12,6 +18,16 @@ public class KillMonsterEvent implements GameEvent {
         return monsterId;
     }
 
+    @Override
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    @Override
+    public String getTargetId() {
+        return monsterId;
+    }
+
     @Override
     public String getEventType() {
         return "KillMonster";
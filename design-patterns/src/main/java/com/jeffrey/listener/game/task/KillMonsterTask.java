@@ -1,16 +1,51 @@
 package com.jeffrey.listener.game.task;
 
 public class KillMonsterTask extends Task {
+    private final String taskId;
     private final String targetMonsterId;
     private final int requiredCount;
 
     private int currentCount = 0;
 
     public KillMonsterTask(String targetMonsterId, int requiredCount) {
+        this("kill_" + targetMonsterId, targetMonsterId, requiredCount);
+    }
+
+    public KillMonsterTask(String taskId, String targetMonsterId, int requiredCount) {
+        this.taskId = taskId;
         this.targetMonsterId = targetMonsterId;
         this.requiredCount = requiredCount;
     }
 
+    @Override
+    public String getTaskId() {
+        return taskId;
+    }
+
+    @Override
+    public Class<? extends TargetedEvent> getEventType() {
+        return KillMonsterEvent.class;
+    }
+
+    @Override
+    public String getTargetId() {
+        return targetMonsterId;
+    }
+
+    @Override
+    public int getProgress() {
+        return currentCount;
+    }
+
+    public int getRequiredCount() {
+        return requiredCount;
+    }
+
+    @Override
+    public void restore(int progress) {
+        currentCount = progress;
+        completed = currentCount >= requiredCount;
+    }
 
     @Override
     public void onEvent(GameEvent event) {
@@ -18,10 +53,8 @@ public class KillMonsterTask extends Task {
             KillMonsterEvent e = (KillMonsterEvent) event;
             if (e.getMonsterId().equals(targetMonsterId)) {
                 currentCount++;
-                System.out.println("已击杀：" + currentCount + "/" + requiredCount);
                 if (currentCount >= requiredCount) {
                     completed = true;
-                    System.out.println("任务完成：击杀 " + targetMonsterId);
                 }
             }
         }
@@ -4,14 +4,48 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Player {
+    private final String playerId;
     private List<Task> tasks = new ArrayList<>();
 
-    public void acceptTask(Task task, EventManager eventManager) {
+    public Player(String playerId) {
+        this.playerId = playerId;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public void acceptTask(Task task, EventBus eventBus) {
+        tasks.add(task);
+        eventBus.register(task.getEventType(), task);
+    }
+
+    // 按目标和玩家建立索引，事件只交给能推进的任务，完成后自动移除
+    public void acceptTask(Task task, TaskIndex taskIndex) {
+        tasks.add(task);
+        taskIndex.register(playerId, task);
+    }
+
+    public void killMonster(String monsterId, EventBus eventBus) {
+        eventBus.notify(new KillMonsterEvent(playerId, monsterId));
+    }
+
+    public void acceptTask(Task task, ShardedEventProcessor processor) {
         tasks.add(task);
-        eventManager.register("KillMonster", task);
+        processor.acceptTask(playerId, task);
+    }
+
+    // 分片模式：事件进入玩家所在分片，由分片线程推进任务
+    public void killMonster(String monsterId, ShardedEventProcessor processor) {
+        processor.publish(new KillMonsterEvent(playerId, monsterId));
+    }
+
+    public void triggerEvent(GameEvent event, EventBus eventBus) {
+        eventBus.notify(event);
     }
 
-    public void triggerEvent(GameEvent event, EventManager eventManager) {
-        eventManager.notify(event);
+    // 异步模式：只发布事件，任务统计在分发器的消费者线程上进行
+    public void triggerEvent(GameEvent event, AsyncEventDispatcher dispatcher) {
+        dispatcher.publish(event);
     }
 }
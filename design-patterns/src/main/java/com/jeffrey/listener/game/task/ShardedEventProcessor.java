@@ -0,0 +1,77 @@
+package com.jeffrey.listener.game.task;
+
+/**
+ * 按玩家分片的事件处理
+ * 玩家ID决定所在分片，每个分片有自己的 EventBus、TaskIndex 和单消费者的 AsyncEventDispatcher，
+ * 该分片玩家的任务状态只在分片线程上修改，不需要加锁；分片之间互不共享状态，可以在多个核上并行处理。
+ * <p>
+ * 同一玩家的事件总是进入同一分片的环形缓冲区，由同一线程按发布顺序处理，保证单个玩家的事件顺序。
+ * 多个线程可以同时发布事件：发布到同一分片的线程之间用分片锁保证环形缓冲区的单写者要求，
+ * 锁内只写一个槽位，不同分片的发布互不竞争。
+ */
+public class ShardedEventProcessor {
+
+    private final Shard[] shards;
+
+    public ShardedEventProcessor(int shardCount, int bufferSize, WaitStrategy waitStrategy) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard("EventShard-" + i, bufferSize, waitStrategy);
+        }
+    }
+
+    public void start() {
+        for (Shard shard : shards) {
+            shard.dispatcher.start();
+        }
+    }
+
+    /**
+     * 停止所有分片，等待已发布的事件处理完
+     */
+    public void shutdown() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * 把任务放入玩家所在分片的索引，之后只由该分片的线程推进
+     */
+    public void acceptTask(String playerId, Task task) {
+        shards[shardFor(playerId)].taskIndex.register(playerId, task);
+    }
+
+    public void publish(TargetedEvent event) {
+        Shard shard = shards[shardFor(event.getPlayerId())];
+        synchronized (shard) {
+            shard.dispatcher.publish(event);
+        }
+    }
+
+    public int shardFor(String playerId) {
+        // 打散哈希的高位，玩家ID相近时也能均匀分布
+        int h = playerId.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % shards.length;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private static final class Shard {
+
+        private final TaskIndex taskIndex;
+        private final AsyncEventDispatcher dispatcher;
+
+        Shard(String name, int bufferSize, WaitStrategy waitStrategy) {
+            EventBus eventBus = new EventBus();
+            this.taskIndex = new TaskIndex(eventBus);
+            this.dispatcher = new AsyncEventDispatcher(name, bufferSize, waitStrategy, eventBus);
+        }
+    }
+}
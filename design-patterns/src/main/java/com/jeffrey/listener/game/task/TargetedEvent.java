@@ -0,0 +1,8 @@
+package com.jeffrey.listener.game.task;
+
+// 带有玩家和目标的事件，TaskIndex 按(事件类型, 目标ID, 玩家ID)把它只交给能推进的任务
+public interface TargetedEvent extends GameEvent {
+    String getPlayerId();
+
+    String getTargetId(); // 怪物ID、道具ID等
+}
@@ -7,5 +7,18 @@ public abstract class Task implements GameEventListener {
         return completed;
     }
 
+    // 玩家范围内唯一，快照按(玩家ID, 任务ID)保存进度
+    public abstract String getTaskId();
+
+    // 任务关心的事件类型和目标，TaskIndex 按它们建立索引
+    public abstract Class<? extends TargetedEvent> getEventType();
+
+    public abstract String getTargetId();
+
+    public abstract int getProgress();
+
+    // 从快照恢复进度，同时恢复完成状态
+    public abstract void restore(int progress);
+
     public abstract void onEvent(GameEvent event);
 }
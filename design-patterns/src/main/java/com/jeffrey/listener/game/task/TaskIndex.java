@@ -0,0 +1,126 @@
+package com.jeffrey.listener.game.task;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务索引，按(事件类型, 目标ID, 玩家ID)保存进行中的任务
+ * 作为一个监听器注册到 EventBus，事件只交给同一玩家、同一目标的任务，分发成本与匹配的任务数成正比，
+ * 而不是与全服进行中的任务总数成正比。任务完成后自动从索引中移除，不再收到事件。
+ * <p>
+ * 同一玩家同一目标的任务保存在写时复制的数组中，分发时不加锁、不分配对象。
+ */
+public class TaskIndex implements GameEventListener {
+
+    private static final Task[] EMPTY = new Task[0];
+
+    // 事件类型 -> 目标ID -> 玩家ID -> 任务
+    private final ClassValue<Map<String, Map<String, Task[]>>> index =
+            new ClassValue<Map<String, Map<String, Task[]>>>() {
+                @Override
+                protected Map<String, Map<String, Task[]>> computeValue(Class<?> eventType) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    // 监听事件的总线，每种事件类型只注册一次
+    private final EventBus eventBus;
+    private final Set<Class<?>> subscribedTypes = ConcurrentHashMap.newKeySet();
+
+    // 任务进度变化后记为脏数据，可以为null
+    private final TaskProgressStore progressStore;
+
+    public TaskIndex(EventBus eventBus) {
+        this(eventBus, null);
+    }
+
+    public TaskIndex(EventBus eventBus, TaskProgressStore progressStore) {
+        this.eventBus = eventBus;
+        this.progressStore = progressStore;
+    }
+
+    public void register(String playerId, Task task) {
+        if (task.isCompleted()) {
+            return;
+        }
+        if (subscribedTypes.add(task.getEventType())) {
+            eventBus.register(task.getEventType(), this);
+        }
+        // 目标ID来自配置，数量有限，目标一级的表创建后不删除，避免与并发注册竞争
+        index.get(task.getEventType())
+                .computeIfAbsent(task.getTargetId(), targetId -> new ConcurrentHashMap<>())
+                .merge(playerId, new Task[] {task}, TaskIndex::concat);
+    }
+
+    public boolean unregister(String playerId, Task task) {
+        Map<String, Task[]> byPlayer = index.get(task.getEventType()).get(task.getTargetId());
+        if (byPlayer == null) {
+            return false;
+        }
+        boolean[] removed = new boolean[1];
+        byPlayer.computeIfPresent(playerId, (id, tasks) -> {
+            Task[] remaining = remove(tasks, task);
+            removed[0] = remaining != tasks;
+            // 返回null时移除该玩家的条目
+            return remaining.length == 0 ? null : remaining;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        if (!(event instanceof TargetedEvent)) {
+            return;
+        }
+        TargetedEvent targeted = (TargetedEvent) event;
+        String playerId = targeted.getPlayerId();
+        String targetId = targeted.getTargetId();
+        if (playerId == null || targetId == null) {
+            return;
+        }
+        Map<String, Task[]> byPlayer = index.get(event.getClass()).get(targetId);
+        Task[] tasks = byPlayer != null ? byPlayer.get(playerId) : null;
+        if (tasks == null) {
+            return;
+        }
+        for (Task task : tasks) {
+            int progress = task.getProgress();
+            task.onEvent(event);
+            if (progressStore != null && task.getProgress() != progress) {
+                progressStore.markDirty(playerId, task);
+            }
+            if (task.isCompleted()) {
+                unregister(playerId, task);
+            }
+        }
+    }
+
+    public int taskCount(Class<? extends TargetedEvent> eventType, String targetId, String playerId) {
+        Map<String, Task[]> byPlayer = index.get(eventType).get(targetId);
+        Task[] tasks = byPlayer != null ? byPlayer.get(playerId) : null;
+        return tasks != null ? tasks.length : 0;
+    }
+
+    private static Task[] concat(Task[] current, Task[] added) {
+        Task[] updated = new Task[current.length + added.length];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        System.arraycopy(added, 0, updated, current.length, added.length);
+        return updated;
+    }
+
+    private static Task[] remove(Task[] current, Task task) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == task) {
+                if (current.length == 1) {
+                    return EMPTY;
+                }
+                Task[] updated = new Task[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                return updated;
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,330 @@
+package com.jeffrey.listener.game.task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * 任务进度的延迟批量持久化(write-behind)
+ * 游戏线程推进任务后只调用 {@link #markDirty} 记下最新进度，同一任务在一次刷盘前的多次变化合并为一条；
+ * 后台线程每隔 flushIntervalMillis(持久化窗口，崩溃时最多丢失这段时间的进度)或脏数据达到 flushThreshold 时，
+ * 把全部脏进度作为一批追加到本地文件并 force，游戏线程不做任何磁盘IO。
+ * <p>
+ * 文件由批次组成: [4字节长度][4字节CRC32][若干条(玩家ID, 任务ID, 进度)]，启动时按顺序读取，后写的覆盖先写的，
+ * 不完整或校验失败的批次及其之后的内容被截掉。文件中的记录超过存活条目的两倍时在后台重写压缩。
+ */
+public class TaskProgressStore implements Closeable {
+
+    private final Path file;
+    private final long flushIntervalMillis;
+    private final int flushThreshold;
+
+    // 玩家ID + '\0' + 任务ID -> 尚未刷盘的最新进度
+    private final ConcurrentHashMap<String, Integer> dirty = new ConcurrentHashMap<>();
+
+    // 已持久化的进度，由 flush 在对象锁内修改，restore 时读取
+    private final Map<String, Integer> persisted = new HashMap<>();
+    private long recordsInFile;
+
+    private FileChannel channel;
+    private Thread flusher;
+    private volatile boolean closed;
+
+    // 刷盘统计
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedRecords = new AtomicLong();
+    private final AtomicLong coalescedUpdates = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    public TaskProgressStore(Path file, long flushIntervalMillis, int flushThreshold) {
+        this.file = file;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * 加载已持久化的进度并启动刷盘线程
+     */
+    public synchronized void open() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validLength = load();
+        if (validLength < channel.size()) {
+            // 截掉崩溃时写了一半的批次
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+
+        flusher = new Thread(this::flushLoop, "TaskProgressStore-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 恢复任务进度，没有持久化记录时保持不变
+     */
+    public void restore(String playerId, Collection<? extends Task> tasks) {
+        synchronized (persisted) {
+            for (Task task : tasks) {
+                Integer progress = persisted.get(key(playerId, task.getTaskId()));
+                if (progress != null) {
+                    task.restore(progress);
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录任务的最新进度，在修改任务的线程上调用；只写内存，刷盘由后台线程完成
+     */
+    public void markDirty(String playerId, Task task) {
+        if (dirty.put(key(playerId, task.getTaskId()), task.getProgress()) != null) {
+            coalescedUpdates.incrementAndGet();
+        } else if (dirty.size() >= flushThreshold) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    /**
+     * 把当前的脏进度刷盘，刷盘线程定期调用；关闭时也会调用一次
+     */
+    public synchronized void flush() throws IOException {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(dirty.size() * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        Map<String, Integer> batch = new HashMap<>(dirty.size() * 2);
+        for (Map.Entry<String, Integer> entry : dirty.entrySet()) {
+            String key = entry.getKey();
+            Integer progress = entry.getValue();
+            // 只在值未被再次更新时移除，之后的更新留给下一批
+            dirty.remove(key, progress);
+            batch.put(key, progress);
+            writeRecord(out, key, progress);
+        }
+        out.flush();
+
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        buffer.flip();
+        long position = channel.position();
+        try {
+            write(channel, buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            // 截掉写了一半的批次，否则之后的批次接在坏数据后面，重启时会和它一起被截掉
+            try {
+                channel.truncate(position);
+                channel.position(position);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            // 放回脏数据等下次重试，期间更新过的以新值为准
+            for (Map.Entry<String, Integer> entry : batch.entrySet()) {
+                dirty.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            throw e;
+        }
+
+        synchronized (persisted) {
+            persisted.putAll(batch);
+        }
+        recordsInFile += batch.size();
+        if (recordsInFile > persisted.size() * 2L + 1024) {
+            compact();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        flushCount.incrementAndGet();
+        flushedRecords.addAndGet(batch.size());
+        totalFlushNanos.addAndGet(elapsed);
+        lastFlushNanos = elapsed;
+        long max;
+        while (elapsed > (max = maxFlushNanos.get()) && !maxFlushNanos.compareAndSet(max, elapsed)) {
+            // 重试直到更新成功或有更大的值
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null) {
+            flush();
+            channel.close();
+        }
+    }
+
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedRecords() {
+        return flushedRecords.get();
+    }
+
+    // 刷盘前被合并掉的更新次数
+    public long getCoalescedUpdates() {
+        return coalescedUpdates.get();
+    }
+
+    public long getAverageFlushMicros() {
+        long count = flushCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalFlushNanos.get() / count);
+    }
+
+    public long getLastFlushMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastFlushNanos);
+    }
+
+    public long getMaxFlushMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxFlushNanos.get());
+    }
+
+    private void flushLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (!closed) {
+            // 到达间隔或脏数据超过阈值时被唤醒
+            LockSupport.parkNanos(this, intervalNanos);
+            if (closed) {
+                break;
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                // 脏数据留在内存中，下次继续重试
+                System.err.println("任务进度刷盘失败：" + e);
+            }
+        }
+    }
+
+    /**
+     * 读取文件中完整的批次，返回有效内容的长度
+     */
+    private long load() throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        CRC32 crc = new CRC32();
+        long records = 0;
+        synchronized (persisted) {
+            persisted.clear();
+            while (buffer.remaining() >= 8) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    buffer.position(start);
+                    break;
+                }
+                crc.reset();
+                crc.update(content, buffer.position(), length);
+                if ((int) crc.getValue() != checksum) {
+                    buffer.position(start);
+                    break;
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, buffer.position(), length));
+                while (in.available() > 0) {
+                    String key = in.readUTF();
+                    persisted.put(key, in.readInt());
+                    records++;
+                }
+                buffer.position(buffer.position() + length);
+            }
+        }
+        recordsInFile = records;
+        return buffer.position();
+    }
+
+    /**
+     * 只保留每个任务的最新进度，写到临时文件后原子替换
+     */
+    private void compact() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(persisted.size() * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        synchronized (persisted) {
+            for (Map.Entry<String, Integer> entry : persisted.entrySet()) {
+                writeRecord(out, entry.getKey(), entry.getValue());
+            }
+        }
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                tmpChannel.write(buffer);
+            }
+            tmpChannel.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recordsInFile = persisted.size();
+        } finally {
+            // 替换失败时重新打开原文件，之后的刷盘继续追加
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+    }
+
+    /**
+     * 把一个批次完整写入文件，测试中覆盖以模拟写了一半后失败
+     */
+    void write(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, String key, int progress) throws IOException {
+        out.writeUTF(key);
+        out.writeInt(progress);
+    }
+
+    private static String key(String playerId, String taskId) {
+        return playerId + '\u0000' + taskId;
+    }
+}
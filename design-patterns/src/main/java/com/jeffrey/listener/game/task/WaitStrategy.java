@@ -0,0 +1,37 @@
+package com.jeffrey.listener.game.task;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 环形缓冲区的等待策略，消费者等待新事件、生产者等待空槽位时使用
+ */
+public enum WaitStrategy {
+
+    /** 一直自旋，延迟最低，但每个消费者占满一个CPU核，只适合核数富余的机器 */
+    BUSY_SPIN {
+        @Override
+        void idle() {
+        }
+    },
+
+    /** 自旋时让出CPU，延迟较低，空闲时仍有CPU开销 */
+    YIELD {
+        @Override
+        void idle() {
+            Thread.yield();
+        }
+    },
+
+    /** 短暂休眠，空闲时几乎不占CPU，延迟为休眠的粒度 */
+    PARK {
+        @Override
+        void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    abstract void idle();
+}
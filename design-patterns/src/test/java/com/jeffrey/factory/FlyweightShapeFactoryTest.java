@@ -0,0 +1,76 @@
+package com.jeffrey.factory;
+
+import junit.framework.TestCase;
+
+public class FlyweightShapeFactoryTest extends TestCase {
+
+    public void testTemplatesAreSharedPerTypeAndColor() {
+        FlyweightShapeFactory factory = FlyweightShapeFactory.withDefaultShapes();
+        ShapeTemplate red = factory.template("circle", "red");
+        assertSame(red, factory.template("CIRCLE", "red"));
+        assertNotSame(red, factory.template("circle", "blue"));
+        assertNotSame(red, factory.template("square", "red"));
+        assertEquals(3, factory.templateCount());
+        assertEquals("circle", red.getType());
+        assertTrue(red.getShape() instanceof Circle);
+        assertEquals(64, red.getVertexCount());
+        assertNull(factory.template("triangle", "red"));
+        assertNull(factory.spawn("triangle", "red", 0, 0));
+    }
+
+    public void testHandlesCarryOnlyExtrinsicState() {
+        FlyweightShapeFactory factory = FlyweightShapeFactory.withDefaultShapes();
+        PlacedShape[] shapes = new PlacedShape[10000];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = factory.spawn("rectangle", "green", i, -i);
+        }
+        assertEquals(1, factory.templateCount());
+        for (int i = 0; i < shapes.length; i++) {
+            assertSame(shapes[0].getTemplate(), shapes[i].getTemplate());
+            assertEquals((float) i, shapes[i].getX());
+        }
+
+        PlacedShape shape = shapes[3];
+        shape.setScale(2f);
+        shape.moveTo(10f, 20f);
+        // 顶点0为 (-1, -0.5)
+        assertEquals(8f, shape.worldX(0));
+        assertEquals(19f, shape.worldY(0));
+        assertEquals(3f, shapes[4].worldX(0));
+    }
+
+    public void testOutlineCannotBeModifiedThroughTemplate() {
+        FlyweightShapeFactory factory = new FlyweightShapeFactory(RegistryShapeFactory.withDefaultShapes());
+        float[] outline = {0f, 0f, 1f, 0f, 0f, 1f};
+        factory.defineType("square", outline);
+        outline[0] = 99f;
+        ShapeTemplate template = factory.template("square", "red");
+        template.copyOutline()[0] = 99f;
+        assertEquals(0f, template.getVertexX(0));
+        assertEquals(3, template.getVertexCount());
+    }
+
+    public void testPooledProductNotTakenFromPool() {
+        RegistryShapeFactory products = new RegistryShapeFactory();
+        int id = products.registerPooled("square", Square::new, 4);
+        products.release(id, new Square());
+        FlyweightShapeFactory factory = new FlyweightShapeFactory(products);
+        factory.defineType("square", new float[]{0f, 0f, 1f, 0f, 1f, 1f});
+
+        assertTrue(factory.template("square", "red").getShape() instanceof Square);
+        assertNotNull(factory.template("square", "blue"));
+        assertEquals(1, products.idleCount(id));
+        assertEquals(0, products.createdCount(id));
+        assertEquals(0, products.reusedCount(id));
+    }
+
+    public void testUndefinedProductRejected() {
+        FlyweightShapeFactory factory = new FlyweightShapeFactory(new RegistryShapeFactory());
+        try {
+            factory.defineType("circle", new float[]{0f, 0f});
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // 产品需要先在注册表中注册
+        }
+    }
+}
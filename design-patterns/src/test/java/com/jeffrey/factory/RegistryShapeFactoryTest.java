@@ -0,0 +1,99 @@
+package com.jeffrey.factory;
+
+import junit.framework.TestCase;
+
+public class RegistryShapeFactoryTest extends TestCase {
+
+    public void testResolvesNamesLikeIfChainFactory() {
+        RegistryShapeFactory factory = RegistryShapeFactory.withDefaultShapes();
+        ShapeFactory legacy = new ShapeFactory();
+        for (String name : new String[]{"circle", "CIRCLE", "Square", "rectangle", "triangle", null}) {
+            Shape expected = legacy.getShape(name);
+            Shape actual = factory.getShape(name);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertEquals(expected.getClass(), actual.getClass());
+            }
+        }
+        assertEquals(RegistryShapeFactory.SQUARE, factory.idOf("SQUARE"));
+        assertTrue(factory.getShape(RegistryShapeFactory.RECTANGLE) instanceof Rectangle);
+        assertNull(factory.getShape(3));
+        assertEquals(-1, factory.idOf("triangle"));
+    }
+
+    public void testDuplicateNameRejected() {
+        RegistryShapeFactory factory = RegistryShapeFactory.withDefaultShapes();
+        try {
+            factory.register("Circle", Circle::new);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // 名称忽略大小写
+        }
+    }
+
+    public void testPrototypeIsCloned() {
+        RegistryShapeFactory factory = new RegistryShapeFactory();
+        Monster boss = new Monster();
+        boss.hp = 5000;
+        int id = factory.registerPrototype("boss", boss, Monster::copy);
+
+        Monster first = (Monster) factory.getShape(id);
+        Monster second = (Monster) factory.getShape("BOSS");
+        assertNotSame(boss, first);
+        assertNotSame(first, second);
+        assertEquals(5000, first.hp);
+        first.hp = 1;
+        assertEquals(5000, second.hp);
+        assertEquals(5000, boss.hp);
+    }
+
+    public void testPooledProductsAreResetAndReused() {
+        RegistryShapeFactory factory = new RegistryShapeFactory();
+        int id = factory.registerPooled("monster", Monster::new, 2);
+
+        Monster a = (Monster) factory.getShape(id);
+        Monster b = (Monster) factory.getShape(id);
+        Monster c = (Monster) factory.getShape(id);
+        a.hp = 10;
+        assertTrue(factory.release(id, a));
+        assertTrue(factory.release(id, b));
+        // 超过 maxIdle 的对象不进池
+        assertFalse(factory.release(id, c));
+        assertEquals(2, factory.idleCount(id));
+
+        Monster reused = (Monster) factory.getShape(id);
+        assertSame(b, reused);
+        assertSame(a, factory.getShape(id));
+        assertEquals(0, a.hp);
+        assertEquals(3, factory.createdCount(id));
+        assertEquals(2, factory.reusedCount(id));
+        assertEquals(0, factory.idleCount(id));
+    }
+
+    public void testReleaseOfUnpooledTypeIsIgnored() {
+        RegistryShapeFactory factory = RegistryShapeFactory.withDefaultShapes();
+        assertFalse(factory.release(RegistryShapeFactory.CIRCLE, new Circle()));
+        assertFalse(factory.release(42, new Circle()));
+    }
+
+    static class Monster implements Shape, Poolable {
+
+        int hp;
+
+        Monster copy() {
+            Monster monster = new Monster();
+            monster.hp = hp;
+            return monster;
+        }
+
+        @Override
+        public void draw() {
+        }
+
+        @Override
+        public void reset() {
+            hp = 0;
+        }
+    }
+}
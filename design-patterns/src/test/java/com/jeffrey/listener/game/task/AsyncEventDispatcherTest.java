@@ -0,0 +1,77 @@
+package com.jeffrey.listener.game.task;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AsyncEventDispatcherTest extends TestCase {
+
+    public void testEveryConsumerSeesAllEventsInOrder() throws InterruptedException {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            List<String> first = new ArrayList<>();
+            List<String> second = new ArrayList<>();
+            EventBus firstBus = new EventBus();
+            firstBus.register(KillMonsterEvent.class, event -> first.add(((KillMonsterEvent) event).getMonsterId()));
+            EventBus secondBus = new EventBus();
+            secondBus.register(KillMonsterEvent.class, event -> second.add(((KillMonsterEvent) event).getMonsterId()));
+
+            // 缓冲区比事件数小得多，生产者需要多次等待消费者
+            AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(8, waitStrategy, firstBus, secondBus);
+            dispatcher.start();
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                expected.add("monster-" + i);
+                dispatcher.publish(new KillMonsterEvent("monster-" + i));
+            }
+            dispatcher.shutdown();
+
+            assertEquals(waitStrategy.name(), expected, first);
+            assertEquals(waitStrategy.name(), expected, second);
+        }
+    }
+
+    public void testListenerFailureDoesNotStopConsumer() throws InterruptedException {
+        EventBus eventBus = new EventBus();
+        KillMonsterTask task = new KillMonsterTask("slime", 2);
+        eventBus.register(KillMonsterEvent.class, event -> {
+            if (((KillMonsterEvent) event).getMonsterId().equals("boom")) {
+                throw new IllegalStateException("boom");
+            }
+        });
+        eventBus.register(KillMonsterEvent.class, task);
+
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, WaitStrategy.PARK, eventBus);
+        dispatcher.start();
+        Player player = new Player("player1");
+        player.triggerEvent(new KillMonsterEvent("slime"), dispatcher);
+        player.triggerEvent(new KillMonsterEvent("boom"), dispatcher);
+        player.triggerEvent(new KillMonsterEvent("slime"), dispatcher);
+        dispatcher.shutdown();
+
+        assertTrue(task.isCompleted());
+    }
+
+    public void testPublishAfterShutdownRejected() throws InterruptedException {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, WaitStrategy.PARK, new EventBus());
+        dispatcher.start();
+        for (int i = 0; i < 8; i++) {
+            dispatcher.publish(new KillMonsterEvent("slime"));
+        }
+        dispatcher.shutdown();
+        // 缓冲区已经绕过一圈，没有检查时会一直等待已退出的消费者
+        try {
+            dispatcher.publish(new KillMonsterEvent("slime"));
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    public void testBufferSizeMustBePowerOfTwo() {
+        try {
+            new AsyncEventDispatcher(6, WaitStrategy.PARK, new EventBus());
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.jeffrey.listener.game.task;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventBusTest extends TestCase {
+
+    public void testNotifyByEventClass() {
+        EventBus eventBus = new EventBus();
+        KillMonsterTask task = new KillMonsterTask("slime", 2);
+        eventBus.register(KillMonsterEvent.class, task);
+
+        eventBus.notify(new KillMonsterEvent("slime"));
+        assertFalse(task.isCompleted());
+        eventBus.notify(new KillMonsterEvent("slime"));
+        assertTrue(task.isCompleted());
+    }
+
+    public void testUnregister() {
+        EventBus eventBus = new EventBus();
+        AtomicInteger count = new AtomicInteger();
+        GameEventListener first = event -> count.incrementAndGet();
+        GameEventListener second = event -> count.addAndGet(10);
+        eventBus.register(KillMonsterEvent.class, first);
+        eventBus.register(KillMonsterEvent.class, second);
+
+        assertTrue(eventBus.unregister(KillMonsterEvent.class, first));
+        assertFalse(eventBus.unregister(KillMonsterEvent.class, first));
+        eventBus.notify(new KillMonsterEvent("slime"));
+        assertEquals(10, count.get());
+        assertEquals(1, eventBus.listenerCount(KillMonsterEvent.class));
+    }
+
+    public void testRegisterDuringNotifyTakesEffectNextTime() {
+        EventBus eventBus = new EventBus();
+        AtomicInteger count = new AtomicInteger();
+        GameEventListener counter = event -> count.incrementAndGet();
+        eventBus.register(KillMonsterEvent.class, event -> eventBus.register(KillMonsterEvent.class, counter));
+
+        // 分发中注册的监听器不影响本次分发
+        eventBus.notify(new KillMonsterEvent("slime"));
+        assertEquals(0, count.get());
+        eventBus.notify(new KillMonsterEvent("slime"));
+        assertEquals(1, count.get());
+    }
+
+    public void testConcurrentRegister() throws InterruptedException {
+        EventBus eventBus = new EventBus();
+        int threads = 4;
+        int perThread = 1000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    eventBus.register(KillMonsterEvent.class, event -> { });
+                    eventBus.notify(new KillMonsterEvent("slime"));
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        assertEquals(threads * perThread, eventBus.listenerCount(KillMonsterEvent.class));
+    }
+}
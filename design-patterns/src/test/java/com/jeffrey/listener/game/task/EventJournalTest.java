@@ -0,0 +1,143 @@
+package com.jeffrey.listener.game.task;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class EventJournalTest extends TestCase {
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    @Override
+    protected void tearDown() {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+
+    public void testRecoverFromSnapshotAndTail() throws IOException {
+        EventJournal journal = new EventJournal(directory, 1024, 10);
+        journal.open();
+        EventBus eventBus = new EventBus();
+        TaskIndex taskIndex = new TaskIndex(eventBus);
+        KillMonsterTask slime = new KillMonsterTask("slime", 100);
+        KillMonsterTask goblin = new KillMonsterTask("goblin", 3);
+        taskIndex.register("alice", slime);
+        taskIndex.register("alice", goblin);
+        Map<String, List<Task>> tasks = Collections.singletonMap("alice", Arrays.<Task>asList(slime, goblin));
+
+        // 小段文件，追加过程中多次换段
+        for (int i = 0; i < 40; i++) {
+            kill(journal, eventBus, "alice", "slime");
+        }
+        kill(journal, eventBus, "alice", "goblin");
+        journal.writeSnapshot(tasks);
+        for (int i = 0; i < 10; i++) {
+            kill(journal, eventBus, "alice", "slime");
+        }
+        kill(journal, eventBus, "alice", "goblin");
+        kill(journal, eventBus, "alice", "goblin");
+        kill(journal, eventBus, "bob", "goblin");
+        journal.close();
+        assertEquals(54, journal.getCommittedSeq());
+
+        // 重启：新建任务对象，从快照和之后的事件恢复
+        EventJournal reopened = new EventJournal(directory, 1024, 10);
+        reopened.open();
+        TaskIndex recoveredIndex = new TaskIndex(new EventBus());
+        KillMonsterTask recoveredSlime = new KillMonsterTask("slime", 100);
+        KillMonsterTask recoveredGoblin = new KillMonsterTask("goblin", 3);
+        Map<String, Collection<Task>> recoveredTasks = new HashMap<>();
+        recoveredTasks.put("alice", Arrays.<Task>asList(recoveredSlime, recoveredGoblin));
+        assertEquals(54, reopened.recover(recoveredTasks, recoveredIndex));
+
+        assertEquals(50, recoveredSlime.getProgress());
+        assertEquals(3, recoveredGoblin.getProgress());
+        assertTrue(recoveredGoblin.isCompleted());
+        assertEquals(0, recoveredIndex.taskCount(KillMonsterEvent.class, "goblin", "alice"));
+
+        // 恢复后继续追加，序号接着之前的日志
+        assertEquals(55, reopened.append(new KillMonsterEvent("alice", "slime")));
+        reopened.close();
+    }
+
+    public void testSnapshotDeletesCoveredSegments() throws IOException {
+        EventJournal journal = new EventJournal(directory, 1024, 10);
+        journal.open();
+        for (int i = 0; i < 100; i++) {
+            journal.append(new KillMonsterEvent("alice", "slime"));
+        }
+        int before = countFiles("journal-");
+        assertTrue(before > 2);
+
+        journal.writeSnapshot(Collections.<String, List<Task>>emptyMap());
+        assertEquals(1, countFiles("journal-"));
+        assertEquals(1, countFiles("snapshot-"));
+
+        // 快照之后没有事件，重放不产生任何事件
+        final int[] replayed = new int[1];
+        assertEquals(100, journal.replay(100, event -> replayed[0]++));
+        assertEquals(0, replayed[0]);
+        journal.close();
+    }
+
+    public void testTornTailIgnored() throws IOException {
+        EventJournal journal = new EventJournal(directory, 4096, 10);
+        journal.open();
+        for (int i = 0; i < 5; i++) {
+            journal.append(new KillMonsterEvent("alice", "slime"));
+        }
+        journal.close();
+
+        // 破坏最后一条记录的内容，CRC不符，视为日志末尾
+        Path segment = directory.resolve(String.format("journal-%020d.log", 1));
+        byte[] bytes = Files.readAllBytes(segment);
+        int recordLength = 16 + 2 + "KillMonster".length() + 2 + "alice".length() + 2 + "slime".length();
+        bytes[recordLength * 4 + 20] ^= 0x7F;
+        Files.write(segment, bytes);
+
+        EventJournal reopened = new EventJournal(directory, 4096, 10);
+        reopened.open();
+        assertEquals(4, reopened.getLastSeq());
+        assertEquals(5, reopened.append(new KillMonsterEvent("alice", "goblin")));
+        final String[] last = new String[1];
+        reopened.replay(0, event -> last[0] = ((KillMonsterEvent) event).getMonsterId());
+        assertEquals("goblin", last[0]);
+        reopened.close();
+    }
+
+    private static void kill(EventJournal journal, EventBus eventBus, String playerId, String monsterId)
+            throws IOException {
+        KillMonsterEvent event = new KillMonsterEvent(playerId, monsterId);
+        journal.append(event);
+        eventBus.notify(event);
+    }
+
+    private int countFiles(String prefix) {
+        int count = 0;
+        for (String name : directory.toFile().list()) {
+            if (name.startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
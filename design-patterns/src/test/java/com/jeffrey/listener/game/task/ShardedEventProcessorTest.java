@@ -0,0 +1,103 @@
+package com.jeffrey.listener.game.task;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class ShardedEventProcessorTest extends TestCase {
+
+    public void testPerPlayerOrderAcrossShards() throws InterruptedException {
+        ShardedEventProcessor processor = new ShardedEventProcessor(4, 16, WaitStrategy.PARK);
+        int playerCount = 20;
+        int killsPerPlayer = 200;
+        RecordingTask[] tasks = new RecordingTask[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            tasks[i] = new RecordingTask();
+            processor.acceptTask("player" + i, tasks[i]);
+        }
+        processor.start();
+
+        // 两个线程各自发布一半玩家的事件
+        int producers = 2;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int first = p;
+            new Thread(() -> {
+                for (int kill = 0; kill < killsPerPlayer; kill++) {
+                    for (int i = first; i < playerCount; i += producers) {
+                        processor.publish(new SeqEvent("player" + i, kill));
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        processor.shutdown();
+
+        for (int i = 0; i < playerCount; i++) {
+            List<Integer> seqs = tasks[i].seqs;
+            assertEquals(killsPerPlayer, seqs.size());
+            for (int kill = 0; kill < killsPerPlayer; kill++) {
+                assertEquals(kill, seqs.get(kill).intValue());
+            }
+        }
+    }
+
+    public void testPlayerAlwaysMapsToSameShard() {
+        ShardedEventProcessor processor = new ShardedEventProcessor(8, 16, WaitStrategy.PARK);
+        boolean[] used = new boolean[processor.getShardCount()];
+        for (int i = 0; i < 1000; i++) {
+            int shard = processor.shardFor("player" + i);
+            assertEquals(shard, processor.shardFor("player" + i));
+            used[shard] = true;
+        }
+        for (boolean shardUsed : used) {
+            assertTrue(shardUsed);
+        }
+    }
+
+    private static class SeqEvent extends KillMonsterEvent {
+        private final int seq;
+
+        SeqEvent(String playerId, int seq) {
+            super(playerId, "slime");
+            this.seq = seq;
+        }
+    }
+
+    private static class RecordingTask extends Task {
+        // 只在分片线程上修改，shutdown 等待分片线程结束后读取
+        private final List<Integer> seqs = new ArrayList<>();
+
+        @Override
+        public String getTaskId() {
+            return "test";
+        }
+
+        @Override
+        public int getProgress() {
+            return seqs.size();
+        }
+
+        @Override
+        public void restore(int progress) {
+        }
+
+        @Override
+        public Class<? extends TargetedEvent> getEventType() {
+            return SeqEvent.class;
+        }
+
+        @Override
+        public String getTargetId() {
+            return "slime";
+        }
+
+        @Override
+        public void onEvent(GameEvent event) {
+            seqs.add(((SeqEvent) event).seq);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.jeffrey.listener.game.task;
+
+import junit.framework.TestCase;
+
+public class TaskIndexTest extends TestCase {
+
+    private EventBus eventBus;
+    private TaskIndex taskIndex;
+
+    @Override
+    protected void setUp() {
+        eventBus = new EventBus();
+        taskIndex = new TaskIndex(eventBus);
+    }
+
+    public void testEventReachesOnlyMatchingPlayerAndTarget() {
+        Player alice = new Player("alice");
+        Player bob = new Player("bob");
+        CountingTask aliceSlime = new CountingTask("slime");
+        CountingTask aliceGoblin = new CountingTask("goblin");
+        CountingTask bobSlime = new CountingTask("slime");
+        alice.acceptTask(aliceSlime, taskIndex);
+        alice.acceptTask(aliceGoblin, taskIndex);
+        bob.acceptTask(bobSlime, taskIndex);
+
+        alice.killMonster("slime", eventBus);
+        assertEquals(1, aliceSlime.count);
+        assertEquals(0, aliceGoblin.count);
+        assertEquals(0, bobSlime.count);
+
+        // 不带玩家的事件不会交给任何任务
+        eventBus.notify(new KillMonsterEvent("slime"));
+        assertEquals(1, aliceSlime.count);
+
+        // 多种任务共用一个总线监听器
+        assertEquals(1, eventBus.listenerCount(KillMonsterEvent.class));
+    }
+
+    public void testCompletedTaskUnregistered() {
+        Player alice = new Player("alice");
+        KillMonsterTask task = new KillMonsterTask("slime", 2);
+        alice.acceptTask(task, taskIndex);
+
+        alice.killMonster("slime", eventBus);
+        alice.killMonster("slime", eventBus);
+        assertTrue(task.isCompleted());
+        assertEquals(0, taskIndex.taskCount(KillMonsterEvent.class, "slime", "alice"));
+    }
+
+    public void testUnregister() {
+        CountingTask first = new CountingTask("slime");
+        CountingTask second = new CountingTask("slime");
+        taskIndex.register("alice", first);
+        taskIndex.register("alice", second);
+        assertEquals(2, taskIndex.taskCount(KillMonsterEvent.class, "slime", "alice"));
+
+        assertTrue(taskIndex.unregister("alice", first));
+        assertFalse(taskIndex.unregister("alice", first));
+        eventBus.notify(new KillMonsterEvent("alice", "slime"));
+        assertEquals(0, first.count);
+        assertEquals(1, second.count);
+    }
+
+    private static class CountingTask extends Task {
+        private final String targetId;
+        private int count;
+
+        CountingTask(String targetId) {
+            this.targetId = targetId;
+        }
+
+        @Override
+        public String getTaskId() {
+            return "test";
+        }
+
+        @Override
+        public int getProgress() {
+            return count;
+        }
+
+        @Override
+        public void restore(int progress) {
+            count = progress;
+        }
+
+        @Override
+        public Class<? extends TargetedEvent> getEventType() {
+            return KillMonsterEvent.class;
+        }
+
+        @Override
+        public String getTargetId() {
+            return targetId;
+        }
+
+        @Override
+        public void onEvent(GameEvent event) {
+            count++;
+        }
+    }
+}
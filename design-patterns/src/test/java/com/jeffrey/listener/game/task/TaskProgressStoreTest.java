@@ -0,0 +1,168 @@
+package com.jeffrey.listener.game.task;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+public class TaskProgressStoreTest extends TestCase {
+
+    private Path directory;
+    private Path file;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("progress");
+        file = directory.resolve("progress.dat");
+    }
+
+    @Override
+    protected void tearDown() {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+
+    public void testUpdatesCoalescedAndRestored() throws IOException {
+        // 间隔足够长，只在关闭时刷盘
+        TaskProgressStore store = new TaskProgressStore(file, 60000, 1000);
+        store.open();
+        EventBus eventBus = new EventBus();
+        TaskIndex taskIndex = new TaskIndex(eventBus, store);
+        KillMonsterTask task = new KillMonsterTask("slime", 100);
+        taskIndex.register("alice", task);
+        for (int i = 0; i < 10; i++) {
+            eventBus.notify(new KillMonsterEvent("alice", "slime"));
+        }
+        assertEquals(1, store.getDirtyCount());
+        assertEquals(9, store.getCoalescedUpdates());
+        store.close();
+        assertEquals(1, store.getFlushCount());
+        assertEquals(1, store.getFlushedRecords());
+
+        TaskProgressStore reopened = new TaskProgressStore(file, 60000, 1000);
+        reopened.open();
+        KillMonsterTask recovered = new KillMonsterTask("slime", 100);
+        reopened.restore("alice", Collections.singletonList(recovered));
+        assertEquals(10, recovered.getProgress());
+        reopened.close();
+    }
+
+    public void testThresholdTriggersBackgroundFlush() throws Exception {
+        TaskProgressStore store = new TaskProgressStore(file, 60000, 10);
+        store.open();
+        for (int i = 0; i < 10; i++) {
+            KillMonsterTask task = new KillMonsterTask("task" + i, "slime", 5);
+            task.restore(1);
+            store.markDirty("alice", task);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (store.getFlushCount() == 0) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        assertEquals(10, store.getFlushedRecords());
+        assertTrue(store.getMaxFlushMicros() >= store.getAverageFlushMicros());
+        store.close();
+    }
+
+    public void testTornBatchTruncated() throws IOException {
+        TaskProgressStore store = new TaskProgressStore(file, 60000, 1000);
+        store.open();
+        KillMonsterTask task = new KillMonsterTask("slime", 100);
+        task.restore(3);
+        store.markDirty("alice", task);
+        store.close();
+
+        // 模拟崩溃时写了一半的批次
+        Files.write(file, new byte[] {0, 0, 0, 100, 1, 2}, StandardOpenOption.APPEND);
+
+        TaskProgressStore reopened = new TaskProgressStore(file, 60000, 1000);
+        reopened.open();
+        task.restore(4);
+        reopened.markDirty("alice", task);
+        reopened.close();
+
+        TaskProgressStore last = new TaskProgressStore(file, 60000, 1000);
+        last.open();
+        KillMonsterTask recovered = new KillMonsterTask("slime", 100);
+        last.restore("alice", Collections.singletonList(recovered));
+        assertEquals(4, recovered.getProgress());
+        last.close();
+    }
+
+    public void testFailedFlushDoesNotLeaveTornBatch() throws IOException {
+        // 第一次写入只写一半就失败，之后恢复正常
+        TaskProgressStore store = new TaskProgressStore(file, 60000, 1000) {
+            private boolean failed;
+
+            @Override
+            void write(FileChannel target, ByteBuffer buffer) throws IOException {
+                if (!failed) {
+                    failed = true;
+                    buffer.limit(buffer.position() + buffer.remaining() / 2);
+                    target.write(buffer);
+                    throw new IOException("disk full");
+                }
+                super.write(target, buffer);
+            }
+        };
+        store.open();
+        KillMonsterTask task = new KillMonsterTask("slime", 100);
+        task.restore(3);
+        store.markDirty("alice", task);
+        try {
+            store.flush();
+            fail("flush should fail");
+        } catch (IOException expected) {
+        }
+        assertEquals(1, store.getDirtyCount());
+
+        KillMonsterTask other = new KillMonsterTask("goblin", 100);
+        other.restore(7);
+        store.markDirty("bob", other);
+        store.flush();
+        store.close();
+
+        TaskProgressStore reopened = new TaskProgressStore(file, 60000, 1000);
+        reopened.open();
+        KillMonsterTask alice = new KillMonsterTask("slime", 100);
+        KillMonsterTask bob = new KillMonsterTask("goblin", 100);
+        reopened.restore("alice", Collections.singletonList(alice));
+        reopened.restore("bob", Collections.singletonList(bob));
+        assertEquals(3, alice.getProgress());
+        assertEquals(7, bob.getProgress());
+        reopened.close();
+    }
+
+    public void testCompaction() throws IOException {
+        TaskProgressStore store = new TaskProgressStore(file, 60000, 100000);
+        store.open();
+        KillMonsterTask task = new KillMonsterTask("slime", 100000);
+        for (int i = 1; i <= 3000; i++) {
+            task.restore(i);
+            store.markDirty("alice", task);
+            store.flush();
+        }
+        // 每个批次约31字节，压缩后只剩最近一次压缩之后写入的批次
+        assertTrue(Files.size(file) < 3000 * 31 / 2);
+        store.close();
+
+        TaskProgressStore reopened = new TaskProgressStore(file, 60000, 1000);
+        reopened.open();
+        KillMonsterTask recovered = new KillMonsterTask("slime", 100000);
+        reopened.restore("alice", Collections.singletonList(recovered));
+        assertEquals(3000, recovered.getProgress());
+        reopened.close();
+    }
+}
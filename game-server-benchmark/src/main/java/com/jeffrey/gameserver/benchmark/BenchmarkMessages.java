@@ -0,0 +1,60 @@
+package com.jeffrey.gameserver.benchmark;
+
+import com.jeffrey.gameserver.handler.ChatHandler;
+import com.jeffrey.gameserver.handler.LoginHandler;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import com.jeffrey.gameserver.protocol.messages.HeartbeatMessage;
+import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+
+/**
+ * 基准测试使用的样例消息
+ * 
+ * @author jeffrey
+ */
+public final class BenchmarkMessages {
+    
+    private BenchmarkMessages() {
+    }
+    
+    /**
+     * 创建指定类型的样例消息，内容大小接近线上常见值
+     */
+    public static Message create(MessageType type) {
+        switch (type) {
+            case LOGIN:
+                LoginMessage login = new LoginMessage("bench_player", "123456");
+                login.setClientVersion("1.0.0");
+                return login;
+            case LOGIN_RESPONSE:
+                LoginHandler.LoginResponseMessage loginResponse = new LoginHandler.LoginResponseMessage();
+                loginResponse.setSuccess(true);
+                loginResponse.setPlayerId("player_bench_player");
+                loginResponse.setPlayerName("bench_player");
+                loginResponse.setMessage("Login successful");
+                return loginResponse;
+            case CHAT:
+                return worldChat("Hello everyone, anyone up for the dungeon run tonight?");
+            case CHAT_RESPONSE:
+                ChatHandler.ChatResponseMessage chatResponse = new ChatHandler.ChatResponseMessage();
+                chatResponse.setSuccess(true);
+                chatResponse.setMessage("Message sent to 1000 players");
+                return chatResponse;
+            case HEARTBEAT:
+                return new HeartbeatMessage();
+            default:
+                throw new IllegalArgumentException("No sample message for type: " + type);
+        }
+    }
+    
+    /**
+     * 创建世界聊天消息
+     */
+    public static ChatMessage worldChat(String content) {
+        ChatMessage chat = new ChatMessage();
+        chat.setContent(content);
+        chat.setChannel(ChatMessage.ChatChannel.WORLD);
+        return chat;
+    }
+}
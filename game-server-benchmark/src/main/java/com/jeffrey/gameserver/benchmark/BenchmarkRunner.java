@@ -0,0 +1,36 @@
+package com.jeffrey.gameserver.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 默认开启GC分析器(每次操作的分配字节数、GC次数)，并把结果写成JSON，便于在不同提交之间对比。
+ * 其余参数与JMH命令行相同，例如：
+ * 
+ * <pre>
+ * java -jar game-server-benchmark/target/benchmarks.jar CodecBenchmark -p messageType=CHAT
+ * java -Djmh.result=results/abc123.json -jar game-server-benchmark/target/benchmarks.jar
+ * </pre>
+ * 
+ * @author jeffrey
+ */
+public class BenchmarkRunner {
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        String resultFile = System.getProperty("jmh.result", "jmh-result.json");
+        
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile);
+        
+        new Runner(builder.build()).run();
+    }
+}
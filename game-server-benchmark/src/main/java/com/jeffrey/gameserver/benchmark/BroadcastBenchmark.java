@@ -0,0 +1,91 @@
+package com.jeffrey.gameserver.benchmark;
+
+import com.jeffrey.gameserver.handler.ChatHandler;
+import com.jeffrey.gameserver.network.codec.MessageEncoder;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import com.jeffrey.gameserver.session.GameSession;
+import com.jeffrey.gameserver.session.SessionManager;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 世界聊天广播基准测试
+ * 通过 ChatHandler 的世界频道把一条消息广播给N个已登录会话，每个会话挂一个带编码器的 EmbeddedChannel，
+ * 因此结果包含遍历会话、逐个编码和写出的全部成本。
+ * 
+ * @author jeffrey
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlogback.configurationFile=logback-benchmark.xml"})
+public class BroadcastBenchmark {
+    
+    @Param({"1000", "10000", "50000"})
+    public int sessionCount;
+    
+    private SessionManager sessionManager;
+    private ChatHandler chatHandler;
+    private GameSession sender;
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        sessionManager = new SessionManager();
+        chatHandler = new ChatHandler(sessionManager);
+        for (int i = 0; i < sessionCount; i++) {
+            EmbeddedChannel channel = new EmbeddedChannel(new MessageEncoder());
+            GameSession session = new GameSession(channel);
+            sessionManager.addSession(session);
+            sessionManager.bindPlayer(session, "player_" + i, "player" + i);
+            channels.add(channel);
+            if (sender == null) {
+                sender = session;
+            }
+        }
+    }
+    
+    @TearDown(Level.Invocation)
+    public void drainOutbound() {
+        for (EmbeddedChannel channel : channels) {
+            Object out;
+            while ((out = channel.readOutbound()) != null) {
+                ReferenceCountUtil.release(out);
+            }
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (EmbeddedChannel channel : channels) {
+            channel.finishAndReleaseAll();
+        }
+        channels.clear();
+        sessionManager.shutdown();
+    }
+    
+    @Benchmark
+    public void worldChat() {
+        ChatMessage chat = BenchmarkMessages.worldChat("broadcast benchmark");
+        chatHandler.handle(sender, chat);
+    }
+}
@@ -0,0 +1,88 @@
+package com.jeffrey.gameserver.benchmark;
+
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.network.codec.CodecNegotiationHandler;
+import com.jeffrey.gameserver.network.codec.MessageCodec;
+import com.jeffrey.gameserver.network.codec.MessageDecoder;
+import com.jeffrey.gameserver.network.codec.MessageEncoder;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编解码基准测试
+ * 分别测量 MessageEncoder / MessageDecoder 在各编码格式下处理每种消息类型的耗时
+ * 
+ * @author jeffrey
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class CodecBenchmark {
+    
+    /** 只测客户端上行的消息类型 */
+    @Param({"LOGIN", "CHAT", "HEARTBEAT"})
+    public MessageType messageType;
+    
+    @Param({"JSON", "BINARY"})
+    public CodecType codecType;
+    
+    private Message message;
+    private ByteBuf encoded;
+    private EmbeddedChannel encoderChannel;
+    private EmbeddedChannel decoderChannel;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        message = BenchmarkMessages.create(messageType);
+        MessageCodec codec = CodecNegotiationHandler.codecFor(codecType);
+        MessageMetrics metrics = new MessageMetrics();
+        encoderChannel = new EmbeddedChannel(new MessageEncoder(codec, metrics));
+        decoderChannel = new EmbeddedChannel(new MessageDecoder(codec, metrics));
+        
+        encoderChannel.writeOutbound(message);
+        encoded = encoderChannel.readOutbound();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encoded.release();
+        encoderChannel.finishAndReleaseAll();
+        decoderChannel.finishAndReleaseAll();
+    }
+    
+    @Benchmark
+    public int encode() {
+        encoderChannel.writeOutbound(message);
+        ByteBuf out = encoderChannel.readOutbound();
+        int size = out.readableBytes();
+        out.release();
+        return size;
+    }
+    
+    @Benchmark
+    public Object decode() {
+        decoderChannel.writeInbound(encoded.retainedDuplicate());
+        return decoderChannel.readInbound();
+    }
+}
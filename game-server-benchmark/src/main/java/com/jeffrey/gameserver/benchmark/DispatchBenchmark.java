@@ -0,0 +1,98 @@
+package com.jeffrey.gameserver.benchmark;
+
+import com.jeffrey.gameserver.handler.ChatHandler;
+import com.jeffrey.gameserver.handler.LoginHandler;
+import com.jeffrey.gameserver.handler.MessageHandler;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.network.GameChannelHandler;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+import com.jeffrey.gameserver.session.SessionManager;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息分发基准测试
+ * 通过 EmbeddedChannel 驱动 GameChannelHandler，测量从入站消息到业务处理器返回的完整分发耗时。
+ * 输出侧只取出不编码，编码成本由 CodecBenchmark 单独衡量。
+ * 
+ * @author jeffrey
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class DispatchBenchmark {
+    
+    @Param({"LOGIN", "CHAT", "HEARTBEAT"})
+    public MessageType messageType;
+    
+    private SessionManager sessionManager;
+    private EmbeddedChannel channel;
+    private Message message;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        sessionManager = new SessionManager();
+        Map<MessageType, MessageHandler> handlers = new EnumMap<>(MessageType.class);
+        handlers.put(MessageType.LOGIN, new LoginHandler(sessionManager));
+        handlers.put(MessageType.CHAT, new ChatHandler(sessionManager));
+        channel = new EmbeddedChannel(new GameChannelHandler(sessionManager, handlers, new MessageMetrics()));
+        
+        // 先登录，保证聊天消息走完整的业务路径
+        channel.writeInbound(new LoginMessage("bench_player", "123456"));
+        drainOutbound();
+        
+        if (messageType == MessageType.CHAT) {
+            ChatMessage chat = BenchmarkMessages.worldChat("dispatch benchmark");
+            chat.setChannel(ChatMessage.ChatChannel.PRIVATE);
+            chat.setReceiverId("player_bench_player");
+            message = chat;
+        } else {
+            message = BenchmarkMessages.create(messageType);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        sessionManager.shutdown();
+    }
+    
+    @Benchmark
+    public int dispatch() {
+        channel.writeInbound(message);
+        return drainOutbound();
+    }
+    
+    private int drainOutbound() {
+        int count = 0;
+        Object out;
+        while ((out = channel.readOutbound()) != null) {
+            ReferenceCountUtil.release(out);
+            count++;
+        }
+        return count;
+    }
+}
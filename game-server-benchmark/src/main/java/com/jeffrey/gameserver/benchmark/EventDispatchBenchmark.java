@@ -0,0 +1,88 @@
+package com.jeffrey.gameserver.benchmark;
+
+import com.jeffrey.listener.game.task.AsyncEventDispatcher;
+import com.jeffrey.listener.game.task.EventBus;
+import com.jeffrey.listener.game.task.GameEvent;
+import com.jeffrey.listener.game.task.KillMonsterEvent;
+import com.jeffrey.listener.game.task.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件分发基准测试
+ * 比较击杀事件在调用线程上同步分发(EventBus.notify)与经环形缓冲区异步分发时调用方的耗时。
+ * 监听器用 Blackhole.consumeCPU 模拟任务统计；异步模式下消费者跟不上时调用方会在缓冲区满时等待，
+ * 所以消费者线程需要独立的CPU核，单核机器上 BUSY_SPIN 没有意义。
+ *
+ * @author jeffrey
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class EventDispatchBenchmark {
+    
+    /** SYNC 为同步分发，其余为异步分发器的等待策略 */
+    @Param({"SYNC", "BUSY_SPIN", "YIELD", "PARK"})
+    public String mode;
+    
+    /** 每个监听器处理一个事件消耗的CPU(Blackhole tokens) */
+    @Param({"50", "500"})
+    public int listenerWork;
+    
+    /** 监听器数量，相当于同时进行中的任务数 */
+    @Param({"4"})
+    public int listenerCount;
+    
+    private EventBus eventBus;
+    private AsyncEventDispatcher dispatcher;
+    private GameEvent event;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        eventBus = new EventBus();
+        for (int i = 0; i < listenerCount; i++) {
+            eventBus.register(KillMonsterEvent.class, e -> Blackhole.consumeCPU(listenerWork));
+        }
+        event = new KillMonsterEvent("slime");
+        if (!"SYNC".equals(mode)) {
+            dispatcher = new AsyncEventDispatcher(4096, WaitStrategy.valueOf(mode), eventBus);
+            dispatcher.start();
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+    
+    /**
+     * 单线程调用，符合异步分发器单写者的要求
+     */
+    @Benchmark
+    public void trigger() {
+        if (dispatcher != null) {
+            dispatcher.publish(event);
+        } else {
+            eventBus.notify(event);
+        }
+    }
+}
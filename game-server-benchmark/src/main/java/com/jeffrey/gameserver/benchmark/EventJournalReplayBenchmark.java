@@ -0,0 +1,143 @@
+package com.jeffrey.gameserver.benchmark;
+
+import com.jeffrey.listener.game.task.EventBus;
+import com.jeffrey.listener.game.task.EventJournal;
+import com.jeffrey.listener.game.task.GameEvent;
+import com.jeffrey.listener.game.task.GameEventListener;
+import com.jeffrey.listener.game.task.KillMonsterEvent;
+import com.jeffrey.listener.game.task.KillMonsterTask;
+import com.jeffrey.listener.game.task.TaskIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件日志重放基准测试
+ * 预先写入N个击杀事件(1000个玩家、20种怪物)，测量启动时从头重放全部事件的耗时，
+ * 包括读取映射文件、校验CRC和重建事件对象。replayAll 的监听器只计数，不含任务逻辑；
+ * recoverAll 走 {@link EventJournal#recover} 把事件分发到 TaskIndex，推进每个玩家的20个击杀任务。
+ * 日志约占 N * 40 字节磁盘空间，运行前确认临时目录空间足够。
+ *
+ * @author jeffrey
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class EventJournalReplayBenchmark {
+    
+    @Param({"10000000"})
+    public int eventCount;
+    
+    private Path directory;
+    private EventJournal journal;
+    private String[] players;
+    private String[] monsters;
+    
+    private Map<String, List<KillMonsterTask>> tasksByPlayer;
+    private TaskIndex taskIndex;
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        EventJournal writer = new EventJournal(directory, 64 * 1024 * 1024, 10);
+        writer.open();
+        players = new String[1000];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = "player_" + i;
+        }
+        monsters = new String[20];
+        for (int i = 0; i < monsters.length; i++) {
+            monsters[i] = "monster_" + i;
+        }
+        for (int i = 0; i < eventCount; i++) {
+            writer.append(new KillMonsterEvent(players[i % players.length], monsters[i % monsters.length]));
+        }
+        writer.close();
+        journal = new EventJournal(directory, 64 * 1024 * 1024, 10);
+    }
+    
+    /**
+     * 每轮重新创建任务和索引，recoverAll 的计时只包含恢复本身
+     */
+    @Setup(Level.Iteration)
+    public void createTasks() {
+        tasksByPlayer = new HashMap<>();
+        for (String player : players) {
+            List<KillMonsterTask> tasks = new ArrayList<>(monsters.length);
+            for (String monster : monsters) {
+                tasks.add(new KillMonsterTask(monster, Integer.MAX_VALUE));
+            }
+            tasksByPlayer.put(player, tasks);
+        }
+        taskIndex = new TaskIndex(new EventBus());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+    
+    @Benchmark
+    public long replayAll() throws IOException {
+        CountingListener listener = new CountingListener();
+        journal.replay(0, listener);
+        if (listener.count != eventCount) {
+            throw new IllegalStateException("replayed " + listener.count + " of " + eventCount);
+        }
+        return listener.count;
+    }
+    
+    @Benchmark
+    public long recoverAll() throws IOException {
+        journal.recover(tasksByPlayer, taskIndex);
+        long progress = 0;
+        for (List<KillMonsterTask> tasks : tasksByPlayer.values()) {
+            for (KillMonsterTask task : tasks) {
+                progress += task.getProgress();
+            }
+        }
+        if (progress != eventCount) {
+            throw new IllegalStateException("recovered " + progress + " of " + eventCount);
+        }
+        return progress;
+    }
+    
+    private static class CountingListener implements GameEventListener {
+        
+        private long count;
+        
+        @Override
+        public void onEvent(GameEvent event) {
+            count++;
+        }
+    }
+}
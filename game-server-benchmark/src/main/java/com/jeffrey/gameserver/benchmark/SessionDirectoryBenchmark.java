@@ -0,0 +1,100 @@
+package com.jeffrey.gameserver.benchmark;
+
+import com.jeffrey.gameserver.cluster.ClusterTransport;
+import com.jeffrey.gameserver.cluster.DirectoryUpdate;
+import com.jeffrey.gameserver.cluster.SessionDirectory;
+import com.jeffrey.gameserver.protocol.Message;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 会话目录查询基准测试
+ * 目录中放入N个其他节点的玩家后随机查询，衡量跨节点私聊路由的查询成本(不含网络)。多线程并发可用 -t 参数。
+ *
+ * @author jeffrey
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class SessionDirectoryBenchmark {
+    
+    @Param({"10000", "100000"})
+    public int playerCount;
+    
+    private SessionDirectory directory;
+    private String[] playerIds;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        directory = new SessionDirectory("node1", new NoopTransport(), 1000, TimeUnit.HOURS.toMillis(1));
+        List<DirectoryUpdate.Entry> entries = new ArrayList<>(playerCount);
+        playerIds = new String[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            playerIds[i] = "player_" + i;
+            entries.add(new DirectoryUpdate.Entry(playerIds[i], "session-" + i, "player" + i, i, true));
+        }
+        directory.onDirectoryUpdate(new DirectoryUpdate(DirectoryUpdate.Type.SYNC, "node2", 1, entries));
+    }
+    
+    @Benchmark
+    public SessionDirectory.Location lookupHit() {
+        return directory.lookup(playerIds[ThreadLocalRandom.current().nextInt(playerCount)]);
+    }
+    
+    @Benchmark
+    public SessionDirectory.Location lookupMiss() {
+        return directory.lookup("offline_player");
+    }
+    
+    /**
+     * 不连接任何节点
+     */
+    private static class NoopTransport implements ClusterTransport {
+        
+        @Override
+        public void setReceiver(Receiver receiver) {
+        }
+        
+        @Override
+        public void broadcast(DirectoryUpdate update) {
+        }
+        
+        @Override
+        public void send(String nodeId, DirectoryUpdate update) {
+        }
+        
+        @Override
+        public boolean deliver(String nodeId, String playerId, Message message) {
+            return false;
+        }
+        
+        @Override
+        public void publish(ByteBuf batch) {
+            batch.release();
+        }
+        
+        @Override
+        public void setPublishReceiver(Consumer<ByteBuf> receiver) {
+        }
+    }
+}
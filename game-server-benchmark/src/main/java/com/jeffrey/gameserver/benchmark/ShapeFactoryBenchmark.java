@@ -0,0 +1,77 @@
+package com.jeffrey.gameserver.benchmark;
+
+import com.jeffrey.factory.Rectangle;
+import com.jeffrey.factory.RegistryShapeFactory;
+import com.jeffrey.factory.Shape;
+import com.jeffrey.factory.ShapeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工厂创建产品的基准测试
+ * 比较 ShapeFactory 的 equalsIgnoreCase 比较链与注册表工厂按名称、按ID创建以及从对象池取出/归还的单次耗时。
+ * 类型名使用大写，比较链需要逐个忽略大小写比较，注册表按名称查找时多一次转小写。
+ *
+ * @author jeffrey
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ShapeFactoryBenchmark {
+    
+    /** circle 是比较链的第一个分支，rectangle 是最后一个 */
+    @Param({"circle", "rectangle", "RECTANGLE"})
+    public String shapeType;
+    
+    private ShapeFactory ifChainFactory;
+    private RegistryShapeFactory registryFactory;
+    private RegistryShapeFactory pooledFactory;
+    private int shapeId;
+    private int pooledId;
+    
+    @Setup
+    public void setup() {
+        ifChainFactory = new ShapeFactory();
+        registryFactory = RegistryShapeFactory.withDefaultShapes();
+        shapeId = registryFactory.idOf(shapeType);
+        pooledFactory = new RegistryShapeFactory();
+        pooledId = pooledFactory.registerPooled("rectangle", Rectangle::new, 64);
+    }
+    
+    @Benchmark
+    public Shape ifChain() {
+        return ifChainFactory.getShape(shapeType);
+    }
+    
+    @Benchmark
+    public Shape registryByName() {
+        return registryFactory.getShape(shapeType);
+    }
+    
+    @Benchmark
+    public Shape registryById() {
+        return registryFactory.getShape(shapeId);
+    }
+    
+    @Benchmark
+    public Shape pooledAcquireRelease() {
+        // 模拟tick内创建、tick结束归还的短生命周期实体
+        Shape shape = pooledFactory.getShape(pooledId);
+        pooledFactory.release(pooledId, shape);
+        return shape;
+    }
+}
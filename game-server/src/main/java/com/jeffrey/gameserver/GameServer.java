@@ -1,11 +1,25 @@
 package com.jeffrey.gameserver;
 
+import com.jeffrey.gameserver.admin.AdminServer;
+import com.jeffrey.gameserver.admin.ServerStatsCollector;
+import com.jeffrey.gameserver.cluster.ClusterNodeServer;
+import com.jeffrey.gameserver.cluster.ClusterPubSub;
+import com.jeffrey.gameserver.cluster.PeerTransport;
+import com.jeffrey.gameserver.cluster.SessionDirectory;
 import com.jeffrey.gameserver.config.ServerConfig;
+import com.jeffrey.gameserver.event.DomainEventBus;
 import com.jeffrey.gameserver.handler.ChatHandler;
 import com.jeffrey.gameserver.handler.LoginHandler;
 import com.jeffrey.gameserver.handler.MessageHandler;
+import com.jeffrey.gameserver.handler.SceneHandler;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.metrics.MetricsJmxExporter;
+import com.jeffrey.gameserver.metrics.TickMetrics;
 import com.jeffrey.gameserver.network.NettyServer;
+import com.jeffrey.gameserver.network.udp.UdpServer;
 import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.scene.SceneManager;
+import com.jeffrey.gameserver.scene.TickScheduler;
 import com.jeffrey.gameserver.session.SessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,26 +37,75 @@ public class GameServer {
     private static final Logger logger = LoggerFactory.getLogger(GameServer.class);
     
     private NettyServer nettyServer;
+    private UdpServer udpServer;
     private SessionManager sessionManager;
     private Map<MessageType, MessageHandler> messageHandlers;
     private ServerConfig config;
+    private MessageMetrics messageMetrics;
+    private MetricsJmxExporter metricsExporter;
+    private AdminServer adminServer;
+    private TickScheduler tickScheduler;
+    private SceneManager sceneManager;
+    private ClusterNodeServer clusterNodeServer;
+    private PeerTransport peerTransport;
+    private SessionDirectory sessionDirectory;
+    private ClusterPubSub clusterPubSub;
+    private DomainEventBus eventBus;
     
     public GameServer() {
-        this.config = new ServerConfig();
+        this(new ServerConfig());
+    }
+    
+    public GameServer(ServerConfig config) {
+        this.config = config;
         this.sessionManager = new SessionManager();
         this.messageHandlers = new HashMap<>();
-        this.nettyServer = new NettyServer(config, sessionManager, messageHandlers);
+        this.messageMetrics = new MessageMetrics();
+        this.eventBus = new DomainEventBus(config.getEventMaxBatchSize(), config.getEventMaxPending());
+        sessionManager.setEventBus(eventBus);
+        this.tickScheduler = new TickScheduler("SceneTick", config.getTickThreads(), config.getTickRate(), 
+                new TickMetrics());
+        this.sceneManager = new SceneManager(tickScheduler);
+        this.metricsExporter = new MetricsJmxExporter(messageMetrics, sessionManager, 
+                tickScheduler.getMXBean(), String.valueOf(config.getPort()));
+        this.nettyServer = new NettyServer(config, sessionManager, messageHandlers, messageMetrics);
+        if (config.getUdpPort() > 0) {
+            this.udpServer = new UdpServer(config, sessionManager, messageHandlers, messageMetrics);
+        }
+        if (config.isAdminEnabled()) {
+            this.adminServer = new AdminServer(config, 
+                    new ServerStatsCollector(sessionManager, messageMetrics, nettyServer, sceneManager, eventBus));
+        }
+        if (config.getClusterPort() > 0) {
+            this.peerTransport = new PeerTransport(config);
+            this.sessionDirectory = new SessionDirectory(config.getNodeId(), peerTransport, 
+                    config.getClusterHeartbeatInterval(), config.getClusterLeaseTimeout());
+            sessionManager.setDirectory(sessionDirectory);
+            this.clusterPubSub = new ClusterPubSub(peerTransport, config.getClusterPublishBatchDelay(), 
+                    ClusterPubSub.DEFAULT_MAX_BATCH_BYTES);
+            this.clusterNodeServer = new ClusterNodeServer(config, ClusterNodeServer.localAddressFor(config), 
+                    peerTransport);
+        }
         
         // 注册消息处理器
         registerMessageHandlers();
+        
+        // 创建场景
+        for (int sceneId = 1; sceneId <= config.getSceneCount(); sceneId++) {
+            sceneManager.createScene(sceneId, "scene-" + sceneId);
+        }
     }
     
     /**
      * 注册消息处理器
      */
     private void registerMessageHandlers() {
-        messageHandlers.put(MessageType.LOGIN, new LoginHandler(sessionManager));
-        messageHandlers.put(MessageType.CHAT, new ChatHandler(sessionManager));
+        messageHandlers.put(MessageType.LOGIN, new LoginHandler(sessionManager, config.getUdpPort(), eventBus));
+        messageHandlers.put(MessageType.CHAT, new ChatHandler(sessionManager, clusterPubSub, eventBus));
+        SceneHandler sceneHandler = new SceneHandler(sceneManager);
+        messageHandlers.put(MessageType.SCENE_JOIN, sceneHandler);
+        messageHandlers.put(MessageType.SCENE_INPUT, sceneHandler);
+        messageHandlers.put(MessageType.STATE_ACK, sceneHandler);
         
         logger.info("Message handlers registered: {}", messageHandlers.keySet());
     }
@@ -55,13 +118,30 @@ public class GameServer {
             logger.info("Starting Game Server...");
             logger.info("Server Config: host={}, port={}", config.getHost(), config.getPort());
             
+            // 先于网络层启动，第一批登录事件就能投递
+            eventBus.start();
             nettyServer.start();
+            if (udpServer != null) {
+                udpServer.start();
+            }
+            if (clusterNodeServer != null) {
+                // 网关转发的连接经本地地址进入同一套pipeline
+                nettyServer.bindLocal(ClusterNodeServer.localAddressFor(config));
+                clusterNodeServer.start();
+                peerTransport.start();
+                sessionDirectory.start();
+            }
+            tickScheduler.start();
+            metricsExporter.register();
+            if (adminServer != null) {
+                adminServer.start();
+            }
             
             logger.info("Game Server started successfully!");
             
             // 添加关闭钩子
             Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
-            
+        
         } catch (Exception e) {
             logger.error("Failed to start Game Server", e);
             System.exit(1);
@@ -74,14 +154,51 @@ public class GameServer {
     public void stop() {
         logger.info("Stopping Game Server...");
         
+        if (adminServer != null) {
+            adminServer.stop();
+        }
+        
+        if (metricsExporter != null) {
+            metricsExporter.unregister();
+        }
+        
+        if (clusterPubSub != null) {
+            clusterPubSub.stop();
+        }
+        
+        if (sessionDirectory != null) {
+            sessionDirectory.stop();
+        }
+        
+        if (peerTransport != null) {
+            peerTransport.stop();
+        }
+        
+        if (clusterNodeServer != null) {
+            clusterNodeServer.stop();
+        }
+        
+        if (udpServer != null) {
+            udpServer.stop();
+        }
+        
         if (nettyServer != null) {
             nettyServer.stop();
         }
         
+        if (tickScheduler != null) {
+            tickScheduler.stop();
+        }
+        
         if (sessionManager != null) {
             sessionManager.shutdown();
         }
         
+        if (eventBus != null) {
+            // 网络层已停止，不会再有新事件，投递完积压后退出
+            eventBus.stop();
+        }
+        
         logger.info("Game Server stopped.");
     }
     
@@ -92,6 +209,13 @@ public class GameServer {
         return sessionManager;
     }
     
+    /**
+     * 获取UDP服务器，未开启UDP时返回null
+     */
+    public UdpServer getUdpServer() {
+        return udpServer;
+    }
+    
     /**
      * 获取服务器配置
      */
@@ -99,6 +223,27 @@ public class GameServer {
         return config;
     }
     
+    /**
+     * 获取场景管理器
+     */
+    public SceneManager getSceneManager() {
+        return sceneManager;
+    }
+    
+    /**
+     * 获取领域事件总线，任务、统计等模块在这里订阅
+     */
+    public DomainEventBus getEventBus() {
+        return eventBus;
+    }
+    
+    /**
+     * 获取消息指标
+     */
+    public MessageMetrics getMessageMetrics() {
+        return messageMetrics;
+    }
+    
     /**
      * 主方法
      */
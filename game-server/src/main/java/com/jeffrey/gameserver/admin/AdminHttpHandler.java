@@ -0,0 +1,88 @@
+package com.jeffrey.gameserver.admin;
+
+import com.jeffrey.gameserver.util.JsonUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 管理端口HTTP请求处理器
+ * <ul>
+ *     <li>GET /stats       纯文本快照</li>
+ *     <li>GET /stats.json  JSON快照</li>
+ * </ul>
+ *
+ * @author jeffrey
+ */
+public class AdminHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdminHttpHandler.class);
+    
+    private final ServerStatsCollector statsCollector;
+    
+    public AdminHttpHandler(ServerStatsCollector statsCollector) {
+        this.statsCollector = statsCollector;
+    }
+    
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
+        if (request.method() != HttpMethod.GET) {
+            sendResponse(ctx, request, HttpResponseStatus.METHOD_NOT_ALLOWED, "text/plain", "Method not allowed\n");
+            return;
+        }
+        
+        String path = new QueryStringDecoder(request.uri()).path();
+        switch (path) {
+            case "/":
+            case "/stats":
+                Map<String, Object> stats = statsCollector.collect();
+                sendResponse(ctx, request, HttpResponseStatus.OK, "text/plain",
+                        ServerStatsCollector.formatText(stats));
+                break;
+            case "/stats.json":
+                sendResponse(ctx, request, HttpResponseStatus.OK, "application/json",
+                        JsonUtil.toPrettyJson(statsCollector.collect()));
+                break;
+            default:
+                sendResponse(ctx, request, HttpResponseStatus.NOT_FOUND, "text/plain", "Not found: " + path + "\n");
+        }
+    }
+    
+    private void sendResponse(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status,
+                              String contentType, String body) {
+        ByteBuf content = Unpooled.copiedBuffer(body, StandardCharsets.UTF_8);
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType + "; charset=UTF-8");
+        HttpUtil.setContentLength(response, content.readableBytes());
+        
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        if (keepAlive) {
+            ctx.writeAndFlush(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+    
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        logger.warn("Exception in admin handler: {}", ctx.channel().remoteAddress(), cause);
+        ctx.close();
+    }
+}
@@ -0,0 +1,86 @@
+package com.jeffrey.gameserver.admin;
+
+import com.jeffrey.gameserver.config.ServerConfig;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 管理服务器
+ * 在独立的本地端口上提供运行状态查询，使用单独的单线程EventLoop，不占用游戏Worker线程。
+ * 
+ * <pre>
+ * curl http://127.0.0.1:8889/stats
+ * curl http://127.0.0.1:8889/stats.json
+ * </pre>
+ * 
+ * @author jeffrey
+ */
+public class AdminServer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdminServer.class);
+    
+    /** 管理请求体最大长度 */
+    private static final int MAX_CONTENT_LENGTH = 64 * 1024;
+    
+    private final ServerConfig config;
+    private final ServerStatsCollector statsCollector;
+    
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    
+    public AdminServer(ServerConfig config, ServerStatsCollector statsCollector) {
+        this.config = config;
+        this.statsCollector = statsCollector;
+    }
+    
+    /**
+     * 启动管理服务器
+     */
+    public void start() throws InterruptedException {
+        group = new NioEventLoopGroup(1);
+        try {
+            ServerBootstrap bootstrap = new ServerBootstrap();
+            bootstrap.group(group)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) throws Exception {
+                            ChannelPipeline pipeline = ch.pipeline();
+                            pipeline.addLast("httpCodec", new HttpServerCodec());
+                            pipeline.addLast("httpAggregator", new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+                            pipeline.addLast("adminHandler", new AdminHttpHandler(statsCollector));
+                        }
+                    });
+            
+            serverChannel = bootstrap.bind(config.getAdminHost(), config.getAdminPort()).sync().channel();
+            logger.info("Admin server started on {}:{}", config.getAdminHost(), config.getAdminPort());
+        } catch (Exception e) {
+            logger.error("Failed to start admin server", e);
+            stop();
+            throw e;
+        }
+    }
+    
+    /**
+     * 停止管理服务器
+     */
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+        logger.info("Admin server stopped.");
+    }
+}
@@ -0,0 +1,414 @@
+package com.jeffrey.gameserver.admin;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import com.jeffrey.gameserver.event.DomainEventBus;
+import com.jeffrey.gameserver.log.DropReportingAsyncAppender;
+import com.jeffrey.gameserver.log.HotPathLogger;
+import com.jeffrey.gameserver.log.LogSampler;
+import com.jeffrey.gameserver.metrics.LatencyHistogram;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.metrics.TickMetrics;
+import com.jeffrey.gameserver.metrics.StageSnapshot;
+import com.jeffrey.gameserver.network.NettyServer;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.scene.Scene;
+import com.jeffrey.gameserver.scene.SceneManager;
+import com.jeffrey.gameserver.scene.TickScheduler;
+import com.jeffrey.gameserver.session.GameSession;
+import com.jeffrey.gameserver.session.SessionManager;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 服务器运行状态采集器
+ * 汇总会话数、各消息类型吞吐与延迟、各编码格式流量占比、场景tick耗时、领域事件订阅者积压、出站积压、EventLoop队列长度以及GC/分配速率。
+ * 速率类指标按两次采集之间的差值计算，第一次采集时为0。
+ *
+ * @author jeffrey
+ */
+public class ServerStatsCollector {
+    
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+    private static final MessageMetrics.Stage[] STAGES = MessageMetrics.Stage.values();
+    
+    private final SessionManager sessionManager;
+    private final MessageMetrics messageMetrics;
+    private final NettyServer nettyServer;
+    private final SceneManager sceneManager;
+    private final DomainEventBus eventBus;
+    private final long startTime = System.currentTimeMillis();
+    
+    /** 上一次采集的数据，用于计算速率 */
+    private long lastSampleNanos;
+    private final long[] lastMessageCounts = new long[MESSAGE_TYPES.length * STAGES.length];
+    private long lastGcCount;
+    private long lastGcTimeMillis;
+    private long lastAllocatedBytes;
+    private long lastTicks;
+    
+    public ServerStatsCollector(SessionManager sessionManager, MessageMetrics messageMetrics,
+                                NettyServer nettyServer) {
+        this(sessionManager, messageMetrics, nettyServer, null, null);
+    }
+    
+    /**
+     * @param sceneManager 场景管理器，为null时不输出tick信息
+     * @param eventBus 领域事件总线，为null时不输出订阅者信息
+     */
+    public ServerStatsCollector(SessionManager sessionManager, MessageMetrics messageMetrics,
+                                NettyServer nettyServer, SceneManager sceneManager, DomainEventBus eventBus) {
+        this.sessionManager = sessionManager;
+        this.messageMetrics = messageMetrics;
+        this.nettyServer = nettyServer;
+        this.sceneManager = sceneManager;
+        this.eventBus = eventBus;
+    }
+    
+    /**
+     * 采集一次状态快照
+     * 返回的Map保持插入顺序，可直接序列化为JSON
+     */
+    public synchronized Map<String, Object> collect() {
+        long now = System.nanoTime();
+        double elapsedSeconds = lastSampleNanos == 0 ? 0 : (now - lastSampleNanos) / 1_000_000_000.0;
+        lastSampleNanos = now;
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("uptimeSeconds", (System.currentTimeMillis() - startTime) / 1000);
+        stats.put("sessions", collectSessions());
+        stats.put("messages", collectMessages(elapsedSeconds));
+        stats.put("codecs", collectCodecs());
+        if (sceneManager != null) {
+            stats.put("ticks", collectTicks(elapsedSeconds));
+        }
+        if (eventBus != null) {
+            stats.put("events", collectEvents());
+        }
+        stats.put("eventLoops", collectEventLoops());
+        stats.put("jvm", collectJvm(elapsedSeconds));
+        stats.put("logging", collectLogging());
+        return stats;
+    }
+    
+    /**
+     * 会话数和出站积压
+     */
+    private Map<String, Object> collectSessions() {
+        long pendingBytes = 0;
+        long maxPendingBytes = 0;
+        int unwritableChannels = 0;
+        for (GameSession session : sessionManager.getAllSessions()) {
+            Channel channel = session.getChannel();
+            if (channel == null) {
+                continue;
+            }
+            ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+            if (outboundBuffer != null) {
+                long pending = outboundBuffer.totalPendingWriteBytes();
+                pendingBytes += pending;
+                maxPendingBytes = Math.max(maxPendingBytes, pending);
+            }
+            if (!channel.isWritable()) {
+                unwritableChannels++;
+            }
+        }
+        
+        Map<String, Object> sessions = new LinkedHashMap<>();
+        sessions.put("total", sessionManager.getTotalSessionCount());
+        sessions.put("online", sessionManager.getOnlinePlayerCount());
+        sessions.put("outboundPendingBytes", pendingBytes);
+        sessions.put("outboundMaxPendingBytes", maxPendingBytes);
+        sessions.put("unwritableChannels", unwritableChannels);
+        return sessions;
+    }
+    
+    /**
+     * 各消息类型的吞吐和延迟，跳过从未出现过的类型
+     */
+    private Map<String, Object> collectMessages(double elapsedSeconds) {
+        Map<String, Object> messages = new LinkedHashMap<>();
+        for (MessageType type : MESSAGE_TYPES) {
+            Map<String, Object> stages = new LinkedHashMap<>();
+            for (MessageMetrics.Stage stage : STAGES) {
+                StageSnapshot snapshot = messageMetrics.snapshot(type, stage);
+                int index = type.ordinal() * STAGES.length + stage.ordinal();
+                long delta = snapshot.getCount() - lastMessageCounts[index];
+                lastMessageCounts[index] = snapshot.getCount();
+                if (snapshot.getCount() == 0) {
+                    continue;
+                }
+                
+                Map<String, Object> stageStats = new LinkedHashMap<>();
+                stageStats.put("count", snapshot.getCount());
+                stageStats.put("bytes", snapshot.getBytes());
+                stageStats.put("perSecond", elapsedSeconds > 0 ? round(delta / elapsedSeconds) : 0.0);
+                stageStats.put("p50Micros", toMicros(snapshot.getP50Nanos()));
+                stageStats.put("p90Micros", toMicros(snapshot.getP90Nanos()));
+                stageStats.put("p99Micros", toMicros(snapshot.getP99Nanos()));
+                stageStats.put("p999Micros", toMicros(snapshot.getP999Nanos()));
+                stageStats.put("maxMicros", toMicros(snapshot.getMaxNanos()));
+                stages.put(stage.name().toLowerCase(), stageStats);
+            }
+            if (!stages.isEmpty()) {
+                messages.put(type.name(), stages);
+            }
+        }
+        return messages;
+    }
+    
+    /**
+     * 领域事件各订阅者的投递量、积压和投递延迟
+     */
+    private Map<String, Object> collectEvents() {
+        Map<String, Object> events = new LinkedHashMap<>();
+        for (DomainEventBus.Subscription subscription : eventBus.getSubscriptions()) {
+            LatencyHistogram latency = subscription.getDeliveryLatency();
+            Map<String, Object> subscriber = new LinkedHashMap<>();
+            subscriber.put("published", subscription.getPublished());
+            subscriber.put("delivered", subscription.getDelivered());
+            subscriber.put("dropped", subscription.getDropped());
+            subscriber.put("failures", subscription.getFailures());
+            subscriber.put("lag", subscription.getLag());
+            subscriber.put("batches", subscription.getBatches());
+            subscriber.put("p50Micros", toMicros(latency.getPercentile(50)));
+            subscriber.put("p99Micros", toMicros(latency.getPercentile(99)));
+            subscriber.put("maxMicros", toMicros(latency.getMax()));
+            events.put(subscription.getName(), subscriber);
+        }
+        return events;
+    }
+    
+    /**
+     * 各编码格式的连接数和流量
+     */
+    private Map<String, Object> collectCodecs() {
+        Map<String, Object> codecs = new LinkedHashMap<>();
+        for (CodecType codec : CodecType.values()) {
+            Map<String, Object> codecStats = new LinkedHashMap<>();
+            codecStats.put("connections", messageMetrics.getConnections(codec));
+            codecStats.put("inboundFrames", messageMetrics.getFrames(codec, MessageMetrics.Direction.INBOUND));
+            codecStats.put("inboundBytes", messageMetrics.getBytes(codec, MessageMetrics.Direction.INBOUND));
+            codecStats.put("outboundFrames", messageMetrics.getFrames(codec, MessageMetrics.Direction.OUTBOUND));
+            codecStats.put("outboundBytes", messageMetrics.getBytes(codec, MessageMetrics.Direction.OUTBOUND));
+            codecStats.put("byteSharePercent", round(messageMetrics.getByteSharePercent(codec)));
+            codecs.put(codec.getFormatName(), codecStats);
+        }
+        return codecs;
+    }
+    
+    /**
+     * tick耗时、超时次数以及各场景的成员数和积压意图数
+     */
+    private Map<String, Object> collectTicks(double elapsedSeconds) {
+        TickScheduler scheduler = sceneManager.getScheduler();
+        TickMetrics tickMetrics = scheduler.getMetrics();
+        LatencyHistogram duration = tickMetrics.getTickDuration();
+        
+        Map<String, Object> ticks = new LinkedHashMap<>();
+        ticks.put("tickRate", scheduler.getTickRate());
+        ticks.put("threads", scheduler.getThreadCount());
+        ticks.put("ticks", tickMetrics.getTicks());
+        ticks.put("ticksPerSecond", elapsedSeconds > 0 ? round((tickMetrics.getTicks() - lastTicks) / elapsedSeconds) : 0.0);
+        lastTicks = tickMetrics.getTicks();
+        ticks.put("overruns", tickMetrics.getOverruns());
+        ticks.put("skippedTicks", tickMetrics.getSkippedTicks());
+        ticks.put("intents", tickMetrics.getIntents());
+        ticks.put("syncMessages", tickMetrics.getSyncMessages());
+        ticks.put("syncBytes", tickMetrics.getSyncBytes());
+        ticks.put("fullSnapshots", tickMetrics.getFullSnapshots());
+        ticks.put("p50Micros", toMicros(duration.getPercentile(50)));
+        ticks.put("p99Micros", toMicros(duration.getPercentile(99)));
+        ticks.put("maxMicros", toMicros(duration.getMax()));
+        
+        List<Map<String, Object>> scenes = new ArrayList<>();
+        for (Scene scene : sceneManager.getScenes()) {
+            Map<String, Object> sceneStats = new LinkedHashMap<>();
+            sceneStats.put("id", scene.getSceneId());
+            sceneStats.put("members", scene.getMemberCount());
+            sceneStats.put("pendingIntents", scene.getPendingIntentCount());
+            sceneStats.put("thread", scheduler.getThreadName(scene));
+            sceneStats.put("costMicros", toMicros(scene.getTickCostNanos()));
+            scenes.add(sceneStats);
+        }
+        ticks.put("scenes", scenes);
+        return ticks;
+    }
+    
+    /**
+     * Worker EventLoop 的待执行任务数
+     */
+    private List<Map<String, Object>> collectEventLoops() {
+        List<Map<String, Object>> eventLoops = new ArrayList<>();
+        EventLoopGroup workerGroup = nettyServer.getWorkerGroup();
+        if (workerGroup == null) {
+            return eventLoops;
+        }
+        int index = 0;
+        for (EventExecutor executor : workerGroup) {
+            Map<String, Object> loop = new LinkedHashMap<>();
+            loop.put("index", index++);
+            if (executor instanceof SingleThreadEventExecutor) {
+                loop.put("pendingTasks", ((SingleThreadEventExecutor) executor).pendingTasks());
+            }
+            eventLoops.add(loop);
+        }
+        return eventLoops;
+    }
+    
+    /**
+     * 堆内存、GC和分配速率
+     */
+    private Map<String, Object> collectJvm(double elapsedSeconds) {
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        jvm.put("heapUsedBytes", memoryBean.getHeapMemoryUsage().getUsed());
+        jvm.put("heapMaxBytes", memoryBean.getHeapMemoryUsage().getMax());
+        
+        long gcCount = 0;
+        long gcTimeMillis = 0;
+        List<Map<String, Object>> collectors = new ArrayList<>();
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            Map<String, Object> collector = new LinkedHashMap<>();
+            collector.put("name", gcBean.getName());
+            collector.put("count", gcBean.getCollectionCount());
+            collector.put("timeMillis", gcBean.getCollectionTime());
+            collectors.add(collector);
+            gcCount += Math.max(0, gcBean.getCollectionCount());
+            gcTimeMillis += Math.max(0, gcBean.getCollectionTime());
+        }
+        jvm.put("gc", collectors);
+        jvm.put("gcPerSecond", elapsedSeconds > 0 ? round((gcCount - lastGcCount) / elapsedSeconds) : 0.0);
+        jvm.put("gcTimeMillisPerSecond",
+                elapsedSeconds > 0 ? round((gcTimeMillis - lastGcTimeMillis) / elapsedSeconds) : 0.0);
+        lastGcCount = gcCount;
+        lastGcTimeMillis = gcTimeMillis;
+        
+        long allocatedBytes = totalAllocatedBytes();
+        if (allocatedBytes >= 0) {
+            // 线程退出后其分配量会从总和中消失，出现负值时按0处理
+            long delta = Math.max(0, allocatedBytes - lastAllocatedBytes);
+            jvm.put("allocatedBytesPerSecond", elapsedSeconds > 0 ? round(delta / elapsedSeconds) : 0.0);
+            lastAllocatedBytes = allocatedBytes;
+        }
+        return jvm;
+    }
+    
+    /**
+     * 热路径日志的采样丢弃数和异步Appender的丢弃数
+     */
+    private Map<String, Object> collectLogging() {
+        Map<String, Object> logging = new LinkedHashMap<>();
+        
+        Map<String, Object> categories = new LinkedHashMap<>();
+        for (LogSampler sampler : HotPathLogger.samplers()) {
+            Map<String, Object> category = new LinkedHashMap<>();
+            category.put("accepted", sampler.getAcceptedCount());
+            category.put("suppressed", sampler.getSuppressedCount());
+            categories.put(sampler.getCategory(), category);
+        }
+        logging.put("hotPath", categories);
+        
+        Map<String, Object> appenders = new LinkedHashMap<>();
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext) {
+            LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            for (Logger logger : context.getLoggerList()) {
+                Iterator<Appender<ILoggingEvent>> it = logger.iteratorForAppenders();
+                while (it.hasNext()) {
+                    Appender<ILoggingEvent> appender = it.next();
+                    if (appender instanceof DropReportingAsyncAppender && !appenders.containsKey(appender.getName())) {
+                        DropReportingAsyncAppender asyncAppender = (DropReportingAsyncAppender) appender;
+                        Map<String, Object> appenderStats = new LinkedHashMap<>();
+                        appenderStats.put("queued", asyncAppender.getNumberOfElementsInQueue());
+                        appenderStats.put("appended", asyncAppender.getAppendedCount());
+                        appenderStats.put("dropped", asyncAppender.getDroppedCount());
+                        appenders.put(appender.getName(), appenderStats);
+                    }
+                }
+            }
+        }
+        logging.put("asyncAppenders", appenders);
+        return logging;
+    }
+    
+    /**
+     * 所有存活线程的累计分配字节数，JVM不支持时返回-1
+     */
+    private static long totalAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!sunThreadBean.isThreadAllocatedMemorySupported() || !sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long allocated : sunThreadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+    
+    private static double toMicros(long nanos) {
+        return round(nanos / 1000.0);
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+    
+    /**
+     * 将快照格式化为便于终端阅读的纯文本
+     */
+    public static String formatText(Map<String, Object> stats) {
+        StringBuilder sb = new StringBuilder();
+        appendText(sb, "", stats);
+        return sb.toString();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void appendText(StringBuilder sb, String indent, Map<String, Object> map) {
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                sb.append(indent).append(entry.getKey()).append(":\n");
+                appendText(sb, indent + "  ", (Map<String, Object>) value);
+            } else if (value instanceof List) {
+                sb.append(indent).append(entry.getKey()).append(":\n");
+                for (Object item : (List<Object>) value) {
+                    if (item instanceof Map) {
+                        sb.append(indent).append("  -");
+                        for (Map.Entry<String, Object> field : ((Map<String, Object>) item).entrySet()) {
+                            sb.append(' ').append(field.getKey()).append('=').append(field.getValue());
+                        }
+                        sb.append('\n');
+                    } else {
+                        sb.append(indent).append("  - ").append(item).append('\n');
+                    }
+                }
+            } else {
+                sb.append(indent).append(entry.getKey()).append(": ").append(value).append('\n');
+            }
+        }
+    }
+}
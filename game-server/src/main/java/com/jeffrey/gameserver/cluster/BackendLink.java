@@ -0,0 +1,252 @@
+package com.jeffrey.gameserver.cluster;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关到一个后端节点的长连接
+ * 所有路由到该节点的玩家连接作为流复用这条链路。链路断开时关闭其上的全部玩家连接(客户端重连后会被
+ * 路由到哈希环上的下一个可用节点)，并按固定间隔重连。
+ * <p>
+ * 节点返回的数据在链路的EventLoop中写给客户端，一次读事件结束后统一flush，减少系统调用。
+ *
+ * @author jeffrey
+ */
+public class BackendLink {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BackendLink.class);
+    
+    private final GatewayConfig.Backend backend;
+    private final EventLoopGroup group;
+    private final int reconnectInterval;
+    
+    /** 流 - streamId -> Stream，客户端线程注册，链路线程读取 */
+    private final Map<Long, Stream> streams = new ConcurrentHashMap<>();
+    
+    private volatile Channel channel;
+    private volatile boolean closed;
+    
+    public BackendLink(GatewayConfig.Backend backend, EventLoopGroup group, int reconnectInterval) {
+        this.backend = backend;
+        this.group = group;
+        this.reconnectInterval = reconnectInterval;
+    }
+    
+    /**
+     * 建立连接，失败时按间隔重试
+     */
+    public void connect() {
+        if (closed) {
+            return;
+        }
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) throws Exception {
+                        ch.pipeline().addLast("flushConsolidation", new FlushConsolidationHandler(256, true));
+                        ch.pipeline().addLast("frameDecoder",
+                                new LengthFieldBasedFrameDecoder(ClusterProtocol.MAX_FRAME_LENGTH, 0, 4, 0, 4));
+                        ch.pipeline().addLast("linkHandler", new LinkHandler());
+                    }
+                });
+        bootstrap.connect(backend.getHost(), backend.getPort()).addListener((ChannelFuture future) -> {
+            if (future.isSuccess()) {
+                channel = future.channel();
+                logger.info("Connected to node {}", backend);
+            } else {
+                logger.warn("Failed to connect to node {}: {}", backend, future.cause().getMessage());
+                scheduleReconnect();
+            }
+        });
+    }
+    
+    private void scheduleReconnect() {
+        if (!closed) {
+            group.schedule(this::connect, reconnectInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * 为客户端连接打开流
+     *
+     * @param client 客户端连接
+     * @param skipBytes 需要丢弃的节点输出字节数(网关已代替节点回复的握手帧)
+     * @return 链路不可用时返回false
+     */
+    public boolean open(long streamId, Channel client, int skipBytes) {
+        Channel link = channel;
+        if (link == null || !link.isActive()) {
+            return false;
+        }
+        streams.put(streamId, new Stream(client, skipBytes));
+        ClusterProtocol.write(link, ClusterProtocol.OPEN, streamId,
+                Unpooled.copiedBuffer(String.valueOf(client.remoteAddress()), StandardCharsets.UTF_8));
+        return true;
+    }
+    
+    /**
+     * 转发客户端帧，frame的所有权转移给链路
+     */
+    public void send(long streamId, ByteBuf frame) {
+        Channel link = channel;
+        if (link == null || !link.isActive()) {
+            frame.release();
+            return;
+        }
+        ClusterProtocol.write(link, ClusterProtocol.DATA, streamId, frame);
+    }
+    
+    /**
+     * 客户端断开时关闭流
+     */
+    public void close(long streamId) {
+        Channel link = channel;
+        if (streams.remove(streamId) != null && link != null && link.isActive()) {
+            ClusterProtocol.write(link, ClusterProtocol.CLOSE, streamId, null);
+        }
+    }
+    
+    /**
+     * 关闭链路，不再重连
+     */
+    public void shutdown() {
+        closed = true;
+        Channel link = channel;
+        if (link != null) {
+            link.close();
+        }
+    }
+    
+    public boolean isActive() {
+        Channel link = channel;
+        return link != null && link.isActive();
+    }
+    
+    public String getNodeId() {
+        return backend.getNodeId();
+    }
+    
+    public GatewayConfig.Backend getBackend() {
+        return backend;
+    }
+    
+    /**
+     * 当前流数，即路由到该节点的在线客户端连接数
+     */
+    public int getStreamCount() {
+        return streams.size();
+    }
+    
+    @Override
+    public String toString() {
+        return "BackendLink{" + backend + ", active=" + isActive() + ", streams=" + streams.size() + '}';
+    }
+    
+    /**
+     * 流状态
+     */
+    private static class Stream {
+        final Channel client;
+        
+        /** 只在链路线程修改 */
+        int skipBytes;
+        
+        Stream(Channel client, int skipBytes) {
+            this.client = client;
+            this.skipBytes = skipBytes;
+        }
+    }
+    
+    /**
+     * 链路入站处理：把节点输出写回对应客户端
+     */
+    private class LinkHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        
+        /** 本次读事件中写过数据、等待flush的客户端 */
+        private final Set<Channel> pendingFlush = new HashSet<>();
+        
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) throws Exception {
+            byte kind = frame.readByte();
+            long streamId = frame.readLong();
+            if (kind == ClusterProtocol.CLOSE) {
+                Stream stream = streams.remove(streamId);
+                if (stream != null) {
+                    stream.client.close();
+                }
+                return;
+            }
+            if (kind != ClusterProtocol.DATA) {
+                logger.warn("Unexpected cluster frame type {} from node {}", kind, backend.getNodeId());
+                return;
+            }
+            
+            Stream stream = streams.get(streamId);
+            if (stream == null) {
+                return;
+            }
+            if (stream.skipBytes > 0) {
+                int skip = Math.min(stream.skipBytes, frame.readableBytes());
+                frame.skipBytes(skip);
+                stream.skipBytes -= skip;
+            }
+            if (frame.isReadable() && stream.client.isActive()) {
+                stream.client.write(frame.retainedSlice());
+                pendingFlush.add(stream.client);
+            }
+        }
+        
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            for (Channel client : pendingFlush) {
+                client.flush();
+            }
+            pendingFlush.clear();
+            super.channelReadComplete(ctx);
+        }
+        
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            logger.warn("Link to node {} closed, dropping {} client connections", backend, streams.size());
+            channel = null;
+            for (Stream stream : new ArrayList<>(streams.values())) {
+                stream.client.close();
+            }
+            streams.clear();
+            scheduleReconnect();
+            super.channelInactive(ctx);
+        }
+        
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            logger.error("Link to node {} failed", backend, cause);
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.GameServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本机集群启动器
+ * 用当前JVM和classpath启动N个节点进程和一个网关进程，用于本机联调和压测。Ctrl+C 时关闭全部子进程。
+ * <pre>
+ * java -cp ... com.jeffrey.gameserver.cluster.ClusterLauncher --nodes 3 --gateway-port 7777 --base-port 9100
+ * </pre>
+ * 第i个节点(从1开始)使用端口 base+10*i 作为玩家端口、base+10*i+1 作为集群端口、base+10*i+2 作为管理端口。
+ *
+ * @author jeffrey
+ */
+public class ClusterLauncher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClusterLauncher.class);
+    
+    private final int nodeCount;
+    private final int gatewayPort;
+    private final int basePort;
+    private final List<String> extraJvmArgs;
+    private final List<Process> processes = new ArrayList<>();
+    
+    public ClusterLauncher(int nodeCount, int gatewayPort, int basePort, List<String> extraJvmArgs) {
+        this.nodeCount = nodeCount;
+        this.gatewayPort = gatewayPort;
+        this.basePort = basePort;
+        this.extraJvmArgs = extraJvmArgs;
+    }
+    
+    /**
+     * 启动全部节点，再启动网关
+     */
+    public synchronized void start() throws IOException {
+        StringBuilder backends = new StringBuilder();
+        for (int i = 1; i <= nodeCount; i++) {
+            if (backends.length() > 0) {
+                backends.append(',');
+            }
+            backends.append("node").append(i).append("=127.0.0.1:").append(basePort + 10 * i + 1);
+        }
+        for (int i = 1; i <= nodeCount; i++) {
+            int port = basePort + 10 * i;
+            String nodeId = "node" + i;
+            // 节点列表同时作为各节点的peers，节点会跳过自己
+            processes.add(launch(nodeId, GameServer.class,
+                    "-Dgame.server.port=" + port,
+                    "-Dgame.cluster.port=" + (port + 1),
+                    "-Dgame.admin.port=" + (port + 2),
+                    "-Dgame.cluster.nodeId=" + nodeId,
+                    "-Dgame.cluster.peers=" + backends));
+        }
+        // 网关连接失败会自动重连，不需要等待节点就绪
+        processes.add(launch("gateway", GatewayServer.class,
+                "-Dgame.gateway.port=" + gatewayPort,
+                "-Dgame.gateway.backends=" + backends));
+        logger.info("Cluster started: nodes={}, gateway port={}, backends={}", nodeCount, gatewayPort, backends);
+    }
+    
+    private Process launch(String name, Class<?> mainClass, String... properties) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(extraJvmArgs);
+        for (String property : properties) {
+            command.add(property);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        
+        File logFile = new File("logs", "cluster-" + name + ".out");
+        logFile.getParentFile().mkdirs();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                .start();
+        logger.info("Started {}: output={}", name, logFile.getPath());
+        return process;
+    }
+    
+    /**
+     * 关闭全部子进程
+     */
+    public synchronized void stop() {
+        for (Process process : processes) {
+            process.destroy();
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+        processes.clear();
+        logger.info("Cluster stopped");
+    }
+    
+    /**
+     * 主方法
+     */
+    public static void main(String[] args) throws Exception {
+        int nodes = 2;
+        int gatewayPort = 7777;
+        int basePort = 9100;
+        List<String> jvmArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--nodes":
+                    nodes = Integer.parseInt(args[++i]);
+                    break;
+                case "--gateway-port":
+                    gatewayPort = Integer.parseInt(args[++i]);
+                    break;
+                case "--base-port":
+                    basePort = Integer.parseInt(args[++i]);
+                    break;
+                case "--jvm-arg":
+                    jvmArgs.add(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.err.println("Usage: ClusterLauncher [--nodes N] [--gateway-port P] [--base-port P] [--jvm-arg ARG]...");
+                    System.exit(1);
+            }
+        }
+        
+        ClusterLauncher launcher = new ClusterLauncher(nodes, gatewayPort, basePort, jvmArgs);
+        Runtime.getRuntime().addShutdownHook(new Thread(launcher::stop));
+        launcher.start();
+        Thread.currentThread().join();
+    }
+}
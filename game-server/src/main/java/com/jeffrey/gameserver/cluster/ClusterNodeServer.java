@@ -0,0 +1,245 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.config.ServerConfig;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 集群节点的内部端口
+ * 接受网关的长连接，为链路上的每个流建立一个到本进程 {@link LocalAddress} 的 {@link LocalChannel}，
+ * 本地地址上运行的是与TCP端口完全相同的pipeline，因此节点直接复用现有的编解码器、会话和消息处理器。
+ * 其他节点的出站链路也连接这个端口，目录同步、转交和发布的消息交给 {@link PeerTransport}。
+ * <p>
+ * 流和对应的本地连接注册在同一个EventLoop上，流表只在该线程访问，不需要加锁。
+ *
+ * @author jeffrey
+ */
+public class ClusterNodeServer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClusterNodeServer.class);
+    
+    private final ServerConfig config;
+    private final LocalAddress localAddress;
+    private final PeerTransport peerTransport;
+    
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel serverChannel;
+    
+    /**
+     * @param localAddress 游戏pipeline绑定的本地地址，见 NettyServer#bindLocal
+     * @param peerTransport 处理其他节点发来的消息，可以为null
+     */
+    public ClusterNodeServer(ServerConfig config, LocalAddress localAddress, PeerTransport peerTransport) {
+        this.config = config;
+        this.localAddress = localAddress;
+        this.peerTransport = peerTransport;
+    }
+    
+    /**
+     * 本节点游戏pipeline使用的本地地址，同一JVM内按集群端口区分
+     */
+    public static LocalAddress localAddressFor(ServerConfig config) {
+        return new LocalAddress("game-node-" + config.getClusterPort());
+    }
+    
+    /**
+     * 启动内部端口
+     */
+    public void start() throws InterruptedException {
+        bossGroup = new NioEventLoopGroup(1);
+        workerGroup = new NioEventLoopGroup(config.getWorkerThreads());
+        try {
+            ServerBootstrap bootstrap = new ServerBootstrap();
+            bootstrap.group(bossGroup, workerGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .option(ChannelOption.SO_REUSEADDR, true)
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childOption(ChannelOption.SO_KEEPALIVE, true)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) throws Exception {
+                            ch.pipeline().addLast("flushConsolidation", new FlushConsolidationHandler(256, true));
+                            ch.pipeline().addLast("frameDecoder",
+                                    new LengthFieldBasedFrameDecoder(ClusterProtocol.MAX_FRAME_LENGTH, 0, 4, 0, 4));
+                            ch.pipeline().addLast("linkHandler", new InboundLinkHandler());
+                        }
+                    });
+            serverChannel = bootstrap.bind(config.getHost(), config.getClusterPort()).sync().channel();
+            logger.info("Cluster node {} listening on {}:{}", config.getNodeId(), config.getHost(), config.getClusterPort());
+        } catch (Exception e) {
+            logger.error("Failed to start cluster node server", e);
+            stop();
+            throw e;
+        }
+    }
+    
+    /**
+     * 停止内部端口，关闭所有链路和流
+     */
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully();
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+        }
+    }
+    
+    /**
+     * 一条入站链路，来自网关或其他节点
+     */
+    private class InboundLinkHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        
+        /** 流 - streamId -> 本地连接的建立结果 */
+        private final Map<Long, ChannelFuture> streams = new HashMap<>();
+        
+        private Channel link;
+        
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            link = ctx.channel();
+            logger.info("Link connected to node {}: {}", config.getNodeId(), link.remoteAddress());
+            super.channelActive(ctx);
+        }
+        
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) throws Exception {
+            byte kind = frame.readByte();
+            long streamId = frame.readLong();
+            switch (kind) {
+                case ClusterProtocol.OPEN:
+                    open(ctx, streamId, frame.toString(StandardCharsets.UTF_8));
+                    break;
+                case ClusterProtocol.DATA: {
+                    ChannelFuture stream = streams.get(streamId);
+                    if (stream == null) {
+                        break;
+                    }
+                    ByteBuf data = frame.retainedSlice();
+                    if (stream.isSuccess()) {
+                        stream.channel().writeAndFlush(data);
+                    } else {
+                        // 本地连接还在建立中，按顺序排在连接完成之后写入
+                        stream.addListener(future -> {
+                            if (future.isSuccess()) {
+                                stream.channel().writeAndFlush(data);
+                            } else {
+                                data.release();
+                            }
+                        });
+                    }
+                    break;
+                }
+                case ClusterProtocol.CLOSE: {
+                    ChannelFuture stream = streams.remove(streamId);
+                    if (stream != null) {
+                        stream.channel().close();
+                    }
+                    break;
+                }
+                case ClusterProtocol.DIRECTORY:
+                case ClusterProtocol.DELIVER:
+                case ClusterProtocol.PUBLISH:
+                    if (peerTransport != null) {
+                        peerTransport.handleInbound(kind, frame);
+                    }
+                    break;
+                default:
+                    logger.warn("Unknown cluster frame type {} from {}", kind, ctx.channel().remoteAddress());
+                    break;
+            }
+        }
+        
+        private void open(ChannelHandlerContext ctx, long streamId, String clientAddress) {
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(ctx.channel().eventLoop())
+                    .channel(LocalChannel.class)
+                    .handler(new StreamBridge(streamId));
+            ChannelFuture future = bootstrap.connect(localAddress);
+            streams.put(streamId, future);
+            future.addListener(f -> {
+                if (!f.isSuccess()) {
+                    logger.warn("Failed to open stream {} for {}", streamId, clientAddress, f.cause());
+                    if (streams.remove(streamId) != null) {
+                        ClusterProtocol.write(link, ClusterProtocol.CLOSE, streamId, null);
+                    }
+                }
+            });
+            logger.debug("Stream {} opened for client {}", streamId, clientAddress);
+        }
+        
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            logger.info("Link closed: {}, streams={}", ctx.channel().remoteAddress(), streams.size());
+            for (ChannelFuture stream : new ArrayList<>(streams.values())) {
+                stream.channel().close();
+            }
+            streams.clear();
+            super.channelInactive(ctx);
+        }
+        
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            logger.error("Link error: {}", ctx.channel().remoteAddress(), cause);
+            ctx.close();
+        }
+        
+        /**
+         * 本地连接的客户端一侧，把游戏pipeline的输出转回链路
+         */
+        private class StreamBridge extends ChannelInboundHandlerAdapter {
+            
+            private final long streamId;
+            
+            StreamBridge(long streamId) {
+                this.streamId = streamId;
+            }
+            
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                if (msg instanceof ByteBuf && link.isActive()) {
+                    ClusterProtocol.write(link, ClusterProtocol.DATA, streamId, (ByteBuf) msg);
+                } else {
+                    ReferenceCountUtil.release(msg);
+                }
+            }
+            
+            @Override
+            public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+                // 节点主动关闭(如心跳超时)时通知网关关闭客户端连接
+                if (streams.remove(streamId) != null && link.isActive()) {
+                    ClusterProtocol.write(link, ClusterProtocol.CLOSE, streamId, null);
+                }
+                super.channelInactive(ctx);
+            }
+        }
+    }
+}
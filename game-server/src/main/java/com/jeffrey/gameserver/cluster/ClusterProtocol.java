@@ -0,0 +1,61 @@
+package com.jeffrey.gameserver.cluster;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+
+/**
+ * 集群内部链路协议
+ * 网关到节点的一条TCP长连接上复用多个玩家连接(流)；节点之间的链路使用同样的帧格式，流ID为0。每帧格式为：
+ * <pre>
+ * [4字节长度][1字节类型][8字节流ID][内容]
+ * </pre>
+ * <ul>
+ *     <li>OPEN: 网关为新玩家连接打开流，内容为客户端地址(UTF-8)</li>
+ *     <li>DATA: 流上的原始字节，网关到节点方向是完整的客户端帧(含长度字段)，反方向是任意分片</li>
+ *     <li>CLOSE: 任意一端关闭流</li>
+ *     <li>DIRECTORY: 节点之间的会话目录同步，见 {@link DirectoryUpdate}</li>
+ *     <li>DELIVER: 节点之间转交给玩家的消息，见 {@link PeerTransport}</li>
+ *     <li>PUBLISH: 节点之间的广播消息批次，见 {@link ClusterPubSub}</li>
+ * </ul>
+ *
+ * @author jeffrey
+ */
+public final class ClusterProtocol {
+    
+    public static final byte OPEN = 1;
+    public static final byte DATA = 2;
+    public static final byte CLOSE = 3;
+    public static final byte DIRECTORY = 4;
+    public static final byte DELIVER = 5;
+    public static final byte PUBLISH = 6;
+    
+    /** 长度字段之后的固定头: 类型(1字节) + 流ID(8字节) */
+    public static final int HEADER_LENGTH = 1 + 8;
+    
+    /** 内部帧最大长度，需要容纳一个最大的客户端帧 */
+    public static final int MAX_FRAME_LENGTH = 1024 * 1024 + 64;
+    
+    private ClusterProtocol() {
+    }
+    
+    /**
+     * 写入一帧。头和内容合成一个CompositeByteBuf整体写入，多个线程同时写同一条链路也不会交错。
+     * 
+     * @param payload 帧内容，所有权转移给链路，可以为null
+     */
+    public static ChannelFuture write(Channel link, byte kind, long streamId, ByteBuf payload) {
+        int payloadLength = payload != null ? payload.readableBytes() : 0;
+        ByteBuf header = link.alloc().buffer(4 + HEADER_LENGTH);
+        header.writeInt(HEADER_LENGTH + payloadLength);
+        header.writeByte(kind);
+        header.writeLong(streamId);
+        if (payload == null) {
+            return link.writeAndFlush(header);
+        }
+        CompositeByteBuf frame = link.alloc().compositeBuffer(2);
+        frame.addComponents(true, header, payload);
+        return link.writeAndFlush(frame);
+    }
+}
@@ -0,0 +1,203 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.network.codec.BinaryMessageCodec;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.EncoderException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 节点之间的发布订阅
+ * 用于世界聊天这类发给所有在线玩家的频道：发布的消息只发往其他节点，每个节点由订阅者在本地做一次编码、多次写出的广播，
+ * 节点之间的消息数只与节点数有关，与玩家数无关。
+ * <p>
+ * 发布时消息按二进制格式编码追加到待发送批次，批次在 batchDelay 毫秒后(或超过 maxBatchBytes 时立即)整体作为一帧
+ * 发给所有节点，各节点链路共享同一份字节。批次格式为若干个 [topic][4字节消息类型][二进制消息体]，
+ * 每条消息体前有4字节长度，接收方逐条解码后交给该topic的本地订阅者。
+ * 消息体直接编码进批次，长度在编码后回填，不需要为每条消息分配临时缓冲区。
+ *
+ * @author jeffrey
+ */
+public class ClusterPubSub {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClusterPubSub.class);
+    
+    /** 世界聊天频道 */
+    public static final String WORLD_CHAT = "chat.world";
+    
+    /** 批次超过该字节数时立即发送 */
+    public static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+    
+    private final ClusterTransport transport;
+    private final long batchDelay;
+    private final int maxBatchBytes;
+    
+    /** 订阅者 - topic -> 本地订阅者 */
+    private final Map<String, List<Consumer<Message>>> subscribers = new ConcurrentHashMap<>();
+    
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ClusterPubSub-Flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /** 待发送批次，null表示没有待发送的消息 */
+    private ByteBuf pending;
+    private int pendingCount;
+    
+    /** 当前批次的定时发送任务，批次提前发送时取消 */
+    private ScheduledFuture<?> flushTask;
+    
+    private boolean stopped;
+    
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong receivedCount = new AtomicLong();
+    
+    public ClusterPubSub(ClusterTransport transport, long batchDelay, int maxBatchBytes) {
+        this.transport = transport;
+        this.batchDelay = batchDelay;
+        this.maxBatchBytes = maxBatchBytes;
+        transport.setPublishReceiver(this::onBatch);
+    }
+    
+    /**
+     * 订阅其他节点发布到topic的消息，回调在链路的IO线程中执行
+     */
+    public void subscribe(String topic, Consumer<Message> subscriber) {
+        subscribers.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+    
+    /**
+     * 发布消息给其他节点的订阅者，本节点的投递由调用方完成；停止后发布的消息直接丢弃
+     */
+    public void publish(String topic, Message message) {
+        boolean flushNow;
+        synchronized (this) {
+            if (stopped) {
+                logger.debug("Dropping message published after stop: topic={}, type={}", topic, message.getType());
+                return;
+            }
+            if (pending == null) {
+                pending = ByteBufAllocator.DEFAULT.buffer(1024);
+                flushTask = scheduler.schedule(this::flush, batchDelay, TimeUnit.MILLISECONDS);
+            }
+            int start = pending.writerIndex();
+            try {
+                BinaryMessageCodec.writeString(pending, topic);
+                pending.writeInt(message.getType().getCode());
+                int lengthIndex = pending.writerIndex();
+                pending.writeInt(0);
+                BinaryMessageCodec.INSTANCE.encode(message, pending);
+                pending.setInt(lengthIndex, pending.writerIndex() - lengthIndex - 4);
+            } catch (Exception e) {
+                pending.writerIndex(start);
+                throw new EncoderException("Failed to encode published message: " + message.getType(), e);
+            }
+            pendingCount++;
+            flushNow = pending.readableBytes() >= maxBatchBytes;
+        }
+        publishedCount.incrementAndGet();
+        if (flushNow) {
+            flush();
+        }
+    }
+    
+    /**
+     * 发送待发送批次
+     */
+    public void flush() {
+        ByteBuf batch;
+        int count;
+        synchronized (this) {
+            batch = pending;
+            count = pendingCount;
+            pending = null;
+            pendingCount = 0;
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                flushTask = null;
+            }
+        }
+        if (batch == null) {
+            return;
+        }
+        batchCount.incrementAndGet();
+        logger.debug("Publishing batch: messages={}, bytes={}", count, batch.readableBytes());
+        transport.publish(batch);
+    }
+    
+    /**
+     * 处理其他节点发来的批次
+     */
+    void onBatch(ByteBuf batch) {
+        while (batch.isReadable()) {
+            String topic = BinaryMessageCodec.readString(batch);
+            MessageType type = MessageType.fromCode(batch.readInt());
+            int length = batch.readInt();
+            ByteBuf body = batch.readSlice(length);
+            List<Consumer<Message>> topicSubscribers = subscribers.get(topic);
+            if (type == null || topicSubscribers == null) {
+                continue;
+            }
+            try {
+                Message message = BinaryMessageCodec.INSTANCE.decode(type, body);
+                if (message == null) {
+                    continue;
+                }
+                receivedCount.incrementAndGet();
+                for (Consumer<Message> subscriber : topicSubscribers) {
+                    subscriber.accept(message);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to handle published message: topic={}, type={}", topic, type, e);
+            }
+        }
+    }
+    
+    /**
+     * 发送剩余批次并停止
+     */
+    public void stop() {
+        synchronized (this) {
+            stopped = true;
+        }
+        scheduler.shutdownNow();
+        flush();
+    }
+    
+    /**
+     * 本节点发布的消息数
+     */
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+    
+    /**
+     * 本节点发出的批次数，每个批次向每个节点各发一帧
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+    
+    /**
+     * 从其他节点收到并交给订阅者的消息数
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+}
@@ -0,0 +1,68 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.protocol.Message;
+import io.netty.buffer.ByteBuf;
+
+import java.util.function.Consumer;
+
+/**
+ * 节点之间的消息通道
+ * 节点间由 {@link PeerTransport} 通过TCP连接；测试中可以用进程内实现把多个 {@link SessionDirectory} 直接连起来。
+ * 同一对节点之间的消息必须按发送顺序到达；链路建立(包括断开重连)后，先发送 {@link Receiver#onPeerConnected}
+ * 返回的全量同步，再发送此后的广播，保证对方不会漏掉同步期间的增量。
+ *
+ * @author jeffrey
+ */
+public interface ClusterTransport {
+    
+    /**
+     * 设置接收者，必须在链路建立前调用
+     */
+    void setReceiver(Receiver receiver);
+    
+    /**
+     * 发送给所有已连接的节点
+     */
+    void broadcast(DirectoryUpdate update);
+    
+    /**
+     * 发送给指定节点
+     */
+    void send(String nodeId, DirectoryUpdate update);
+    
+    /**
+     * 把消息转交给指定节点上的玩家
+     *
+     * @return 到该节点的链路不可用时返回false
+     */
+    boolean deliver(String nodeId, String playerId, Message message);
+    
+    /**
+     * 把一批发布消息发给所有已连接的节点，见 {@link ClusterPubSub}
+     *
+     * @param batch 所有权转移给通道，各节点共享同一份内容
+     */
+    void publish(ByteBuf batch);
+    
+    /**
+     * 设置其他节点发布消息的接收者，回调在链路的IO线程中执行，批次只在回调期间有效
+     */
+    void setPublishReceiver(Consumer<ByteBuf> receiver);
+    
+    /**
+     * 接收者，回调在链路的IO线程中执行
+     */
+    interface Receiver {
+        
+        /**
+         * 到节点的链路建立(或重连)
+         *
+         * @return 在该链路上首先发送的全量同步
+         */
+        DirectoryUpdate onPeerConnected(String nodeId);
+        
+        void onDirectoryUpdate(DirectoryUpdate update);
+        
+        void onDelivery(String playerId, Message message);
+    }
+}
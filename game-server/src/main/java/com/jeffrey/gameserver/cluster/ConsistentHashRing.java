@@ -0,0 +1,168 @@
+package com.jeffrey.gameserver.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 一致性哈希环
+ * 每个节点在环上放置若干虚拟节点，键按哈希值顺时针找到的第一个虚拟节点所属的节点处理。
+ * 增删一个节点只影响约 1/N 的键，其余键的归属不变。
+ * <p>
+ * 环以不可变快照(排序后的哈希数组)保存，增删节点时整体替换；查找只做一次二分查找，不加锁。
+ *
+ * @author jeffrey
+ */
+public class ConsistentHashRing<T> {
+    
+    /** 默认每个节点的虚拟节点数 */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+    
+    private final int virtualNodes;
+    
+    /** 节点 - nodeId -> 节点对象，只在同步方法内修改 */
+    private final Map<String, T> nodes = new LinkedHashMap<>();
+    
+    private volatile Snapshot<T> snapshot = new Snapshot<>(new long[0], new Object[0]);
+    
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+    
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+    
+    /**
+     * 添加节点，已存在时替换
+     */
+    public synchronized void addNode(String nodeId, T node) {
+        nodes.put(nodeId, node);
+        rebuild();
+    }
+    
+    /**
+     * 移除节点
+     */
+    public synchronized T removeNode(String nodeId) {
+        T removed = nodes.remove(nodeId);
+        if (removed != null) {
+            rebuild();
+        }
+        return removed;
+    }
+    
+    /**
+     * 查找键所属的节点
+     *
+     * @return 环为空时返回null
+     */
+    public T route(String key) {
+        return route(key, null);
+    }
+    
+    /**
+     * 查找键所属的可用节点，所属节点不可用时沿环顺时针找下一个可用的节点
+     *
+     * @param available 节点是否可用，为null时不过滤
+     * @return 没有可用节点时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public T route(String key, Predicate<? super T> available) {
+        Snapshot<T> current = snapshot;
+        long[] hashes = current.hashes;
+        if (hashes.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(hashes, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        for (int i = 0; i < hashes.length; i++) {
+            T node = (T) current.nodes[(index + i) % hashes.length];
+            if (available == null || available.test(node)) {
+                return node;
+            }
+        }
+        return null;
+    }
+    
+    public synchronized Collection<T> getNodes() {
+        return Collections.unmodifiableList(new ArrayList<>(nodes.values()));
+    }
+    
+    public synchronized int size() {
+        return nodes.size();
+    }
+    
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+    
+    private void rebuild() {
+        int count = nodes.size() * virtualNodes;
+        long[] keys = new long[count];
+        Object[] owners = new Object[count];
+        Integer[] order = new Integer[count];
+        int i = 0;
+        for (Map.Entry<String, T> entry : nodes.entrySet()) {
+            for (int v = 0; v < virtualNodes; v++) {
+                keys[i] = hash(entry.getKey() + "#" + v);
+                owners[i] = entry.getValue();
+                order[i] = i;
+                i++;
+            }
+        }
+        
+        // 哈希相同时按添加顺序排列，保证结果确定
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Long.compare(keys[a], keys[b]);
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        long[] sorted = new long[count];
+        Object[] ringNodes = new Object[count];
+        for (int k = 0; k < count; k++) {
+            sorted[k] = keys[order[k]];
+            ringNodes[k] = owners[order[k]];
+        }
+        snapshot = new Snapshot<>(sorted, ringNodes);
+    }
+    
+    /**
+     * 64位哈希：FNV-1a 后接 MurmurHash3 的 fmix64，使相近的字符串在环上充分分散
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    /**
+     * 环快照 - hashes有序，nodes[i] 为 hashes[i] 所属的节点
+     */
+    private static final class Snapshot<T> {
+        final long[] hashes;
+        final Object[] nodes;
+        
+        Snapshot(long[] hashes, Object[] nodes) {
+            this.hashes = hashes;
+            this.nodes = nodes;
+        }
+    }
+}
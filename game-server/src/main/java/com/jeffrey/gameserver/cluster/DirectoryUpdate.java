@@ -0,0 +1,157 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.network.codec.BinaryMessageCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 会话目录在节点之间传播的消息
+ * <ul>
+ *     <li>HEARTBEAT: 续约，不带条目</li>
+ *     <li>SYNC: 发送方的全部在线玩家，接收方用它替换该节点的所有条目</li>
+ *     <li>DELTA: 增量，玩家上线(online=true)或下线</li>
+ *     <li>SYNC_REQUEST: 请求对方回复SYNC</li>
+ * </ul>
+ *
+ * @author jeffrey
+ */
+public class DirectoryUpdate {
+    
+    public enum Type {
+        HEARTBEAT, SYNC, DELTA, SYNC_REQUEST;
+        
+        private static final Type[] VALUES = values();
+        
+        static Type fromOrdinal(int ordinal) {
+            if (ordinal < 0 || ordinal >= VALUES.length) {
+                throw new CorruptedFrameException("Unknown directory update type: " + ordinal);
+            }
+            return VALUES[ordinal];
+        }
+    }
+    
+    private final Type type;
+    private final String nodeId;
+    private final long incarnation;
+    private final List<Entry> entries;
+    
+    public DirectoryUpdate(Type type, String nodeId, long incarnation, List<Entry> entries) {
+        this.type = type;
+        this.nodeId = nodeId;
+        this.incarnation = incarnation;
+        this.entries = entries;
+    }
+    
+    public static DirectoryUpdate of(Type type, String nodeId, long incarnation) {
+        return new DirectoryUpdate(type, nodeId, incarnation, Collections.emptyList());
+    }
+    
+    /**
+     * 编码，格式为 [类型1][nodeId][incarnation8][条目数varint]{[playerId][sessionId][playerName][version8][online1]}
+     */
+    public void encode(ByteBuf out) {
+        out.writeByte(type.ordinal());
+        BinaryMessageCodec.writeString(out, nodeId);
+        out.writeLong(incarnation);
+        BinaryMessageCodec.writeVarInt(out, entries.size());
+        for (Entry entry : entries) {
+            BinaryMessageCodec.writeString(out, entry.playerId);
+            BinaryMessageCodec.writeString(out, entry.sessionId);
+            BinaryMessageCodec.writeString(out, entry.playerName);
+            out.writeLong(entry.version);
+            out.writeBoolean(entry.online);
+        }
+    }
+    
+    public static DirectoryUpdate decode(ByteBuf in) {
+        Type type = Type.fromOrdinal(in.readUnsignedByte());
+        String nodeId = BinaryMessageCodec.readString(in);
+        long incarnation = in.readLong();
+        int count = BinaryMessageCodec.readVarInt(in);
+        List<Entry> entries = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            String playerId = BinaryMessageCodec.readString(in);
+            String sessionId = BinaryMessageCodec.readString(in);
+            String playerName = BinaryMessageCodec.readString(in);
+            long version = in.readLong();
+            boolean online = in.readBoolean();
+            entries.add(new Entry(playerId, sessionId, playerName, version, online));
+        }
+        return new DirectoryUpdate(type, nodeId, incarnation, entries);
+    }
+    
+    // Getter方法
+    public Type getType() {
+        return type;
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public long getIncarnation() {
+        return incarnation;
+    }
+    
+    public List<Entry> getEntries() {
+        return entries;
+    }
+    
+    @Override
+    public String toString() {
+        return "DirectoryUpdate{" +
+                "type=" + type +
+                ", nodeId='" + nodeId + '\'' +
+                ", incarnation=" + incarnation +
+                ", entries=" + entries.size() +
+                '}';
+    }
+    
+    /**
+     * 一个玩家的位置变化
+     */
+    public static class Entry {
+        private final String playerId;
+        private final String sessionId;
+        private final String playerName;
+        private final long version;
+        private final boolean online;
+        
+        public Entry(String playerId, String sessionId, String playerName, long version, boolean online) {
+            this.playerId = playerId;
+            this.sessionId = sessionId;
+            this.playerName = playerName;
+            this.version = version;
+            this.online = online;
+        }
+        
+        public String getPlayerId() {
+            return playerId;
+        }
+        
+        public String getSessionId() {
+            return sessionId;
+        }
+        
+        public String getPlayerName() {
+            return playerName;
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        public boolean isOnline() {
+            return online;
+        }
+        
+        @Override
+        public String toString() {
+            return (online ? "+" : "-") + playerId + "@" + sessionId + "#" + version;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.handler.LoginHandler;
+import com.jeffrey.gameserver.network.codec.CodecNegotiationHandler;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关上的客户端连接处理器
+ * 登录前缓存客户端帧：握手帧由网关直接回复(客户端不必等待节点)，同时保留下来转发给节点；
+ * 收到LOGIN后按玩家ID在哈希环上选择节点，打开流并按顺序转发缓存的帧。此后连接固定在该节点，
+ * 所有帧不解码直接转发。
+ * <p>
+ * 入站帧保留长度字段，转发给节点后由节点的帧解码器重新切分。
+ *
+ * @author jeffrey
+ */
+public class GatewayClientHandler extends ChannelInboundHandlerAdapter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GatewayClientHandler.class);
+    
+    /** 登录前最多缓存的帧数 */
+    private static final int MAX_PENDING_FRAMES = 16;
+    
+    /** 握手帧含长度字段的总字节数 */
+    private static final int HANDSHAKE_FRAME_LENGTH = 4 + CodecNegotiationHandler.HANDSHAKE_LENGTH;
+    
+    private final GatewayServer gateway;
+    private final long streamId;
+    
+    private final List<ByteBuf> pendingFrames = new ArrayList<>();
+    private CodecType codecType = CodecType.JSON;
+    private boolean handshakeSeen;
+    private BackendLink link;
+    private ScheduledFuture<?> loginTimeout;
+    
+    public GatewayClientHandler(GatewayServer gateway, long streamId) {
+        this.gateway = gateway;
+        this.streamId = streamId;
+    }
+    
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        int timeout = gateway.getConfig().getLoginTimeout();
+        loginTimeout = ctx.executor().schedule(() -> {
+            if (link == null) {
+                logger.info("Client did not login within {}s, closing: {}", timeout, ctx.channel().remoteAddress());
+                ctx.close();
+            }
+        }, timeout, TimeUnit.SECONDS);
+        super.channelActive(ctx);
+    }
+    
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        ByteBuf frame = (ByteBuf) msg;
+        if (link != null) {
+            link.send(streamId, frame);
+            return;
+        }
+        
+        int type = frame.readableBytes() >= 8 ? frame.getInt(frame.readerIndex() + 4) : 0;
+        if (type == MessageType.HANDSHAKE.getCode() && !handshakeSeen && pendingFrames.isEmpty()) {
+            handshake(ctx, frame);
+        } else if (type == MessageType.LOGIN.getCode()) {
+            pendingFrames.add(frame);
+            route(ctx, frame);
+        } else if (pendingFrames.size() < MAX_PENDING_FRAMES) {
+            pendingFrames.add(frame);
+        } else {
+            frame.release();
+            logger.warn("Too many frames before login, closing: {}", ctx.channel().remoteAddress());
+            ctx.close();
+        }
+    }
+    
+    /**
+     * 按节点相同的规则选择编码格式并立即回复，握手帧本身仍转发给节点
+     */
+    private void handshake(ChannelHandlerContext ctx, ByteBuf frame) {
+        CodecType requested = CodecNegotiationHandler.readHandshake(frame.slice(frame.readerIndex() + 4,
+                frame.readableBytes() - 4));
+        codecType = requested != null && gateway.getConfig().getEnabledCodecs().contains(requested)
+                ? requested : CodecType.JSON;
+        handshakeSeen = true;
+        pendingFrames.add(frame);
+        
+        ByteBuf reply = ctx.alloc().buffer(HANDSHAKE_FRAME_LENGTH);
+        reply.writeInt(CodecNegotiationHandler.HANDSHAKE_LENGTH);
+        CodecNegotiationHandler.writeHandshake(reply, codecType);
+        ctx.writeAndFlush(reply);
+    }
+    
+    /**
+     * 按登录的玩家ID选择节点并打开流
+     */
+    private void route(ChannelHandlerContext ctx, ByteBuf loginFrame) {
+        String routingKey = routingKey(loginFrame);
+        BackendLink target = gateway.route(routingKey);
+        // 网关已经回复过握手，丢弃节点的握手回复
+        int skipBytes = handshakeSeen ? HANDSHAKE_FRAME_LENGTH : 0;
+        if (target == null || !target.open(streamId, ctx.channel(), skipBytes)) {
+            logger.warn("No backend node available for {}, closing: {}", routingKey, ctx.channel().remoteAddress());
+            ctx.close();
+            return;
+        }
+        link = target;
+        if (loginTimeout != null) {
+            loginTimeout.cancel(false);
+        }
+        for (ByteBuf pending : pendingFrames) {
+            target.send(streamId, pending);
+        }
+        pendingFrames.clear();
+        logger.debug("Client {} routed to node {} as {}", ctx.channel().remoteAddress(), target.getNodeId(), routingKey);
+    }
+    
+    /**
+     * 路由键为玩家ID，与节点上 LoginHandler 生成的规则一致；无法解析时按流ID分散，由节点回复登录失败
+     */
+    private String routingKey(ByteBuf loginFrame) {
+        try {
+            ByteBuf body = loginFrame.slice(loginFrame.readerIndex() + 8, loginFrame.readableBytes() - 8);
+            Message message = CodecNegotiationHandler.codecFor(codecType).decode(MessageType.LOGIN, body);
+            if (message instanceof LoginMessage && ((LoginMessage) message).getUsername() != null) {
+                return LoginHandler.playerIdFor(((LoginMessage) message).getUsername());
+            }
+        } catch (Exception e) {
+            logger.debug("Failed to decode login frame at gateway", e);
+        }
+        return "stream-" + streamId;
+    }
+    
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        for (ByteBuf pending : pendingFrames) {
+            ReferenceCountUtil.release(pending);
+        }
+        pendingFrames.clear();
+        if (loginTimeout != null) {
+            loginTimeout.cancel(false);
+        }
+        if (link != null) {
+            link.close(streamId);
+        }
+        super.channelInactive(ctx);
+    }
+    
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        logger.error("Gateway client error: {}", ctx.channel().remoteAddress(), cause);
+        ctx.close();
+    }
+}
@@ -0,0 +1,232 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.protocol.CodecType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 网关配置类
+ *
+ * @author jeffrey
+ */
+public class GatewayConfig {
+    
+    /** 网关监听地址 */
+    private String host = "localhost";
+    
+    /** 网关端口，客户端连接该端口 */
+    private int port = 7777;
+    
+    /** Worker线程数 */
+    private int workerThreads = Runtime.getRuntime().availableProcessors() * 2;
+    
+    /** 每个节点在哈希环上的虚拟节点数 */
+    private int virtualNodes = ConsistentHashRing.DEFAULT_VIRTUAL_NODES;
+    
+    /** 连接后必须在该时间内登录(秒)，否则断开 */
+    private int loginTimeout = 30;
+    
+    /** 到节点的链路断开后的重连间隔(毫秒) */
+    private int reconnectInterval = 1000;
+    
+    /** 消息最大长度，与节点保持一致 */
+    private int maxMessageLength = 1024 * 1024;
+    
+    /** 握手时允许选择的编码格式，必须与节点的 game.server.codecs 一致 */
+    private Set<CodecType> enabledCodecs = EnumSet.allOf(CodecType.class);
+    
+    /** 后端节点 */
+    private List<Backend> backends = new ArrayList<>();
+    
+    public GatewayConfig() {
+        loadFromEnvironment();
+    }
+    
+    /**
+     * 从系统属性加载配置
+     */
+    private void loadFromEnvironment() {
+        String envHost = System.getProperty("game.gateway.host");
+        if (envHost != null && !envHost.trim().isEmpty()) {
+            this.host = envHost.trim();
+        }
+        this.port = intProperty("game.gateway.port", port);
+        this.workerThreads = intProperty("game.gateway.workerThreads", workerThreads);
+        this.virtualNodes = intProperty("game.gateway.virtualNodes", virtualNodes);
+        this.loginTimeout = intProperty("game.gateway.loginTimeout", loginTimeout);
+        this.reconnectInterval = intProperty("game.gateway.reconnectInterval", reconnectInterval);
+        
+        // 逗号分隔的 nodeId=host:port，如 node1=127.0.0.1:9101,node2=127.0.0.1:9102
+        String envBackends = System.getProperty("game.gateway.backends");
+        if (envBackends != null && !envBackends.trim().isEmpty()) {
+            this.backends = parseBackends(envBackends);
+        }
+        
+        String envCodecs = System.getProperty("game.server.codecs");
+        if (envCodecs != null && !envCodecs.trim().isEmpty()) {
+            Set<CodecType> codecs = EnumSet.of(CodecType.JSON);
+            for (String name : envCodecs.split(",")) {
+                CodecType codec = CodecType.fromName(name);
+                if (codec != null) {
+                    codecs.add(codec);
+                }
+            }
+            this.enabledCodecs = codecs;
+        }
+    }
+    
+    /**
+     * 解析后端节点列表
+     */
+    public static List<Backend> parseBackends(String value) {
+        List<Backend> result = new ArrayList<>();
+        for (String item : value.split(",")) {
+            item = item.trim();
+            if (item.isEmpty()) {
+                continue;
+            }
+            int eq = item.indexOf('=');
+            int colon = item.lastIndexOf(':');
+            if (eq <= 0 || colon <= eq) {
+                throw new IllegalArgumentException("Invalid backend, expected nodeId=host:port: " + item);
+            }
+            result.add(new Backend(item.substring(0, eq), item.substring(eq + 1, colon),
+                    Integer.parseInt(item.substring(colon + 1))));
+        }
+        return result;
+    }
+    
+    private static int intProperty(String key, int defaultValue) {
+        String value = System.getProperty(key);
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                // 使用默认值
+            }
+        }
+        return defaultValue;
+    }
+    
+    // Getter和Setter方法
+    public String getHost() {
+        return host;
+    }
+    
+    public void setHost(String host) {
+        this.host = host;
+    }
+    
+    public int getPort() {
+        return port;
+    }
+    
+    public void setPort(int port) {
+        this.port = port;
+    }
+    
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+    
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+    
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+    
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+    
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+    
+    public void setLoginTimeout(int loginTimeout) {
+        this.loginTimeout = loginTimeout;
+    }
+    
+    public int getReconnectInterval() {
+        return reconnectInterval;
+    }
+    
+    public void setReconnectInterval(int reconnectInterval) {
+        this.reconnectInterval = reconnectInterval;
+    }
+    
+    public int getMaxMessageLength() {
+        return maxMessageLength;
+    }
+    
+    public void setMaxMessageLength(int maxMessageLength) {
+        this.maxMessageLength = maxMessageLength;
+    }
+    
+    public Set<CodecType> getEnabledCodecs() {
+        return enabledCodecs;
+    }
+    
+    public void setEnabledCodecs(Set<CodecType> enabledCodecs) {
+        this.enabledCodecs = enabledCodecs;
+    }
+    
+    public List<Backend> getBackends() {
+        return Collections.unmodifiableList(backends);
+    }
+    
+    public void setBackends(List<Backend> backends) {
+        this.backends = new ArrayList<>(backends);
+    }
+    
+    @Override
+    public String toString() {
+        return "GatewayConfig{" +
+                "host='" + host + '\'' +
+                ", port=" + port +
+                ", workerThreads=" + workerThreads +
+                ", virtualNodes=" + virtualNodes +
+                ", loginTimeout=" + loginTimeout +
+                ", backends=" + backends +
+                ", enabledCodecs=" + enabledCodecs +
+                '}';
+    }
+    
+    /**
+     * 后端节点地址
+     */
+    public static class Backend {
+        private final String nodeId;
+        private final String host;
+        private final int port;
+        
+        public Backend(String nodeId, String host, int port) {
+            this.nodeId = nodeId;
+            this.host = host;
+            this.port = port;
+        }
+        
+        public String getNodeId() {
+            return nodeId;
+        }
+        
+        public String getHost() {
+            return host;
+        }
+        
+        public int getPort() {
+            return port;
+        }
+        
+        @Override
+        public String toString() {
+            return nodeId + "=" + host + ":" + port;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.jeffrey.gameserver.cluster;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 集群网关
+ * 接受客户端连接，按玩家ID的一致性哈希选择后端节点，通过到各节点的内部长连接转发帧。
+ * 网关只在登录前解析握手帧和LOGIN帧，此后不解码，业务逻辑全部在节点上执行。
+ * <p>
+ * 启动参数见 {@link GatewayConfig}，例如：
+ * <pre>
+ * java -Dgame.gateway.port=7777 -Dgame.gateway.backends=node1=127.0.0.1:9101,node2=127.0.0.1:9102 \
+ *      -cp ... com.jeffrey.gameserver.cluster.GatewayServer
+ * </pre>
+ *
+ * @author jeffrey
+ */
+public class GatewayServer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GatewayServer.class);
+    
+    private final GatewayConfig config;
+    private final ConsistentHashRing<BackendLink> ring;
+    private final AtomicLong streamIdGenerator = new AtomicLong();
+    
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel serverChannel;
+    
+    public GatewayServer(GatewayConfig config) {
+        this.config = config;
+        this.ring = new ConsistentHashRing<>(config.getVirtualNodes());
+    }
+    
+    /**
+     * 连接所有节点并开始监听
+     */
+    public void start() throws InterruptedException {
+        bossGroup = new NioEventLoopGroup(1);
+        workerGroup = new NioEventLoopGroup(config.getWorkerThreads());
+        
+        for (GatewayConfig.Backend backend : config.getBackends()) {
+            BackendLink link = new BackendLink(backend, workerGroup, config.getReconnectInterval());
+            ring.addNode(backend.getNodeId(), link);
+            link.connect();
+        }
+        
+        try {
+            ServerBootstrap bootstrap = new ServerBootstrap();
+            bootstrap.group(bossGroup, workerGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .option(ChannelOption.SO_BACKLOG, 1024)
+                    .option(ChannelOption.SO_REUSEADDR, true)
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) throws Exception {
+                            // 保留长度字段，转发时节点可以直接按原帧解码
+                            ch.pipeline().addLast("frameDecoder",
+                                    new LengthFieldBasedFrameDecoder(config.getMaxMessageLength() + 4, 0, 4, 0, 0));
+                            ch.pipeline().addLast("gatewayHandler",
+                                    new GatewayClientHandler(GatewayServer.this, streamIdGenerator.incrementAndGet()));
+                        }
+                    });
+            serverChannel = bootstrap.bind(config.getHost(), config.getPort()).sync().channel();
+            logger.info("Gateway started on {}:{}, backends={}", config.getHost(), config.getPort(), config.getBackends());
+        } catch (Exception e) {
+            logger.error("Failed to start gateway", e);
+            stop();
+            throw e;
+        }
+    }
+    
+    /**
+     * 停止网关，断开所有客户端和节点链路
+     */
+    public void stop() {
+        logger.info("Stopping gateway...");
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        for (BackendLink link : ring.getNodes()) {
+            link.shutdown();
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully();
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+        }
+        logger.info("Gateway stopped.");
+    }
+    
+    /**
+     * 按路由键选择可用节点，所属节点的链路断开时顺延到环上的下一个节点
+     */
+    public BackendLink route(String routingKey) {
+        return ring.route(routingKey, BackendLink::isActive);
+    }
+    
+    public GatewayConfig getConfig() {
+        return config;
+    }
+    
+    public Collection<BackendLink> getLinks() {
+        return ring.getNodes();
+    }
+    
+    /**
+     * 主方法
+     */
+    public static void main(String[] args) throws Exception {
+        GatewayServer gateway = new GatewayServer(new GatewayConfig());
+        gateway.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(gateway::stop));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,313 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.config.ServerConfig;
+import com.jeffrey.gameserver.network.codec.BinaryMessageCodec;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 节点之间的TCP通道
+ * 每个节点主动连接 game.cluster.peers 中其他节点的集群端口，只用这条出站连接发送；对方发来的消息经本节点的
+ * {@link ClusterNodeServer} 入站链路交给 {@link #handleInbound}。两个方向各自一条连接，每个方向上的消息天然有序。
+ * <p>
+ * 帧格式沿用 {@link ClusterProtocol}，流ID固定为0：
+ * <ul>
+ *     <li>DIRECTORY: {@link DirectoryUpdate}</li>
+ *     <li>DELIVER: [playerId][4字节消息类型][二进制消息体]</li>
+ *     <li>PUBLISH: {@link ClusterPubSub} 的消息批次</li>
+ * </ul>
+ *
+ * @author jeffrey
+ */
+public class PeerTransport implements ClusterTransport {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PeerTransport.class);
+    
+    private final String nodeId;
+    private final int reconnectInterval;
+    
+    /** 出站链路 - nodeId -> PeerLink，创建后不再变化 */
+    private final Map<String, PeerLink> links;
+    
+    private volatile Receiver receiver;
+    private volatile Consumer<ByteBuf> publishReceiver;
+    private volatile boolean closed;
+    private EventLoopGroup group;
+    
+    public PeerTransport(ServerConfig config) {
+        this.nodeId = config.getNodeId();
+        this.reconnectInterval = config.getClusterHeartbeatInterval();
+        Map<String, PeerLink> peerLinks = new LinkedHashMap<>();
+        if (config.getClusterPeers() != null && !config.getClusterPeers().trim().isEmpty()) {
+            for (GatewayConfig.Backend peer : GatewayConfig.parseBackends(config.getClusterPeers())) {
+                if (!peer.getNodeId().equals(nodeId)) {
+                    peerLinks.put(peer.getNodeId(), new PeerLink(peer));
+                }
+            }
+        }
+        this.links = Collections.unmodifiableMap(peerLinks);
+    }
+    
+    @Override
+    public void setReceiver(Receiver receiver) {
+        this.receiver = receiver;
+    }
+    
+    @Override
+    public void setPublishReceiver(Consumer<ByteBuf> publishReceiver) {
+        this.publishReceiver = publishReceiver;
+    }
+    
+    /**
+     * 连接所有节点，失败时按间隔重试
+     */
+    public void start() {
+        group = new NioEventLoopGroup(1);
+        for (PeerLink link : links.values()) {
+            link.connect();
+        }
+        logger.info("Peer transport started: node={}, peers={}", nodeId, links.keySet());
+    }
+    
+    public void stop() {
+        closed = true;
+        for (PeerLink link : links.values()) {
+            Channel channel = link.channel;
+            if (channel != null) {
+                channel.close();
+            }
+        }
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+    
+    @Override
+    public void broadcast(DirectoryUpdate update) {
+        if (links.isEmpty()) {
+            return;
+        }
+        // 只编码一次，各链路共享同一份内容
+        ByteBuf payload = encode(update);
+        try {
+            for (PeerLink link : links.values()) {
+                link.write(ClusterProtocol.DIRECTORY, payload.retainedDuplicate());
+            }
+        } finally {
+            payload.release();
+        }
+    }
+    
+    @Override
+    public void publish(ByteBuf batch) {
+        try {
+            for (PeerLink link : links.values()) {
+                link.write(ClusterProtocol.PUBLISH, batch.retainedDuplicate());
+            }
+        } finally {
+            batch.release();
+        }
+    }
+    
+    @Override
+    public void send(String peerNodeId, DirectoryUpdate update) {
+        PeerLink link = links.get(peerNodeId);
+        if (link != null) {
+            link.write(ClusterProtocol.DIRECTORY, encode(update));
+        }
+    }
+    
+    @Override
+    public boolean deliver(String peerNodeId, String playerId, Message message) {
+        PeerLink link = links.get(peerNodeId);
+        if (link == null || !link.isActive()) {
+            return false;
+        }
+        ByteBuf payload = ByteBufAllocator.DEFAULT.buffer();
+        try {
+            BinaryMessageCodec.writeString(payload, playerId);
+            payload.writeInt(message.getType().getCode());
+            BinaryMessageCodec.INSTANCE.encode(message, payload);
+        } catch (Exception e) {
+            payload.release();
+            logger.error("Failed to encode message for player {} on node {}", playerId, peerNodeId, e);
+            return false;
+        }
+        return link.write(ClusterProtocol.DELIVER, payload);
+    }
+    
+    /**
+     * 处理其他节点发来的消息，在 ClusterNodeServer 入站链路的IO线程中调用
+     */
+    void handleInbound(byte kind, ByteBuf payload) throws Exception {
+        if (kind == ClusterProtocol.PUBLISH) {
+            Consumer<ByteBuf> currentPublishReceiver = publishReceiver;
+            if (currentPublishReceiver != null) {
+                currentPublishReceiver.accept(payload);
+            }
+            return;
+        }
+        Receiver current = receiver;
+        if (current == null) {
+            return;
+        }
+        if (kind == ClusterProtocol.DIRECTORY) {
+            current.onDirectoryUpdate(DirectoryUpdate.decode(payload));
+        } else if (kind == ClusterProtocol.DELIVER) {
+            String playerId = BinaryMessageCodec.readString(payload);
+            MessageType type = MessageType.fromCode(payload.readInt());
+            Message message = type != null ? BinaryMessageCodec.INSTANCE.decode(type, payload) : null;
+            if (message != null) {
+                current.onDelivery(playerId, message);
+            }
+        }
+    }
+    
+    private static ByteBuf encode(DirectoryUpdate update) {
+        ByteBuf payload = ByteBufAllocator.DEFAULT.buffer();
+        update.encode(payload);
+        return payload;
+    }
+    
+    public boolean isConnected(String peerNodeId) {
+        PeerLink link = links.get(peerNodeId);
+        return link != null && link.isActive();
+    }
+    
+    public Map<String, PeerLink> getLinks() {
+        return links;
+    }
+    
+    /**
+     * 到一个节点的出站链路
+     */
+    public class PeerLink {
+        
+        private final GatewayConfig.Backend peer;
+        private volatile Channel channel;
+        
+        PeerLink(GatewayConfig.Backend peer) {
+            this.peer = peer;
+        }
+        
+        void connect() {
+            if (closed) {
+                return;
+            }
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(group)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .option(ChannelOption.SO_KEEPALIVE, true)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) throws Exception {
+                            ch.pipeline().addLast("peerHandler", new PeerLinkHandler());
+                        }
+                    });
+            bootstrap.connect(peer.getHost(), peer.getPort()).addListener((ChannelFuture future) -> {
+                if (future.isSuccess()) {
+                    established(future.channel());
+                } else {
+                    logger.debug("Failed to connect to peer {}: {}", peer, future.cause().getMessage());
+                    scheduleReconnect();
+                }
+            });
+        }
+        
+        /**
+         * 全量同步写在所有增量之前；同步快照和发布链路在同一把锁内，快照之后的增量只能在发布后写入
+         */
+        private void established(Channel ch) {
+            Receiver current = receiver;
+            synchronized (this) {
+                if (current != null) {
+                    ClusterProtocol.write(ch, ClusterProtocol.DIRECTORY, 0, encode(current.onPeerConnected(peer.getNodeId())));
+                }
+                channel = ch;
+            }
+            logger.info("Connected to peer {}", peer);
+        }
+        
+        private void scheduleReconnect() {
+            if (!closed) {
+                group.schedule(this::connect, reconnectInterval, TimeUnit.MILLISECONDS);
+            }
+        }
+        
+        /**
+         * 写入一帧，payload所有权转移给链路
+         */
+        boolean write(byte kind, ByteBuf payload) {
+            synchronized (this) {
+                Channel ch = channel;
+                if (ch == null || !ch.isActive()) {
+                    payload.release();
+                    return false;
+                }
+                ClusterProtocol.write(ch, kind, 0, payload);
+                return true;
+            }
+        }
+        
+        public boolean isActive() {
+            Channel ch = channel;
+            return ch != null && ch.isActive();
+        }
+        
+        public GatewayConfig.Backend getPeer() {
+            return peer;
+        }
+        
+        /**
+         * 出站链路只发送，断开时重连
+         */
+        private class PeerLinkHandler extends ChannelInboundHandlerAdapter {
+            
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                ReferenceCountUtil.release(msg);
+            }
+            
+            @Override
+            public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+                if (channel == ctx.channel()) {
+                    channel = null;
+                }
+                if (!closed) {
+                    logger.warn("Link to peer {} closed, reconnecting", peer);
+                    scheduleReconnect();
+                }
+                super.channelInactive(ctx);
+            }
+            
+            @Override
+            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+                logger.error("Link to peer {} failed", peer, cause);
+                ctx.close();
+            }
+        }
+    }
+}
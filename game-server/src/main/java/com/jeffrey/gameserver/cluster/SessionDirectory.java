@@ -0,0 +1,401 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.protocol.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 集群会话目录
+ * 每个节点在本地保存全集群 playerId -> 所在节点 的完整副本(近端缓存)，查询只是一次哈希表读取加一次租约判断，
+ * 不需要任何网络往返。
+ * <p>
+ * 复制方式：
+ * <ul>
+ *     <li>玩家在本节点上线/下线时立即向所有节点广播增量</li>
+ *     <li>链路建立或重连时先发送本节点的全量同步，接收方用它替换该节点的所有条目</li>
+ *     <li>按心跳间隔广播心跳为本节点续约；某节点的租约过期后，它的所有条目立即失效并被清除，
+ *         之后再收到它的消息时请求一次全量同步</li>
+ *     <li>节点重启后 incarnation 变大，接收方丢弃旧进程留下的条目</li>
+ * </ul>
+ * 同一玩家在两个节点同时在线时，版本号大的一方获胜(版本相同按nodeId比较)，败方节点关闭本地会话，
+ * 两边按同一规则比较，因此结论一致。本节点生成的版本号总是大于目录中已知的版本，后登录的一方获胜。
+ *
+ * @author jeffrey
+ */
+public class SessionDirectory implements ClusterTransport.Receiver {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SessionDirectory.class);
+    
+    /**
+     * 目录事件监听器，由 SessionManager 实现
+     */
+    public interface Listener {
+        
+        /**
+         * 本节点的玩家在其他节点重新登录，需要关闭本地会话
+         */
+        void onEvicted(String playerId, String sessionId);
+        
+        /**
+         * 其他节点转交给本节点玩家的消息
+         */
+        void onDelivery(String playerId, Message message);
+    }
+    
+    private final String nodeId;
+    private final long incarnation;
+    private final ClusterTransport transport;
+    private final long heartbeatInterval;
+    private final long leaseTimeout;
+    private final LongSupplier clock;
+    private final Peer localPeer;
+    
+    /** 玩家位置 - playerId -> Location，包括本节点和其他节点的玩家 */
+    private final ConcurrentHashMap<String, Location> locations = new ConcurrentHashMap<>();
+    
+    /** 其他节点 - nodeId -> Peer */
+    private final ConcurrentHashMap<String, Peer> peers = new ConcurrentHashMap<>();
+    
+    private final AtomicLong lastVersion = new AtomicLong();
+    
+    private volatile Listener listener;
+    private ScheduledExecutorService scheduler;
+    
+    public SessionDirectory(String nodeId, ClusterTransport transport, long heartbeatInterval, long leaseTimeout) {
+        this(nodeId, transport, heartbeatInterval, leaseTimeout, System::currentTimeMillis);
+    }
+    
+    SessionDirectory(String nodeId, ClusterTransport transport, long heartbeatInterval, long leaseTimeout,
+                     LongSupplier clock) {
+        this.nodeId = nodeId;
+        this.transport = transport;
+        this.heartbeatInterval = heartbeatInterval;
+        this.leaseTimeout = leaseTimeout;
+        this.clock = clock;
+        this.incarnation = clock.getAsLong();
+        this.localPeer = new Peer(nodeId);
+        this.localPeer.incarnation = incarnation;
+        this.localPeer.leaseExpiry = Long.MAX_VALUE;
+        transport.setReceiver(this);
+    }
+    
+    /**
+     * 启动心跳和租约检查
+     */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "SessionDirectory-Gossip");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                gossip();
+            } catch (Exception e) {
+                logger.error("Error during directory gossip", e);
+            }
+        }, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+        logger.info("Session directory started: node={}, heartbeat={}ms, lease={}ms",
+                nodeId, heartbeatInterval, leaseTimeout);
+    }
+    
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    /**
+     * 发送心跳并清除租约过期节点的条目
+     */
+    void gossip() {
+        transport.broadcast(DirectoryUpdate.of(DirectoryUpdate.Type.HEARTBEAT, nodeId, incarnation));
+        long now = clock.getAsLong();
+        for (Peer peer : peers.values()) {
+            synchronized (peer) {
+                if (!peer.purged && now > peer.leaseExpiry) {
+                    int removed = purge(peer);
+                    peer.purged = true;
+                    logger.warn("Lease of node {} expired, dropped {} players", peer.nodeId, removed);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 本节点玩家上线
+     */
+    public void register(String playerId, String sessionId, String playerName) {
+        Location location = new Location(playerId, sessionId, playerName, nextVersion(locations.get(playerId)), localPeer);
+        locations.put(playerId, location);
+        transport.broadcast(delta(location, true));
+    }
+    
+    /**
+     * 本节点玩家下线，目录已指向其他会话时忽略
+     */
+    public void unregister(String playerId, String sessionId) {
+        Location current = locations.get(playerId);
+        if (current != null && current.owner == localPeer && current.sessionId.equals(sessionId)
+                && locations.remove(playerId, current)) {
+            transport.broadcast(delta(current, false));
+        }
+    }
+    
+    /**
+     * 查询玩家位置，所在节点租约已过期时返回null
+     */
+    public Location lookup(String playerId) {
+        Location location = locations.get(playerId);
+        if (location == null || location.owner.leaseExpiry < clock.getAsLong()) {
+            return null;
+        }
+        return location;
+    }
+    
+    /**
+     * 把消息转交给玩家所在的其他节点
+     *
+     * @return 玩家在本节点(应直接查本地会话)或到该节点的链路不可用时返回false
+     */
+    public boolean deliver(Location location, Message message) {
+        if (location.owner == localPeer) {
+            return false;
+        }
+        return transport.deliver(location.getNodeId(), location.playerId, message);
+    }
+    
+    private long nextVersion(Location known) {
+        long floor = known != null ? known.version + 1 : 0;
+        while (true) {
+            long last = lastVersion.get();
+            long next = Math.max(Math.max(clock.getAsLong(), last + 1), floor);
+            if (lastVersion.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+    
+    private DirectoryUpdate delta(Location location, boolean online) {
+        List<DirectoryUpdate.Entry> entries = new ArrayList<>(1);
+        entries.add(location.toEntry(online));
+        return new DirectoryUpdate(DirectoryUpdate.Type.DELTA, nodeId, incarnation, entries);
+    }
+    
+    private DirectoryUpdate sync() {
+        List<DirectoryUpdate.Entry> entries = new ArrayList<>();
+        for (Location location : locations.values()) {
+            if (location.owner == localPeer) {
+                entries.add(location.toEntry(true));
+            }
+        }
+        return new DirectoryUpdate(DirectoryUpdate.Type.SYNC, nodeId, incarnation, entries);
+    }
+    
+    @Override
+    public DirectoryUpdate onPeerConnected(String peerNodeId) {
+        return sync();
+    }
+    
+    @Override
+    public void onDirectoryUpdate(DirectoryUpdate update) {
+        if (nodeId.equals(update.getNodeId())) {
+            return;
+        }
+        Peer peer = peers.computeIfAbsent(update.getNodeId(), Peer::new);
+        boolean requestSync = false;
+        synchronized (peer) {
+            if (update.getIncarnation() < peer.incarnation) {
+                // 已重启节点的旧进程残留的消息
+                return;
+            }
+            if (update.getIncarnation() > peer.incarnation) {
+                if (peer.incarnation != 0) {
+                    logger.info("Node {} restarted, dropped {} players", peer.nodeId, purge(peer));
+                }
+                peer.incarnation = update.getIncarnation();
+            }
+            peer.leaseExpiry = clock.getAsLong() + leaseTimeout;
+            if (peer.purged && update.getType() != DirectoryUpdate.Type.SYNC) {
+                requestSync = true;
+            }
+            peer.purged = false;
+            
+            switch (update.getType()) {
+                case SYNC:
+                    purge(peer);
+                    apply(peer, update.getEntries());
+                    break;
+                case DELTA:
+                    apply(peer, update.getEntries());
+                    break;
+                case SYNC_REQUEST:
+                    transport.send(peer.nodeId, sync());
+                    break;
+                case HEARTBEAT:
+                default:
+                    break;
+            }
+        }
+        if (requestSync) {
+            transport.send(peer.nodeId, DirectoryUpdate.of(DirectoryUpdate.Type.SYNC_REQUEST, nodeId, incarnation));
+        }
+    }
+    
+    private void apply(Peer peer, List<DirectoryUpdate.Entry> entries) {
+        long now = clock.getAsLong();
+        for (DirectoryUpdate.Entry entry : entries) {
+            if (entry.isOnline()) {
+                Location incoming = new Location(entry.getPlayerId(), entry.getSessionId(), entry.getPlayerName(),
+                        entry.getVersion(), peer);
+                Location[] evicted = new Location[1];
+                locations.compute(entry.getPlayerId(), (playerId, current) -> {
+                    if (current == null || current.owner.leaseExpiry < now || incoming.supersedes(current)) {
+                        if (current != null && current.owner == localPeer) {
+                            evicted[0] = current;
+                        }
+                        return incoming;
+                    }
+                    return current;
+                });
+                if (evicted[0] != null) {
+                    logger.warn("Player {} logged in on node {}, evicting local session {}",
+                            entry.getPlayerId(), peer.nodeId, evicted[0].sessionId);
+                    Listener current = listener;
+                    if (current != null) {
+                        current.onEvicted(entry.getPlayerId(), evicted[0].sessionId);
+                    }
+                }
+            } else {
+                locations.computeIfPresent(entry.getPlayerId(), (playerId, current) ->
+                        current.owner == peer && current.sessionId.equals(entry.getSessionId()) ? null : current);
+            }
+        }
+    }
+    
+    private int purge(Peer peer) {
+        int before = locations.size();
+        locations.values().removeIf(location -> location.owner == peer);
+        return before - locations.size();
+    }
+    
+    @Override
+    public void onDelivery(String playerId, Message message) {
+        Listener current = listener;
+        if (current != null) {
+            current.onDelivery(playerId, message);
+        }
+    }
+    
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * 目录中的玩家数，包括本节点和其他节点
+     */
+    public int size() {
+        return locations.size();
+    }
+    
+    /**
+     * 租约有效的其他节点
+     */
+    public List<String> getLiveNodes() {
+        long now = clock.getAsLong();
+        List<String> result = new ArrayList<>();
+        for (Peer peer : peers.values()) {
+            if (peer.leaseExpiry >= now) {
+                result.add(peer.nodeId);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 节点租约状态
+     */
+    private static class Peer {
+        final String nodeId;
+        volatile long incarnation;
+        volatile long leaseExpiry;
+        
+        /** 租约过期后条目已清除，恢复时需要全量同步 */
+        boolean purged;
+        
+        Peer(String nodeId) {
+            this.nodeId = nodeId;
+        }
+    }
+    
+    /**
+     * 玩家位置
+     */
+    public static final class Location {
+        private final String playerId;
+        private final String sessionId;
+        private final String playerName;
+        private final long version;
+        private final Peer owner;
+        
+        Location(String playerId, String sessionId, String playerName, long version, Peer owner) {
+            this.playerId = playerId;
+            this.sessionId = sessionId;
+            this.playerName = playerName;
+            this.version = version;
+            this.owner = owner;
+        }
+        
+        /**
+         * 同一玩家的两个位置中以版本大的为准，版本相同时按nodeId比较
+         */
+        boolean supersedes(Location other) {
+            if (version != other.version) {
+                return version > other.version;
+            }
+            return owner.nodeId.compareTo(other.owner.nodeId) > 0;
+        }
+        
+        DirectoryUpdate.Entry toEntry(boolean online) {
+            return new DirectoryUpdate.Entry(playerId, sessionId, playerName, version, online);
+        }
+        
+        public String getPlayerId() {
+            return playerId;
+        }
+        
+        public String getSessionId() {
+            return sessionId;
+        }
+        
+        public String getPlayerName() {
+            return playerName;
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        public String getNodeId() {
+            return owner.nodeId;
+        }
+        
+        @Override
+        public String toString() {
+            return playerId + "@" + owner.nodeId + "/" + sessionId + "#" + version;
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package com.jeffrey.gameserver.config;
 
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.MessageType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * 服务器配置类
  * 
@@ -40,6 +46,61 @@ public class ServerConfig {
     /** SO_BACKLOG大小 */
     private int backlog = 1024;
     
+    /** 是否启用管理端口 */
+    private boolean adminEnabled = true;
+    
+    /** 管理端口监听地址，默认只监听本机 */
+    private String adminHost = "127.0.0.1";
+    
+    /** 管理端口 */
+    private int adminPort = 8889;
+    
+    /** 每秒tick数 */
+    private int tickRate = 20;
+    
+    /** tick线程数 */
+    private int tickThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    
+    /** 启动时创建的场景数，场景ID从1开始 */
+    private int sceneCount = 4;
+    
+    /** 握手时允许选择的编码格式，未启用的格式会回退到JSON */
+    private Set<CodecType> enabledCodecs = EnumSet.allOf(CodecType.class);
+    
+    /** 集群内部端口，网关通过该端口转发玩家连接，0表示不作为集群节点 */
+    private int clusterPort = 0;
+    
+    /** 集群节点ID */
+    private String nodeId = "node-" + port;
+    
+    /** 其他集群节点，格式同网关的节点列表: nodeId=host:clusterPort,... */
+    private String clusterPeers;
+    
+    /** 会话目录心跳间隔(毫秒)，也是节点链路的重连间隔 */
+    private int clusterHeartbeatInterval = 1000;
+    
+    /** 会话目录租约时长(毫秒)，超过该时间未收到节点消息则视为下线 */
+    private int clusterLeaseTimeout = 5000;
+    
+    /** 节点间发布消息的批次等待时间(毫秒) */
+    private int clusterPublishBatchDelay = 5;
+    
+    /** UDP端口，0表示不开启UDP */
+    private int udpPort = 0;
+    
+    /** 绑定UDP后经UDP收发的消息类型，只适合丢失后会被后续消息覆盖的类型 */
+    private Set<MessageType> udpMessageTypes = EnumSet.of(MessageType.SCENE_INPUT, MessageType.MOVE, 
+            MessageType.STATE_SYNC, MessageType.STATE_ACK);
+    
+    /** UDP数据报最大字节数，超过时改经TCP发送 */
+    private int udpMaxDatagramSize = 1200;
+    
+    /** 领域事件每批投递给订阅者的最大事件数 */
+    private int eventMaxBatchSize = 256;
+    
+    /** 领域事件每个订阅者的最大积压，超过时丢弃新事件 */
+    private int eventMaxPending = 65536;
+    
     public ServerConfig() {
         // 可以从配置文件或环境变量中读取配置
         loadFromEnvironment();
@@ -62,6 +123,73 @@ public class ServerConfig {
                 // 使用默认端口
             }
         }
+        
+        String envAdminEnabled = System.getProperty("game.admin.enabled");
+        if (envAdminEnabled != null && !envAdminEnabled.trim().isEmpty()) {
+            this.adminEnabled = Boolean.parseBoolean(envAdminEnabled.trim());
+        }
+        
+        String envAdminPort = System.getProperty("game.admin.port");
+        if (envAdminPort != null && !envAdminPort.trim().isEmpty()) {
+            try {
+                this.adminPort = Integer.parseInt(envAdminPort.trim());
+            } catch (NumberFormatException e) {
+                // 使用默认管理端口
+            }
+        }
+        
+        this.tickRate = intProperty("game.tick.rate", tickRate);
+        this.tickThreads = intProperty("game.tick.threads", tickThreads);
+        this.sceneCount = intProperty("game.scene.count", sceneCount);
+        this.clusterPort = intProperty("game.cluster.port", clusterPort);
+        this.nodeId = System.getProperty("game.cluster.nodeId", "node-" + port);
+        this.clusterPeers = System.getProperty("game.cluster.peers");
+        this.clusterHeartbeatInterval = intProperty("game.cluster.heartbeatInterval", clusterHeartbeatInterval);
+        this.clusterLeaseTimeout = intProperty("game.cluster.leaseTimeout", clusterLeaseTimeout);
+        this.clusterPublishBatchDelay = intProperty("game.cluster.publishBatchDelay", clusterPublishBatchDelay);
+        this.udpPort = intProperty("game.udp.port", udpPort);
+        this.udpMaxDatagramSize = intProperty("game.udp.maxDatagramSize", udpMaxDatagramSize);
+        this.eventMaxBatchSize = intProperty("game.events.maxBatchSize", eventMaxBatchSize);
+        this.eventMaxPending = intProperty("game.events.maxPending", eventMaxPending);
+        
+        // 逗号分隔的消息类型名称，如 SCENE_INPUT,STATE_SYNC
+        String envUdpTypes = System.getProperty("game.udp.messageTypes");
+        if (envUdpTypes != null) {
+            Set<MessageType> types = EnumSet.noneOf(MessageType.class);
+            for (String name : envUdpTypes.split(",")) {
+                for (MessageType type : MessageType.values()) {
+                    if (type.name().equalsIgnoreCase(name.trim())) {
+                        types.add(type);
+                    }
+                }
+            }
+            this.udpMessageTypes = types;
+        }
+        
+        // 逗号分隔的格式名称，如 json,binary
+        String envCodecs = System.getProperty("game.server.codecs");
+        if (envCodecs != null && !envCodecs.trim().isEmpty()) {
+            Set<CodecType> codecs = EnumSet.of(CodecType.JSON);
+            for (String name : envCodecs.split(",")) {
+                CodecType codec = CodecType.fromName(name);
+                if (codec != null) {
+                    codecs.add(codec);
+                }
+            }
+            this.enabledCodecs = codecs;
+        }
+    }
+    
+    private static int intProperty(String key, int defaultValue) {
+        String value = System.getProperty(key);
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                // 使用默认值
+            }
+        }
+        return defaultValue;
     }
     
     // Getter和Setter方法
@@ -153,6 +281,150 @@ public class ServerConfig {
         this.backlog = backlog;
     }
     
+    public boolean isAdminEnabled() {
+        return adminEnabled;
+    }
+    
+    public void setAdminEnabled(boolean adminEnabled) {
+        this.adminEnabled = adminEnabled;
+    }
+    
+    public String getAdminHost() {
+        return adminHost;
+    }
+    
+    public void setAdminHost(String adminHost) {
+        this.adminHost = adminHost;
+    }
+    
+    public int getAdminPort() {
+        return adminPort;
+    }
+    
+    public void setAdminPort(int adminPort) {
+        this.adminPort = adminPort;
+    }
+    
+    public int getTickRate() {
+        return tickRate;
+    }
+    
+    public void setTickRate(int tickRate) {
+        this.tickRate = tickRate;
+    }
+    
+    public int getTickThreads() {
+        return tickThreads;
+    }
+    
+    public void setTickThreads(int tickThreads) {
+        this.tickThreads = tickThreads;
+    }
+    
+    public int getSceneCount() {
+        return sceneCount;
+    }
+    
+    public void setSceneCount(int sceneCount) {
+        this.sceneCount = sceneCount;
+    }
+    
+    public int getClusterPort() {
+        return clusterPort;
+    }
+    
+    public void setClusterPort(int clusterPort) {
+        this.clusterPort = clusterPort;
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+    
+    public String getClusterPeers() {
+        return clusterPeers;
+    }
+    
+    public void setClusterPeers(String clusterPeers) {
+        this.clusterPeers = clusterPeers;
+    }
+    
+    public int getClusterHeartbeatInterval() {
+        return clusterHeartbeatInterval;
+    }
+    
+    public void setClusterHeartbeatInterval(int clusterHeartbeatInterval) {
+        this.clusterHeartbeatInterval = clusterHeartbeatInterval;
+    }
+    
+    public int getClusterLeaseTimeout() {
+        return clusterLeaseTimeout;
+    }
+    
+    public void setClusterLeaseTimeout(int clusterLeaseTimeout) {
+        this.clusterLeaseTimeout = clusterLeaseTimeout;
+    }
+    
+    public int getClusterPublishBatchDelay() {
+        return clusterPublishBatchDelay;
+    }
+    
+    public void setClusterPublishBatchDelay(int clusterPublishBatchDelay) {
+        this.clusterPublishBatchDelay = clusterPublishBatchDelay;
+    }
+    
+    public int getUdpPort() {
+        return udpPort;
+    }
+    
+    public void setUdpPort(int udpPort) {
+        this.udpPort = udpPort;
+    }
+    
+    public Set<MessageType> getUdpMessageTypes() {
+        return udpMessageTypes;
+    }
+    
+    public void setUdpMessageTypes(Set<MessageType> udpMessageTypes) {
+        this.udpMessageTypes = udpMessageTypes;
+    }
+    
+    public int getUdpMaxDatagramSize() {
+        return udpMaxDatagramSize;
+    }
+    
+    public void setUdpMaxDatagramSize(int udpMaxDatagramSize) {
+        this.udpMaxDatagramSize = udpMaxDatagramSize;
+    }
+    
+    public int getEventMaxBatchSize() {
+        return eventMaxBatchSize;
+    }
+    
+    public void setEventMaxBatchSize(int eventMaxBatchSize) {
+        this.eventMaxBatchSize = eventMaxBatchSize;
+    }
+    
+    public int getEventMaxPending() {
+        return eventMaxPending;
+    }
+    
+    public void setEventMaxPending(int eventMaxPending) {
+        this.eventMaxPending = eventMaxPending;
+    }
+    
+    public Set<CodecType> getEnabledCodecs() {
+        return enabledCodecs;
+    }
+    
+    public void setEnabledCodecs(Set<CodecType> enabledCodecs) {
+        this.enabledCodecs = enabledCodecs;
+    }
+    
     @Override
     public String toString() {
         return "ServerConfig{" +
@@ -167,6 +439,20 @@ public class ServerConfig {
                 ", tcpNoDelay=" + tcpNoDelay +
                 ", keepAlive=" + keepAlive +
                 ", backlog=" + backlog +
+                ", adminEnabled=" + adminEnabled +
+                ", adminHost='" + adminHost + '\'' +
+                ", adminPort=" + adminPort +
+                ", tickRate=" + tickRate +
+                ", tickThreads=" + tickThreads +
+                ", sceneCount=" + sceneCount +
+                ", enabledCodecs=" + enabledCodecs +
+                ", clusterPort=" + clusterPort +
+                ", nodeId='" + nodeId + '\'' +
+                ", clusterPeers='" + clusterPeers + '\'' +
+                ", udpPort=" + udpPort +
+                ", udpMessageTypes=" + udpMessageTypes +
+                ", eventMaxBatchSize=" + eventMaxBatchSize +
+                ", eventMaxPending=" + eventMaxPending +
                 '}';
     }
 }
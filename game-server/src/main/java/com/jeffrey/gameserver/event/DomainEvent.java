@@ -0,0 +1,77 @@
+package com.jeffrey.gameserver.event;
+
+import com.jeffrey.listener.game.task.GameEvent;
+
+/**
+ * 领域事件
+ * 处理器在业务动作完成后发布，创建后不再修改，可以安全地在发布线程和订阅者线程之间传递。
+ * 实现 design-patterns 的 {@link GameEvent}，任务系统的监听器可以直接订阅。
+ *
+ * @author jeffrey
+ */
+public class DomainEvent implements GameEvent {
+    
+    private final DomainEventType type;
+    private final String playerId;
+    private final String playerName;
+    private final String sessionId;
+    private final String detail;
+    private final long timestamp;
+    
+    /** 发布时刻，用于统计投递延迟 */
+    private final long publishNanos;
+    
+    public DomainEvent(DomainEventType type, String playerId, String playerName, String sessionId, String detail) {
+        this.type = type;
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.sessionId = sessionId;
+        this.detail = detail;
+        this.timestamp = System.currentTimeMillis();
+        this.publishNanos = System.nanoTime();
+    }
+    
+    @Override
+    public String getEventType() {
+        return type.name();
+    }
+    
+    // Getter方法
+    public DomainEventType getType() {
+        return type;
+    }
+    
+    public String getPlayerId() {
+        return playerId;
+    }
+    
+    public String getPlayerName() {
+        return playerName;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public String getDetail() {
+        return detail;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public long getPublishNanos() {
+        return publishNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return "DomainEvent{" +
+                "type=" + type +
+                ", playerId='" + playerId + '\'' +
+                ", sessionId='" + sessionId + '\'' +
+                ", detail='" + detail + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,260 @@
+package com.jeffrey.gameserver.event;
+
+import com.jeffrey.gameserver.metrics.LatencyHistogram;
+import com.jeffrey.gameserver.util.MpscQueue;
+import com.jeffrey.listener.game.task.GameEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 服务器内的领域事件总线
+ * 处理器在IO线程上调用 {@link #publish(DomainEvent)}，只把事件放进各订阅者的无锁队列，不加锁、不等待；
+ * 每个订阅者有自己的投递线程，一次取出至多 maxBatchSize 个事件批量回调，慢订阅者只拖慢自己。
+ * <p>
+ * 订阅者积压达到 maxPending 时新事件对该订阅者直接丢弃并计数，保证发布方永远不会被阻塞或撑爆内存。
+ * 每个订阅者统计发布数、投递数、丢弃数、当前积压(lag)以及从发布到回调的延迟分布。
+ *
+ * @author jeffrey
+ */
+public class DomainEventBus {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventBus.class);
+    
+    /** 空闲时最长的休眠时间，停止时不依赖唤醒也能及时退出 */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final int maxBatchSize;
+    private final int maxPending;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    
+    private volatile boolean running;
+    
+    public DomainEventBus(int maxBatchSize, int maxPending) {
+        if (maxBatchSize <= 0 || maxPending <= 0) {
+            throw new IllegalArgumentException("maxBatchSize and maxPending must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxPending = maxPending;
+    }
+    
+    /**
+     * 订阅指定类型的事件
+     *
+     * @param name 订阅者名称，用于线程名和统计
+     */
+    public synchronized Subscription subscribe(String name, Set<DomainEventType> types, DomainEventSubscriber subscriber) {
+        Set<DomainEventType> typeSet = EnumSet.noneOf(DomainEventType.class);
+        typeSet.addAll(types);
+        Subscription subscription = new Subscription(name, typeSet, subscriber);
+        if (running) {
+            subscription.start();
+        }
+        subscriptions.add(subscription);
+        return subscription;
+    }
+    
+    /**
+     * 以 design-patterns 的 {@link GameEventListener} 订阅全部类型，批内逐个回调
+     */
+    public Subscription subscribe(String name, GameEventListener listener) {
+        return subscribe(name, EnumSet.allOf(DomainEventType.class), events -> {
+            for (DomainEvent event : events) {
+                listener.onEvent(event);
+            }
+        });
+    }
+    
+    /**
+     * 发布事件，任意线程调用，不阻塞
+     */
+    public void publish(DomainEvent event) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.types.contains(event.getType())) {
+                subscription.offer(event);
+            }
+        }
+    }
+    
+    /**
+     * 启动所有订阅者的投递线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.start();
+        }
+        logger.info("Domain event bus started: subscribers={}, maxBatchSize={}, maxPending={}",
+                subscriptions.size(), maxBatchSize, maxPending);
+    }
+    
+    /**
+     * 停止投递线程，已入队的事件投递完后返回
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Subscription subscription : subscriptions) {
+            LockSupport.unpark(subscription.thread);
+        }
+        for (Subscription subscription : subscriptions) {
+            try {
+                subscription.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        logger.info("Domain event bus stopped");
+    }
+    
+    public List<Subscription> getSubscriptions() {
+        return Collections.unmodifiableList(subscriptions);
+    }
+    
+    /**
+     * 一个订阅者的队列、投递线程和统计
+     */
+    public final class Subscription {
+        
+        private final String name;
+        private final Set<DomainEventType> types;
+        private final DomainEventSubscriber subscriber;
+        private final MpscQueue<DomainEvent> queue = new MpscQueue<>();
+        
+        /** 投递线程休眠前置为true，发布方据此决定是否唤醒 */
+        private volatile boolean waiting;
+        private Thread thread;
+        
+        private final AtomicLong published = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+        
+        private Subscription(String name, Set<DomainEventType> types, DomainEventSubscriber subscriber) {
+            this.name = name;
+            this.types = types;
+            this.subscriber = subscriber;
+        }
+        
+        private void offer(DomainEvent event) {
+            if (queue.size() >= maxPending) {
+                dropped.incrementAndGet();
+                return;
+            }
+            queue.offer(event);
+            published.incrementAndGet();
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+        
+        private void start() {
+            thread = new Thread(this::deliverLoop, "DomainEvent-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        
+        private void deliverLoop() {
+            List<DomainEvent> batch = new ArrayList<>(Math.min(maxBatchSize, 1024));
+            while (running || !queue.isEmpty()) {
+                DomainEvent event;
+                while (batch.size() < maxBatchSize && (event = queue.poll()) != null) {
+                    batch.add(event);
+                }
+                if (batch.isEmpty()) {
+                    waiting = true;
+                    // 置位后再检查一次，避免与发布方错过唤醒
+                    if (running && queue.isEmpty()) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    waiting = false;
+                    continue;
+                }
+                deliver(batch);
+                batch.clear();
+            }
+        }
+        
+        private void deliver(List<DomainEvent> batch) {
+            try {
+                subscriber.onEvents(batch);
+            } catch (RuntimeException e) {
+                // 订阅者的异常不影响后续投递
+                failures.incrementAndGet();
+                logger.error("Domain event subscriber failed: subscriber={}, batchSize={}", name, batch.size(), e);
+            }
+            long now = System.nanoTime();
+            for (DomainEvent event : batch) {
+                deliveryLatency.record(now - event.getPublishNanos());
+            }
+            delivered.addAndGet(batch.size());
+            batches.incrementAndGet();
+        }
+        
+        // Getter方法
+        public String getName() {
+            return name;
+        }
+        
+        public Set<DomainEventType> getTypes() {
+            return Collections.unmodifiableSet(types);
+        }
+        
+        public long getPublished() {
+            return published.get();
+        }
+        
+        public long getDelivered() {
+            return delivered.get();
+        }
+        
+        /**
+         * 积压达到上限而丢弃的事件数
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+        
+        public long getBatches() {
+            return batches.get();
+        }
+        
+        /**
+         * 订阅者回调抛出异常的批次数
+         */
+        public long getFailures() {
+            return failures.get();
+        }
+        
+        /**
+         * 已入队尚未投递的事件数
+         */
+        public int getLag() {
+            return queue.size();
+        }
+        
+        /**
+         * 从发布到订阅者回调返回的延迟(纳秒)
+         */
+        public LatencyHistogram getDeliveryLatency() {
+            return deliveryLatency;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.jeffrey.gameserver.event;
+
+import java.util.List;
+
+/**
+ * 领域事件订阅者
+ * 在订阅者自己的投递线程上批量回调，同一订阅者的事件按发布顺序到达，不会并发回调。
+ *
+ * @author jeffrey
+ */
+public interface DomainEventSubscriber {
+    
+    /**
+     * 处理一批事件，返回后列表会被复用，需要保留的事件应自行复制
+     */
+    void onEvents(List<DomainEvent> events);
+}
@@ -0,0 +1,18 @@
+package com.jeffrey.gameserver.event;
+
+/**
+ * 领域事件类型
+ *
+ * @author jeffrey
+ */
+public enum DomainEventType {
+    
+    /** 玩家登录成功 */
+    PLAYER_LOGIN,
+    
+    /** 玩家发出聊天，detail 为频道名 */
+    CHAT_SENT,
+    
+    /** 已登录玩家的会话被移除(断线、超时或被顶号) */
+    PLAYER_OFFLINE
+}
@@ -1,5 +1,11 @@
 package com.jeffrey.gameserver.handler;
 
+import com.jeffrey.gameserver.cluster.ClusterPubSub;
+import com.jeffrey.gameserver.cluster.SessionDirectory;
+import com.jeffrey.gameserver.event.DomainEvent;
+import com.jeffrey.gameserver.event.DomainEventBus;
+import com.jeffrey.gameserver.event.DomainEventType;
+import com.jeffrey.gameserver.log.HotPathLogger;
 import com.jeffrey.gameserver.protocol.Message;
 import com.jeffrey.gameserver.protocol.messages.ChatMessage;
 import com.jeffrey.gameserver.session.GameSession;
@@ -16,10 +22,32 @@ public class ChatHandler implements MessageHandler {
     
     private static final Logger logger = LoggerFactory.getLogger(ChatHandler.class);
     
+    /** 每条聊天都会触发的日志走采样/限流 */
+    private static final HotPathLogger chatLogger = HotPathLogger.getLogger(ChatHandler.class, "chat");
+    
     private final SessionManager sessionManager;
     
+    /** 集群模式下转发世界聊天，非集群模式为null */
+    private final ClusterPubSub pubSub;
+    
+    /** 领域事件总线，为null时不发布聊天事件 */
+    private final DomainEventBus eventBus;
+    
+    /**
+     * 非集群、不发布领域事件
+     */
     public ChatHandler(SessionManager sessionManager) {
+        this(sessionManager, null, null);
+    }
+    
+    public ChatHandler(SessionManager sessionManager, ClusterPubSub pubSub, DomainEventBus eventBus) {
         this.sessionManager = sessionManager;
+        this.pubSub = pubSub;
+        this.eventBus = eventBus;
+        if (pubSub != null) {
+            // 其他节点的世界聊天在本节点广播
+            pubSub.subscribe(ClusterPubSub.WORLD_CHAT, message -> sessionManager.broadcast(message, null));
+        }
     }
     
     @Override
@@ -42,7 +70,7 @@ public class ChatHandler implements MessageHandler {
         chatMessage.setSenderId(session.getPlayerId());
         chatMessage.setSenderName(session.getPlayerName());
         
-        logger.info("Processing chat message: from={}, channel={}, content={}", 
+        chatLogger.debug("Processing chat message: from={}, channel={}, content={}", 
                 session.getPlayerName(), chatMessage.getChannel(), chatMessage.getContent());
         
         try {
@@ -64,7 +92,7 @@ public class ChatHandler implements MessageHandler {
                     logger.warn("Unsupported chat channel: {}", chatMessage.getChannel());
                     sendErrorResponse(session, "Unsupported chat channel");
             }
-            
+        
         } catch (Exception e) {
             logger.error("Error processing chat message", e);
             sendErrorResponse(session, "Failed to send message");
@@ -75,19 +103,19 @@ public class ChatHandler implements MessageHandler {
      * 处理世界聊天
      */
     private void handleWorldChat(GameSession sender, ChatMessage chatMessage) {
-        // 广播给所有在线玩家
-        int sentCount = 0;
-        for (GameSession session : sessionManager.getAllSessions()) {
-            if (session.isAuthenticated() && !session.getSessionId().equals(sender.getSessionId())) {
-                session.sendMessage(chatMessage);
-                sentCount++;
-            }
+        // 广播给本节点所有在线玩家，每种编码格式只编码一次
+        int sentCount = sessionManager.broadcast(chatMessage, sender);
+        
+        // 集群模式下每个节点只收到一份，由各节点在本地广播
+        if (pubSub != null) {
+            pubSub.publish(ClusterPubSub.WORLD_CHAT, chatMessage);
         }
         
         // 发送确认响应给发送者
         sendChatResponse(sender, true, "Message sent to " + sentCount + " players");
+        publishChatSent(sender, chatMessage);
         
-        logger.info("World chat message broadcasted: from={}, to={} players", 
+        chatLogger.info("World chat message broadcasted: from={}, to={} players", 
                 sender.getPlayerName(), sentCount);
     }
     
@@ -104,7 +132,7 @@ public class ChatHandler implements MessageHandler {
         // 查找接收者会话
         GameSession receiverSession = sessionManager.getSessionByPlayerId(receiverId);
         if (receiverSession == null || !receiverSession.isAuthenticated()) {
-            sendErrorResponse(sender, "Player not found or offline: " + receiverId);
+            handleRemotePrivateChat(sender, chatMessage, receiverId);
             return;
         }
         
@@ -113,11 +141,30 @@ public class ChatHandler implements MessageHandler {
         
         // 发送确认响应给发送者
         sendChatResponse(sender, true, "Private message sent to " + receiverSession.getPlayerName());
+        publishChatSent(sender, chatMessage);
         
-        logger.info("Private chat message sent: from={} to={}", 
+        chatLogger.info("Private chat message sent: from={} to={}", 
                 sender.getPlayerName(), receiverSession.getPlayerName());
     }
     
+    /**
+     * 接收者不在本节点时，按会话目录直接发给所在节点
+     */
+    private void handleRemotePrivateChat(GameSession sender, ChatMessage chatMessage, String receiverId) {
+        SessionDirectory directory = sessionManager.getDirectory();
+        SessionDirectory.Location location = directory != null ? directory.lookup(receiverId) : null;
+        if (location == null || !directory.deliver(location, chatMessage)) {
+            sendErrorResponse(sender, "Player not found or offline: " + receiverId);
+            return;
+        }
+        
+        sendChatResponse(sender, true, "Private message sent to " + location.getPlayerName());
+        publishChatSent(sender, chatMessage);
+        
+        chatLogger.info("Private chat message forwarded: from={} to={} on {}", 
+                sender.getPlayerName(), location.getPlayerName(), location.getNodeId());
+    }
+    
     /**
      * 处理公会聊天
      */
@@ -125,7 +172,7 @@ public class ChatHandler implements MessageHandler {
         // 这里可以实现公会聊天逻辑
         // 目前简单地发送错误响应
         sendErrorResponse(sender, "Guild chat not implemented yet");
-        logger.info("Guild chat attempted by: {}", sender.getPlayerName());
+        chatLogger.info("Guild chat attempted by: {}", sender.getPlayerName());
     }
     
     /**
@@ -135,7 +182,17 @@ public class ChatHandler implements MessageHandler {
         // 这里可以实现队伍聊天逻辑
         // 目前简单地发送错误响应
         sendErrorResponse(sender, "Team chat not implemented yet");
-        logger.info("Team chat attempted by: {}", sender.getPlayerName());
+        chatLogger.info("Team chat attempted by: {}", sender.getPlayerName());
+    }
+    
+    /**
+     * 聊天送出后发布 CHAT_SENT，detail 为频道名
+     */
+    private void publishChatSent(GameSession sender, ChatMessage chatMessage) {
+        if (eventBus != null) {
+            eventBus.publish(new DomainEvent(DomainEventType.CHAT_SENT, sender.getPlayerId(), sender.getPlayerName(),
+                    sender.getSessionId(), chatMessage.getChannel().name()));
+        }
     }
     
     /**
@@ -1,5 +1,9 @@
 package com.jeffrey.gameserver.handler;
 
+import com.jeffrey.gameserver.event.DomainEvent;
+import com.jeffrey.gameserver.event.DomainEventBus;
+import com.jeffrey.gameserver.event.DomainEventType;
+import com.jeffrey.gameserver.log.HotPathLogger;
 import com.jeffrey.gameserver.protocol.Message;
 import com.jeffrey.gameserver.protocol.messages.LoginMessage;
 import com.jeffrey.gameserver.session.GameSession;
@@ -7,6 +11,8 @@ import com.jeffrey.gameserver.session.SessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.InetSocketAddress;
+
 /**
  * 登录消息处理器
  * 
@@ -16,10 +22,28 @@ public class LoginHandler implements MessageHandler {
     
     private static final Logger logger = LoggerFactory.getLogger(LoginHandler.class);
     
+    /** 登录高峰时的逐条日志走采样/限流 */
+    private static final HotPathLogger loginLogger = HotPathLogger.getLogger(LoginHandler.class, "login");
+    
     private final SessionManager sessionManager;
     
+    /** UDP端口，0表示没有开启UDP */
+    private final int udpPort;
+    
+    /** 领域事件总线，为null时不发布登录事件 */
+    private final DomainEventBus eventBus;
+    
+    /**
+     * 不开启UDP、不发布领域事件
+     */
     public LoginHandler(SessionManager sessionManager) {
+        this(sessionManager, 0, null);
+    }
+    
+    public LoginHandler(SessionManager sessionManager, int udpPort, DomainEventBus eventBus) {
         this.sessionManager = sessionManager;
+        this.udpPort = udpPort;
+        this.eventBus = eventBus;
     }
     
     @Override
@@ -30,7 +54,7 @@ public class LoginHandler implements MessageHandler {
         }
         
         LoginMessage loginMessage = (LoginMessage) message;
-        logger.info("Processing login request: username={}, session={}", 
+        loginLogger.debug("Processing login request: username={}, session={}", 
                 loginMessage.getUsername(), session.getSessionId());
         
         try {
@@ -44,7 +68,7 @@ public class LoginHandler implements MessageHandler {
                 // 登录失败
                 handleLoginFailure(session, loginMessage, "Invalid username or password");
             }
-            
+        
         } catch (Exception e) {
             logger.error("Error processing login request", e);
             handleLoginFailure(session, loginMessage, "Internal server error");
@@ -78,7 +102,7 @@ public class LoginHandler implements MessageHandler {
      */
     private void handleLoginSuccess(GameSession session, LoginMessage loginMessage) {
         String username = loginMessage.getUsername();
-        String playerId = "player_" + username; // 简单生成玩家ID
+        String playerId = playerIdFor(username);
         
         // 绑定玩家到会话
         sessionManager.bindPlayer(session, playerId, username);
@@ -90,12 +114,31 @@ public class LoginHandler implements MessageHandler {
         response.setPlayerName(username);
         response.setMessage("Login successful");
         
+        // 只有直连的客户端可以使用UDP，经网关转发的连接看不到节点地址
+        if (udpPort > 0 && session.getChannel().remoteAddress() instanceof InetSocketAddress) {
+            response.setUdpPort(udpPort);
+            response.setUdpToken(sessionManager.issueUdpToken(session));
+        }
+        
         session.sendMessage(response);
         
-        logger.info("Login successful: username={}, playerId={}, session={}", 
+        // 任务、统计等订阅者在各自的线程上处理，不占用IO线程
+        if (eventBus != null) {
+            eventBus.publish(new DomainEvent(DomainEventType.PLAYER_LOGIN, playerId, username,
+                    session.getSessionId(), null));
+        }
+        
+        loginLogger.info("Login successful: username={}, playerId={}, session={}", 
                 username, playerId, session.getSessionId());
     }
     
+    /**
+     * 由用户名生成玩家ID，网关按同样的规则路由玩家
+     */
+    public static String playerIdFor(String username) {
+        return "player_" + username;
+    }
+    
     /**
      * 处理登录失败
      */
@@ -107,7 +150,7 @@ public class LoginHandler implements MessageHandler {
         
         session.sendMessage(response);
         
-        logger.warn("Login failed: username={}, reason={}, session={}", 
+        loginLogger.warn("Login failed: username={}, reason={}, session={}", 
                 loginMessage.getUsername(), reason, session.getSessionId());
     }
     
@@ -120,6 +163,8 @@ public class LoginHandler implements MessageHandler {
         private String playerId;
         private String playerName;
         private String message;
+        private int udpPort;
+        private long udpToken;
         
         @Override
         public com.jeffrey.gameserver.protocol.MessageType getType() {
@@ -159,6 +204,22 @@ public class LoginHandler implements MessageHandler {
             this.message = message;
         }
         
+        public int getUdpPort() {
+            return udpPort;
+        }
+        
+        public void setUdpPort(int udpPort) {
+            this.udpPort = udpPort;
+        }
+        
+        public long getUdpToken() {
+            return udpToken;
+        }
+        
+        public void setUdpToken(long udpToken) {
+            this.udpToken = udpToken;
+        }
+        
         @Override
         public String toString() {
             return "LoginResponseMessage{" +
@@ -166,6 +227,7 @@ public class LoginHandler implements MessageHandler {
                     ", playerId='" + playerId + '\'' +
                     ", playerName='" + playerName + '\'' +
                     ", message='" + message + '\'' +
+                    ", udpPort=" + udpPort +
                     '}';
         }
     }
@@ -0,0 +1,49 @@
+package com.jeffrey.gameserver.handler;
+
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.messages.SceneInputMessage;
+import com.jeffrey.gameserver.protocol.messages.SceneJoinMessage;
+import com.jeffrey.gameserver.protocol.messages.StateAckMessage;
+import com.jeffrey.gameserver.scene.SceneManager;
+import com.jeffrey.gameserver.session.GameSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 场景消息处理器
+ * 只把请求转交给场景的意图队列，结果在下一个tick的状态同步中返回
+ * 
+ * @author jeffrey
+ */
+public class SceneHandler implements MessageHandler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SceneHandler.class);
+    
+    private final SceneManager sceneManager;
+    
+    public SceneHandler(SceneManager sceneManager) {
+        this.sceneManager = sceneManager;
+    }
+    
+    @Override
+    public void handle(GameSession session, Message message) {
+        if (!session.isAuthenticated()) {
+            logger.warn("Unauthenticated session trying to use scene: {}", session.getSessionId());
+            return;
+        }
+        
+        if (message instanceof SceneJoinMessage) {
+            int sceneId = ((SceneJoinMessage) message).getSceneId();
+            if (!sceneManager.join(session, sceneId)) {
+                logger.warn("Scene not found: sceneId={}, playerId={}", sceneId, session.getPlayerId());
+            }
+        } else if (message instanceof SceneInputMessage) {
+            // 不在场景中的输入直接丢弃，客户端会在进入场景后重新发送
+            sceneManager.input(session, (SceneInputMessage) message);
+        } else if (message instanceof StateAckMessage) {
+            sceneManager.ack(session, (StateAckMessage) message);
+        } else {
+            logger.warn("Invalid message type for SceneHandler: {}", message.getClass());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.jeffrey.gameserver.log;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AsyncAppenderBase;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 统计丢弃数量的异步Appender
+ * logback自带的 AsyncAppender 在队列接近满时会静默丢弃 TRACE/DEBUG/INFO 事件，
+ * 开启 neverBlock 后队列满时所有事件都会被丢弃，但不提供任何计数。
+ * 这里按实际结果计数：阈值丢弃在 {@link #isDiscardable} 返回true时计数(父类随即丢弃该事件)，
+ * neverBlock 时自己入队并按 offer 的返回值计数，并发下不会漏算。结果通过管理端口展示。
+ * 
+ * @author jeffrey
+ */
+public class DropReportingAsyncAppender extends AsyncAppender {
+    
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    /** 父类的事件队列，父类没有暴露入队结果，neverBlock 时直接 offer */
+    private volatile BlockingQueue<ILoggingEvent> queue;
+    
+    @Override
+    public void start() {
+        super.start();
+        queue = isStarted() ? eventQueue() : null;
+    }
+    
+    @Override
+    protected void append(ILoggingEvent event) {
+        BlockingQueue<ILoggingEvent> target = queue;
+        if (target == null || !isNeverBlock()) {
+            // 阻塞模式下入队一定成功，只会在阈值处丢弃
+            super.append(event);
+            return;
+        }
+        if (getRemainingCapacity() < getDiscardingThreshold() && isDiscardable(event)) {
+            return;
+        }
+        super.preprocess(event);
+        if (target.offer(event)) {
+            appended.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+    
+    @Override
+    protected void preprocess(ILoggingEvent event) {
+        // 只在父类的 append 中调用，之后事件一定入队
+        super.preprocess(event);
+        appended.incrementAndGet();
+    }
+    
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        // 只在队列低于丢弃阈值时调用，返回true的事件随即被丢弃
+        boolean discardable = event.getLevel().toInt() <= Level.INFO_INT;
+        if (discardable) {
+            dropped.incrementAndGet();
+        }
+        return discardable;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private BlockingQueue<ILoggingEvent> eventQueue() {
+        try {
+            Field field = AsyncAppenderBase.class.getDeclaredField("blockingQueue");
+            field.setAccessible(true);
+            return (BlockingQueue<ILoggingEvent>) field.get(this);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            addWarn("Event queue not accessible, events dropped by neverBlock are not counted", e);
+            return null;
+        }
+    }
+    
+    public long getAppendedCount() {
+        return appended.get();
+    }
+    
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,143 @@
+package com.jeffrey.gameserver.log;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 热路径日志
+ * 用于每条消息都会触发的日志(聊天、会话增删等)。先检查级别，再经过类别的采样/限流器，
+ * 被丢弃的事件不会进入SLF4J，也就不会格式化参数。固定参数个数的重载避免了可变参数数组分配。
+ * 
+ * <p>每个类别的采样率和限流可以通过系统属性配置：
+ * <pre>
+ * -Dgame.log.chat.sampleEvery=10     # 每10条输出1条
+ * -Dgame.log.chat.maxPerSecond=50    # 每秒最多50条
+ * </pre>
+ * 
+ * @author jeffrey
+ */
+public class HotPathLogger {
+    
+    /** 默认不采样 */
+    private static final int DEFAULT_SAMPLE_EVERY = 1;
+    
+    /** 默认每个类别每秒最多100条 */
+    private static final int DEFAULT_MAX_PER_SECOND = 100;
+    
+    /** 类别 -> 采样器，同一类别的多个Logger共享一个限流额度 */
+    private static final ConcurrentHashMap<String, LogSampler> SAMPLERS = new ConcurrentHashMap<>();
+    
+    private final Logger logger;
+    private final LogSampler sampler;
+    
+    private HotPathLogger(Logger logger, LogSampler sampler) {
+        this.logger = logger;
+        this.sampler = sampler;
+    }
+    
+    /**
+     * 获取热路径日志
+     * 
+     * @param clazz 日志所属类
+     * @param category 采样/限流类别
+     */
+    public static HotPathLogger getLogger(Class<?> clazz, String category) {
+        return new HotPathLogger(LoggerFactory.getLogger(clazz), sampler(category));
+    }
+    
+    /**
+     * 获取类别的采样器
+     */
+    public static LogSampler sampler(String category) {
+        return SAMPLERS.computeIfAbsent(category, c -> new LogSampler(c,
+                Integer.getInteger("game.log." + c + ".sampleEvery", DEFAULT_SAMPLE_EVERY),
+                Integer.getInteger("game.log." + c + ".maxPerSecond", DEFAULT_MAX_PER_SECOND)));
+    }
+    
+    /**
+     * 所有已创建的采样器
+     */
+    public static Collection<LogSampler> samplers() {
+        return Collections.unmodifiableCollection(SAMPLERS.values());
+    }
+    
+    public boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
+    }
+    
+    public boolean isInfoEnabled() {
+        return logger.isInfoEnabled();
+    }
+    
+    public void debug(String format, Object arg) {
+        if (logger.isDebugEnabled() && acquire()) {
+            logger.debug(format, arg);
+        }
+    }
+    
+    public void debug(String format, Object arg1, Object arg2) {
+        if (logger.isDebugEnabled() && acquire()) {
+            logger.debug(format, arg1, arg2);
+        }
+    }
+    
+    public void debug(String format, Object arg1, Object arg2, Object arg3) {
+        if (logger.isDebugEnabled() && acquire()) {
+            logger.debug(format, arg1, arg2, arg3);
+        }
+    }
+    
+    public void info(String format, Object arg) {
+        if (logger.isInfoEnabled() && acquire()) {
+            logger.info(format, arg);
+        }
+    }
+    
+    public void info(String format, Object arg1, Object arg2) {
+        if (logger.isInfoEnabled() && acquire()) {
+            logger.info(format, arg1, arg2);
+        }
+    }
+    
+    public void info(String format, Object arg1, Object arg2, Object arg3) {
+        if (logger.isInfoEnabled() && acquire()) {
+            logger.info(format, arg1, arg2, arg3);
+        }
+    }
+    
+    public void warn(String format, Object arg) {
+        if (logger.isWarnEnabled() && acquire()) {
+            logger.warn(format, arg);
+        }
+    }
+    
+    public void warn(String format, Object arg1, Object arg2) {
+        if (logger.isWarnEnabled() && acquire()) {
+            logger.warn(format, arg1, arg2);
+        }
+    }
+    
+    public void warn(String format, Object arg1, Object arg2, Object arg3) {
+        if (logger.isWarnEnabled() && acquire()) {
+            logger.warn(format, arg1, arg2, arg3);
+        }
+    }
+    
+    /**
+     * 放行时顺带输出一次此前被丢弃的数量，便于在日志里看出采样的存在
+     */
+    private boolean acquire() {
+        if (!sampler.tryAcquire()) {
+            return false;
+        }
+        long suppressed = sampler.drainSuppressedSinceLastReport();
+        if (suppressed > 0) {
+            logger.info("[{}] {} log events suppressed by sampling/rate limit", sampler.getCategory(), suppressed);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+package com.jeffrey.gameserver.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志采样与限流器
+ * 先按 1/sampleEvery 采样，再按每秒最多 maxPerSecond 条限流。
+ * 限流窗口和窗口内计数打包在一个long里用CAS更新，判定过程无锁、无分配。
+ * 
+ * @author jeffrey
+ */
+public class LogSampler {
+    
+    /** 窗口长度为 2^30 纳秒(约1.07秒) */
+    private static final int WINDOW_SHIFT = 30;
+    
+    private final String category;
+    private final int sampleEvery;
+    private final int maxPerSecond;
+    
+    /** 采样计数 */
+    private final AtomicLong sequence = new AtomicLong();
+    
+    /** 高32位为窗口编号，低32位为窗口内已放行数量 */
+    private final AtomicLong window = new AtomicLong();
+    
+    /** 被采样或限流丢弃的事件数 */
+    private final AtomicLong suppressed = new AtomicLong();
+    
+    /** 自上次输出后新增的丢弃数 */
+    private final AtomicLong suppressedSinceLastReport = new AtomicLong();
+    
+    /** 放行的事件数 */
+    private final AtomicLong accepted = new AtomicLong();
+    
+    /**
+     * @param category 日志类别
+     * @param sampleEvery 每多少条取一条，1表示不采样
+     * @param maxPerSecond 每秒最多放行条数，0表示不限流
+     */
+    public LogSampler(String category, int sampleEvery, int maxPerSecond) {
+        this.category = category;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.maxPerSecond = Math.max(0, maxPerSecond);
+    }
+    
+    /**
+     * 判断本次事件是否应该输出
+     */
+    public boolean tryAcquire() {
+        if (sampleEvery > 1 && sequence.getAndIncrement() % sampleEvery != 0) {
+            return suppress();
+        }
+        if (maxPerSecond > 0 && !acquireRate()) {
+            return suppress();
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+    
+    private boolean acquireRate() {
+        long currentWindow = System.nanoTime() >>> WINDOW_SHIFT;
+        while (true) {
+            long state = window.get();
+            long stateWindow = state >>> 32;
+            int count = (int) state;
+            long next;
+            if (stateWindow != (currentWindow & 0xFFFFFFFFL)) {
+                next = (currentWindow << 32) | 1;
+            } else if (count < maxPerSecond) {
+                next = state + 1;
+            } else {
+                return false;
+            }
+            if (window.compareAndSet(state, next)) {
+                return true;
+            }
+        }
+    }
+    
+    private boolean suppress() {
+        suppressed.incrementAndGet();
+        suppressedSinceLastReport.incrementAndGet();
+        return false;
+    }
+    
+    /**
+     * 取出自上次调用以来被丢弃的数量
+     */
+    long drainSuppressedSinceLastReport() {
+        if (suppressedSinceLastReport.get() == 0) {
+            return 0;
+        }
+        return suppressedSinceLastReport.getAndSet(0);
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+    
+    public int getMaxPerSecond() {
+        return maxPerSecond;
+    }
+    
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+    
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+}
@@ -0,0 +1,32 @@
+package com.jeffrey.gameserver.metrics;
+
+/**
+ * 单个编码格式流量的JMX视图
+ *
+ * @author jeffrey
+ */
+public interface CodecMetricsMXBean {
+    
+    /**
+     * 编码格式名称
+     */
+    String getCodec();
+    
+    /**
+     * 累计协商为该格式的连接数
+     */
+    long getConnections();
+    
+    long getInboundFrames();
+    
+    long getInboundBytes();
+    
+    long getOutboundFrames();
+    
+    long getOutboundBytes();
+    
+    /**
+     * 该格式占全部出入站字节的百分比
+     */
+    double getByteSharePercent();
+}
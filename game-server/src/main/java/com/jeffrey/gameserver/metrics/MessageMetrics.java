@@ -0,0 +1,149 @@
+package com.jeffrey.gameserver.metrics;
+
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.MessageType;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 消息指标
+ * 按 MessageType 和处理阶段(解码、处理、编码)统计消息数、字节数和延迟分布。
+ * 同时按编码格式统计连接数和出入站流量，用于观察各格式的流量占比。
+ * 所有计数器按枚举序号预先分配，记录时不做Map查找也不分配对象。
+ *
+ * @author jeffrey
+ */
+public class MessageMetrics {
+    
+    private static final int TYPE_COUNT = MessageType.values().length;
+    private static final int STAGE_COUNT = Stage.values().length;
+    private static final int CODEC_COUNT = CodecType.values().length;
+    private static final int DIRECTION_COUNT = Direction.values().length;
+    
+    /** 字节数 - 下标为 type.ordinal() * STAGE_COUNT + stage.ordinal() */
+    private final AtomicLongArray bytes = new AtomicLongArray(TYPE_COUNT * STAGE_COUNT);
+    
+    /** 延迟直方图 - 下标同上 */
+    private final LatencyHistogram[] latencies = new LatencyHistogram[TYPE_COUNT * STAGE_COUNT];
+    
+    /** 各编码格式协商成功的连接数 */
+    private final AtomicLongArray codecConnections = new AtomicLongArray(CODEC_COUNT);
+    
+    /** 各编码格式的帧数 - 下标为 codec.ordinal() * DIRECTION_COUNT + direction.ordinal() */
+    private final AtomicLongArray codecFrames = new AtomicLongArray(CODEC_COUNT * DIRECTION_COUNT);
+    
+    /** 各编码格式的字节数 - 下标同上 */
+    private final AtomicLongArray codecBytes = new AtomicLongArray(CODEC_COUNT * DIRECTION_COUNT);
+    
+    public MessageMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+    
+    /**
+     * 记录一次阶段处理
+     *
+     * @param type 消息类型
+     * @param stage 处理阶段
+     * @param byteCount 消息字节数，处理阶段传0
+     * @param elapsedNanos 耗时(纳秒)
+     */
+    public void record(MessageType type, Stage stage, int byteCount, long elapsedNanos) {
+        int index = index(type, stage);
+        latencies[index].record(elapsedNanos);
+        if (byteCount > 0) {
+            bytes.addAndGet(index, byteCount);
+        }
+    }
+    
+    public long getCount(MessageType type, Stage stage) {
+        return latencies[index(type, stage)].getCount();
+    }
+    
+    public long getBytes(MessageType type, Stage stage) {
+        return bytes.get(index(type, stage));
+    }
+    
+    public LatencyHistogram getLatency(MessageType type, Stage stage) {
+        return latencies[index(type, stage)];
+    }
+    
+    /**
+     * 获取统计快照
+     */
+    public StageSnapshot snapshot(MessageType type, Stage stage) {
+        int index = index(type, stage);
+        return StageSnapshot.of(latencies[index], bytes.get(index));
+    }
+    
+    /**
+     * 记录一个连接协商出的编码格式
+     */
+    public void recordConnection(CodecType codec) {
+        codecConnections.incrementAndGet(codec.ordinal());
+    }
+    
+    /**
+     * 记录一帧消息的编码格式和字节数
+     */
+    public void recordFrame(CodecType codec, Direction direction, int byteCount) {
+        int index = codec.ordinal() * DIRECTION_COUNT + direction.ordinal();
+        codecFrames.incrementAndGet(index);
+        codecBytes.addAndGet(index, byteCount);
+    }
+    
+    public long getConnections(CodecType codec) {
+        return codecConnections.get(codec.ordinal());
+    }
+    
+    public long getFrames(CodecType codec, Direction direction) {
+        return codecFrames.get(codec.ordinal() * DIRECTION_COUNT + direction.ordinal());
+    }
+    
+    public long getBytes(CodecType codec, Direction direction) {
+        return codecBytes.get(codec.ordinal() * DIRECTION_COUNT + direction.ordinal());
+    }
+    
+    /**
+     * 某编码格式占全部出入站字节的百分比，没有流量时返回0
+     */
+    public double getByteSharePercent(CodecType codec) {
+        long total = 0;
+        long own = 0;
+        for (int i = 0; i < codecBytes.length(); i++) {
+            long value = codecBytes.get(i);
+            total += value;
+            if (i / DIRECTION_COUNT == codec.ordinal()) {
+                own += value;
+            }
+        }
+        return total == 0 ? 0.0 : own * 100.0 / total;
+    }
+    
+    private static int index(MessageType type, Stage stage) {
+        return type.ordinal() * STAGE_COUNT + stage.ordinal();
+    }
+    
+    /**
+     * 消息处理阶段
+     */
+    public enum Stage {
+        /** 解码 */
+        DECODE,
+        /** 业务处理 */
+        HANDLE,
+        /** 编码 */
+        ENCODE
+    }
+    
+    /**
+     * 流量方向
+     */
+    public enum Direction {
+        /** 客户端到服务器 */
+        INBOUND,
+        /** 服务器到客户端 */
+        OUTBOUND
+    }
+}
@@ -0,0 +1,29 @@
+package com.jeffrey.gameserver.metrics;
+
+/**
+ * 单个消息类型的JMX视图
+ *
+ * @author jeffrey
+ */
+public interface MessageTypeMetricsMXBean {
+    
+    /**
+     * 消息类型名称
+     */
+    String getMessageType();
+    
+    /**
+     * 解码阶段统计
+     */
+    StageSnapshot getDecode();
+    
+    /**
+     * 业务处理阶段统计
+     */
+    StageSnapshot getHandle();
+    
+    /**
+     * 编码阶段统计
+     */
+    StageSnapshot getEncode();
+}
@@ -0,0 +1,212 @@
+package com.jeffrey.gameserver.metrics;
+
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.session.SessionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 指标JMX导出器
+ * 将服务器指标注册到平台MBeanServer，可通过 jconsole / VisualVM 查看：
+ * <ul>
+ *     <li>com.jeffrey.gameserver:type=Server,server={scope}</li>
+ *     <li>com.jeffrey.gameserver:type=MessageMetrics,server={scope},name={MessageType}</li>
+ *     <li>com.jeffrey.gameserver:type=CodecMetrics,server={scope},name={CodecType}</li>
+ *     <li>com.jeffrey.gameserver:type=Tick,server={scope}</li>
+ * </ul>
+ *
+ * @author jeffrey
+ */
+public class MetricsJmxExporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MetricsJmxExporter.class);
+    
+    private static final String DOMAIN = "com.jeffrey.gameserver";
+    
+    private final MessageMetrics messageMetrics;
+    private final SessionManager sessionManager;
+    private final TickMetricsMXBean tickMetrics;
+    private final String scope;
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+    
+    /**
+     * @param scope 区分同一JVM内多个服务器实例的名称，通常使用端口号
+     */
+    public MetricsJmxExporter(MessageMetrics messageMetrics, SessionManager sessionManager, String scope) {
+        this(messageMetrics, sessionManager, null, scope);
+    }
+    
+    /**
+     * @param tickMetrics tick调度器的指标视图，为null时不注册
+     */
+    public MetricsJmxExporter(MessageMetrics messageMetrics, SessionManager sessionManager, 
+                              TickMetricsMXBean tickMetrics, String scope) {
+        this.messageMetrics = messageMetrics;
+        this.sessionManager = sessionManager;
+        this.tickMetrics = tickMetrics;
+        this.scope = ObjectName.quote(scope);
+    }
+    
+    /**
+     * 注册所有MBean
+     */
+    public synchronized void register() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            registerBean(mBeanServer, new ObjectName(DOMAIN + ":type=Server,server=" + scope),
+                    new ServerMetrics(sessionManager));
+            
+            for (MessageType type : MessageType.values()) {
+                registerBean(mBeanServer, new ObjectName(DOMAIN + ":type=MessageMetrics,server=" + scope
+                        + ",name=" + type.name()), new MessageTypeMetrics(messageMetrics, type));
+            }
+            
+            for (CodecType codec : CodecType.values()) {
+                registerBean(mBeanServer, new ObjectName(DOMAIN + ":type=CodecMetrics,server=" + scope
+                        + ",name=" + codec.name()), new CodecMetrics(messageMetrics, codec));
+            }
+            
+            if (tickMetrics != null) {
+                registerBean(mBeanServer, new ObjectName(DOMAIN + ":type=Tick,server=" + scope), tickMetrics);
+            }
+            logger.info("Metrics MBeans registered: {}", registeredNames.size());
+        } catch (Exception e) {
+            logger.error("Failed to register metrics MBeans", e);
+        }
+    }
+    
+    private void registerBean(MBeanServer mBeanServer, ObjectName name, Object bean) throws Exception {
+        if (mBeanServer.isRegistered(name)) {
+            logger.warn("MBean already registered, replacing: {}", name);
+            mBeanServer.unregisterMBean(name);
+        }
+        mBeanServer.registerMBean(bean, name);
+        registeredNames.add(name);
+    }
+    
+    /**
+     * 注销所有MBean
+     */
+    public synchronized void unregister() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredNames) {
+            try {
+                if (mBeanServer.isRegistered(name)) {
+                    mBeanServer.unregisterMBean(name);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to unregister MBean: {}", name, e);
+            }
+        }
+        registeredNames.clear();
+    }
+    
+    /**
+     * 服务器整体指标
+     */
+    private static class ServerMetrics implements ServerMetricsMXBean {
+        private final SessionManager sessionManager;
+        
+        ServerMetrics(SessionManager sessionManager) {
+            this.sessionManager = sessionManager;
+        }
+        
+        @Override
+        public int getSessionCount() {
+            return sessionManager.getTotalSessionCount();
+        }
+        
+        @Override
+        public int getOnlinePlayerCount() {
+            return sessionManager.getOnlinePlayerCount();
+        }
+    }
+    
+    /**
+     * 单个消息类型的指标
+     */
+    private static class MessageTypeMetrics implements MessageTypeMetricsMXBean {
+        private final MessageMetrics metrics;
+        private final MessageType type;
+        
+        MessageTypeMetrics(MessageMetrics metrics, MessageType type) {
+            this.metrics = metrics;
+            this.type = type;
+        }
+        
+        @Override
+        public String getMessageType() {
+            return type.name();
+        }
+        
+        @Override
+        public StageSnapshot getDecode() {
+            return metrics.snapshot(type, MessageMetrics.Stage.DECODE);
+        }
+        
+        @Override
+        public StageSnapshot getHandle() {
+            return metrics.snapshot(type, MessageMetrics.Stage.HANDLE);
+        }
+        
+        @Override
+        public StageSnapshot getEncode() {
+            return metrics.snapshot(type, MessageMetrics.Stage.ENCODE);
+        }
+    }
+    
+    /**
+     * 单个编码格式的流量指标
+     */
+    private static class CodecMetrics implements CodecMetricsMXBean {
+        private final MessageMetrics metrics;
+        private final CodecType codec;
+        
+        CodecMetrics(MessageMetrics metrics, CodecType codec) {
+            this.metrics = metrics;
+            this.codec = codec;
+        }
+        
+        @Override
+        public String getCodec() {
+            return codec.getFormatName();
+        }
+        
+        @Override
+        public long getConnections() {
+            return metrics.getConnections(codec);
+        }
+        
+        @Override
+        public long getInboundFrames() {
+            return metrics.getFrames(codec, MessageMetrics.Direction.INBOUND);
+        }
+        
+        @Override
+        public long getInboundBytes() {
+            return metrics.getBytes(codec, MessageMetrics.Direction.INBOUND);
+        }
+        
+        @Override
+        public long getOutboundFrames() {
+            return metrics.getFrames(codec, MessageMetrics.Direction.OUTBOUND);
+        }
+        
+        @Override
+        public long getOutboundBytes() {
+            return metrics.getBytes(codec, MessageMetrics.Direction.OUTBOUND);
+        }
+        
+        @Override
+        public double getByteSharePercent() {
+            return metrics.getByteSharePercent(codec);
+        }
+    }
+}
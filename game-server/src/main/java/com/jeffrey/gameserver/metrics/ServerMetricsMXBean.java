@@ -0,0 +1,19 @@
+package com.jeffrey.gameserver.metrics;
+
+/**
+ * 服务器整体指标的JMX视图
+ *
+ * @author jeffrey
+ */
+public interface ServerMetricsMXBean {
+    
+    /**
+     * 当前会话数
+     */
+    int getSessionCount();
+    
+    /**
+     * 当前在线玩家数
+     */
+    int getOnlinePlayerCount();
+}
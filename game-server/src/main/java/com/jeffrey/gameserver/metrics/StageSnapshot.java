@@ -0,0 +1,90 @@
+package com.jeffrey.gameserver.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 单个消息类型在某个处理阶段的统计快照
+ * 通过JMX暴露时会被映射为CompositeData
+ *
+ * @author jeffrey
+ */
+public class StageSnapshot {
+    
+    private final long count;
+    private final long bytes;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+    
+    @ConstructorProperties({"count", "bytes", "meanNanos", "p50Nanos", "p90Nanos", "p99Nanos", "p999Nanos", "maxNanos"})
+    public StageSnapshot(long count, long bytes, double meanNanos, long p50Nanos, long p90Nanos,
+                         long p99Nanos, long p999Nanos, long maxNanos) {
+        this.count = count;
+        this.bytes = bytes;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+    
+    /**
+     * 从直方图生成快照
+     */
+    public static StageSnapshot of(LatencyHistogram histogram, long bytes) {
+        return new StageSnapshot(histogram.getCount(), bytes, histogram.getMean(),
+                histogram.getPercentile(50), histogram.getPercentile(90),
+                histogram.getPercentile(99), histogram.getPercentile(99.9), histogram.getMax());
+    }
+    
+    // Getter方法
+    public long getCount() {
+        return count;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public double getMeanNanos() {
+        return meanNanos;
+    }
+    
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+    
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+    
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+    
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+    
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return "StageSnapshot{" +
+                "count=" + count +
+                ", bytes=" + bytes +
+                ", meanNanos=" + meanNanos +
+                ", p50Nanos=" + p50Nanos +
+                ", p90Nanos=" + p90Nanos +
+                ", p99Nanos=" + p99Nanos +
+                ", p999Nanos=" + p999Nanos +
+                ", maxNanos=" + maxNanos +
+                '}';
+    }
+}
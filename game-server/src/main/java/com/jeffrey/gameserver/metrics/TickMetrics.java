@@ -0,0 +1,98 @@
+package com.jeffrey.gameserver.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * tick指标
+ * 统计每个tick的耗时、超时(耗时超过tick周期)次数以及因落后而跳过的tick数，
+ * 以及状态同步的负载字节数和全量快照数
+ *
+ * @author jeffrey
+ */
+public class TickMetrics {
+    
+    private final LatencyHistogram tickDuration = new LatencyHistogram();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong skippedTicks = new AtomicLong();
+    private final AtomicLong intents = new AtomicLong();
+    private final AtomicLong syncMessages = new AtomicLong();
+    private final AtomicLong syncBytes = new AtomicLong();
+    private final AtomicLong fullSnapshots = new AtomicLong();
+    
+    /**
+     * 记录一次tick
+     *
+     * @param durationNanos 本次tick耗时
+     * @param periodNanos tick周期
+     */
+    public void recordTick(long durationNanos, long periodNanos) {
+        tickDuration.record(durationNanos);
+        if (durationNanos > periodNanos) {
+            overruns.incrementAndGet();
+        }
+    }
+    
+    /**
+     * 记录因落后超过一个周期而跳过的tick
+     */
+    public void recordSkipped(long count) {
+        skippedTicks.addAndGet(count);
+    }
+    
+    /**
+     * 记录本tick处理的输入数和发出的同步消息数
+     */
+    public void recordSceneTick(int intentCount, int syncCount) {
+        if (intentCount > 0) {
+            intents.addAndGet(intentCount);
+        }
+        if (syncCount > 0) {
+            syncMessages.addAndGet(syncCount);
+        }
+    }
+    
+    /**
+     * 记录一条状态同步
+     *
+     * @param payloadBytes 实体状态负载字节数
+     * @param fullSnapshot 是否为全量快照
+     */
+    public void recordSync(int payloadBytes, boolean fullSnapshot) {
+        syncBytes.addAndGet(payloadBytes);
+        if (fullSnapshot) {
+            fullSnapshots.incrementAndGet();
+        }
+    }
+    
+    public LatencyHistogram getTickDuration() {
+        return tickDuration;
+    }
+    
+    public long getTicks() {
+        return tickDuration.getCount();
+    }
+    
+    public long getOverruns() {
+        return overruns.get();
+    }
+    
+    public long getSkippedTicks() {
+        return skippedTicks.get();
+    }
+    
+    public long getIntents() {
+        return intents.get();
+    }
+    
+    public long getSyncMessages() {
+        return syncMessages.get();
+    }
+    
+    public long getSyncBytes() {
+        return syncBytes.get();
+    }
+    
+    public long getFullSnapshots() {
+        return fullSnapshots.get();
+    }
+}
@@ -0,0 +1,53 @@
+package com.jeffrey.gameserver.metrics;
+
+/**
+ * tick指标的JMX视图
+ *
+ * @author jeffrey
+ */
+public interface TickMetricsMXBean {
+    
+    /**
+     * 每秒tick数
+     */
+    int getTickRate();
+    
+    /**
+     * 当前场景数
+     */
+    int getSceneCount();
+    
+    long getTicks();
+    
+    /**
+     * 耗时超过tick周期的次数
+     */
+    long getOverruns();
+    
+    /**
+     * 落后超过一个周期时跳过的tick数
+     */
+    long getSkippedTicks();
+    
+    long getIntents();
+    
+    long getSyncMessages();
+    
+    /**
+     * 状态同步负载的累计字节数
+     */
+    long getSyncBytes();
+    
+    /**
+     * 发送的全量快照数，其余同步为增量
+     */
+    long getFullSnapshots();
+    
+    double getTickDurationMeanNanos();
+    
+    long getTickDurationP50Nanos();
+    
+    long getTickDurationP99Nanos();
+    
+    long getTickDurationMaxNanos();
+}
@@ -1,6 +1,8 @@
 package com.jeffrey.gameserver.network;
 
 import com.jeffrey.gameserver.handler.MessageHandler;
+import com.jeffrey.gameserver.log.HotPathLogger;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
 import com.jeffrey.gameserver.protocol.Message;
 import com.jeffrey.gameserver.protocol.MessageType;
 import com.jeffrey.gameserver.protocol.messages.HeartbeatMessage;
@@ -25,20 +27,31 @@ public class GameChannelHandler extends SimpleChannelInboundHandler<Message> {
     
     private static final Logger logger = LoggerFactory.getLogger(GameChannelHandler.class);
     
+    /** 连接建立/断开的逐条日志走采样/限流 */
+    private static final HotPathLogger connectionLogger = 
+            HotPathLogger.getLogger(GameChannelHandler.class, "connection");
+    
     private final SessionManager sessionManager;
-    private final Map<MessageType, MessageHandler> messageHandlers;
+    private final MessageDispatcher dispatcher;
+    private final MessageMetrics metrics;
     
     public GameChannelHandler(SessionManager sessionManager, 
                              Map<MessageType, MessageHandler> messageHandlers) {
+        this(sessionManager, messageHandlers, new MessageMetrics());
+    }
+    
+    public GameChannelHandler(SessionManager sessionManager, 
+                             Map<MessageType, MessageHandler> messageHandlers,
+                             MessageMetrics metrics) {
         this.sessionManager = sessionManager;
-        this.messageHandlers = messageHandlers;
+        this.dispatcher = new MessageDispatcher(messageHandlers, metrics);
+        this.metrics = metrics;
     }
     
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         // 客户端连接建立
-        String remoteAddress = ctx.channel().remoteAddress().toString();
-        logger.info("Client connected: {}", remoteAddress);
+        connectionLogger.info("Client connected: {}", ctx.channel().remoteAddress());
         
         // 创建游戏会话
         GameSession session = new GameSession(ctx.channel());
@@ -55,16 +68,28 @@ public class GameChannelHandler extends SimpleChannelInboundHandler<Message> {
         // 客户端连接断开
         GameSession session = ctx.channel().attr(GameSession.SESSION_KEY).get();
         if (session != null) {
-            logger.info("Client disconnected: {}, playerId: {}", 
+            connectionLogger.info("Client disconnected: {}, playerId: {}", 
                     ctx.channel().remoteAddress(), session.getPlayerId());
             
             // 移除会话
             sessionManager.removeSession(session.getSessionId());
+            // 释放发送队列中积压的消息
+            session.drainOutbound();
         }
         
         super.channelInactive(ctx);
     }
     
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        GameSession session = ctx.channel().attr(GameSession.SESSION_KEY).get();
+        if (session != null && ctx.channel().isWritable()) {
+            // 发送缓冲降到低水位以下，继续写出队列中积压的消息
+            session.drainOutbound();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+    
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Message message) throws Exception {
         GameSession session = ctx.channel().attr(GameSession.SESSION_KEY).get();
@@ -79,24 +104,14 @@ public class GameChannelHandler extends SimpleChannelInboundHandler<Message> {
         
         // 处理心跳消息
         if (message.getType() == MessageType.HEARTBEAT) {
+            long startTime = System.nanoTime();
             handleHeartbeat(ctx, session, (HeartbeatMessage) message);
+            metrics.record(MessageType.HEARTBEAT, MessageMetrics.Stage.HANDLE, 0, System.nanoTime() - startTime);
             return;
         }
         
-        // 查找消息处理器
-        MessageHandler handler = messageHandlers.get(message.getType());
-        if (handler == null) {
-            logger.warn("No handler found for message type: {}", message.getType());
-            return;
-        }
-        
-        try {
-            // 处理消息
-            handler.handle(session, message);
-        } catch (Exception e) {
-            logger.error("Error handling message type: {}, session: {}", 
-                    message.getType(), session.getSessionId(), e);
-        }
+        // 交给消息处理器
+        dispatcher.dispatch(session, message);
     }
     
     /**
@@ -0,0 +1,56 @@
+package com.jeffrey.gameserver.network;
+
+import com.jeffrey.gameserver.handler.MessageHandler;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.session.GameSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * 消息分发
+ * 按消息类型把已解码的消息交给对应的 MessageHandler，TCP和UDP收到的消息共用
+ *
+ * @author jeffrey
+ */
+public class MessageDispatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MessageDispatcher.class);
+    
+    private final Map<MessageType, MessageHandler> messageHandlers;
+    private final MessageMetrics metrics;
+    
+    public MessageDispatcher(Map<MessageType, MessageHandler> messageHandlers, MessageMetrics metrics) {
+        this.messageHandlers = messageHandlers;
+        this.metrics = metrics;
+    }
+    
+    /**
+     * 分发消息，处理器的异常只记录日志
+     *
+     * @return 是否找到处理器
+     */
+    public boolean dispatch(GameSession session, Message message) {
+        // 查找消息处理器
+        MessageHandler handler = messageHandlers.get(message.getType());
+        if (handler == null) {
+            logger.warn("No handler found for message type: {}", message.getType());
+            return false;
+        }
+        
+        long startTime = System.nanoTime();
+        try {
+            // 处理消息
+            handler.handle(session, message);
+        } catch (Exception e) {
+            logger.error("Error handling message type: {}, session: {}",
+                    message.getType(), session.getSessionId(), e);
+        } finally {
+            metrics.record(message.getType(), MessageMetrics.Stage.HANDLE, 0, System.nanoTime() - startTime);
+        }
+        return true;
+    }
+}
@@ -2,12 +2,18 @@ package com.jeffrey.gameserver.network;
 
 import com.jeffrey.gameserver.config.ServerConfig;
 import com.jeffrey.gameserver.handler.MessageHandler;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.network.codec.CodecNegotiationHandler;
 import com.jeffrey.gameserver.network.codec.MessageDecoder;
 import com.jeffrey.gameserver.network.codec.MessageEncoder;
+import com.jeffrey.gameserver.network.codec.MoveFrameDecoder;
 import com.jeffrey.gameserver.protocol.MessageType;
 import com.jeffrey.gameserver.session.SessionManager;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -32,16 +38,22 @@ public class NettyServer {
     private final ServerConfig config;
     private final SessionManager sessionManager;
     private final Map<MessageType, MessageHandler> messageHandlers;
+    private final MessageMetrics messageMetrics;
     
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
     private Channel serverChannel;
+    private Channel localServerChannel;
+    private CodecNegotiationHandler codecNegotiator;
+    private MoveFrameDecoder moveDecoder;
     
     public NettyServer(ServerConfig config, SessionManager sessionManager, 
-                      Map<MessageType, MessageHandler> messageHandlers) {
+                      Map<MessageType, MessageHandler> messageHandlers,
+                      MessageMetrics messageMetrics) {
         this.config = config;
         this.sessionManager = sessionManager;
         this.messageHandlers = messageHandlers;
+        this.messageMetrics = messageMetrics;
     }
     
     /**
@@ -50,6 +62,8 @@ public class NettyServer {
     public void start() throws InterruptedException {
         bossGroup = new NioEventLoopGroup(config.getBossThreads());
         workerGroup = new NioEventLoopGroup(config.getWorkerThreads());
+        codecNegotiator = new CodecNegotiationHandler(config.getEnabledCodecs(), messageMetrics);
+        moveDecoder = new MoveFrameDecoder(messageMetrics);
         
         try {
             ServerBootstrap bootstrap = new ServerBootstrap();
@@ -63,28 +77,7 @@ public class NettyServer {
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) throws Exception {
-                            ChannelPipeline pipeline = ch.pipeline();
-                            
-                            // 空闲检测
-                            pipeline.addLast("idleStateHandler", 
-                                    new IdleStateHandler(config.getHeartbeatInterval() * 2, 0, 0, TimeUnit.SECONDS));
-                            
-                            // 长度字段解码器 - 解决TCP粘包问题
-                            pipeline.addLast("frameDecoder", 
-                                    new LengthFieldBasedFrameDecoder(config.getMaxMessageLength(), 0, 4, 0, 4));
-                            
-                            // 长度字段编码器
-                            pipeline.addLast("frameEncoder", new LengthFieldPrepender(4));
-                            
-                            // 消息解码器
-                            pipeline.addLast("messageDecoder", new MessageDecoder());
-                            
-                            // 消息编码器
-                            pipeline.addLast("messageEncoder", new MessageEncoder());
-                            
-                            // 游戏业务处理器
-                            pipeline.addLast("gameHandler", 
-                                    new GameChannelHandler(sessionManager, messageHandlers));
+                            initGamePipeline(ch);
                         }
                     });
             
@@ -93,7 +86,7 @@ public class NettyServer {
             serverChannel = future.channel();
             
             logger.info("Netty server started on {}:{}", config.getHost(), config.getPort());
-            
+        
         } catch (Exception e) {
             logger.error("Failed to start Netty server", e);
             stop();
@@ -101,6 +94,60 @@ public class NettyServer {
         }
     }
     
+    /**
+     * 在进程内的本地地址上提供同样的服务，供集群节点把网关转发的玩家连接接入现有pipeline
+     */
+    public void bindLocal(LocalAddress address) throws InterruptedException {
+        if (workerGroup == null) {
+            throw new IllegalStateException("Netty server not started");
+        }
+        ServerBootstrap bootstrap = new ServerBootstrap();
+        bootstrap.group(workerGroup, workerGroup)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) throws Exception {
+                        initGamePipeline(ch);
+                    }
+                });
+        localServerChannel = bootstrap.bind(address).sync().channel();
+        logger.info("Netty server bound to local address {}", address);
+    }
+    
+    /**
+     * 初始化玩家连接的pipeline，TCP连接和网关转发的本地连接共用
+     */
+    private void initGamePipeline(Channel ch) {
+        ChannelPipeline pipeline = ch.pipeline();
+        
+        // 空闲检测
+        pipeline.addLast("idleStateHandler", 
+                new IdleStateHandler(config.getHeartbeatInterval() * 2, 0, 0, TimeUnit.SECONDS));
+        
+        // 长度字段解码器 - 解决TCP粘包问题
+        pipeline.addLast("frameDecoder", 
+                new LengthFieldBasedFrameDecoder(config.getMaxMessageLength(), 0, 4, 0, 4));
+        
+        // 长度字段编码器
+        pipeline.addLast("frameEncoder", new LengthFieldPrepender(4));
+        
+        // 编码格式协商 - 处理第一帧后移除，默认JSON
+        pipeline.addLast("codecNegotiator", codecNegotiator);
+        
+        // 移动帧解码器 - 定长移动输入直接写入会话，不创建消息对象
+        pipeline.addLast("moveDecoder", moveDecoder);
+        
+        // 消息解码器
+        pipeline.addLast("messageDecoder", new MessageDecoder(messageMetrics));
+        
+        // 消息编码器
+        pipeline.addLast("messageEncoder", new MessageEncoder(messageMetrics));
+        
+        // 游戏业务处理器
+        pipeline.addLast("gameHandler", 
+                new GameChannelHandler(sessionManager, messageHandlers, messageMetrics));
+    }
+    
     /**
      * 停止服务器
      */
@@ -111,6 +158,10 @@ public class NettyServer {
             serverChannel.close();
         }
         
+        if (localServerChannel != null) {
+            localServerChannel.close();
+        }
+        
         if (workerGroup != null) {
             workerGroup.shutdownGracefully();
         }
@@ -128,4 +179,11 @@ public class NettyServer {
     public ServerConfig getConfig() {
         return config;
     }
+    
+    /**
+     * 获取Worker线程组，未启动时返回null
+     */
+    public EventLoopGroup getWorkerGroup() {
+        return workerGroup;
+    }
 }
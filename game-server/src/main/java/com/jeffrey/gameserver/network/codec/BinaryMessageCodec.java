@@ -0,0 +1,275 @@
+package com.jeffrey.gameserver.network.codec;
+
+import com.jeffrey.gameserver.handler.ChatHandler;
+import com.jeffrey.gameserver.handler.LoginHandler;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import com.jeffrey.gameserver.protocol.messages.HeartbeatMessage;
+import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+import com.jeffrey.gameserver.protocol.messages.SceneInputMessage;
+import com.jeffrey.gameserver.protocol.messages.SceneJoinMessage;
+import com.jeffrey.gameserver.protocol.messages.StateAckMessage;
+import com.jeffrey.gameserver.protocol.messages.StateSyncMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 紧凑二进制消息体编解码
+ * 字段按固定顺序写入，不带字段名：
+ * <ul>
+ *     <li>公共头: messageId(字符串) timestamp(long)</li>
+ *     <li>字符串: varint(UTF-8字节数 + 1) + UTF-8字节，长度前缀为0表示null</li>
+ *     <li>布尔: 1字节</li>
+ *     <li>枚举: 1字节(ordinal + 1)，0表示null</li>
+ *     <li>列表: varint(元素个数) + 元素</li>
+ *     <li>状态同步的实体增量: 固定头之后到帧尾的全部字节</li>
+ * </ul>
+ * 新增字段只能追加在末尾，并同步修改客户端。
+ * 
+ * @author jeffrey
+ */
+public class BinaryMessageCodec implements MessageCodec {
+    
+    /** 共享实例 */
+    public static final BinaryMessageCodec INSTANCE = new BinaryMessageCodec();
+    
+    private static final ChatMessage.ChatChannel[] CHAT_CHANNELS = ChatMessage.ChatChannel.values();
+    
+    @Override
+    public CodecType getCodecType() {
+        return CodecType.BINARY;
+    }
+    
+    @Override
+    public void encode(Message message, ByteBuf out) throws Exception {
+        writeString(out, message.getMessageId());
+        out.writeLong(message.getTimestamp());
+        
+        switch (message.getType()) {
+            case LOGIN: {
+                LoginMessage login = (LoginMessage) message;
+                writeString(out, login.getUsername());
+                writeString(out, login.getPassword());
+                writeString(out, login.getClientVersion());
+                break;
+            }
+            case LOGIN_RESPONSE: {
+                LoginHandler.LoginResponseMessage response = (LoginHandler.LoginResponseMessage) message;
+                out.writeBoolean(response.isSuccess());
+                writeString(out, response.getPlayerId());
+                writeString(out, response.getPlayerName());
+                writeString(out, response.getMessage());
+                out.writeInt(response.getUdpPort());
+                out.writeLong(response.getUdpToken());
+                break;
+            }
+            case CHAT: {
+                ChatMessage chat = (ChatMessage) message;
+                writeString(out, chat.getSenderId());
+                writeString(out, chat.getSenderName());
+                writeString(out, chat.getReceiverId());
+                writeString(out, chat.getContent());
+                out.writeByte(chat.getChannel() == null ? 0 : chat.getChannel().ordinal() + 1);
+                break;
+            }
+            case CHAT_RESPONSE: {
+                ChatHandler.ChatResponseMessage response = (ChatHandler.ChatResponseMessage) message;
+                out.writeBoolean(response.isSuccess());
+                writeString(out, response.getMessage());
+                break;
+            }
+            case HEARTBEAT: {
+                HeartbeatMessage heartbeat = (HeartbeatMessage) message;
+                out.writeLong(heartbeat.getClientTimestamp());
+                out.writeLong(heartbeat.getServerTimestamp());
+                break;
+            }
+            case SCENE_JOIN: {
+                writeVarInt(out, ((SceneJoinMessage) message).getSceneId());
+                break;
+            }
+            case SCENE_INPUT: {
+                SceneInputMessage input = (SceneInputMessage) message;
+                out.writeInt(input.getInputSeq());
+                out.writeFloat(input.getMoveX());
+                out.writeFloat(input.getMoveY());
+                break;
+            }
+            case STATE_SYNC: {
+                StateSyncMessage sync = (StateSyncMessage) message;
+                writeVarInt(out, sync.getSceneId());
+                out.writeLong(sync.getTick());
+                out.writeLong(sync.getBaselineTick());
+                out.writeInt(sync.getLastInputSeq());
+                // 负载已是紧凑格式，原样写到消息末尾；不移动负载的读索引，同一负载可以被多条消息共享
+                ByteBuf payload = sync.getPayload();
+                out.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+                break;
+            }
+            case STATE_ACK: {
+                StateAckMessage ack = (StateAckMessage) message;
+                writeVarInt(out, ack.getSceneId());
+                out.writeLong(ack.getTick());
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported message type for binary encoding: " + message.getType());
+        }
+    }
+    
+    @Override
+    public Message decode(MessageType messageType, ByteBuf in) throws Exception {
+        Message message;
+        String messageId = readString(in);
+        long timestamp = in.readLong();
+        
+        switch (messageType) {
+            case LOGIN: {
+                LoginMessage login = new LoginMessage();
+                login.setUsername(readString(in));
+                login.setPassword(readString(in));
+                login.setClientVersion(readString(in));
+                message = login;
+                break;
+            }
+            case LOGIN_RESPONSE: {
+                LoginHandler.LoginResponseMessage response = new LoginHandler.LoginResponseMessage();
+                response.setSuccess(in.readBoolean());
+                response.setPlayerId(readString(in));
+                response.setPlayerName(readString(in));
+                response.setMessage(readString(in));
+                response.setUdpPort(in.readInt());
+                response.setUdpToken(in.readLong());
+                message = response;
+                break;
+            }
+            case CHAT: {
+                ChatMessage chat = new ChatMessage();
+                chat.setSenderId(readString(in));
+                chat.setSenderName(readString(in));
+                chat.setReceiverId(readString(in));
+                chat.setContent(readString(in));
+                int channel = in.readUnsignedByte();
+                if (channel > CHAT_CHANNELS.length) {
+                    throw new CorruptedFrameException("Invalid chat channel: " + channel);
+                }
+                chat.setChannel(channel == 0 ? null : CHAT_CHANNELS[channel - 1]);
+                message = chat;
+                break;
+            }
+            case CHAT_RESPONSE: {
+                ChatHandler.ChatResponseMessage response = new ChatHandler.ChatResponseMessage();
+                response.setSuccess(in.readBoolean());
+                response.setMessage(readString(in));
+                message = response;
+                break;
+            }
+            case HEARTBEAT: {
+                HeartbeatMessage heartbeat = new HeartbeatMessage();
+                heartbeat.setClientTimestamp(in.readLong());
+                heartbeat.setServerTimestamp(in.readLong());
+                message = heartbeat;
+                break;
+            }
+            case SCENE_JOIN: {
+                message = new SceneJoinMessage(readVarInt(in));
+                break;
+            }
+            case SCENE_INPUT: {
+                message = new SceneInputMessage(in.readInt(), in.readFloat(), in.readFloat());
+                break;
+            }
+            case STATE_SYNC: {
+                StateSyncMessage sync = new StateSyncMessage();
+                sync.setSceneId(readVarInt(in));
+                sync.setTick(in.readLong());
+                sync.setBaselineTick(in.readLong());
+                sync.setLastInputSeq(in.readInt());
+                sync.setPayload(in.readRetainedSlice(in.readableBytes()));
+                message = sync;
+                break;
+            }
+            case STATE_ACK: {
+                message = new StateAckMessage(readVarInt(in), in.readLong());
+                break;
+            }
+            default:
+                return null;
+        }
+        
+        message.setMessageId(messageId);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+    
+    /**
+     * 写入字符串，先计算UTF-8长度再直接编码到缓冲区，不生成中间byte[]
+     */
+    public static void writeString(ByteBuf out, String value) {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        writeVarInt(out, ByteBufUtil.utf8Bytes(value) + 1);
+        ByteBufUtil.writeUtf8(out, value);
+    }
+    
+    /**
+     * 读取字符串
+     */
+    public static String readString(ByteBuf in) {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        if (length > in.readableBytes()) {
+            throw new CorruptedFrameException("String length " + length + " exceeds frame, readable: " + in.readableBytes());
+        }
+        String value = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+    
+    /**
+     * 读取列表元素个数，每个元素至少1字节，超过剩余字节数说明帧已损坏
+     */
+    public static int readCount(ByteBuf in) {
+        int count = readVarInt(in);
+        if (count < 0 || count > in.readableBytes()) {
+            throw new CorruptedFrameException("List size " + count + " exceeds frame, readable: " + in.readableBytes());
+        }
+        return count;
+    }
+    
+    /**
+     * 写入无符号varint，每字节7位，最高位表示后面还有字节
+     */
+    public static void writeVarInt(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+    
+    /**
+     * 读取无符号varint
+     */
+    public static int readVarInt(ByteBuf in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("Malformed varint");
+    }
+}
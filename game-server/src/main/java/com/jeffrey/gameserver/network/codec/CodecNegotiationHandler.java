@@ -0,0 +1,127 @@
+package com.jeffrey.gameserver.network.codec;
+
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+
+/**
+ * 编码格式协商处理器
+ * 位于帧解码器之后、消息解码器之前，只处理连接上的第一帧：
+ * <ul>
+ *     <li>握手帧 [HANDSHAKE][1字节格式编号]：选择格式，替换消息编解码器，并回复 [HANDSHAKE][1字节实际格式编号]</li>
+ *     <li>其他帧：保持默认的JSON编解码器，把该帧原样传给后续处理器</li>
+ * </ul>
+ * 请求的格式未知或未启用时回退到JSON，客户端以回复中的格式为准。
+ * 处理完第一帧后从pipeline中移除自身，之后不再有额外开销。
+ * 
+ * @author jeffrey
+ */
+@ChannelHandler.Sharable
+public class CodecNegotiationHandler extends ChannelInboundHandlerAdapter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CodecNegotiationHandler.class);
+    
+    /** 握手帧长度: 消息类型(4字节) + 格式编号(1字节) */
+    public static final int HANDSHAKE_LENGTH = 5;
+    
+    private final Set<CodecType> enabledCodecs;
+    private final MessageMetrics metrics;
+    
+    public CodecNegotiationHandler(Set<CodecType> enabledCodecs, MessageMetrics metrics) {
+        this.enabledCodecs = enabledCodecs;
+        this.metrics = metrics;
+    }
+    
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        
+        ByteBuf frame = (ByteBuf) msg;
+        if (!isHandshake(frame)) {
+            // 旧客户端和调试工具不发握手，直接按JSON处理
+            complete(ctx, CodecType.JSON);
+            ctx.fireChannelRead(frame);
+            return;
+        }
+        
+        try {
+            CodecType requested = frame.readableBytes() >= HANDSHAKE_LENGTH
+                    ? CodecType.fromId(frame.getUnsignedByte(frame.readerIndex() + 4)) : null;
+            CodecType selected = requested != null && enabledCodecs.contains(requested) ? requested : CodecType.JSON;
+            if (requested != selected) {
+                logger.info("Requested codec {} not available, falling back to {}: {}", 
+                        requested, selected, ctx.channel().remoteAddress());
+            }
+            
+            if (selected != CodecType.JSON) {
+                MessageCodec codec = codecFor(selected);
+                ChannelPipeline pipeline = ctx.pipeline();
+                pipeline.replace("messageDecoder", "messageDecoder", new MessageDecoder(codec, metrics));
+                pipeline.replace("messageEncoder", "messageEncoder", new MessageEncoder(codec, metrics));
+            }
+            
+            // 回复经过帧编码器，不经过消息编码器
+            ctx.writeAndFlush(writeHandshake(ctx.alloc().buffer(HANDSHAKE_LENGTH), selected));
+            complete(ctx, selected);
+        } finally {
+            frame.release();
+        }
+    }
+    
+    /**
+     * 记录协商结果并移除自身
+     */
+    private void complete(ChannelHandlerContext ctx, CodecType codecType) {
+        ctx.channel().attr(CodecType.CODEC_KEY).set(codecType);
+        metrics.recordConnection(codecType);
+        ctx.pipeline().remove(this);
+    }
+    
+    private static boolean isHandshake(ByteBuf frame) {
+        return frame.readableBytes() >= 4 && frame.getInt(frame.readerIndex()) == MessageType.HANDSHAKE.getCode();
+    }
+    
+    /**
+     * 获取格式对应的编解码实现
+     */
+    public static MessageCodec codecFor(CodecType codecType) {
+        switch (codecType) {
+            case BINARY:
+                return BinaryMessageCodec.INSTANCE;
+            case JSON:
+            default:
+                return JsonMessageCodec.INSTANCE;
+        }
+    }
+    
+    /**
+     * 写入握手帧(不含长度字段)，客户端发起和服务器回复使用相同格式
+     */
+    public static ByteBuf writeHandshake(ByteBuf out, CodecType codecType) {
+        out.writeInt(MessageType.HANDSHAKE.getCode());
+        out.writeByte(codecType.getId());
+        return out;
+    }
+    
+    /**
+     * 读取握手帧中的格式编号，不是握手帧时返回null
+     */
+    public static CodecType readHandshake(ByteBuf frame) {
+        if (!isHandshake(frame) || frame.readableBytes() < HANDSHAKE_LENGTH) {
+            return null;
+        }
+        return CodecType.fromId(frame.getUnsignedByte(frame.readerIndex() + 4));
+    }
+}
@@ -0,0 +1,74 @@
+package com.jeffrey.gameserver.network.codec;
+
+import com.jeffrey.gameserver.handler.ChatHandler;
+import com.jeffrey.gameserver.handler.LoginHandler;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import com.jeffrey.gameserver.protocol.messages.HeartbeatMessage;
+import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+import com.jeffrey.gameserver.protocol.messages.SceneInputMessage;
+import com.jeffrey.gameserver.protocol.messages.SceneJoinMessage;
+import com.jeffrey.gameserver.protocol.messages.StateAckMessage;
+import com.jeffrey.gameserver.protocol.messages.StateSyncMessage;
+import com.jeffrey.gameserver.util.JsonUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * JSON消息体编解码
+ * 未握手的连接默认使用此格式，便于调试工具和测试直接发送文本
+ * 
+ * @author jeffrey
+ */
+public class JsonMessageCodec implements MessageCodec {
+    
+    /** 共享实例 */
+    public static final JsonMessageCodec INSTANCE = new JsonMessageCodec();
+    
+    /** 消息类型到消息类的映射 */
+    private static final Map<MessageType, Class<? extends Message>> MESSAGE_CLASSES = new EnumMap<>(MessageType.class);
+    
+    static {
+        MESSAGE_CLASSES.put(MessageType.LOGIN, LoginMessage.class);
+        MESSAGE_CLASSES.put(MessageType.LOGIN_RESPONSE, LoginHandler.LoginResponseMessage.class);
+        MESSAGE_CLASSES.put(MessageType.CHAT, ChatMessage.class);
+        MESSAGE_CLASSES.put(MessageType.CHAT_RESPONSE, ChatHandler.ChatResponseMessage.class);
+        MESSAGE_CLASSES.put(MessageType.SCENE_JOIN, SceneJoinMessage.class);
+        MESSAGE_CLASSES.put(MessageType.SCENE_INPUT, SceneInputMessage.class);
+        MESSAGE_CLASSES.put(MessageType.STATE_SYNC, StateSyncMessage.class);
+        MESSAGE_CLASSES.put(MessageType.STATE_ACK, StateAckMessage.class);
+        MESSAGE_CLASSES.put(MessageType.HEARTBEAT, HeartbeatMessage.class);
+    }
+    
+    @Override
+    public CodecType getCodecType() {
+        return CodecType.JSON;
+    }
+    
+    @Override
+    public void encode(Message message, ByteBuf out) throws Exception {
+        // 直接序列化到缓冲区，省去中间的String和byte[]；ByteBufOutputStream同时实现了DataOutput，需要显式转型
+        try (ByteBufOutputStream stream = new ByteBufOutputStream(out)) {
+            JsonUtil.getObjectMapper().writeValue((OutputStream) stream, message);
+        }
+    }
+    
+    @Override
+    public Message decode(MessageType messageType, ByteBuf in) throws Exception {
+        Class<? extends Message> messageClass = MESSAGE_CLASSES.get(messageType);
+        if (messageClass == null) {
+            return null;
+        }
+        try (ByteBufInputStream stream = new ByteBufInputStream(in)) {
+            return JsonUtil.getObjectMapper().readValue((InputStream) stream, messageClass);
+        }
+    }
+}
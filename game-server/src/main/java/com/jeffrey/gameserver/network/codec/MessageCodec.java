@@ -0,0 +1,33 @@
+package com.jeffrey.gameserver.network.codec;
+
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 消息体编解码
+ * 只负责消息体部分，帧长度和消息类型头由 MessageEncoder / MessageDecoder 处理。
+ * 实现必须是无状态的，同一个实例会被所有连接共享。
+ * 
+ * @author jeffrey
+ */
+public interface MessageCodec {
+    
+    /**
+     * 编码格式
+     */
+    CodecType getCodecType();
+    
+    /**
+     * 将消息体写入缓冲区
+     */
+    void encode(Message message, ByteBuf out) throws Exception;
+    
+    /**
+     * 从缓冲区读取消息体
+     * 
+     * @return 解码后的消息，不支持的消息类型返回null
+     */
+    Message decode(MessageType messageType, ByteBuf in) throws Exception;
+}
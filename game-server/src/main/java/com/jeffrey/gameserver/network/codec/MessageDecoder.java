@@ -1,12 +1,10 @@
 package com.jeffrey.gameserver.network.codec;
 
+import com.jeffrey.gameserver.metrics.MessageMetrics;
 import com.jeffrey.gameserver.protocol.Message;
 import com.jeffrey.gameserver.protocol.MessageType;
-import com.jeffrey.gameserver.protocol.messages.ChatMessage;
-import com.jeffrey.gameserver.protocol.messages.HeartbeatMessage;
-import com.jeffrey.gameserver.protocol.messages.LoginMessage;
-import com.jeffrey.gameserver.util.JsonUtil;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import org.slf4j.Logger;
@@ -17,7 +15,7 @@ import java.util.List;
 
 /**
  * 消息解码器
- * 将字节流解码为Message对象
+ * 将字节流解码为Message对象，消息体格式由连接协商出的 MessageCodec 决定
  * 
  * @author jeffrey
  */
@@ -25,8 +23,26 @@ public class MessageDecoder extends MessageToMessageDecoder<ByteBuf> {
     
     private static final Logger logger = LoggerFactory.getLogger(MessageDecoder.class);
     
+    private final MessageCodec codec;
+    private final MessageMetrics metrics;
+    
+    public MessageDecoder() {
+        this(new MessageMetrics());
+    }
+    
+    public MessageDecoder(MessageMetrics metrics) {
+        this(JsonMessageCodec.INSTANCE, metrics);
+    }
+    
+    public MessageDecoder(MessageCodec codec, MessageMetrics metrics) {
+        this.codec = codec;
+        this.metrics = metrics;
+    }
+    
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        long startTime = System.nanoTime();
+        int frameLength = in.readableBytes();
         try {
             // 读取消息类型
             int typeCode = in.readInt();
@@ -37,24 +53,21 @@ public class MessageDecoder extends MessageToMessageDecoder<ByteBuf> {
                 return;
             }
             
-            // 读取消息内容长度
+            // 检查消息内容长度
             int contentLength = in.readableBytes();
             if (contentLength <= 0) {
                 logger.warn("Empty message content for type: {}", messageType);
                 return;
             }
             
-            // 读取消息内容
-            byte[] contentBytes = new byte[contentLength];
-            in.readBytes(contentBytes);
-            String content = new String(contentBytes, StandardCharsets.UTF_8);
-            
             // 根据消息类型解码
-            Message message = decodeMessage(messageType, content);
+            Message message = decodeMessage(messageType, in);
             if (message != null) {
                 out.add(message);
+                metrics.record(messageType, MessageMetrics.Stage.DECODE, frameLength, System.nanoTime() - startTime);
+                metrics.recordFrame(codec.getCodecType(), MessageMetrics.Direction.INBOUND, frameLength);
             }
-            
+        
         } catch (Exception e) {
             logger.error("Failed to decode message", e);
             // 不抛出异常，避免影响其他消息处理
@@ -64,23 +77,33 @@ public class MessageDecoder extends MessageToMessageDecoder<ByteBuf> {
     /**
      * 根据消息类型解码消息
      */
-    private Message decodeMessage(MessageType messageType, String content) {
+    private Message decodeMessage(MessageType messageType, ByteBuf content) {
+        int contentIndex = content.readerIndex();
         try {
-            switch (messageType) {
-                case LOGIN:
-                    return JsonUtil.fromJson(content, LoginMessage.class);
-                case CHAT:
-                    return JsonUtil.fromJson(content, ChatMessage.class);
-                case HEARTBEAT:
-                    return JsonUtil.fromJson(content, HeartbeatMessage.class);
-                default:
-                    logger.warn("Unsupported message type for decoding: {}", messageType);
-                    return null;
+            Message message = codec.decode(messageType, content);
+            if (message == null) {
+                logger.warn("Unsupported message type for decoding: {}", messageType);
             }
+            return message;
         } catch (Exception e) {
-            logger.error("Failed to decode message content for type: {}, content: {}", 
-                    messageType, content, e);
+            logger.error("Failed to decode {} message content for type: {}, content: {}", codec.getCodecType(),
+                    messageType, describeContent(content, contentIndex), e);
             return null;
         }
     }
+    
+    /**
+     * 出错时用于日志的消息内容，JSON输出文本，其他格式输出十六进制
+     */
+    private String describeContent(ByteBuf content, int contentIndex) {
+        int length = content.writerIndex() - contentIndex;
+        if (codec instanceof JsonMessageCodec) {
+            return content.toString(contentIndex, length, StandardCharsets.UTF_8);
+        }
+        return ByteBufUtil.hexDump(content, contentIndex, length);
+    }
+    
+    public MessageCodec getCodec() {
+        return codec;
+    }
 }
@@ -1,18 +1,16 @@
 package com.jeffrey.gameserver.network.codec;
 
+import com.jeffrey.gameserver.metrics.MessageMetrics;
 import com.jeffrey.gameserver.protocol.Message;
-import com.jeffrey.gameserver.util.JsonUtil;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
-
 /**
  * 消息编码器
- * 将Message对象编码为字节流
+ * 将Message对象编码为字节流，消息体格式由连接协商出的 MessageCodec 决定
  * 
  * @author jeffrey
  */
@@ -20,24 +18,54 @@ public class MessageEncoder extends MessageToByteEncoder<Message> {
     
     private static final Logger logger = LoggerFactory.getLogger(MessageEncoder.class);
     
+    private final MessageCodec codec;
+    private final MessageMetrics metrics;
+    
+    public MessageEncoder() {
+        this(new MessageMetrics());
+    }
+    
+    public MessageEncoder(MessageMetrics metrics) {
+        this(JsonMessageCodec.INSTANCE, metrics);
+    }
+    
+    public MessageEncoder(MessageCodec codec, MessageMetrics metrics) {
+        this.codec = codec;
+        this.metrics = metrics;
+    }
+    
     @Override
     protected void encode(ChannelHandlerContext ctx, Message message, ByteBuf out) throws Exception {
+        long startTime = System.nanoTime();
+        int startIndex = out.writerIndex();
         try {
-            // 写入消息类型
-            out.writeInt(message.getType().getCode());
-            
-            // 将消息对象序列化为JSON
-            String content = JsonUtil.toJson(message);
-            byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+            writeFrame(message, codec, out);
             
-            // 写入消息内容
-            out.writeBytes(contentBytes);
-            
-            logger.debug("Encoded message: type={}, size={}", message.getType(), contentBytes.length);
+            int frameLength = out.writerIndex() - startIndex;
+            metrics.record(message.getType(), MessageMetrics.Stage.ENCODE, frameLength, System.nanoTime() - startTime);
+            metrics.recordFrame(codec.getCodecType(), MessageMetrics.Direction.OUTBOUND, frameLength);
             
+            logger.debug("Encoded message: type={}, codec={}, size={}", message.getType(), codec.getCodecType(), frameLength);
+        
         } catch (Exception e) {
             logger.error("Failed to encode message: {}", message, e);
             throw e;
         }
     }
+    
+    /**
+     * 写入消息类型和消息体，帧长度由 LengthFieldPrepender 添加。
+     * 广播时用它预先编码一次，编码结果以 ByteBuf 写入各连接，不再经过本编码器。
+     */
+    public static void writeFrame(Message message, MessageCodec codec, ByteBuf out) throws Exception {
+        // 写入消息类型
+        out.writeInt(message.getType().getCode());
+        
+        // 写入消息内容
+        codec.encode(message, out);
+    }
+    
+    public MessageCodec getCodec() {
+        return codec;
+    }
 }
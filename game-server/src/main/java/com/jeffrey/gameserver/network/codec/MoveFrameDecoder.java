@@ -0,0 +1,93 @@
+package com.jeffrey.gameserver.network.codec;
+
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.session.GameSession;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * 移动帧解码器
+ * 位于消息解码器之前，直接从帧中读出 MOVE 的定长字段写入会话的移动槽位，不创建 Message 对象；其他帧原样传给后续处理器。
+ * <p>
+ * MOVE 帧与协商的编码格式无关，消息体固定8字节: [4字节输入序号][2字节moveX][2字节moveY]，
+ * 移动方向按 -1~1 量化为 ±32767。槽位只保留最新的一次移动，同一tick内被覆盖的移动不会进入场景。
+ *
+ * @author jeffrey
+ */
+@ChannelHandler.Sharable
+public class MoveFrameDecoder extends ChannelInboundHandlerAdapter {
+    
+    /** 消息体长度 */
+    public static final int BODY_LENGTH = 8;
+    
+    /** 方向分量的量化刻度 */
+    private static final float SCALE = Short.MAX_VALUE;
+    
+    private final MessageMetrics metrics;
+    
+    public MoveFrameDecoder(MessageMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof ByteBuf) || !isMove((ByteBuf) msg)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        
+        ByteBuf frame = (ByteBuf) msg;
+        try {
+            long startTime = System.nanoTime();
+            int frameLength = frame.readableBytes();
+            GameSession session = ctx.channel().attr(GameSession.SESSION_KEY).get();
+            frame.skipBytes(4);
+            if (session != null && session.isAuthenticated() && frame.readableBytes() == BODY_LENGTH) {
+                session.offerMove(frame.readLong());
+                session.updateLastActiveTime();
+            }
+            metrics.record(MessageType.MOVE, MessageMetrics.Stage.DECODE, frameLength, System.nanoTime() - startTime);
+        } finally {
+            frame.release();
+        }
+    }
+    
+    private static boolean isMove(ByteBuf frame) {
+        return frame.readableBytes() >= 4 && frame.getInt(frame.readerIndex()) == MessageType.MOVE.getCode();
+    }
+    
+    /**
+     * 写入 MOVE 帧(不含长度字段)，客户端和测试使用
+     */
+    public static ByteBuf writeMove(ByteBuf out, int inputSeq, float moveX, float moveY) {
+        out.writeInt(MessageType.MOVE.getCode());
+        out.writeLong(pack(inputSeq, moveX, moveY));
+        return out;
+    }
+    
+    /**
+     * 把一次移动打包成long，与消息体的字节顺序一致
+     */
+    public static long pack(int inputSeq, float moveX, float moveY) {
+        return ((long) inputSeq << 32) | ((quantize(moveX) & 0xFFFFL) << 16) | (quantize(moveY) & 0xFFFFL);
+    }
+    
+    public static int inputSeq(long move) {
+        return (int) (move >>> 32);
+    }
+    
+    public static float moveX(long move) {
+        return (short) (move >>> 16) / SCALE;
+    }
+    
+    public static float moveY(long move) {
+        return (short) move / SCALE;
+    }
+    
+    private static short quantize(float value) {
+        return (short) Math.round(Math.max(-1f, Math.min(1f, value)) * SCALE);
+    }
+}
@@ -0,0 +1,114 @@
+package com.jeffrey.gameserver.network.udp;
+
+import com.jeffrey.gameserver.network.codec.MessageCodec;
+import com.jeffrey.gameserver.network.codec.MessageEncoder;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.session.GameSession;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 会话绑定的UDP链路
+ * 不重传、不保证到达，但保证顺序：每个方向的数据报带递增序号，接收方丢弃不比已收到的序号更新的数据报。
+ * 只用于丢失后会被后续消息覆盖的类型(移动输入、基于已确认基线的状态同步)，其余消息仍走TCP。
+ *
+ * @author jeffrey
+ */
+public class UdpLink {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UdpLink.class);
+    
+    /** 服务器发出的数据报头: 序号(4字节)，之后是消息类型和消息体 */
+    public static final int SERVER_HEADER_LENGTH = 4;
+    
+    private final Channel channel;
+    private final MessageCodec codec;
+    private final Set<MessageType> messageTypes;
+    private final int maxDatagramSize;
+    
+    /** 客户端地址，NAT重绑定后随更新的数据报更换 */
+    private volatile InetSocketAddress remoteAddress;
+    
+    private final AtomicInteger sendSeq = new AtomicInteger();
+    
+    /** 已收到的最大序号，只在UDP通道的IO线程中访问 */
+    private int receiveSeq;
+    private boolean received;
+    
+    public UdpLink(Channel channel, InetSocketAddress remoteAddress, MessageCodec codec,
+                   Set<MessageType> messageTypes, int maxDatagramSize) {
+        this.channel = channel;
+        this.remoteAddress = remoteAddress;
+        this.codec = codec;
+        this.messageTypes = messageTypes;
+        this.maxDatagramSize = maxDatagramSize;
+    }
+    
+    /**
+     * 该类型的消息是否经UDP发送
+     */
+    public boolean routes(MessageType type) {
+        return messageTypes.contains(type);
+    }
+    
+    /**
+     * 检查收到的序号，比已收到的更新时记录并返回true。序号按int回绕比较。
+     */
+    boolean accept(int seq) {
+        if (received && seq - receiveSeq <= 0) {
+            return false;
+        }
+        receiveSeq = seq;
+        received = true;
+        return true;
+    }
+    
+    /**
+     * 经UDP发送消息，编码后超过数据报上限时改经会话的TCP连接发送
+     *
+     * @param message 所有权转移，引用计数的消息在编码后释放
+     */
+    public void send(GameSession session, Message message) {
+        ByteBuf buf = channel.alloc().buffer();
+        try {
+            buf.writeInt(0);
+            MessageEncoder.writeFrame(message, codec, buf);
+        } catch (Exception e) {
+            buf.release();
+            logger.error("Failed to encode udp message: {}", message, e);
+            return;
+        } finally {
+            ReferenceCountUtil.release(message);
+        }
+        
+        if (buf.readableBytes() > maxDatagramSize) {
+            // 不在UDP层分片，超大的消息交给TCP
+            buf.skipBytes(SERVER_HEADER_LENGTH);
+            session.sendFrame(buf);
+            return;
+        }
+        buf.setInt(0, sendSeq.incrementAndGet());
+        channel.writeAndFlush(new DatagramPacket(buf, remoteAddress), channel.voidPromise());
+    }
+    
+    public MessageCodec getCodec() {
+        return codec;
+    }
+    
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+    
+    void setRemoteAddress(InetSocketAddress remoteAddress) {
+        this.remoteAddress = remoteAddress;
+    }
+}
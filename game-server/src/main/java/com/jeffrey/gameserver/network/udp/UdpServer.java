@@ -0,0 +1,202 @@
+package com.jeffrey.gameserver.network.udp;
+
+import com.jeffrey.gameserver.config.ServerConfig;
+import com.jeffrey.gameserver.handler.MessageHandler;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.network.MessageDispatcher;
+import com.jeffrey.gameserver.network.codec.CodecNegotiationHandler;
+import com.jeffrey.gameserver.network.codec.MoveFrameDecoder;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.HeartbeatMessage;
+import com.jeffrey.gameserver.session.GameSession;
+import com.jeffrey.gameserver.session.SessionManager;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UDP服务器
+ * 与TCP端口并存，承载对延迟敏感、丢失后会被后续消息覆盖的消息，避免TCP丢包重传造成的队头阻塞。
+ * <p>
+ * 客户端在TCP登录成功后从响应中拿到UDP端口和令牌，之后发送的数据报格式为
+ * [8字节令牌][4字节序号][4字节消息类型][消息体]，消息体使用TCP连接协商出的编码格式。
+ * 第一个带有效令牌的数据报把客户端地址绑定到会话(之后发送 HEARTBEAT 数据报可以确认绑定并保活)，
+ * 服务器随后把 game.udp.messageTypes 中的消息改经UDP发出，格式为 [4字节序号][4字节消息类型][消息体]。
+ * <p>
+ * 收到的消息与TCP一样交给 MessageDispatcher，处理器不区分来源；只接受配置中的类型和心跳，
+ * 登录、聊天等需要可靠送达的消息仍然只走TCP。
+ *
+ * @author jeffrey
+ */
+public class UdpServer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UdpServer.class);
+    
+    /** 客户端发来的数据报头: 令牌(8字节) + 序号(4字节) */
+    public static final int CLIENT_HEADER_LENGTH = 12;
+    
+    private final ServerConfig config;
+    private final SessionManager sessionManager;
+    private final MessageDispatcher dispatcher;
+    private final MessageMetrics metrics;
+    private final Set<MessageType> messageTypes;
+    
+    private EventLoopGroup group;
+    private Channel channel;
+    
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    
+    public UdpServer(ServerConfig config, SessionManager sessionManager,
+                     Map<MessageType, MessageHandler> messageHandlers, MessageMetrics metrics) {
+        this.config = config;
+        this.sessionManager = sessionManager;
+        this.dispatcher = new MessageDispatcher(messageHandlers, metrics);
+        this.metrics = metrics;
+        this.messageTypes = config.getUdpMessageTypes();
+    }
+    
+    /**
+     * 启动UDP服务器
+     */
+    public void start() throws InterruptedException {
+        // 单个数据报通道只在一个IO线程上读写
+        group = new NioEventLoopGroup(1);
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(new UdpChannelHandler());
+        channel = bootstrap.bind(config.getHost(), config.getUdpPort()).sync().channel();
+        logger.info("UDP server started on {}:{}, messageTypes={}", config.getHost(), config.getUdpPort(), messageTypes);
+    }
+    
+    /**
+     * 停止UDP服务器
+     */
+    public void stop() {
+        if (channel != null) {
+            channel.close();
+        }
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+        logger.info("UDP server stopped, received={}, dropped={}", receivedCount.get(), droppedCount.get());
+    }
+    
+    /**
+     * 交给处理器的数据报数
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+    
+    /**
+     * 丢弃的数据报数(令牌无效、类型不允许、乱序或重复、无法解码)
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+    
+    /**
+     * 处理收到的数据报
+     */
+    private class UdpChannelHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+        
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+            ByteBuf in = packet.content();
+            int datagramLength = in.readableBytes();
+            if (datagramLength < CLIENT_HEADER_LENGTH + 4) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+            
+            long token = in.readLong();
+            int seq = in.readInt();
+            GameSession session = token != 0 ? sessionManager.getSessionByUdpToken(token) : null;
+            MessageType type = MessageType.fromCode(in.readInt());
+            if (session == null || type == null || (type != MessageType.HEARTBEAT && !messageTypes.contains(type))) {
+                droppedCount.incrementAndGet();
+                logger.debug("Dropped udp datagram: sender={}, type={}", packet.sender(), type);
+                return;
+            }
+            
+            InetSocketAddress sender = packet.sender();
+            UdpLink link = session.getUdpLink();
+            if (link == null) {
+                link = new UdpLink(ctx.channel(), sender, CodecNegotiationHandler.codecFor(session.getCodecType()),
+                        messageTypes, config.getUdpMaxDatagramSize());
+                session.setUdpLink(link);
+                logger.info("UDP bound: playerId={}, session={}, address={}",
+                        session.getPlayerId(), session.getSessionId(), sender);
+            }
+            if (!link.accept(seq)) {
+                // 比已处理的更旧，移动输入和确认都已被更新的数据报覆盖
+                droppedCount.incrementAndGet();
+                return;
+            }
+            if (!sender.equals(link.getRemoteAddress())) {
+                // 只有序号更新的数据报才能更换地址，重放旧数据报不会劫持链路
+                link.setRemoteAddress(sender);
+            }
+            
+            if (type == MessageType.MOVE) {
+                // 定长移动输入直接写入会话，不创建消息对象
+                if (in.readableBytes() != MoveFrameDecoder.BODY_LENGTH) {
+                    droppedCount.incrementAndGet();
+                    return;
+                }
+                session.offerMove(in.readLong());
+                receivedCount.incrementAndGet();
+                session.updateLastActiveTime();
+                return;
+            }
+            
+            long startTime = System.nanoTime();
+            Message message;
+            try {
+                message = link.getCodec().decode(type, in);
+            } catch (Exception e) {
+                droppedCount.incrementAndGet();
+                logger.warn("Failed to decode udp message: type={}, session={}", type, session.getSessionId(), e);
+                return;
+            }
+            if (message == null) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+            metrics.record(type, MessageMetrics.Stage.DECODE, datagramLength, System.nanoTime() - startTime);
+            receivedCount.incrementAndGet();
+            session.updateLastActiveTime();
+            
+            if (type == MessageType.HEARTBEAT) {
+                // 经UDP回复，客户端以此确认绑定成功
+                HeartbeatMessage response = new HeartbeatMessage();
+                response.setTimestamp(System.currentTimeMillis());
+                link.send(session, response);
+                return;
+            }
+            dispatcher.dispatch(session, message);
+        }
+        
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            // 数据报通道是所有客户端共用的，出错不关闭
+            logger.error("Exception in udp handler", cause);
+        }
+    }
+}
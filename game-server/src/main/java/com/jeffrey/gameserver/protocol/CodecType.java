@@ -0,0 +1,63 @@
+package com.jeffrey.gameserver.protocol;
+
+import io.netty.util.AttributeKey;
+
+/**
+ * 消息编码格式
+ * 每个连接在登录前通过握手帧选择一种格式，未握手的连接默认使用JSON
+ * 
+ * @author jeffrey
+ */
+public enum CodecType {
+    
+    /** JSON格式，便于调试和工具使用 */
+    JSON(1, "json"),
+    
+    /** 紧凑二进制格式 */
+    BINARY(2, "binary");
+    
+    /** 连接上协商结果的属性键 */
+    public static final AttributeKey<CodecType> CODEC_KEY = AttributeKey.valueOf("codecType");
+    
+    private static final CodecType[] VALUES = values();
+    
+    private final int id;
+    private final String formatName;
+    
+    CodecType(int id, String formatName) {
+        this.id = id;
+        this.formatName = formatName;
+    }
+    
+    /**
+     * 根据握手帧中的编号获取编码格式
+     */
+    public static CodecType fromId(int id) {
+        for (CodecType type : VALUES) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 根据名称获取编码格式，忽略大小写
+     */
+    public static CodecType fromName(String name) {
+        for (CodecType type : VALUES) {
+            if (type.formatName.equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+        return null;
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public String getFormatName() {
+        return formatName;
+    }
+}
@@ -1,10 +1,15 @@
 package com.jeffrey.gameserver.protocol;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.jeffrey.gameserver.protocol.messages.ChatMessage;
 import com.jeffrey.gameserver.protocol.messages.HeartbeatMessage;
 import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+import com.jeffrey.gameserver.protocol.messages.SceneInputMessage;
+import com.jeffrey.gameserver.protocol.messages.SceneJoinMessage;
+import com.jeffrey.gameserver.protocol.messages.StateAckMessage;
+import com.jeffrey.gameserver.protocol.messages.StateSyncMessage;
 
 /**
  * 消息基类
@@ -16,7 +21,11 @@ import com.jeffrey.gameserver.protocol.messages.LoginMessage;
 @JsonSubTypes({
     @JsonSubTypes.Type(value = LoginMessage.class, name = "LOGIN"),
     @JsonSubTypes.Type(value = ChatMessage.class, name = "CHAT"),
-    @JsonSubTypes.Type(value = HeartbeatMessage.class, name = "HEARTBEAT")
+    @JsonSubTypes.Type(value = HeartbeatMessage.class, name = "HEARTBEAT"),
+    @JsonSubTypes.Type(value = SceneJoinMessage.class, name = "SCENE_JOIN"),
+    @JsonSubTypes.Type(value = SceneInputMessage.class, name = "SCENE_INPUT"),
+    @JsonSubTypes.Type(value = StateSyncMessage.class, name = "STATE_SYNC"),
+    @JsonSubTypes.Type(value = StateAckMessage.class, name = "STATE_ACK")
 })
 public abstract class Message {
     
@@ -36,6 +45,15 @@ public abstract class Message {
      */
     public abstract MessageType getType();
     
+    /**
+     * 状态类消息的合并键，连接不可写时同类型同键的消息只保留最新一条；
+     * 默认返回null，表示事件类消息，按顺序全部送达
+     */
+    @JsonIgnore
+    public Object getConflationKey() {
+        return null;
+    }
+    
     /**
      * 生成消息ID
      */
@@ -8,6 +8,9 @@ package com.jeffrey.gameserver.protocol;
  */
 public enum MessageType {
     
+    /** 握手消息，登录前协商编码格式，不经过消息编解码器 */
+    HANDSHAKE(1000, "握手"),
+    
     /** 登录消息 */
     LOGIN(1001, "登录"),
     
@@ -20,6 +23,21 @@ public enum MessageType {
     /** 聊天响应 */
     CHAT_RESPONSE(2002, "聊天响应"),
     
+    /** 进入场景 */
+    SCENE_JOIN(3001, "进入场景"),
+    
+    /** 场景输入 */
+    SCENE_INPUT(3002, "场景输入"),
+    
+    /** 场景状态同步，每个tick每个客户端最多一条 */
+    STATE_SYNC(3003, "状态同步"),
+    
+    /** 状态同步确认 */
+    STATE_ACK(3004, "状态确认"),
+    
+    /** 移动输入，定长8字节消息体，不经过消息编解码器 */
+    MOVE(3005, "移动"),
+    
     /** 心跳消息 */
     HEARTBEAT(9001, "心跳"),
     
@@ -0,0 +1,74 @@
+package com.jeffrey.gameserver.protocol.messages;
+
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+
+/**
+ * 场景输入消息
+ * 客户端的移动意图，服务器在下一个tick统一处理，不单独回复
+ * 
+ * @author jeffrey
+ */
+public class SceneInputMessage extends Message {
+    
+    /** 输入序号，状态同步中回带已处理的最大序号，用于客户端预测校正 */
+    private int inputSeq;
+    
+    /** 移动方向X分量，取值 -1~1 */
+    private float moveX;
+    
+    /** 移动方向Y分量，取值 -1~1 */
+    private float moveY;
+    
+    public SceneInputMessage() {
+        super();
+    }
+    
+    public SceneInputMessage(int inputSeq, float moveX, float moveY) {
+        super();
+        this.inputSeq = inputSeq;
+        this.moveX = moveX;
+        this.moveY = moveY;
+    }
+    
+    @Override
+    public MessageType getType() {
+        return MessageType.SCENE_INPUT;
+    }
+    
+    // Getter和Setter方法
+    public int getInputSeq() {
+        return inputSeq;
+    }
+    
+    public void setInputSeq(int inputSeq) {
+        this.inputSeq = inputSeq;
+    }
+    
+    public float getMoveX() {
+        return moveX;
+    }
+    
+    public void setMoveX(float moveX) {
+        this.moveX = moveX;
+    }
+    
+    public float getMoveY() {
+        return moveY;
+    }
+    
+    public void setMoveY(float moveY) {
+        this.moveY = moveY;
+    }
+    
+    @Override
+    public String toString() {
+        return "SceneInputMessage{" +
+                "inputSeq=" + inputSeq +
+                ", moveX=" + moveX +
+                ", moveY=" + moveY +
+                ", messageId='" + getMessageId() + '\'' +
+                ", timestamp=" + getTimestamp() +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.jeffrey.gameserver.protocol.messages;
+
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+
+/**
+ * 进入场景消息
+ * 进入成功后下一个tick会收到包含场景内全部实体的状态同步
+ * 
+ * @author jeffrey
+ */
+public class SceneJoinMessage extends Message {
+    
+    /** 场景ID */
+    private int sceneId;
+    
+    public SceneJoinMessage() {
+        super();
+    }
+    
+    public SceneJoinMessage(int sceneId) {
+        super();
+        this.sceneId = sceneId;
+    }
+    
+    @Override
+    public MessageType getType() {
+        return MessageType.SCENE_JOIN;
+    }
+    
+    // Getter和Setter方法
+    public int getSceneId() {
+        return sceneId;
+    }
+    
+    public void setSceneId(int sceneId) {
+        this.sceneId = sceneId;
+    }
+    
+    @Override
+    public String toString() {
+        return "SceneJoinMessage{" +
+                "sceneId=" + sceneId +
+                ", messageId='" + getMessageId() + '\'' +
+                ", timestamp=" + getTimestamp() +
+                '}';
+    }
+}
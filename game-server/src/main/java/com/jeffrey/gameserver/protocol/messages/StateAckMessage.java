@@ -0,0 +1,61 @@
+package com.jeffrey.gameserver.protocol.messages;
+
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+
+/**
+ * 状态同步确认消息
+ * 客户端应用状态同步后回复，服务器之后发送相对该tick的增量
+ * 
+ * @author jeffrey
+ */
+public class StateAckMessage extends Message {
+    
+    /** 场景ID */
+    private int sceneId;
+    
+    /** 已应用的tick */
+    private long tick;
+    
+    public StateAckMessage() {
+        super();
+    }
+    
+    public StateAckMessage(int sceneId, long tick) {
+        super();
+        this.sceneId = sceneId;
+        this.tick = tick;
+    }
+    
+    @Override
+    public MessageType getType() {
+        return MessageType.STATE_ACK;
+    }
+    
+    // Getter和Setter方法
+    public int getSceneId() {
+        return sceneId;
+    }
+    
+    public void setSceneId(int sceneId) {
+        this.sceneId = sceneId;
+    }
+    
+    public long getTick() {
+        return tick;
+    }
+    
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+    
+    @Override
+    public String toString() {
+        return "StateAckMessage{" +
+                "sceneId=" + sceneId +
+                ", tick=" + tick +
+                ", messageId='" + getMessageId() + '\'' +
+                ", timestamp=" + getTimestamp() +
+                '}';
+    }
+}
@@ -0,0 +1,177 @@
+package com.jeffrey.gameserver.protocol.messages;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCounted;
+
+import java.util.Base64;
+
+/**
+ * 场景状态同步消息
+ * 每个tick对每个客户端最多发送一条。负载是相对 baselineTick 的实体增量，
+ * 格式见 EntityDeltaCodec；baselineTick 为 -1 表示全量快照，客户端应先清空本地状态。
+ * <p>
+ * 负载是ByteBuf，消息的引用计数委托给负载：编码器写出后或写入失败时由Netty释放，
+ * 解码得到的消息由入站处理器释放。JSON格式下负载以Base64输出。
+ * 
+ * @author jeffrey
+ */
+public class StateSyncMessage extends Message implements ReferenceCounted {
+    
+    /** 全量快照的基线 */
+    public static final long FULL_SNAPSHOT = -1;
+    
+    /** 场景ID */
+    private int sceneId;
+    
+    /** tick序号 */
+    private long tick;
+    
+    /** 增量的基线tick，-1表示全量快照 */
+    private long baselineTick = FULL_SNAPSHOT;
+    
+    /** 本客户端已处理的最大输入序号 */
+    private int lastInputSeq;
+    
+    /** 实体增量 */
+    private ByteBuf payload = Unpooled.EMPTY_BUFFER;
+    
+    public StateSyncMessage() {
+        super();
+    }
+    
+    @Override
+    public MessageType getType() {
+        return MessageType.STATE_SYNC;
+    }
+    
+    @JsonIgnore
+    public boolean isFullSnapshot() {
+        return baselineTick == FULL_SNAPSHOT;
+    }
+    
+    /**
+     * 每条同步都相对客户端已确认的基线，未写出的旧同步被新的替换后不影响客户端状态
+     */
+    @Override
+    @JsonIgnore
+    public Object getConflationKey() {
+        return sceneId;
+    }
+    
+    // Getter和Setter方法
+    public int getSceneId() {
+        return sceneId;
+    }
+    
+    public void setSceneId(int sceneId) {
+        this.sceneId = sceneId;
+    }
+    
+    public long getTick() {
+        return tick;
+    }
+    
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+    
+    public long getBaselineTick() {
+        return baselineTick;
+    }
+    
+    public void setBaselineTick(long baselineTick) {
+        this.baselineTick = baselineTick;
+    }
+    
+    public int getLastInputSeq() {
+        return lastInputSeq;
+    }
+    
+    public void setLastInputSeq(int lastInputSeq) {
+        this.lastInputSeq = lastInputSeq;
+    }
+    
+    @JsonIgnore
+    public ByteBuf getPayload() {
+        return payload;
+    }
+    
+    /**
+     * 设置负载，消息接管调用方的引用
+     */
+    @JsonIgnore
+    public void setPayload(ByteBuf payload) {
+        this.payload = payload;
+    }
+    
+    @JsonProperty("payload")
+    public String getPayloadBase64() {
+        return Base64.getEncoder().encodeToString(ByteBufUtil.getBytes(payload));
+    }
+    
+    @JsonProperty("payload")
+    public void setPayloadBase64(String payloadBase64) {
+        this.payload = payloadBase64 == null || payloadBase64.isEmpty() 
+                ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(Base64.getDecoder().decode(payloadBase64));
+    }
+    
+    // ReferenceCounted，委托给负载
+    @Override
+    @JsonIgnore
+    public int refCnt() {
+        return payload.refCnt();
+    }
+    
+    @Override
+    public StateSyncMessage retain() {
+        payload.retain();
+        return this;
+    }
+    
+    @Override
+    public StateSyncMessage retain(int increment) {
+        payload.retain(increment);
+        return this;
+    }
+    
+    @Override
+    public StateSyncMessage touch() {
+        payload.touch();
+        return this;
+    }
+    
+    @Override
+    public StateSyncMessage touch(Object hint) {
+        payload.touch(hint);
+        return this;
+    }
+    
+    @Override
+    public boolean release() {
+        return payload.release();
+    }
+    
+    @Override
+    public boolean release(int decrement) {
+        return payload.release(decrement);
+    }
+    
+    @Override
+    public String toString() {
+        return "StateSyncMessage{" +
+                "sceneId=" + sceneId +
+                ", tick=" + tick +
+                ", baselineTick=" + baselineTick +
+                ", lastInputSeq=" + lastInputSeq +
+                ", payloadBytes=" + payload.readableBytes() +
+                ", messageId='" + getMessageId() + '\'' +
+                ", timestamp=" + getTimestamp() +
+                '}';
+    }
+}
@@ -0,0 +1,167 @@
+package com.jeffrey.gameserver.scene;
+
+import com.jeffrey.gameserver.network.codec.BinaryMessageCodec;
+import com.jeffrey.gameserver.protocol.messages.StateSyncMessage;
+import com.jeffrey.gameserver.util.BitReader;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 客户端场景状态
+ * 按顺序应用服务器发来的状态同步，还原场景内的实体。应用后应向服务器回复
+ * STATE_ACK(tick)，服务器之后发送相对该tick的增量。供客户端工具和测试使用，非线程安全。
+ * 
+ * @author jeffrey
+ */
+public class ClientSceneState {
+    
+    /** 实体 - netId -> Entity */
+    private final Map<Integer, Entity> entities = new HashMap<>();
+    
+    /** 实体 - entityId -> Entity */
+    private final Map<String, Entity> entitiesById = new HashMap<>();
+    
+    private final BitReader bits = new BitReader();
+    private final float[] fields = new float[SceneEntity.FIELD_COUNT];
+    
+    private int sceneId;
+    private long lastTick = -1;
+    
+    /**
+     * 应用一条状态同步
+     */
+    public void apply(StateSyncMessage sync) {
+        if (sync.getSceneId() != sceneId || sync.isFullSnapshot()) {
+            entities.clear();
+            entitiesById.clear();
+            sceneId = sync.getSceneId();
+        }
+        
+        ByteBuf payload = sync.getPayload().duplicate();
+        if (payload.isReadable()) {
+            int newCount = BinaryMessageCodec.readCount(payload);
+            for (int i = 0; i < newCount; i++) {
+                int netId = BinaryMessageCodec.readVarInt(payload);
+                String entityId = BinaryMessageCodec.readString(payload);
+                if (!entities.containsKey(netId)) {
+                    Entity entity = new Entity(netId, entityId);
+                    entities.put(netId, entity);
+                    entitiesById.put(entityId, entity);
+                }
+            }
+            
+            int changedCount = BinaryMessageCodec.readCount(payload);
+            bits.reset(payload);
+            for (int i = 0; i < changedCount; i++) {
+                long result = EntityDeltaCodec.readEntity(bits, fields);
+                Entity entity = entities.get((int) result);
+                if (entity != null) {
+                    entity.apply((int) (result >>> 32), fields);
+                }
+            }
+            bits.align();
+            
+            int removedCount = BinaryMessageCodec.readCount(payload);
+            for (int i = 0; i < removedCount; i++) {
+                Entity removed = entities.remove(BinaryMessageCodec.readVarInt(payload));
+                if (removed != null) {
+                    entitiesById.remove(removed.entityId);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, sync.getTick());
+    }
+    
+    public Entity getEntity(String entityId) {
+        return entitiesById.get(entityId);
+    }
+    
+    public Collection<Entity> getEntities() {
+        return entities.values();
+    }
+    
+    public int size() {
+        return entities.size();
+    }
+    
+    public int getSceneId() {
+        return sceneId;
+    }
+    
+    /**
+     * 已应用的最大tick，用于回复STATE_ACK
+     */
+    public long getLastTick() {
+        return lastTick;
+    }
+    
+    /**
+     * 客户端看到的实体
+     */
+    public static class Entity {
+        private final int netId;
+        private final String entityId;
+        private float x;
+        private float y;
+        private float moveX;
+        private float moveY;
+        
+        Entity(int netId, String entityId) {
+            this.netId = netId;
+            this.entityId = entityId;
+        }
+        
+        void apply(int mask, float[] fields) {
+            if ((mask & (1 << SceneEntity.FIELD_X)) != 0) {
+                x = fields[SceneEntity.FIELD_X];
+            }
+            if ((mask & (1 << SceneEntity.FIELD_Y)) != 0) {
+                y = fields[SceneEntity.FIELD_Y];
+            }
+            if ((mask & (1 << SceneEntity.FIELD_MOVE_X)) != 0) {
+                moveX = fields[SceneEntity.FIELD_MOVE_X];
+            }
+            if ((mask & (1 << SceneEntity.FIELD_MOVE_Y)) != 0) {
+                moveY = fields[SceneEntity.FIELD_MOVE_Y];
+            }
+        }
+        
+        // Getter方法
+        public int getNetId() {
+            return netId;
+        }
+        
+        public String getEntityId() {
+            return entityId;
+        }
+        
+        public float getX() {
+            return x;
+        }
+        
+        public float getY() {
+            return y;
+        }
+        
+        public float getMoveX() {
+            return moveX;
+        }
+        
+        public float getMoveY() {
+            return moveY;
+        }
+        
+        @Override
+        public String toString() {
+            return "Entity{" +
+                    "netId=" + netId +
+                    ", entityId='" + entityId + '\'' +
+                    ", x=" + x +
+                    ", y=" + y +
+                    '}';
+        }
+    }
+}
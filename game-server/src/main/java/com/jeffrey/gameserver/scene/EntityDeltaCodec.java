@@ -0,0 +1,128 @@
+package com.jeffrey.gameserver.scene;
+
+import com.jeffrey.gameserver.network.codec.BinaryMessageCodec;
+import com.jeffrey.gameserver.util.BitReader;
+import com.jeffrey.gameserver.util.BitWriter;
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+
+/**
+ * 实体增量编码
+ * 状态同步消息的负载分三段：
+ * <ol>
+ *     <li>新实体: varint(个数)，每个 varint(netId) + 字符串(entityId)</li>
+ *     <li>字段变化: varint(个数)，之后是按位打包的数据，每个实体为
+ *         netId(6位一组的变长位) + 字段掩码(FIELD_COUNT位) + 掩码中各字段的量化值，末尾补齐到字节</li>
+ *     <li>删除: varint(个数)，每个 varint(netId)</li>
+ * </ol>
+ * 位置量化为 1/16 单位的20位无符号数(场景尺寸上限65535)，移动方向量化为8位。
+ * 
+ * @author jeffrey
+ */
+public final class EntityDeltaCodec {
+    
+    /** 位置精度 */
+    static final float POSITION_SCALE = 16f;
+    static final int POSITION_BITS = 20;
+    private static final long POSITION_MAX = (1L << POSITION_BITS) - 1;
+    
+    static final int DIRECTION_BITS = 8;
+    private static final int DIRECTION_SCALE = 127;
+    
+    static final int NET_ID_CHUNK_BITS = 6;
+    
+    private EntityDeltaCodec() {
+    }
+    
+    /**
+     * 写入相对基线的增量
+     * 
+     * @param entities 场景内当前全部实体
+     * @param masks 与entities一一对应的字段掩码，0表示没有变化
+     * @param changedCount masks中非0的个数
+     * @param newEntities 基线之后新建的实体(全量时为全部实体)
+     * @param removedNetIds 基线之后删除的实体
+     */
+    static void write(ByteBuf out, BitWriter bits, List<SceneEntity> entities, int[] masks, int changedCount,
+                      List<SceneEntity> newEntities, int[] removedNetIds, int removedCount) {
+        BinaryMessageCodec.writeVarInt(out, newEntities.size());
+        for (int i = 0; i < newEntities.size(); i++) {
+            SceneEntity entity = newEntities.get(i);
+            BinaryMessageCodec.writeVarInt(out, entity.getNetId());
+            BinaryMessageCodec.writeString(out, entity.getEntityId());
+        }
+        
+        BinaryMessageCodec.writeVarInt(out, changedCount);
+        bits.reset(out);
+        for (int i = 0; i < entities.size(); i++) {
+            int mask = masks[i];
+            if (mask != 0) {
+                writeEntity(bits, entities.get(i), mask);
+            }
+        }
+        bits.flush();
+        
+        BinaryMessageCodec.writeVarInt(out, removedCount);
+        for (int i = 0; i < removedCount; i++) {
+            BinaryMessageCodec.writeVarInt(out, removedNetIds[i]);
+        }
+    }
+    
+    private static void writeEntity(BitWriter bits, SceneEntity entity, int mask) {
+        bits.writeVarBits(entity.getNetId(), NET_ID_CHUNK_BITS);
+        bits.writeBits(mask, SceneEntity.FIELD_COUNT);
+        if ((mask & (1 << SceneEntity.FIELD_X)) != 0) {
+            bits.writeBits(quantizePosition(entity.getX()), POSITION_BITS);
+        }
+        if ((mask & (1 << SceneEntity.FIELD_Y)) != 0) {
+            bits.writeBits(quantizePosition(entity.getY()), POSITION_BITS);
+        }
+        if ((mask & (1 << SceneEntity.FIELD_MOVE_X)) != 0) {
+            bits.writeBits(quantizeDirection(entity.getMoveX()), DIRECTION_BITS);
+        }
+        if ((mask & (1 << SceneEntity.FIELD_MOVE_Y)) != 0) {
+            bits.writeBits(quantizeDirection(entity.getMoveY()), DIRECTION_BITS);
+        }
+    }
+    
+    /**
+     * 读取一个实体的字段变化，返回netId，字段值写入 fields[FIELD_COUNT]
+     * 
+     * @return 字段掩码在高32位，netId在低32位
+     */
+    static long readEntity(BitReader bits, float[] fields) {
+        int netId = bits.readVarBits(NET_ID_CHUNK_BITS);
+        int mask = (int) bits.readBits(SceneEntity.FIELD_COUNT);
+        if ((mask & (1 << SceneEntity.FIELD_X)) != 0) {
+            fields[SceneEntity.FIELD_X] = dequantizePosition(bits.readBits(POSITION_BITS));
+        }
+        if ((mask & (1 << SceneEntity.FIELD_Y)) != 0) {
+            fields[SceneEntity.FIELD_Y] = dequantizePosition(bits.readBits(POSITION_BITS));
+        }
+        if ((mask & (1 << SceneEntity.FIELD_MOVE_X)) != 0) {
+            fields[SceneEntity.FIELD_MOVE_X] = dequantizeDirection(bits.readBits(DIRECTION_BITS));
+        }
+        if ((mask & (1 << SceneEntity.FIELD_MOVE_Y)) != 0) {
+            fields[SceneEntity.FIELD_MOVE_Y] = dequantizeDirection(bits.readBits(DIRECTION_BITS));
+        }
+        return ((long) mask << 32) | (netId & 0xFFFFFFFFL);
+    }
+    
+    static long quantizePosition(float value) {
+        long quantized = Math.round(value * POSITION_SCALE);
+        return quantized < 0 ? 0 : Math.min(quantized, POSITION_MAX);
+    }
+    
+    static float dequantizePosition(long quantized) {
+        return quantized / POSITION_SCALE;
+    }
+    
+    static long quantizeDirection(float value) {
+        return Math.round(value * DIRECTION_SCALE) + DIRECTION_SCALE;
+    }
+    
+    static float dequantizeDirection(long quantized) {
+        return (quantized - DIRECTION_SCALE) / (float) DIRECTION_SCALE;
+    }
+}
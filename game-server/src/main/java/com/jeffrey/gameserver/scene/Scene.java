@@ -0,0 +1,567 @@
+package com.jeffrey.gameserver.scene;
+
+import com.jeffrey.gameserver.metrics.TickMetrics;
+import com.jeffrey.gameserver.network.codec.MoveFrameDecoder;
+import com.jeffrey.gameserver.protocol.messages.SceneInputMessage;
+import com.jeffrey.gameserver.protocol.messages.StateSyncMessage;
+import com.jeffrey.gameserver.session.GameSession;
+import com.jeffrey.gameserver.util.BitWriter;
+import com.jeffrey.gameserver.util.MpscQueue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 场景
+ * 客户端请求不直接修改场景状态，而是作为意图入队；每个tick依次：
+ * <ol>
+ *     <li>取出本tick前到达的全部意图并应用，再应用各成员最新的移动输入</li>
+ *     <li>推进场景逻辑，提交各实体本tick变化的字段</li>
+ *     <li>给每个成员发送一条状态同步消息</li>
+ * </ol>
+ * 状态同步只包含相对成员已确认基线(STATE_ACK)变化过的字段。刚进入、从未确认或基线早于
+ * {@link #HISTORY_TICKS} 的成员收到全量快照。基线相同的成员共享同一份编码结果。
+ * <p>
+ * 每个场景固定在一个tick线程上，除入队方法外，所有方法和状态只在该线程中访问，不需要加锁。
+ * IO线程的请求、其他场景发来的消息和 {@link #execute(Runnable)} 提交的任务都经过同一个无锁MPSC队列，
+ * 按到达顺序在本场景线程执行。
+ * 
+ * @author jeffrey
+ */
+public class Scene implements Executor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(Scene.class);
+    
+    /** 默认场景尺寸 */
+    public static final float DEFAULT_SIZE = 1000f;
+    
+    /** 保留删除记录的tick数，基线更早时只能发送全量快照 */
+    public static final int HISTORY_TICKS = 64;
+    
+    /** 移动速度(单位/秒) */
+    private static final float MOVE_SPEED = 5f;
+    
+    private final int sceneId;
+    private final String name;
+    private final float width;
+    private final float height;
+    private final TickMetrics metrics;
+    
+    /** 待处理意图，任意线程写入，本场景的tick线程读取 */
+    private final MpscQueue<SceneIntent> intents = new MpscQueue<>();
+    
+    /** 成员数，供其他线程读取 */
+    private final AtomicInteger memberCount = new AtomicInteger();
+    
+    /** 所属tick线程 */
+    private volatile Thread owner;
+    
+    /** 单次tick耗时的指数移动平均(纳秒)，用于场景分配 */
+    private volatile long tickCostNanos;
+    
+    // 以下字段只在tick线程访问
+    
+    /** 成员 - playerId -> SceneMember */
+    private final Map<String, SceneMember> members = new LinkedHashMap<>();
+    
+    /** 最近 HISTORY_TICKS 内删除的实体，按tick递增 */
+    private final ArrayDeque<RemovedEntity> removedEntities = new ArrayDeque<>();
+    
+    /** 当前tick，应用意图时使用 */
+    private long currentTick;
+    
+    /** 最近一次有实体新增、删除或字段变化的tick */
+    private long lastChangeTick = -1;
+    
+    /** 下一个网络ID */
+    private int nextNetId = 1;
+    
+    /** 编码用的临时对象，tick间复用 */
+    private final List<SceneEntity> entityScratch = new ArrayList<>();
+    private final List<SceneEntity> newEntityScratch = new ArrayList<>();
+    private final Map<Long, ByteBuf> payloadsByBaseline = new HashMap<>();
+    private final BitWriter bitWriter = new BitWriter();
+    private int[] maskScratch = new int[16];
+    private int[] removedScratch = new int[16];
+    
+    public Scene(int sceneId, String name, TickMetrics metrics) {
+        this(sceneId, name, DEFAULT_SIZE, DEFAULT_SIZE, metrics);
+    }
+    
+    public Scene(int sceneId, String name, float width, float height, TickMetrics metrics) {
+        this.sceneId = sceneId;
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.metrics = metrics;
+    }
+    
+    /**
+     * 请求进入场景，下一个tick生效
+     */
+    public void join(GameSession session) {
+        intents.offer(SceneIntent.join(session));
+    }
+    
+    /**
+     * 请求离开场景，下一个tick生效
+     */
+    public void leave(GameSession session) {
+        intents.offer(SceneIntent.leave(session));
+    }
+    
+    /**
+     * 提交移动输入，下一个tick生效
+     */
+    public void input(GameSession session, SceneInputMessage input) {
+        intents.offer(SceneIntent.input(session, input));
+    }
+    
+    /**
+     * 确认已应用到tick的状态同步，下一个tick起按该基线发送增量
+     */
+    public void ack(GameSession session, long tick) {
+        intents.offer(SceneIntent.ack(session, tick));
+    }
+    
+    /**
+     * 请求把玩家转移到目标场景。本场景在下一个tick移除成员，再把实体(位置和移动方向)
+     * 投递到目标场景的队列，保证先离开后进入。玩家不在本场景时直接进入目标场景。
+     */
+    public void transfer(GameSession session, Scene target) {
+        intents.offer(SceneIntent.transferOut(session, target));
+    }
+    
+    /**
+     * 给其他场景发送消息，目标场景在自己的tick线程中通过 {@link #onSceneMessage(int, Object)} 处理
+     */
+    public void send(Scene target, Object message) {
+        target.intents.offer(SceneIntent.sceneMessage(sceneId, message));
+    }
+    
+    /**
+     * 在本场景的tick线程执行任务，下一个tick按到达顺序和其他意图一起执行
+     */
+    @Override
+    public void execute(Runnable task) {
+        intents.offer(SceneIntent.task(task));
+    }
+    
+    /**
+     * 处理其他场景发来的消息，在本场景的tick线程调用，默认忽略
+     */
+    protected void onSceneMessage(int fromSceneId, Object message) {
+        logger.debug("Scene {} ignored message from scene {}: {}", sceneId, fromSceneId, message);
+    }
+    
+    /**
+     * 执行一个tick，由 TickScheduler 在场景所属的tick线程中调用
+     * 
+     * @param tick tick序号，必须递增
+     * @param deltaSeconds 固定步长(秒)
+     */
+    public void tick(long tick, float deltaSeconds) {
+        currentTick = tick;
+        int intentCount = drainIntents();
+        applyMoves();
+        update(deltaSeconds);
+        commit(tick);
+        int syncCount = syncState(tick);
+        metrics.recordSceneTick(intentCount, syncCount);
+    }
+    
+    /**
+     * 应用本tick前到达的意图，之后到达的留到下一个tick
+     */
+    private int drainIntents() {
+        int count = 0;
+        int limit = intents.size();
+        SceneIntent intent;
+        while (count < limit && (intent = intents.poll()) != null) {
+            count++;
+            try {
+                applyIntent(intent);
+            } catch (Exception e) {
+                logger.error("Failed to apply scene intent: scene={}, kind={}, session={}", 
+                        sceneId, intent.kind, intent.session != null ? intent.session.getSessionId() : null, e);
+            }
+        }
+        return count;
+    }
+    
+    private void applyIntent(SceneIntent intent) {
+        if (intent.kind == SceneIntent.Kind.TASK) {
+            ((Runnable) intent.payload).run();
+            return;
+        }
+        if (intent.kind == SceneIntent.Kind.SCENE_MESSAGE) {
+            onSceneMessage(intent.fromSceneId, intent.payload);
+            return;
+        }
+        
+        String playerId = intent.session.getPlayerId();
+        if (playerId == null) {
+            return;
+        }
+        switch (intent.kind) {
+            case JOIN: {
+                SceneMember existing = members.get(playerId);
+                if (existing == null) {
+                    addMember(intent.session, width / 2, height / 2, 0f, 0f);
+                } else if (existing.session != intent.session) {
+                    // 重新登录，保留实体状态，换成新会话，新会话从全量快照开始
+                    members.put(playerId, new SceneMember(intent.session, existing.entity));
+                }
+                break;
+            }
+            case LEAVE: {
+                SceneMember member = members.get(playerId);
+                if (member != null && member.session == intent.session) {
+                    members.remove(playerId);
+                    onMemberRemoved(member);
+                }
+                break;
+            }
+            case INPUT: {
+                SceneMember member = members.get(playerId);
+                if (member != null && member.session == intent.session) {
+                    member.entity.setMove(intent.input.getMoveX(), intent.input.getMoveY());
+                    if (intent.input.getInputSeq() > member.lastInputSeq) {
+                        member.lastInputSeq = intent.input.getInputSeq();
+                    }
+                }
+                break;
+            }
+            case TRANSFER_OUT: {
+                SceneMember member = members.get(playerId);
+                if (member != null && member.session == intent.session) {
+                    members.remove(playerId);
+                    onMemberRemoved(member);
+                    intent.target.intents.offer(SceneIntent.transferIn(intent.session, member.entity));
+                } else {
+                    intent.target.join(intent.session);
+                }
+                break;
+            }
+            case TRANSFER_IN: {
+                // 转移途中玩家又去了别的场景，以最新的场景为准
+                if (intent.session.getSceneId() != sceneId || members.containsKey(playerId)) {
+                    break;
+                }
+                SceneEntity from = intent.entity;
+                addMember(intent.session, Math.min(from.getX(), width), Math.min(from.getY(), height), 
+                        from.getMoveX(), from.getMoveY());
+                break;
+            }
+            case ACK: {
+                SceneMember member = members.get(playerId);
+                // 只接受发送过的tick，且基线只能前进
+                if (member != null && member.session == intent.session 
+                        && intent.ackTick > member.ackedTick && intent.ackTick <= member.lastSentTick) {
+                    member.ackedTick = intent.ackTick;
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * 应用各成员会话上的最新移动输入。输入不经过意图队列，两个tick之间到达的多次移动只有最后一次生效
+     */
+    private void applyMoves() {
+        for (SceneMember member : members.values()) {
+            long move = member.session.getMoveInput();
+            int inputSeq = MoveFrameDecoder.inputSeq(move);
+            if (inputSeq > member.lastInputSeq) {
+                member.entity.setMove(MoveFrameDecoder.moveX(move), MoveFrameDecoder.moveY(move));
+                member.lastInputSeq = inputSeq;
+            }
+        }
+    }
+    
+    private void addMember(GameSession session, float x, float y, float moveX, float moveY) {
+        SceneEntity entity = new SceneEntity(nextNetId++, session.getPlayerId(), x, y, currentTick);
+        entity.setMove(moveX, moveY);
+        members.put(session.getPlayerId(), new SceneMember(session, entity));
+        memberCount.set(members.size());
+        lastChangeTick = currentTick;
+        logger.debug("Player {} joined scene {}", session.getPlayerId(), sceneId);
+    }
+    
+    private void onMemberRemoved(SceneMember member) {
+        removedEntities.addLast(new RemovedEntity(member.entity.getNetId(), currentTick));
+        memberCount.set(members.size());
+        lastChangeTick = currentTick;
+        logger.debug("Player {} left scene {}", member.entity.getEntityId(), sceneId);
+    }
+    
+    /**
+     * 推进场景逻辑，移除已断开的成员
+     */
+    protected void update(float deltaSeconds) {
+        float distance = MOVE_SPEED * deltaSeconds;
+        Iterator<SceneMember> iterator = members.values().iterator();
+        while (iterator.hasNext()) {
+            SceneMember member = iterator.next();
+            if (!isConnected(member.session)) {
+                iterator.remove();
+                onMemberRemoved(member);
+                continue;
+            }
+            member.entity.move(distance, width, height);
+        }
+    }
+    
+    private static boolean isConnected(GameSession session) {
+        Channel channel = session.getChannel();
+        return channel != null && channel.isActive() && session.getState() != GameSession.SessionState.CLOSED;
+    }
+    
+    /**
+     * 提交本tick的字段变化，清理过期的删除记录
+     */
+    private void commit(long tick) {
+        for (SceneMember member : members.values()) {
+            if (member.entity.commit(tick)) {
+                lastChangeTick = tick;
+            }
+        }
+        while (!removedEntities.isEmpty() && tick - removedEntities.peekFirst().tick > HISTORY_TICKS) {
+            removedEntities.pollFirst();
+        }
+    }
+    
+    /**
+     * 给每个成员发送本tick的状态。自上次发送以来场景没有变化且成员没有新确认的输入时不发送。
+     * 
+     * @return 发送的消息数
+     */
+    private int syncState(long tick) {
+        entityScratch.clear();
+        for (SceneMember member : members.values()) {
+            entityScratch.add(member.entity);
+        }
+        
+        int sent = 0;
+        try {
+            for (SceneMember member : members.values()) {
+                boolean full = member.ackedTick < 0 || tick - member.ackedTick > HISTORY_TICKS;
+                boolean changed = full ? member.lastSentTick < 0 || lastChangeTick > member.lastSentTick 
+                        : lastChangeTick > member.lastSentTick;
+                if (!changed && member.lastInputSeq == member.syncedInputSeq) {
+                    continue;
+                }
+                
+                long baseline = full ? StateSyncMessage.FULL_SNAPSHOT : member.ackedTick;
+                ByteBuf payload;
+                if (!full && lastChangeTick <= baseline) {
+                    // 基线之后没有任何变化，只回带输入序号
+                    payload = Unpooled.EMPTY_BUFFER;
+                } else {
+                    payload = payloadsByBaseline.get(baseline);
+                    if (payload == null) {
+                        payload = encodePayload(member.session.getChannel().alloc(), baseline);
+                        payloadsByBaseline.put(baseline, payload);
+                    }
+                    payload = payload.retainedDuplicate();
+                }
+                
+                StateSyncMessage sync = new StateSyncMessage();
+                sync.setSceneId(sceneId);
+                sync.setTick(tick);
+                sync.setBaselineTick(baseline);
+                sync.setLastInputSeq(member.lastInputSeq);
+                sync.setPayload(payload);
+                metrics.recordSync(payload.readableBytes(), full);
+                member.session.sendMessage(sync);
+                
+                member.lastSentTick = tick;
+                member.syncedInputSeq = member.lastInputSeq;
+                sent++;
+            }
+        } finally {
+            for (ByteBuf payload : payloadsByBaseline.values()) {
+                payload.release();
+            }
+            payloadsByBaseline.clear();
+        }
+        return sent;
+    }
+    
+    /**
+     * 编码相对基线的增量，全量快照时基线为 FULL_SNAPSHOT
+     */
+    private ByteBuf encodePayload(ByteBufAllocator alloc, long baseline) {
+        boolean full = baseline == StateSyncMessage.FULL_SNAPSHOT;
+        int size = entityScratch.size();
+        if (maskScratch.length < size) {
+            maskScratch = new int[Math.max(size, maskScratch.length * 2)];
+        }
+        
+        newEntityScratch.clear();
+        int changedCount = 0;
+        for (int i = 0; i < size; i++) {
+            SceneEntity entity = entityScratch.get(i);
+            int mask = full ? SceneEntity.ALL_FIELDS : entity.changedSince(baseline);
+            maskScratch[i] = mask;
+            if (mask != 0) {
+                changedCount++;
+            }
+            if (full || entity.getCreatedTick() > baseline) {
+                newEntityScratch.add(entity);
+            }
+        }
+        
+        int removedCount = 0;
+        if (!full) {
+            if (removedScratch.length < removedEntities.size()) {
+                removedScratch = new int[Math.max(removedEntities.size(), removedScratch.length * 2)];
+            }
+            for (RemovedEntity removed : removedEntities) {
+                if (removed.tick > baseline) {
+                    removedScratch[removedCount++] = removed.netId;
+                }
+            }
+        }
+        
+        ByteBuf out = alloc.buffer(16 + size * 8);
+        try {
+            EntityDeltaCodec.write(out, bitWriter, entityScratch, maskScratch, changedCount, 
+                    newEntityScratch, removedScratch, removedCount);
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+    
+    // Getter方法
+    public int getSceneId() {
+        return sceneId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public float getWidth() {
+        return width;
+    }
+    
+    public float getHeight() {
+        return height;
+    }
+    
+    /**
+     * 成员数，可在任意线程调用
+     */
+    public int getMemberCount() {
+        return memberCount.get();
+    }
+    
+    /**
+     * 待处理的意图数，可在任意线程调用
+     */
+    public int getPendingIntentCount() {
+        return intents.size();
+    }
+    
+    /**
+     * 当前线程是否为本场景所属的tick线程
+     */
+    public boolean isInSceneThread() {
+        return Thread.currentThread() == owner;
+    }
+    
+    /**
+     * 最近tick耗时的移动平均(纳秒)，可在任意线程调用
+     */
+    public long getTickCostNanos() {
+        return tickCostNanos;
+    }
+    
+    /**
+     * 绑定所属tick线程，由 TickScheduler 调用
+     */
+    void bindTo(Thread thread) {
+        this.owner = thread;
+    }
+    
+    /**
+     * 记录一次tick耗时，由所属tick线程调用
+     */
+    void recordTickCost(long nanos) {
+        long cost = tickCostNanos;
+        tickCostNanos = cost == 0 ? nanos : cost + (nanos - cost) / 8;
+    }
+    
+    /**
+     * 获取成员实体，只能在tick线程或测试中调用
+     */
+    SceneEntity getEntity(String playerId) {
+        SceneMember member = members.get(playerId);
+        return member != null ? member.entity : null;
+    }
+    
+    @Override
+    public String toString() {
+        return "Scene{" +
+                "sceneId=" + sceneId +
+                ", name='" + name + '\'' +
+                ", members=" + memberCount.get() +
+                '}';
+    }
+    
+    /**
+     * 场景成员
+     */
+    private static class SceneMember {
+        final GameSession session;
+        final SceneEntity entity;
+        
+        /** 已应用的最大输入序号 */
+        int lastInputSeq;
+        
+        /** 上次同步给客户端的输入序号 */
+        int syncedInputSeq = -1;
+        
+        /** 客户端已确认的tick，-1表示没有可用基线 */
+        long ackedTick = -1;
+        
+        /** 上次发送同步的tick */
+        long lastSentTick = -1;
+        
+        SceneMember(GameSession session, SceneEntity entity) {
+            this.session = session;
+            this.entity = entity;
+        }
+    }
+    
+    /**
+     * 删除记录
+     */
+    private static class RemovedEntity {
+        final int netId;
+        final long tick;
+        
+        RemovedEntity(int netId, long tick) {
+            this.netId = netId;
+            this.tick = tick;
+        }
+    }
+}
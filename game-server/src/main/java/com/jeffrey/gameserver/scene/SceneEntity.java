@@ -0,0 +1,193 @@
+package com.jeffrey.gameserver.scene;
+
+/**
+ * 场景实体
+ * 每个字段对应掩码中的一位。本tick内修改的字段记入dirtyMask，tick结束时 {@link #commit(long)}
+ * 把它们的最后修改tick更新为当前tick，据此可以算出相对任意基线tick变化过的字段。
+ * 只在所属场景的tick线程中读写。
+ * 
+ * @author jeffrey
+ */
+public class SceneEntity {
+    
+    /** 字段位 */
+    public static final int FIELD_X = 0;
+    public static final int FIELD_Y = 1;
+    public static final int FIELD_MOVE_X = 2;
+    public static final int FIELD_MOVE_Y = 3;
+    
+    /** 字段数，即掩码位数 */
+    public static final int FIELD_COUNT = 4;
+    
+    /** 全部字段 */
+    public static final int ALL_FIELDS = (1 << FIELD_COUNT) - 1;
+    
+    /** 网络ID，场景内唯一且不复用，同步时代替字符串ID */
+    private final int netId;
+    
+    /** 实体ID */
+    private final String entityId;
+    
+    /** 创建时的tick */
+    private final long createdTick;
+    
+    private float x;
+    private float y;
+    
+    /** 移动方向，取值 -1~1 */
+    private float moveX;
+    private float moveY;
+    
+    /** 本tick修改过的字段 */
+    private int dirtyMask;
+    
+    /** 各字段最后修改的tick */
+    private final long[] fieldChangedTicks = new long[FIELD_COUNT];
+    
+    public SceneEntity(int netId, String entityId, float x, float y, long createdTick) {
+        this.netId = netId;
+        this.entityId = entityId;
+        this.x = x;
+        this.y = y;
+        this.createdTick = createdTick;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            fieldChangedTicks[i] = createdTick;
+        }
+    }
+    
+    /**
+     * 按当前移动方向前进
+     * 
+     * @return 位置是否变化
+     */
+    boolean move(float distance, float width, float height) {
+        if (moveX == 0 && moveY == 0) {
+            return false;
+        }
+        float newX = clamp(x + moveX * distance, width);
+        float newY = clamp(y + moveY * distance, height);
+        boolean moved = false;
+        if (newX != x) {
+            x = newX;
+            dirtyMask |= 1 << FIELD_X;
+            moved = true;
+        }
+        if (newY != y) {
+            y = newY;
+            dirtyMask |= 1 << FIELD_Y;
+            moved = true;
+        }
+        return moved;
+    }
+    
+    private static float clamp(float value, float max) {
+        return value < 0 ? 0 : (value > max ? max : value);
+    }
+    
+    /**
+     * 设置移动方向，超出范围的分量截断到 -1~1
+     */
+    void setMove(float moveX, float moveY) {
+        if (Float.isNaN(moveX) || Float.isNaN(moveY)) {
+            moveX = 0;
+            moveY = 0;
+        }
+        moveX = Math.max(-1f, Math.min(1f, moveX));
+        moveY = Math.max(-1f, Math.min(1f, moveY));
+        if (moveX != this.moveX) {
+            this.moveX = moveX;
+            dirtyMask |= 1 << FIELD_MOVE_X;
+        }
+        if (moveY != this.moveY) {
+            this.moveY = moveY;
+            dirtyMask |= 1 << FIELD_MOVE_Y;
+        }
+    }
+    
+    /**
+     * 把本tick修改过的字段记为在tick时变化，并清空dirtyMask
+     * 
+     * @return 本tick是否有字段变化
+     */
+    boolean commit(long tick) {
+        int mask = dirtyMask;
+        if (mask == 0) {
+            return false;
+        }
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if ((mask & (1 << field)) != 0) {
+                fieldChangedTicks[field] = tick;
+            }
+        }
+        dirtyMask = 0;
+        return true;
+    }
+    
+    /**
+     * 相对基线tick变化过的字段掩码，基线之后才创建的实体返回全部字段
+     */
+    int changedSince(long baselineTick) {
+        if (createdTick > baselineTick) {
+            return ALL_FIELDS;
+        }
+        int mask = 0;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if (fieldChangedTicks[field] > baselineTick) {
+                mask |= 1 << field;
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * 强制所有字段在下次commit时视为变化
+     */
+    void markAllDirty() {
+        dirtyMask = ALL_FIELDS;
+    }
+    
+    // Getter方法
+    public int getNetId() {
+        return netId;
+    }
+    
+    public String getEntityId() {
+        return entityId;
+    }
+    
+    public long getCreatedTick() {
+        return createdTick;
+    }
+    
+    public float getX() {
+        return x;
+    }
+    
+    public float getY() {
+        return y;
+    }
+    
+    public float getMoveX() {
+        return moveX;
+    }
+    
+    public float getMoveY() {
+        return moveY;
+    }
+    
+    public int getDirtyMask() {
+        return dirtyMask;
+    }
+    
+    @Override
+    public String toString() {
+        return "SceneEntity{" +
+                "netId=" + netId +
+                ", entityId='" + entityId + '\'' +
+                ", x=" + x +
+                ", y=" + y +
+                ", moveX=" + moveX +
+                ", moveY=" + moveY +
+                '}';
+    }
+}
@@ -0,0 +1,94 @@
+package com.jeffrey.gameserver.scene;
+
+import com.jeffrey.gameserver.protocol.messages.SceneInputMessage;
+import com.jeffrey.gameserver.session.GameSession;
+
+/**
+ * 场景意图
+ * IO线程、其他场景的tick线程把请求包装成意图放入场景的MPSC队列，由场景所属的tick线程在下一个tick统一处理
+ * 
+ * @author jeffrey
+ */
+class SceneIntent {
+    
+    final Kind kind;
+    final GameSession session;
+    final SceneInputMessage input;
+    final long ackTick;
+    
+    /** TRANSFER_OUT的目标场景 */
+    final Scene target;
+    
+    /** TRANSFER_IN带过来的实体 */
+    final SceneEntity entity;
+    
+    /** SCENE_MESSAGE的来源场景和内容，TASK的任务 */
+    final int fromSceneId;
+    final Object payload;
+    
+    private SceneIntent(Kind kind, GameSession session, SceneInputMessage input, long ackTick, 
+                        Scene target, SceneEntity entity, int fromSceneId, Object payload) {
+        this.kind = kind;
+        this.session = session;
+        this.input = input;
+        this.ackTick = ackTick;
+        this.target = target;
+        this.entity = entity;
+        this.fromSceneId = fromSceneId;
+        this.payload = payload;
+    }
+    
+    static SceneIntent join(GameSession session) {
+        return new SceneIntent(Kind.JOIN, session, null, 0, null, null, 0, null);
+    }
+    
+    static SceneIntent leave(GameSession session) {
+        return new SceneIntent(Kind.LEAVE, session, null, 0, null, null, 0, null);
+    }
+    
+    static SceneIntent input(GameSession session, SceneInputMessage input) {
+        return new SceneIntent(Kind.INPUT, session, input, 0, null, null, 0, null);
+    }
+    
+    static SceneIntent ack(GameSession session, long tick) {
+        return new SceneIntent(Kind.ACK, session, null, tick, null, null, 0, null);
+    }
+    
+    static SceneIntent transferOut(GameSession session, Scene target) {
+        return new SceneIntent(Kind.TRANSFER_OUT, session, null, 0, target, null, 0, null);
+    }
+    
+    static SceneIntent transferIn(GameSession session, SceneEntity entity) {
+        return new SceneIntent(Kind.TRANSFER_IN, session, null, 0, null, entity, 0, null);
+    }
+    
+    static SceneIntent sceneMessage(int fromSceneId, Object message) {
+        return new SceneIntent(Kind.SCENE_MESSAGE, null, null, 0, null, null, fromSceneId, message);
+    }
+    
+    static SceneIntent task(Runnable task) {
+        return new SceneIntent(Kind.TASK, null, null, 0, null, null, 0, task);
+    }
+    
+    /**
+     * 意图类型
+     */
+    enum Kind {
+        /** 进入场景 */
+        JOIN,
+        /** 离开场景 */
+        LEAVE,
+        /** 移动输入 */
+        INPUT,
+        /** 确认状态同步 */
+        ACK,
+        /** 离开本场景并带着实体进入目标场景 */
+        TRANSFER_OUT,
+        /** 从其他场景转入 */
+        TRANSFER_IN,
+        /** 其他场景发来的消息 */
+        SCENE_MESSAGE,
+        /** 在场景线程执行的任务 */
+        TASK
+    }
+}
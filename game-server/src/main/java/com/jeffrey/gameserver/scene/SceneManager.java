@@ -0,0 +1,140 @@
+package com.jeffrey.gameserver.scene;
+
+import com.jeffrey.gameserver.protocol.messages.SceneInputMessage;
+import com.jeffrey.gameserver.protocol.messages.StateAckMessage;
+import com.jeffrey.gameserver.session.GameSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 场景管理器
+ * 管理所有场景实例，把会话的进入、离开和输入请求转发到对应场景的意图队列。
+ * 会话只记录所在场景ID，场景状态由场景所属的tick线程修改，这里不需要加锁。
+ * 
+ * @author jeffrey
+ */
+public class SceneManager {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SceneManager.class);
+    
+    private final TickScheduler scheduler;
+    
+    /** 场景存储 - sceneId -> Scene */
+    private final ConcurrentHashMap<Integer, Scene> scenes = new ConcurrentHashMap<>();
+    
+    public SceneManager(TickScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+    
+    /**
+     * 创建场景并交给tick调度器
+     */
+    public Scene createScene(int sceneId, String name) {
+        Scene scene = new Scene(sceneId, name, scheduler.getMetrics());
+        if (scenes.putIfAbsent(sceneId, scene) != null) {
+            throw new IllegalArgumentException("Scene already exists: " + sceneId);
+        }
+        scheduler.addScene(scene);
+        logger.info("Scene created: id={}, name={}", sceneId, name);
+        return scene;
+    }
+    
+    /**
+     * 移除场景，场景内的成员不再收到同步
+     */
+    public Scene removeScene(int sceneId) {
+        Scene scene = scenes.remove(sceneId);
+        if (scene != null) {
+            scheduler.removeScene(scene);
+            logger.info("Scene removed: id={}", sceneId);
+        }
+        return scene;
+    }
+    
+    /**
+     * 进入场景。已在其他场景时由原场景移除成员后把实体转交给目标场景，保留位置和移动方向
+     * 
+     * @return 场景不存在时返回false
+     */
+    public boolean join(GameSession session, int sceneId) {
+        Scene scene = scenes.get(sceneId);
+        if (scene == null) {
+            return false;
+        }
+        Scene current = scenes.get(session.getSceneId());
+        session.setSceneId(sceneId);
+        if (current != null && current != scene) {
+            current.transfer(session, scene);
+        } else {
+            scene.join(session);
+        }
+        return true;
+    }
+    
+    /**
+     * 在场景所属的tick线程执行任务
+     * 
+     * @return 场景不存在时返回false
+     */
+    public boolean execute(int sceneId, Runnable task) {
+        Scene scene = scenes.get(sceneId);
+        if (scene == null) {
+            return false;
+        }
+        scene.execute(task);
+        return true;
+    }
+    
+    /**
+     * 离开当前场景
+     */
+    public void leave(GameSession session) {
+        Scene scene = scenes.get(session.getSceneId());
+        session.setSceneId(0);
+        if (scene != null) {
+            scene.leave(session);
+        }
+    }
+    
+    /**
+     * 把输入转发到会话所在场景
+     * 
+     * @return 会话不在任何场景中时返回false
+     */
+    public boolean input(GameSession session, SceneInputMessage input) {
+        Scene scene = scenes.get(session.getSceneId());
+        if (scene == null) {
+            return false;
+        }
+        scene.input(session, input);
+        return true;
+    }
+    
+    /**
+     * 把状态确认转发到会话所在场景，其他场景的确认直接忽略
+     */
+    public void ack(GameSession session, StateAckMessage ack) {
+        if (ack.getSceneId() != session.getSceneId()) {
+            return;
+        }
+        Scene scene = scenes.get(ack.getSceneId());
+        if (scene != null) {
+            scene.ack(session, ack.getTick());
+        }
+    }
+    
+    public Scene getScene(int sceneId) {
+        return scenes.get(sceneId);
+    }
+    
+    public Collection<Scene> getScenes() {
+        return scenes.values();
+    }
+    
+    public TickScheduler getScheduler() {
+        return scheduler;
+    }
+}
@@ -0,0 +1,302 @@
+package com.jeffrey.gameserver.scene;
+
+import com.jeffrey.gameserver.metrics.TickMetrics;
+import com.jeffrey.gameserver.metrics.TickMetricsMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 固定频率tick调度器
+ * 使用专用线程驱动场景，不占用Netty的IO线程。每个场景固定在一个tick线程上，场景状态只由该线程访问；
+ * 新场景分配给负载最低的线程，负载为线程上各场景最近tick耗时的移动平均之和(每个场景至少按
+ * {@link #MIN_SCENE_COST_NANOS} 计)，负载相同时选场景数少的。
+ * <p>
+ * 每个tick按固定步长推进，下一次tick的时间点按周期累加而不是按上次结束时间计算，避免漂移；
+ * 单个tick耗时超过周期记为一次超时，落后超过一个周期时跳过错过的tick而不是连续补跑，
+ * 此时游戏时间会比墙钟时间慢。
+ * 
+ * @author jeffrey
+ */
+public class TickScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TickScheduler.class);
+    
+    /** 场景负载下限，还没有运行过或空闲的场景按此计算，避免全部挤到同一个线程 */
+    static final long MIN_SCENE_COST_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    
+    private final String name;
+    private final int tickRate;
+    private final long periodNanos;
+    private final TickMetrics metrics;
+    private final TickThread[] threads;
+    
+    private volatile boolean running;
+    
+    /**
+     * @param name 线程名前缀
+     * @param threadCount tick线程数
+     * @param tickRate 每秒tick数
+     */
+    public TickScheduler(String name, int threadCount, int tickRate, TickMetrics metrics) {
+        if (threadCount <= 0 || tickRate <= 0) {
+            throw new IllegalArgumentException("threadCount and tickRate must be positive");
+        }
+        this.name = name;
+        this.tickRate = tickRate;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / tickRate;
+        this.metrics = metrics;
+        this.threads = new TickThread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new TickThread(name + "-" + i);
+        }
+    }
+    
+    /**
+     * 启动所有tick线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (TickThread thread : threads) {
+            thread.start();
+        }
+        logger.info("Tick scheduler {} started: threads={}, tickRate={}", name, threads.length, tickRate);
+    }
+    
+    /**
+     * 停止所有tick线程，等待当前tick执行完
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (TickThread thread : threads) {
+            LockSupport.unpark(thread);
+        }
+        for (TickThread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        logger.info("Tick scheduler {} stopped", name);
+    }
+    
+    /**
+     * 添加场景，分配给负载最低的tick线程
+     */
+    public synchronized void addScene(Scene scene) {
+        TickThread target = threads[0];
+        long targetLoad = target.load();
+        for (int i = 1; i < threads.length; i++) {
+            TickThread thread = threads[i];
+            long load = thread.load();
+            if (load < targetLoad || (load == targetLoad && thread.scenes.size() < target.scenes.size())) {
+                target = thread;
+                targetLoad = load;
+            }
+        }
+        scene.bindTo(target);
+        target.scenes.add(scene);
+        logger.debug("Scene {} assigned to {}, load={}ns", scene.getSceneId(), target.getName(), targetLoad);
+    }
+    
+    /**
+     * 移除场景，当前tick执行完后不再调度
+     */
+    public synchronized boolean removeScene(Scene scene) {
+        for (TickThread thread : threads) {
+            if (thread.scenes.remove(scene)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 场景所在的tick线程名，场景不属于本调度器时返回null
+     */
+    public String getThreadName(Scene scene) {
+        for (TickThread thread : threads) {
+            if (thread.scenes.contains(scene)) {
+                return thread.getName();
+            }
+        }
+        return null;
+    }
+    
+    public int getSceneCount() {
+        int count = 0;
+        for (TickThread thread : threads) {
+            count += thread.scenes.size();
+        }
+        return count;
+    }
+    
+    public int getTickRate() {
+        return tickRate;
+    }
+    
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+    
+    public int getThreadCount() {
+        return threads.length;
+    }
+    
+    public TickMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * JMX视图
+     */
+    public TickMetricsMXBean getMXBean() {
+        return new TickSchedulerMetrics();
+    }
+    
+    /**
+     * tick线程
+     */
+    private class TickThread extends Thread {
+        
+        private final List<Scene> scenes = new CopyOnWriteArrayList<>();
+        
+        TickThread(String threadName) {
+            super(threadName);
+            setDaemon(true);
+        }
+        
+        /**
+         * 线程负载(纳秒/tick)
+         */
+        long load() {
+            long load = 0;
+            for (Scene scene : scenes) {
+                load += Math.max(scene.getTickCostNanos(), MIN_SCENE_COST_NANOS);
+            }
+            return load;
+        }
+        
+        @Override
+        public void run() {
+            float deltaSeconds = 1f / tickRate;
+            long tick = 0;
+            long nextTick = System.nanoTime();
+            
+            while (running) {
+                long start = System.nanoTime();
+                long sceneStart = start;
+                for (Scene scene : scenes) {
+                    try {
+                        scene.tick(tick, deltaSeconds);
+                    } catch (Throwable t) {
+                        logger.error("Scene {} tick {} failed", scene.getSceneId(), tick, t);
+                    }
+                    long sceneEnd = System.nanoTime();
+                    scene.recordTickCost(sceneEnd - sceneStart);
+                    sceneStart = sceneEnd;
+                }
+                long end = System.nanoTime();
+                metrics.recordTick(end - start, periodNanos);
+                tick++;
+                
+                nextTick += periodNanos;
+                long behind = end - nextTick;
+                if (behind > periodNanos) {
+                    // 落后超过一个周期，跳过错过的tick，从下一个周期边界继续
+                    long skipped = behind / periodNanos;
+                    metrics.recordSkipped(skipped);
+                    nextTick += skipped * periodNanos;
+                }
+                
+                long wait;
+                while (running && (wait = nextTick - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(this, wait);
+                }
+            }
+        }
+    }
+    
+    /**
+     * tick指标的JMX视图
+     */
+    private class TickSchedulerMetrics implements TickMetricsMXBean {
+        
+        @Override
+        public int getTickRate() {
+            return tickRate;
+        }
+        
+        @Override
+        public int getSceneCount() {
+            return TickScheduler.this.getSceneCount();
+        }
+        
+        @Override
+        public long getTicks() {
+            return metrics.getTicks();
+        }
+        
+        @Override
+        public long getOverruns() {
+            return metrics.getOverruns();
+        }
+        
+        @Override
+        public long getSkippedTicks() {
+            return metrics.getSkippedTicks();
+        }
+        
+        @Override
+        public long getIntents() {
+            return metrics.getIntents();
+        }
+        
+        @Override
+        public long getSyncMessages() {
+            return metrics.getSyncMessages();
+        }
+        
+        @Override
+        public long getSyncBytes() {
+            return metrics.getSyncBytes();
+        }
+        
+        @Override
+        public long getFullSnapshots() {
+            return metrics.getFullSnapshots();
+        }
+        
+        @Override
+        public double getTickDurationMeanNanos() {
+            return metrics.getTickDuration().getMean();
+        }
+        
+        @Override
+        public long getTickDurationP50Nanos() {
+            return metrics.getTickDuration().getPercentile(50);
+        }
+        
+        @Override
+        public long getTickDurationP99Nanos() {
+            return metrics.getTickDuration().getPercentile(99);
+        }
+        
+        @Override
+        public long getTickDurationMaxNanos() {
+            return metrics.getTickDuration().getMax();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.jeffrey.gameserver.session;
+
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 会话的合并发送队列
+ * 连接可写且没有积压时消息直接写出；连接不可写(客户端读得慢，发送缓冲超过高水位)后消息先放入本队列，
+ * 连接恢复可写时按顺序写出，直到再次不可写。
+ * <p>
+ * 状态类消息({@link Message#getConflationKey()} 不为null)按(消息类型, 键)合并：队列中已有同键的消息时
+ * 在原位置替换并释放旧消息，客户端只会收到最新的值；事件类消息(聊天、错误等)和已编码的帧保持先进先出。
+ * 所有方法在队列锁内执行，tick线程、IO线程和广播线程可以并发调用。
+ *
+ * @author jeffrey
+ */
+public class ConflatingOutboundQueue {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ConflatingOutboundQueue.class);
+    
+    private final Channel channel;
+    
+    /** 等待写出的条目，按到达顺序排列 */
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    
+    /** 队列中状态类消息的索引，按消息类型和合并键查找 */
+    private final Map<MessageType, Map<Object, Entry>> pendingByKey = new EnumMap<>(MessageType.class);
+    
+    /** 被同键新消息替换、没有写出的消息数 */
+    private long conflatedCount;
+    
+    public ConflatingOutboundQueue(Channel channel) {
+        this.channel = channel;
+    }
+    
+    /**
+     * 发送消息，引用计数的消息所有权转移给队列
+     */
+    public synchronized void offer(Message message) {
+        if (!channel.isActive()) {
+            ReferenceCountUtil.release(message);
+            return;
+        }
+        if (entries.isEmpty() && channel.isWritable()) {
+            write(message);
+            channel.flush();
+            return;
+        }
+        
+        Object key = message.getConflationKey();
+        if (key != null) {
+            Map<Object, Entry> pending = pendingByKey.get(message.getType());
+            Entry entry = pending != null ? pending.get(key) : null;
+            if (entry != null) {
+                // 旧值还没写出，原位替换，保持它在队列中的位置
+                ReferenceCountUtil.release(entry.payload);
+                entry.payload = message;
+                conflatedCount++;
+                return;
+            }
+        }
+        enqueue(new Entry(message, message.getType(), key));
+    }
+    
+    /**
+     * 发送已编码的帧，按事件处理，不参与合并
+     */
+    public synchronized void offerFrame(ByteBuf frame) {
+        if (!channel.isActive()) {
+            frame.release();
+            return;
+        }
+        if (entries.isEmpty() && channel.isWritable()) {
+            channel.writeAndFlush(frame, channel.voidPromise());
+            return;
+        }
+        enqueue(new Entry(frame, null, null));
+    }
+    
+    /**
+     * 连接可写时按顺序写出积压的消息，直到队列为空或连接再次不可写；连接已断开时释放全部积压
+     */
+    public synchronized void drain() {
+        if (!channel.isActive()) {
+            clear();
+            return;
+        }
+        boolean written = false;
+        while (channel.isWritable()) {
+            Entry entry = poll();
+            if (entry == null) {
+                break;
+            }
+            write(entry.payload);
+            written = true;
+        }
+        if (written) {
+            channel.flush();
+        }
+    }
+    
+    /**
+     * 积压的条目数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public synchronized long getConflatedCount() {
+        return conflatedCount;
+    }
+    
+    private void enqueue(Entry entry) {
+        entries.addLast(entry);
+        if (entry.key != null) {
+            pendingByKey.computeIfAbsent(entry.type, type -> new HashMap<>()).put(entry.key, entry);
+        }
+    }
+    
+    private Entry poll() {
+        Entry entry = entries.pollFirst();
+        if (entry != null && entry.key != null) {
+            pendingByKey.get(entry.type).remove(entry.key);
+        }
+        return entry;
+    }
+    
+    private void clear() {
+        Entry entry;
+        while ((entry = poll()) != null) {
+            ReferenceCountUtil.release(entry.payload);
+        }
+    }
+    
+    private void write(Object payload) {
+        if (!(payload instanceof Message)) {
+            channel.write(payload, channel.voidPromise());
+            return;
+        }
+        channel.write(payload).addListener(future -> {
+            if (!future.isSuccess()) {
+                logger.error("Failed to send message to channel: {}, message: {}",
+                        channel, payload, future.cause());
+            }
+        });
+    }
+    
+    /**
+     * 队列条目，状态类消息被替换时只更新负载
+     */
+    private static final class Entry {
+        
+        private Object payload;
+        private final MessageType type;
+        private final Object key;
+        
+        private Entry(Object payload, MessageType type, Object key) {
+            this.payload = payload;
+            this.type = type;
+            this.key = key;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.jeffrey.gameserver.session;
 
+import com.jeffrey.gameserver.network.udp.UdpLink;
+import com.jeffrey.gameserver.protocol.CodecType;
 import com.jeffrey.gameserver.protocol.Message;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,9 +52,25 @@ public class GameSession {
     /** 会话状态 */
     private SessionState state;
     
+    /** 所在场景ID，0表示不在场景中 */
+    private volatile int sceneId;
+    
+    /** 最新的移动输入(打包格式见 MoveFrameDecoder)，IO线程写入，场景tick线程读取，0表示没有输入 */
+    private volatile long moveInput;
+    
+    /** 发送队列，连接不可写时积压消息并合并状态类消息 */
+    private final ConflatingOutboundQueue outboundQueue;
+    
+    /** UDP绑定令牌，0表示未下发 */
+    private volatile long udpToken;
+    
+    /** 客户端用令牌绑定的UDP链路，未绑定为null */
+    private volatile UdpLink udpLink;
+    
     public GameSession(Channel channel) {
         this.sessionId = "session-" + SESSION_ID_GENERATOR.getAndIncrement();
         this.channel = channel;
+        this.outboundQueue = channel != null ? new ConflatingOutboundQueue(channel) : null;
         this.createTime = System.currentTimeMillis();
         this.lastActiveTime = this.createTime;
         this.state = SessionState.CONNECTED;
@@ -61,18 +81,57 @@ public class GameSession {
      * 发送消息给客户端
      */
     public void sendMessage(Message message) {
+        UdpLink link = udpLink;
+        if (link != null && link.routes(message.getType()) && channel != null && channel.isActive()) {
+            // 已绑定UDP的会话，指定类型的消息改经UDP发送
+            link.send(this, message);
+            return;
+        }
         if (channel != null && channel.isActive()) {
-            channel.writeAndFlush(message).addListener(future -> {
-                if (!future.isSuccess()) {
-                    logger.error("Failed to send message to session: {}, message: {}", 
-                            sessionId, message, future.cause());
-                }
-            });
+            outboundQueue.offer(message);
         } else {
+            // 引用计数的消息(如带负载的状态同步)不会再经过编码器，在这里释放
+            ReferenceCountUtil.release(message);
             logger.warn("Cannot send message to inactive session: {}", sessionId);
         }
     }
     
+    /**
+     * 写出发送队列中积压的消息，连接恢复可写时调用；连接已断开时释放积压
+     */
+    public void drainOutbound() {
+        if (outboundQueue != null) {
+            outboundQueue.drain();
+        }
+    }
+    
+    /**
+     * 发送已编码的帧(消息类型+消息体，不含长度字段)，同一消息广播给多个会话时只编码一次
+     * 
+     * @param frame 所有权转移给连接
+     */
+    public void sendFrame(ByteBuf frame) {
+        if (channel != null && channel.isActive()) {
+            outboundQueue.offerFrame(frame);
+        } else {
+            frame.release();
+        }
+    }
+    
+    /**
+     * 记录最新的移动输入，覆盖尚未被场景读取的旧输入
+     */
+    public void offerMove(long move) {
+        this.moveInput = move;
+    }
+    
+    /**
+     * 最新的移动输入，场景按输入序号判断是否已应用
+     */
+    public long getMoveInput() {
+        return moveInput;
+    }
+    
     /**
      * 关闭会话
      */
@@ -97,6 +156,14 @@ public class GameSession {
         return System.currentTimeMillis() - lastActiveTime > timeoutMillis;
     }
     
+    /**
+     * 连接协商出的编码格式，握手完成前为JSON
+     */
+    public CodecType getCodecType() {
+        CodecType codecType = channel != null ? channel.attr(CodecType.CODEC_KEY).get() : null;
+        return codecType != null ? codecType : CodecType.JSON;
+    }
+    
     /**
      * 会话状态枚举
      */
@@ -155,6 +222,37 @@ public class GameSession {
         return lastActiveTime;
     }
     
+    public int getSceneId() {
+        return sceneId;
+    }
+    
+    public void setSceneId(int sceneId) {
+        this.sceneId = sceneId;
+    }
+    
+    /**
+     * 被同键新消息替换、没有写出的状态类消息数
+     */
+    public long getConflatedCount() {
+        return outboundQueue != null ? outboundQueue.getConflatedCount() : 0;
+    }
+    
+    public long getUdpToken() {
+        return udpToken;
+    }
+    
+    public void setUdpToken(long udpToken) {
+        this.udpToken = udpToken;
+    }
+    
+    public UdpLink getUdpLink() {
+        return udpLink;
+    }
+    
+    public void setUdpLink(UdpLink udpLink) {
+        this.udpLink = udpLink;
+    }
+    
     public SessionState getState() {
         return state;
     }
@@ -1,8 +1,21 @@
 package com.jeffrey.gameserver.session;
 
+import com.jeffrey.gameserver.cluster.SessionDirectory;
+import com.jeffrey.gameserver.event.DomainEvent;
+import com.jeffrey.gameserver.event.DomainEventBus;
+import com.jeffrey.gameserver.event.DomainEventType;
+import com.jeffrey.gameserver.log.HotPathLogger;
+import com.jeffrey.gameserver.network.codec.CodecNegotiationHandler;
+import com.jeffrey.gameserver.network.codec.MessageEncoder;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.Message;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.EncoderException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.security.SecureRandom;
 import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
@@ -19,6 +32,9 @@ public class SessionManager {
     
     private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
     
+    /** 会话增删的逐条日志走采样/限流 */
+    private static final HotPathLogger sessionLogger = HotPathLogger.getLogger(SessionManager.class, "session");
+    
     /** 会话超时时间(毫秒) */
     private static final long SESSION_TIMEOUT = 5 * 60 * 1000; // 5分钟
     
@@ -31,6 +47,17 @@ public class SessionManager {
     /** 玩家会话映射 - playerId -> GameSession */
     private final ConcurrentHashMap<String, GameSession> playerSessions = new ConcurrentHashMap<>();
     
+    /** UDP绑定令牌 - token -> GameSession */
+    private final ConcurrentHashMap<Long, GameSession> udpTokenSessions = new ConcurrentHashMap<>();
+    
+    private final SecureRandom tokenRandom = new SecureRandom();
+    
+    /** 集群会话目录，非集群模式为null */
+    private volatile SessionDirectory directory;
+    
+    /** 领域事件总线，为null时不发布下线事件 */
+    private volatile DomainEventBus eventBus;
+    
     /** 定时任务执行器 */
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
         Thread thread = new Thread(r, "SessionManager-Cleanup");
@@ -48,7 +75,7 @@ public class SessionManager {
      */
     public void addSession(GameSession session) {
         sessions.put(session.getSessionId(), session);
-        logger.info("Session added: {}, total sessions: {}", session.getSessionId(), sessions.size());
+        sessionLogger.info("Session added: {}, total sessions: {}", session.getSessionId(), sessions.size());
     }
     
     /**
@@ -57,11 +84,16 @@ public class SessionManager {
     public GameSession removeSession(String sessionId) {
         GameSession session = sessions.remove(sessionId);
         if (session != null) {
+            if (session.getUdpToken() != 0) {
+                udpTokenSessions.remove(session.getUdpToken(), session);
+            }
             // 同时从玩家会话映射中移除
             if (session.getPlayerId() != null) {
                 playerSessions.remove(session.getPlayerId());
+                unregisterFromDirectory(session.getPlayerId(), sessionId);
+                publishOffline(session);
             }
-            logger.info("Session removed: {}, total sessions: {}", sessionId, sessions.size());
+            sessionLogger.info("Session removed: {}, total sessions: {}", sessionId, sessions.size());
         }
         return session;
     }
@@ -80,6 +112,32 @@ public class SessionManager {
         return playerSessions.get(playerId);
     }
     
+    /**
+     * 根据UDP令牌获取会话
+     */
+    public GameSession getSessionByUdpToken(long token) {
+        return udpTokenSessions.get(token);
+    }
+    
+    /**
+     * 为会话生成UDP绑定令牌，登录成功后随响应下发，客户端在每个UDP数据报中带上
+     * 
+     * @return 非0的随机令牌
+     */
+    public long issueUdpToken(GameSession session) {
+        long token;
+        do {
+            token = tokenRandom.nextLong();
+        } while (token == 0 || udpTokenSessions.putIfAbsent(token, session) != null);
+        
+        long previous = session.getUdpToken();
+        if (previous != 0) {
+            udpTokenSessions.remove(previous, session);
+        }
+        session.setUdpToken(token);
+        return token;
+    }
+    
     /**
      * 绑定玩家到会话
      */
@@ -98,7 +156,13 @@ public class SessionManager {
         }
         
         playerSessions.put(playerId, session);
-        logger.info("Player bound to session: playerId={}, sessionId={}", playerId, session.getSessionId());
+        
+        // 集群模式下广播位置，其他节点上的同一玩家会被踢下线
+        SessionDirectory currentDirectory = directory;
+        if (currentDirectory != null) {
+            currentDirectory.register(playerId, session.getSessionId(), playerName);
+        }
+        sessionLogger.info("Player bound to session: playerId={}, sessionId={}", playerId, session.getSessionId());
     }
     
     /**
@@ -110,10 +174,48 @@ public class SessionManager {
             session.setPlayerId(null);
             session.setPlayerName(null);
             session.setAuthenticated(false);
-            logger.info("Player unbound from session: playerId={}, sessionId={}", playerId, session.getSessionId());
+            unregisterFromDirectory(playerId, session.getSessionId());
+            sessionLogger.info("Player unbound from session: playerId={}, sessionId={}", playerId, session.getSessionId());
+        }
+    }
+    
+    private void unregisterFromDirectory(String playerId, String sessionId) {
+        SessionDirectory currentDirectory = directory;
+        if (currentDirectory != null) {
+            currentDirectory.unregister(playerId, sessionId);
+        }
+    }
+    
+    private void publishOffline(GameSession session) {
+        DomainEventBus currentEventBus = eventBus;
+        if (currentEventBus != null) {
+            currentEventBus.publish(new DomainEvent(DomainEventType.PLAYER_OFFLINE, session.getPlayerId(),
+                    session.getPlayerName(), session.getSessionId(), null));
         }
     }
     
+    /**
+     * 设置领域事件总线，已登录玩家的会话被移除时发布 PLAYER_OFFLINE
+     */
+    public void setEventBus(DomainEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+    
+    /**
+     * 设置集群会话目录
+     */
+    public void setDirectory(SessionDirectory directory) {
+        this.directory = directory;
+        directory.setListener(new DirectoryListener());
+    }
+    
+    /**
+     * 获取集群会话目录，非集群模式返回null
+     */
+    public SessionDirectory getDirectory() {
+        return directory;
+    }
+    
     /**
      * 获取所有会话
      */
@@ -121,6 +223,51 @@ public class SessionManager {
         return sessions.values();
     }
     
+    /**
+     * 广播消息给所有已认证会话
+     * 每种编码格式只编码一次，各会话写入同一份字节的引用，成本不再随会话数放大编码开销
+     * 
+     * @param exclude 不接收的会话，可以为null
+     * @return 接收的会话数
+     */
+    public int broadcast(Message message, GameSession exclude) {
+        ByteBuf[] frames = new ByteBuf[CodecType.values().length];
+        int sentCount = 0;
+        try {
+            for (GameSession session : sessions.values()) {
+                if (!session.isAuthenticated() || session == exclude) {
+                    continue;
+                }
+                CodecType codecType = session.getCodecType();
+                ByteBuf frame = frames[codecType.ordinal()];
+                if (frame == null) {
+                    frame = encodeFrame(message, codecType);
+                    frames[codecType.ordinal()] = frame;
+                }
+                session.sendFrame(frame.retainedDuplicate());
+                sentCount++;
+            }
+        } finally {
+            for (ByteBuf frame : frames) {
+                if (frame != null) {
+                    frame.release();
+                }
+            }
+        }
+        return sentCount;
+    }
+    
+    private static ByteBuf encodeFrame(Message message, CodecType codecType) {
+        ByteBuf frame = ByteBufAllocator.DEFAULT.buffer();
+        try {
+            MessageEncoder.writeFrame(message, CodecNegotiationHandler.codecFor(codecType), frame);
+            return frame;
+        } catch (Exception e) {
+            frame.release();
+            throw new EncoderException("Failed to encode broadcast message: " + message.getType(), e);
+        }
+    }
+    
     /**
      * 获取在线玩家数量
      */
@@ -192,4 +339,30 @@ public class SessionManager {
         
         logger.info("SessionManager shutdown completed.");
     }
+    
+    /**
+     * 处理会话目录事件
+     */
+    private class DirectoryListener implements SessionDirectory.Listener {
+        
+        @Override
+        public void onEvicted(String playerId, String sessionId) {
+            GameSession session = playerSessions.get(playerId);
+            if (session != null && session.getSessionId().equals(sessionId)) {
+                logger.warn("Player {} logged in on another node, closing session: {}", playerId, sessionId);
+                session.close();
+                removeSession(sessionId);
+            }
+        }
+        
+        @Override
+        public void onDelivery(String playerId, Message message) {
+            GameSession session = playerSessions.get(playerId);
+            if (session != null && session.isAuthenticated()) {
+                session.sendMessage(message);
+            } else {
+                sessionLogger.debug("Dropped message for player {} no longer on this node: {}", playerId, message.getType());
+            }
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package com.jeffrey.gameserver.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+/**
+ * 按位读取ByteBuf，与 {@link BitWriter} 对应
+ * 
+ * @author jeffrey
+ */
+public final class BitReader {
+    
+    private ByteBuf in;
+    private long buffer;
+    private int bitCount;
+    
+    public BitReader() {
+    }
+    
+    public BitReader(ByteBuf in) {
+        this.in = in;
+    }
+    
+    public BitReader reset(ByteBuf in) {
+        this.in = in;
+        this.buffer = 0;
+        this.bitCount = 0;
+        return this;
+    }
+    
+    /**
+     * 读取bits位
+     * 
+     * @param bits 位数，取值 1~32
+     */
+    public long readBits(int bits) {
+        while (bitCount < bits) {
+            if (!in.isReadable()) {
+                throw new CorruptedFrameException("Bit stream truncated");
+            }
+            buffer |= (long) in.readUnsignedByte() << bitCount;
+            bitCount += 8;
+        }
+        long value = buffer & ((1L << bits) - 1);
+        buffer >>>= bits;
+        bitCount -= bits;
+        return value;
+    }
+    
+    public boolean readBoolean() {
+        return readBits(1) != 0;
+    }
+    
+    public int readVarBits(int chunkBits) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            value |= (int) readBits(chunkBits) << shift;
+            if (readBits(1) == 0) {
+                return value;
+            }
+            shift += chunkBits;
+            if (shift >= 32) {
+                throw new CorruptedFrameException("Malformed var bits");
+            }
+        }
+    }
+    
+    /**
+     * 丢弃当前字节中剩余的位，之后可以按字节继续读取
+     */
+    public void align() {
+        buffer = 0;
+        bitCount = 0;
+    }
+}
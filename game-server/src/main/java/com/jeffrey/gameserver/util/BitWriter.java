@@ -0,0 +1,78 @@
+package com.jeffrey.gameserver.util;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 按位写入ByteBuf
+ * 低位在前，凑满一个字节就写出，结束时调用 {@link #flush()} 补齐最后一个字节。
+ * 非线程安全，可以通过 {@link #reset(ByteBuf)} 复用。
+ * 
+ * @author jeffrey
+ */
+public final class BitWriter {
+    
+    private ByteBuf out;
+    private long buffer;
+    private int bitCount;
+    
+    public BitWriter() {
+    }
+    
+    public BitWriter(ByteBuf out) {
+        this.out = out;
+    }
+    
+    /**
+     * 切换到新的输出缓冲区，丢弃未flush的位
+     */
+    public BitWriter reset(ByteBuf out) {
+        this.out = out;
+        this.buffer = 0;
+        this.bitCount = 0;
+        return this;
+    }
+    
+    /**
+     * 写入value的低bits位
+     * 
+     * @param bits 位数，取值 1~32
+     */
+    public void writeBits(long value, int bits) {
+        buffer |= (value & ((1L << bits) - 1)) << bitCount;
+        bitCount += bits;
+        while (bitCount >= 8) {
+            out.writeByte((int) buffer);
+            buffer >>>= 8;
+            bitCount -= 8;
+        }
+    }
+    
+    public void writeBoolean(boolean value) {
+        writeBits(value ? 1 : 0, 1);
+    }
+    
+    /**
+     * 写入非负整数，每组chunkBits位加1位后续标志，小数值只占少量位
+     */
+    public void writeVarBits(int value, int chunkBits) {
+        int chunkMask = (1 << chunkBits) - 1;
+        while ((value & ~chunkMask) != 0) {
+            writeBits(value & chunkMask, chunkBits);
+            writeBits(1, 1);
+            value >>>= chunkBits;
+        }
+        writeBits(value, chunkBits);
+        writeBits(0, 1);
+    }
+    
+    /**
+     * 把剩余不足一个字节的位补0写出
+     */
+    public void flush() {
+        if (bitCount > 0) {
+            out.writeByte((int) buffer);
+            buffer = 0;
+            bitCount = 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.jeffrey.gameserver.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 无锁多生产者单消费者队列(Vyukov)
+ * 生产者只对尾指针做一次 getAndSet 再链接前驱节点，不需要CAS重试；消费者独占头指针，不与生产者竞争。
+ * {@link #offer(Object)} 可在任意线程调用，{@link #poll()} 只能由同一个消费者线程调用。
+ * <p>
+ * 生产者交换尾指针和链接前驱之间的短暂窗口内，消费者看不到该元素，{@link #poll()} 返回null，
+ * 下次轮询即可取到。调用方按tick轮询，不需要等待。
+ *
+ * @author jeffrey
+ */
+public final class MpscQueue<E> {
+    
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+    
+    /** 尾节点，生产者竞争 */
+    private final AtomicReference<Node<E>> tail;
+    
+    /** 头节点(哨兵)，只有消费者访问 */
+    private Node<E> head;
+    
+    /** 元素数，用于监控和限定单次处理的数量 */
+    private final AtomicInteger size = new AtomicInteger();
+    
+    public MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+    
+    /**
+     * 入队，任意线程调用
+     */
+    public void offer(E value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        Node<E> node = new Node<>(value);
+        size.incrementAndGet();
+        Node<E> prev = tail.getAndSet(node);
+        // 链接前驱，消费者通过 volatile 读 next 看到完整的节点
+        NEXT_UPDATER.lazySet(prev, node);
+    }
+    
+    /**
+     * 出队，只能由消费者线程调用
+     *
+     * @return 队列为空或生产者尚未完成链接时返回null
+     */
+    public E poll() {
+        Node<E> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        E value = next.value;
+        next.value = null;
+        head = next;
+        size.decrementAndGet();
+        return value;
+    }
+    
+    /**
+     * 当前元素数，可在任意线程调用，结果为近似值
+     */
+    public int size() {
+        return Math.max(0, size.get());
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    private static final class Node<E> {
+        E value;
+        volatile Node<E> next;
+        
+        Node(E value) {
+            this.value = value;
+        }
+    }
+}
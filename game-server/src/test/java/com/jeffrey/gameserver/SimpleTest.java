@@ -1,5 +1,6 @@
 package com.jeffrey.gameserver;
 
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
 import com.jeffrey.gameserver.protocol.messages.LoginMessage;
 import com.jeffrey.gameserver.util.JsonUtil;
 import org.junit.Test;
@@ -28,6 +29,16 @@ public class SimpleTest {
         System.out.println("JSON serialization test passed!");
     }
     
+    @Test
+    public void testJsonRoundTrip() {
+        // 序列化结果包含只读的type属性，反序列化时应被忽略
+        ChatMessage chatMessage = new ChatMessage(null, null, "hello", ChatMessage.ChatChannel.WORLD);
+        ChatMessage decoded = JsonUtil.fromJson(JsonUtil.toJson(chatMessage), ChatMessage.class);
+        
+        assert "hello".equals(decoded.getContent());
+        assert decoded.getChannel() == ChatMessage.ChatChannel.WORLD;
+    }
+    
     @Test
     public void testMessageTypes() {
         // 测试消息类型
@@ -0,0 +1,52 @@
+package com.jeffrey.gameserver.admin;
+
+import com.jeffrey.gameserver.config.ServerConfig;
+import com.jeffrey.gameserver.handler.MessageHandler;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.network.NettyServer;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.session.SessionManager;
+import com.jeffrey.gameserver.util.JsonUtil;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 运行状态采集测试
+ * 
+ * @author jeffrey
+ */
+public class ServerStatsCollectorTest {
+    
+    @Test
+    public void testCollectAndFormat() {
+        SessionManager sessionManager = new SessionManager();
+        MessageMetrics metrics = new MessageMetrics();
+        Map<MessageType, MessageHandler> handlers = new HashMap<>();
+        NettyServer nettyServer = new NettyServer(new ServerConfig(), sessionManager, handlers, metrics);
+        ServerStatsCollector collector = new ServerStatsCollector(sessionManager, metrics, nettyServer);
+        
+        try {
+            metrics.record(MessageType.CHAT, MessageMetrics.Stage.HANDLE, 0, 12_000);
+            Map<String, Object> stats = collector.collect();
+            
+            Map<?, ?> messages = (Map<?, ?>) stats.get("messages");
+            assertTrue(messages.containsKey("CHAT"));
+            assertFalse(messages.containsKey("LOGIN"));
+            
+            String text = ServerStatsCollector.formatText(stats);
+            assertTrue(text, text.contains("sessions:"));
+            assertTrue(text, text.contains("p99Micros"));
+            
+            String json = JsonUtil.toJson(collector.collect());
+            assertTrue(JsonUtil.isValidJson(json));
+            assertTrue(json, json.contains("allocatedBytesPerSecond"));
+        } finally {
+            sessionManager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import io.netty.buffer.ByteBuf;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 节点间发布订阅测试
+ * 多个节点通过进程内通道连接，统计节点之间的帧数
+ *
+ * @author jeffrey
+ */
+public class ClusterPubSubTest {
+    
+    private final List<HubTransport> transports = new ArrayList<>();
+    private final List<ClusterPubSub> nodes = new ArrayList<>();
+    private final AtomicInteger framesSent = new AtomicInteger();
+    
+    @After
+    public void tearDown() {
+        for (ClusterPubSub node : nodes) {
+            node.stop();
+        }
+    }
+    
+    @Test
+    public void testFramesScaleWithNodesNotMessages() {
+        List<List<Message>> received = createCluster(3, TimeUnit.HOURS.toMillis(1), ClusterPubSub.DEFAULT_MAX_BATCH_BYTES);
+        
+        for (int i = 0; i < 50; i++) {
+            nodes.get(0).publish(ClusterPubSub.WORLD_CHAT, chat("message " + i));
+        }
+        nodes.get(0).flush();
+        
+        // 50条消息合成一个批次，每个其他节点一帧
+        assertEquals(1, nodes.get(0).getBatchCount());
+        assertEquals(2, framesSent.get());
+        assertTrue(received.get(0).isEmpty());
+        for (int node = 1; node < 3; node++) {
+            assertEquals(50, received.get(node).size());
+            assertEquals(50, nodes.get(node).getReceivedCount());
+            for (int i = 0; i < 50; i++) {
+                ChatMessage message = (ChatMessage) received.get(node).get(i);
+                assertEquals("message " + i, message.getContent());
+                assertEquals("player_alice", message.getSenderId());
+                assertEquals(ChatMessage.ChatChannel.WORLD, message.getChannel());
+            }
+        }
+    }
+    
+    @Test
+    public void testBatchFlushedAfterDelay() throws Exception {
+        List<List<Message>> received = createCluster(2, 10, ClusterPubSub.DEFAULT_MAX_BATCH_BYTES);
+        
+        nodes.get(1).publish(ClusterPubSub.WORLD_CHAT, chat("hello"));
+        nodes.get(1).publish(ClusterPubSub.WORLD_CHAT, chat("world"));
+        
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.get(0).size() < 2) {
+            assertTrue("batch not flushed", System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertEquals(1, nodes.get(1).getBatchCount());
+    }
+    
+    @Test
+    public void testOversizedBatchFlushedImmediately() {
+        List<List<Message>> received = createCluster(2, TimeUnit.HOURS.toMillis(1), 256);
+        
+        for (int i = 0; i < 20; i++) {
+            nodes.get(0).publish(ClusterPubSub.WORLD_CHAT, chat("a fairly long world chat message number " + i));
+        }
+        
+        long batches = nodes.get(0).getBatchCount();
+        assertTrue("expected several size-triggered batches, got " + batches, batches >= 3);
+        nodes.get(0).flush();
+        assertEquals(20, received.get(1).size());
+    }
+    
+    @Test
+    public void testSizeTriggeredFlushCancelsTimer() throws Exception {
+        List<List<Message>> received = createCluster(2, 500, 256);
+        long start = System.currentTimeMillis();
+        
+        nodes.get(0).publish(ClusterPubSub.WORLD_CHAT, chat("first"));
+        TimeUnit.MILLISECONDS.sleep(250);
+        while (nodes.get(0).getBatchCount() == 0) {
+            nodes.get(0).publish(ClusterPubSub.WORLD_CHAT, chat("a fairly long world chat message"));
+        }
+        nodes.get(0).publish(ClusterPubSub.WORLD_CHAT, chat("last"));
+        
+        // 第一个批次的定时任务已取消，不会在500毫秒时提前发出新批次
+        TimeUnit.MILLISECONDS.sleep(start + 650 - System.currentTimeMillis());
+        assertEquals(1, nodes.get(0).getBatchCount());
+        
+        int expected = received.get(1).size() + 1;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.get(1).size() < expected) {
+            assertTrue("batch not flushed", System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertEquals(2, nodes.get(0).getBatchCount());
+        assertEquals("last", ((ChatMessage) received.get(1).get(expected - 1)).getContent());
+    }
+    
+    @Test
+    public void testPublishAfterStopDropped() {
+        List<List<Message>> received = createCluster(2, TimeUnit.HOURS.toMillis(1), ClusterPubSub.DEFAULT_MAX_BATCH_BYTES);
+        
+        nodes.get(0).publish(ClusterPubSub.WORLD_CHAT, chat("before"));
+        nodes.get(0).stop();
+        nodes.get(0).publish(ClusterPubSub.WORLD_CHAT, chat("after"));
+        nodes.get(0).flush();
+        
+        assertEquals(1, received.get(1).size());
+        assertEquals(1, nodes.get(0).getPublishedCount());
+    }
+    
+    @Test
+    public void testTopicWithoutSubscribersSkipped() {
+        List<List<Message>> received = createCluster(2, TimeUnit.HOURS.toMillis(1), ClusterPubSub.DEFAULT_MAX_BATCH_BYTES);
+        
+        nodes.get(0).publish("chat.guild.1", chat("guild"));
+        nodes.get(0).publish(ClusterPubSub.WORLD_CHAT, chat("world"));
+        nodes.get(0).flush();
+        
+        assertEquals(1, received.get(1).size());
+        assertEquals("world", ((ChatMessage) received.get(1).get(0)).getContent());
+    }
+    
+    private List<List<Message>> createCluster(int count, long batchDelay, int maxBatchBytes) {
+        List<List<Message>> received = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            HubTransport transport = new HubTransport();
+            transports.add(transport);
+            ClusterPubSub node = new ClusterPubSub(transport, batchDelay, maxBatchBytes);
+            List<Message> messages = new CopyOnWriteArrayList<>();
+            node.subscribe(ClusterPubSub.WORLD_CHAT, messages::add);
+            nodes.add(node);
+            received.add(messages);
+        }
+        return received;
+    }
+    
+    private static ChatMessage chat(String content) {
+        return new ChatMessage("player_alice", "alice", content, ChatMessage.ChatChannel.WORLD);
+    }
+    
+    /**
+     * 进程内通道，批次同步交给其他所有节点
+     */
+    private class HubTransport implements ClusterTransport {
+        
+        private Consumer<ByteBuf> publishReceiver;
+        
+        @Override
+        public void setReceiver(Receiver receiver) {
+        }
+        
+        @Override
+        public void broadcast(DirectoryUpdate update) {
+        }
+        
+        @Override
+        public void send(String nodeId, DirectoryUpdate update) {
+        }
+        
+        @Override
+        public boolean deliver(String nodeId, String playerId, Message message) {
+            return false;
+        }
+        
+        @Override
+        public void publish(ByteBuf batch) {
+            try {
+                for (HubTransport peer : transports) {
+                    if (peer != this) {
+                        framesSent.incrementAndGet();
+                        peer.publishReceiver.accept(batch.duplicate());
+                    }
+                }
+            } finally {
+                batch.release();
+            }
+        }
+        
+        @Override
+        public void setPublishReceiver(Consumer<ByteBuf> receiver) {
+            this.publishReceiver = receiver;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.GameServer;
+import com.jeffrey.gameserver.config.ServerConfig;
+import com.jeffrey.gameserver.protocol.MessageType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 跨节点会话测试
+ * 同一进程内启动两个互为peers的节点，客户端直接连接各自节点，验证跨节点私聊和重复登录
+ *
+ * @author jeffrey
+ */
+public class ClusterSessionTest {
+    
+    private final List<GameServer> nodes = new ArrayList<>();
+    
+    @Before
+    public void setUp() throws Exception {
+        int[] clusterPorts = {freePort(), freePort()};
+        String peers = "node1=127.0.0.1:" + clusterPorts[0] + ",node2=127.0.0.1:" + clusterPorts[1];
+        for (int i = 0; i < 2; i++) {
+            ServerConfig config = new ServerConfig();
+            config.setPort(freePort());
+            config.setClusterPort(clusterPorts[i]);
+            config.setNodeId("node" + (i + 1));
+            config.setClusterPeers(peers);
+            config.setClusterHeartbeatInterval(100);
+            config.setAdminEnabled(false);
+            config.setSceneCount(0);
+            GameServer node = new GameServer(config);
+            node.start();
+            nodes.add(node);
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        for (GameServer node : nodes) {
+            node.stop();
+        }
+    }
+    
+    @Test
+    public void testPrivateChatAcrossNodes() throws Exception {
+        try (Socket alice = connect(0); Socket bob = connect(1)) {
+            login(alice, "alice");
+            login(bob, "bob");
+            // 两个方向的链路都已建立
+            awaitTrue("bob not visible on node1",
+                    () -> nodes.get(0).getSessionManager().getDirectory().lookup("player_bob") != null);
+            awaitTrue("alice not visible on node2",
+                    () -> nodes.get(1).getSessionManager().getDirectory().lookup("player_alice") != null);
+            
+            writeFrame(alice, MessageType.CHAT, ("{\"messageType\":\"CHAT\",\"channel\":\"PRIVATE\","
+                    + "\"receiverId\":\"player_bob\",\"content\":\"hello across nodes\"}").getBytes(StandardCharsets.UTF_8));
+            
+            String response = new String(readFrame(alice, MessageType.CHAT_RESPONSE), StandardCharsets.UTF_8);
+            assertTrue(response, response.contains("\"success\":true"));
+            String delivered = new String(readFrame(bob, MessageType.CHAT), StandardCharsets.UTF_8);
+            assertTrue(delivered, delivered.contains("hello across nodes"));
+            assertTrue(delivered, delivered.contains("\"senderId\":\"player_alice\""));
+        }
+    }
+    
+    @Test
+    public void testWorldChatReachesPlayersOnAllNodes() throws Exception {
+        try (Socket alice = connect(0); Socket bob = connect(1); Socket carol = connect(1)) {
+            login(alice, "alice");
+            login(bob, "bob");
+            login(carol, "carol");
+            awaitTrue("node2 players not visible on node1",
+                    () -> nodes.get(0).getSessionManager().getDirectory().lookup("player_carol") != null);
+            awaitTrue("alice not visible on node2",
+                    () -> nodes.get(1).getSessionManager().getDirectory().lookup("player_alice") != null);
+            
+            writeFrame(alice, MessageType.CHAT, ("{\"messageType\":\"CHAT\",\"channel\":\"WORLD\","
+                    + "\"content\":\"hello world\"}").getBytes(StandardCharsets.UTF_8));
+            
+            readFrame(alice, MessageType.CHAT_RESPONSE);
+            for (Socket receiver : new Socket[]{bob, carol}) {
+                String delivered = new String(readFrame(receiver, MessageType.CHAT), StandardCharsets.UTF_8);
+                assertTrue(delivered, delivered.contains("hello world"));
+                assertTrue(delivered, delivered.contains("\"senderId\":\"player_alice\""));
+            }
+        }
+    }
+    
+    @Test
+    public void testDuplicateLoginOnOtherNodeClosesFirstSession() throws Exception {
+        try (Socket first = connect(0); Socket second = connect(1)) {
+            login(first, "alice");
+            awaitTrue("alice not visible on node2",
+                    () -> nodes.get(1).getSessionManager().getDirectory().lookup("player_alice") != null);
+            
+            login(second, "alice");
+            
+            // node1上的连接被关闭
+            try {
+                readFrame(first, MessageType.HEARTBEAT);
+                fail("first session should be closed");
+            } catch (EOFException | SocketException e) {
+                // 预期
+            }
+            awaitTrue("player still bound on node1",
+                    () -> nodes.get(0).getSessionManager().getSessionByPlayerId("player_alice") == null);
+            assertEquals("node2", nodes.get(0).getSessionManager().getDirectory().lookup("player_alice").getNodeId());
+        }
+        
+        // 断开后从所有节点的目录中消失
+        awaitTrue("alice still in directory",
+                () -> nodes.get(0).getSessionManager().getDirectory().lookup("player_alice") == null);
+        assertNull(nodes.get(1).getSessionManager().getDirectory().lookup("player_alice"));
+    }
+    
+    private Socket connect(int node) throws IOException {
+        Socket socket = new Socket("127.0.0.1", nodes.get(node).getConfig().getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+    
+    private static void login(Socket socket, String username) throws IOException {
+        writeFrame(socket, MessageType.LOGIN, ("{\"messageType\":\"LOGIN\",\"username\":\"" + username
+                + "\",\"password\":\"123456\"}").getBytes(StandardCharsets.UTF_8));
+        String response = new String(readFrame(socket, MessageType.LOGIN_RESPONSE), StandardCharsets.UTF_8);
+        assertTrue(response, response.contains("\"success\":true"));
+    }
+    
+    private static void awaitTrue(String message, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(message, System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+    
+    private static void writeFrame(Socket socket, MessageType type, byte[] body) throws IOException {
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeInt(4 + body.length);
+        out.writeInt(type.getCode());
+        out.write(body);
+        out.flush();
+    }
+    
+    private static byte[] readFrame(Socket socket, MessageType expectedType) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        int length = in.readInt();
+        assertEquals(expectedType.getCode(), in.readInt());
+        byte[] body = new byte[length - 4];
+        in.readFully(body);
+        return body;
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
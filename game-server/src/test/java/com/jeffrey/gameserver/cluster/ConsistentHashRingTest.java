@@ -0,0 +1,76 @@
+package com.jeffrey.gameserver.cluster;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 一致性哈希环测试
+ * 
+ * @author jeffrey
+ */
+public class ConsistentHashRingTest {
+    
+    private static final int KEYS = 20_000;
+    
+    private static ConsistentHashRing<String> newRing(int nodes) {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>();
+        for (int i = 1; i <= nodes; i++) {
+            ring.addNode("node" + i, "node" + i);
+        }
+        return ring;
+    }
+    
+    @Test
+    public void testKeysSpreadEvenly() {
+        ConsistentHashRing<String> ring = newRing(4);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.route("player_" + i), 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            // 160个虚拟节点时各节点偏差在平均值的20%以内
+            assertTrue("count=" + count, Math.abs(count - KEYS / 4) < KEYS / 4 / 5);
+        }
+    }
+    
+    @Test
+    public void testAddingNodeOnlyMovesItsShare() {
+        ConsistentHashRing<String> ring = newRing(4);
+        String[] before = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            before[i] = ring.route("player_" + i);
+        }
+        
+        ring.addNode("node5", "node5");
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String after = ring.route("player_" + i);
+            if (!after.equals(before[i])) {
+                // 只会迁移到新节点
+                assertEquals("node5", after);
+                moved++;
+            }
+        }
+        assertTrue("moved=" + moved, moved > KEYS / 5 * 0.8 && moved < KEYS / 5 * 1.2);
+    }
+    
+    @Test
+    public void testUnavailableNodeFallsThroughToNextNode() {
+        ConsistentHashRing<String> ring = newRing(3);
+        for (int i = 0; i < 1000; i++) {
+            String key = "player_" + i;
+            String owner = ring.route(key);
+            String fallback = ring.route(key, node -> !node.equals(owner));
+            assertTrue(fallback != null && !fallback.equals(owner));
+        }
+        assertNull(ring.route("player_0", node -> false));
+        assertNull(new ConsistentHashRing<String>().route("player_0"));
+    }
+}
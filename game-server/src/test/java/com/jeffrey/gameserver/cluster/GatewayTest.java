@@ -0,0 +1,170 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.GameServer;
+import com.jeffrey.gameserver.config.ServerConfig;
+import com.jeffrey.gameserver.handler.LoginHandler;
+import com.jeffrey.gameserver.network.codec.BinaryMessageCodec;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 网关转发测试
+ * 同一进程内启动两个节点和一个网关，客户端经网关登录后会话出现在哈希环指定的节点上
+ * 
+ * @author jeffrey
+ */
+public class GatewayTest {
+    
+    private final List<GameServer> nodes = new ArrayList<>();
+    private GatewayServer gateway;
+    
+    @Before
+    public void setUp() throws Exception {
+        List<GatewayConfig.Backend> backends = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            ServerConfig config = new ServerConfig();
+            config.setPort(freePort());
+            config.setClusterPort(freePort());
+            config.setNodeId("node" + i);
+            config.setAdminEnabled(false);
+            config.setSceneCount(0);
+            GameServer node = new GameServer(config);
+            node.start();
+            nodes.add(node);
+            backends.add(new GatewayConfig.Backend("node" + i, "127.0.0.1", config.getClusterPort()));
+        }
+        
+        GatewayConfig gatewayConfig = new GatewayConfig();
+        gatewayConfig.setHost("127.0.0.1");
+        gatewayConfig.setPort(freePort());
+        gatewayConfig.setBackends(backends);
+        gateway = new GatewayServer(gatewayConfig);
+        gateway.start();
+        
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!gateway.getLinks().stream().allMatch(BackendLink::isActive)) {
+            assertTrue("backend links not ready", System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        if (gateway != null) {
+            gateway.stop();
+        }
+        for (GameServer node : nodes) {
+            node.stop();
+        }
+    }
+    
+    @Test
+    public void testPlayersRoutedByConsistentHash() throws Exception {
+        ConsistentHashRing<Integer> expected = new ConsistentHashRing<>();
+        expected.addNode("node1", 0);
+        expected.addNode("node2", 1);
+        
+        List<Socket> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < 10; i++) {
+                String username = "user" + i;
+                Socket socket = connect();
+                clients.add(socket);
+                writeFrame(socket, MessageType.LOGIN, ("{\"messageType\":\"LOGIN\",\"username\":\"" + username 
+                        + "\",\"password\":\"123456\"}").getBytes(StandardCharsets.UTF_8));
+                
+                byte[] response = readFrame(socket, MessageType.LOGIN_RESPONSE);
+                assertTrue(new String(response, StandardCharsets.UTF_8).contains("\"success\":true"));
+                
+                String playerId = LoginHandler.playerIdFor(username);
+                int owner = expected.route(playerId);
+                assertNotNull(nodes.get(owner).getSessionManager().getSessionByPlayerId(playerId));
+                assertNull(nodes.get(1 - owner).getSessionManager().getSessionByPlayerId(playerId));
+            }
+            assertEquals(10, nodes.get(0).getSessionManager().getOnlinePlayerCount() 
+                    + nodes.get(1).getSessionManager().getOnlinePlayerCount());
+        } finally {
+            for (Socket socket : clients) {
+                socket.close();
+            }
+        }
+        
+        // 客户端断开后节点上的会话随之关闭
+        long deadline = System.currentTimeMillis() + 5000;
+        while (nodes.get(0).getSessionManager().getTotalSessionCount() 
+                + nodes.get(1).getSessionManager().getTotalSessionCount() > 0) {
+            assertTrue("sessions not closed", System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+    
+    @Test
+    public void testBinaryHandshakeAnsweredOnceByGateway() throws Exception {
+        try (Socket socket = connect()) {
+            writeFrame(socket, MessageType.HANDSHAKE, new byte[]{2});
+            ByteBuf login = Unpooled.buffer();
+            BinaryMessageCodec.INSTANCE.encode(new LoginMessage("bob", "123456"), login);
+            byte[] body = new byte[login.readableBytes()];
+            login.readBytes(body);
+            writeFrame(socket, MessageType.LOGIN, body);
+            
+            assertTrue(Arrays.equals(new byte[]{2}, readFrame(socket, MessageType.HANDSHAKE)));
+            // 节点的握手回复被网关丢弃，下一帧就是登录响应
+            byte[] response = readFrame(socket, MessageType.LOGIN_RESPONSE);
+            LoginHandler.LoginResponseMessage decoded = (LoginHandler.LoginResponseMessage) 
+                    BinaryMessageCodec.INSTANCE.decode(MessageType.LOGIN_RESPONSE, Unpooled.wrappedBuffer(response));
+            assertTrue(decoded.isSuccess());
+            assertEquals("player_bob", decoded.getPlayerId());
+        }
+    }
+    
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", gateway.getConfig().getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+    
+    private static void writeFrame(Socket socket, MessageType type, byte[] body) throws IOException {
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeInt(4 + body.length);
+        out.writeInt(type.getCode());
+        out.write(body);
+        out.flush();
+    }
+    
+    private static byte[] readFrame(Socket socket, MessageType expectedType) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        int length = in.readInt();
+        assertEquals(expectedType.getCode(), in.readInt());
+        byte[] body = new byte[length - 4];
+        in.readFully(body);
+        return body;
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
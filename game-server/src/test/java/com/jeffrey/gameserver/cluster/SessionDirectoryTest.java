@@ -0,0 +1,278 @@
+package com.jeffrey.gameserver.cluster;
+
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import io.netty.buffer.ByteBuf;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 会话目录测试
+ * 多个目录通过进程内通道同步连接，时钟由测试控制
+ *
+ * @author jeffrey
+ */
+public class SessionDirectoryTest {
+    
+    private static final long LEASE = 3000;
+    
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final Map<String, LocalTransport> transports = new HashMap<>();
+    private final Map<String, RecordingListener> listeners = new HashMap<>();
+    
+    private SessionDirectory a;
+    private SessionDirectory b;
+    
+    @Before
+    public void setUp() {
+        a = createNode("nodeA");
+        b = createNode("nodeB");
+        connect("nodeA", "nodeB");
+    }
+    
+    @Test
+    public void testLocationReplicatedToPeers() {
+        a.register("player_alice", "s1", "alice");
+        
+        SessionDirectory.Location location = b.lookup("player_alice");
+        assertNotNull(location);
+        assertEquals("nodeA", location.getNodeId());
+        assertEquals("s1", location.getSessionId());
+        assertEquals("alice", location.getPlayerName());
+        
+        // 已被其他会话替换时，旧会话的下线不影响目录
+        a.unregister("player_alice", "other-session");
+        assertNotNull(b.lookup("player_alice"));
+        
+        a.unregister("player_alice", "s1");
+        assertNull(a.lookup("player_alice"));
+        assertNull(b.lookup("player_alice"));
+    }
+    
+    @Test
+    public void testLaterLoginEvictsSessionOnOtherNode() {
+        a.register("player_alice", "s1", "alice");
+        clock.addAndGet(10);
+        b.register("player_alice", "s2", "alice");
+        
+        assertEquals(1, listeners.get("nodeA").evicted.size());
+        assertEquals("player_alice/s1", listeners.get("nodeA").evicted.get(0));
+        assertTrue(listeners.get("nodeB").evicted.isEmpty());
+        assertEquals("nodeB", a.lookup("player_alice").getNodeId());
+        assertEquals("nodeB", b.lookup("player_alice").getNodeId());
+    }
+    
+    @Test
+    public void testLaterLoginWinsDespiteClockSkew() {
+        a.register("player_alice", "s1", "alice");
+        // B的时钟比A慢，新版本仍然大于已知版本
+        SessionDirectory slow = createNode("nodeC", () -> clock.get() - 60_000);
+        connect("nodeC", "nodeA");
+        connect("nodeC", "nodeB");
+        slow.register("player_alice", "s3", "alice");
+        
+        assertEquals("player_alice/s1", listeners.get("nodeA").evicted.get(0));
+        assertEquals("nodeC", a.lookup("player_alice").getNodeId());
+        assertEquals("nodeC", b.lookup("player_alice").getNodeId());
+    }
+    
+    @Test
+    public void testConcurrentLoginsConvergeAfterPartitionHeals() {
+        disconnect("nodeA", "nodeB");
+        a.register("player_alice", "s1", "alice");
+        b.register("player_alice", "s2", "alice");
+        
+        connect("nodeA", "nodeB");
+        
+        // 两边对胜者的判断一致，只有一边踢人
+        SessionDirectory.Location onA = a.lookup("player_alice");
+        SessionDirectory.Location onB = b.lookup("player_alice");
+        assertEquals(onA.getNodeId(), onB.getNodeId());
+        assertEquals(onA.getSessionId(), onB.getSessionId());
+        int evictions = listeners.get("nodeA").evicted.size() + listeners.get("nodeB").evicted.size();
+        assertEquals(1, evictions);
+        String loser = onA.getNodeId().equals("nodeA") ? "nodeB" : "nodeA";
+        assertEquals(1, listeners.get(loser).evicted.size());
+    }
+    
+    @Test
+    public void testLeaseExpiryHidesPlayersUntilNodeReturns() {
+        a.register("player_alice", "s1", "alice");
+        assertNotNull(b.lookup("player_alice"));
+        
+        // A不再发出任何消息，租约过期后B上的条目立即失效
+        disconnect("nodeA", "nodeB");
+        clock.addAndGet(LEASE + 1);
+        assertNull(b.lookup("player_alice"));
+        b.gossip();
+        assertEquals(0, b.size());
+        assertTrue(b.getLiveNodes().isEmpty());
+        
+        // 恢复后的第一个心跳触发全量同步
+        transports.get("nodeA").reachable.add("nodeB");
+        transports.get("nodeB").reachable.add("nodeA");
+        a.gossip();
+        assertEquals("nodeA", b.lookup("player_alice").getNodeId());
+        assertEquals(1, b.getLiveNodes().size());
+    }
+    
+    @Test
+    public void testHeartbeatKeepsLeaseAlive() {
+        a.register("player_alice", "s1", "alice");
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(LEASE / 2);
+            a.gossip();
+            b.gossip();
+        }
+        assertNotNull(b.lookup("player_alice"));
+    }
+    
+    @Test
+    public void testRestartedNodeDropsStaleEntries() {
+        a.register("player_alice", "s1", "alice");
+        a.register("player_bob", "s2", "bob");
+        assertEquals(2, b.size());
+        
+        // 同一nodeId的新进程连入，只带来自己的玩家
+        clock.addAndGet(1000);
+        SessionDirectory restarted = createNode("nodeA");
+        restarted.register("player_carol", "s3", "carol");
+        connect("nodeA", "nodeB");
+        
+        assertNull(b.lookup("player_alice"));
+        assertNull(b.lookup("player_bob"));
+        assertEquals("nodeA", b.lookup("player_carol").getNodeId());
+        
+        // 旧进程残留的消息被忽略
+        a.register("player_dave", "s4", "dave");
+        assertNull(b.lookup("player_dave"));
+    }
+    
+    @Test
+    public void testDeliverToOwnerNode() {
+        b.register("player_bob", "s2", "bob");
+        SessionDirectory.Location location = a.lookup("player_bob");
+        
+        ChatMessage chat = new ChatMessage("player_alice", "alice", "hi", ChatMessage.ChatChannel.PRIVATE);
+        assertTrue(a.deliver(location, chat));
+        assertEquals(1, listeners.get("nodeB").delivered.size());
+        assertSame(chat, listeners.get("nodeB").delivered.get(0));
+        
+        // 本节点的玩家不经过目录转交
+        assertFalse(b.deliver(b.lookup("player_bob"), chat));
+    }
+    
+    private SessionDirectory createNode(String nodeId) {
+        return createNode(nodeId, clock::get);
+    }
+    
+    private SessionDirectory createNode(String nodeId, java.util.function.LongSupplier nodeClock) {
+        LocalTransport transport = new LocalTransport(nodeId);
+        transports.put(nodeId, transport);
+        SessionDirectory directory = new SessionDirectory(nodeId, transport, 1000, LEASE, nodeClock);
+        RecordingListener listener = new RecordingListener();
+        listeners.put(nodeId, listener);
+        directory.setListener(listener);
+        return directory;
+    }
+    
+    /**
+     * 建立双向链路，与TCP链路相同，先互相全量同步
+     */
+    private void connect(String first, String second) {
+        LocalTransport x = transports.get(first);
+        LocalTransport y = transports.get(second);
+        x.reachable.add(second);
+        y.reachable.add(first);
+        y.receiver.onDirectoryUpdate(x.receiver.onPeerConnected(second));
+        x.receiver.onDirectoryUpdate(y.receiver.onPeerConnected(first));
+    }
+    
+    private void disconnect(String first, String second) {
+        transports.get(first).reachable.remove(second);
+        transports.get(second).reachable.remove(first);
+    }
+    
+    /**
+     * 进程内通道，同步投递给可达的节点
+     */
+    private class LocalTransport implements ClusterTransport {
+        
+        private final String nodeId;
+        private final Set<String> reachable = new HashSet<>();
+        private Receiver receiver;
+        
+        LocalTransport(String nodeId) {
+            this.nodeId = nodeId;
+        }
+        
+        @Override
+        public void setReceiver(Receiver receiver) {
+            this.receiver = receiver;
+        }
+        
+        @Override
+        public void broadcast(DirectoryUpdate update) {
+            for (String peer : new ArrayList<>(reachable)) {
+                send(peer, update);
+            }
+        }
+        
+        @Override
+        public void send(String peerNodeId, DirectoryUpdate update) {
+            if (reachable.contains(peerNodeId)) {
+                transports.get(peerNodeId).receiver.onDirectoryUpdate(update);
+            }
+        }
+        
+        @Override
+        public boolean deliver(String peerNodeId, String playerId, Message message) {
+            if (!reachable.contains(peerNodeId)) {
+                return false;
+            }
+            transports.get(peerNodeId).receiver.onDelivery(playerId, message);
+            return true;
+        }
+        
+        @Override
+        public void publish(ByteBuf batch) {
+            batch.release();
+        }
+        
+        @Override
+        public void setPublishReceiver(Consumer<ByteBuf> receiver) {
+        }
+    }
+    
+    private static class RecordingListener implements SessionDirectory.Listener {
+        
+        final List<String> evicted = new ArrayList<>();
+        final List<Message> delivered = new ArrayList<>();
+        
+        @Override
+        public void onEvicted(String playerId, String sessionId) {
+            evicted.add(playerId + "/" + sessionId);
+        }
+        
+        @Override
+        public void onDelivery(String playerId, Message message) {
+            delivered.add(message);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.jeffrey.gameserver.event;
+
+import com.jeffrey.gameserver.handler.ChatHandler;
+import com.jeffrey.gameserver.handler.LoginHandler;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+import com.jeffrey.gameserver.session.GameSession;
+import com.jeffrey.gameserver.session.SessionManager;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 领域事件总线测试
+ *
+ * @author jeffrey
+ */
+public class DomainEventBusTest {
+    
+    private DomainEventBus bus;
+    
+    @Before
+    public void setUp() {
+        bus = new DomainEventBus(64, 1000);
+    }
+    
+    @After
+    public void tearDown() {
+        bus.stop();
+    }
+    
+    @Test
+    public void testSubscribersReceiveTheirTypesInOrderAndInBatches() throws Exception {
+        List<DomainEvent> presence = new CopyOnWriteArrayList<>();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        DomainEventBus.Subscription presenceSub = bus.subscribe("presence",
+                EnumSet.of(DomainEventType.PLAYER_LOGIN, DomainEventType.PLAYER_OFFLINE), presence::addAll);
+        DomainEventBus.Subscription analyticsSub = bus.subscribe("analytics",
+                EnumSet.allOf(DomainEventType.class), events -> batchSizes.add(events.size()));
+        
+        // 启动前发布的事件在启动后一起投递
+        for (int i = 0; i < 200; i++) {
+            bus.publish(event(i % 2 == 0 ? DomainEventType.PLAYER_LOGIN : DomainEventType.CHAT_SENT, "p" + i));
+        }
+        bus.start();
+        awaitTrue("analytics not delivered", () -> analyticsSub.getDelivered() == 200);
+        awaitTrue("presence not delivered", () -> presenceSub.getDelivered() == 100);
+        
+        assertEquals(100, presence.size());
+        for (int i = 0; i < presence.size(); i++) {
+            assertEquals(DomainEventType.PLAYER_LOGIN, presence.get(i).getType());
+            assertEquals("p" + (i * 2), presence.get(i).getPlayerId());
+        }
+        for (int size : batchSizes) {
+            assertTrue(size <= 64);
+        }
+        assertTrue(analyticsSub.getBatches() < 200);
+        assertEquals(200, analyticsSub.getDeliveryLatency().getCount());
+        assertEquals(0, analyticsSub.getLag());
+    }
+    
+    @Test
+    public void testSlowSubscriberDropsInsteadOfBlockingPublisher() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DomainEventBus.Subscription slow = bus.subscribe("slow", EnumSet.allOf(DomainEventType.class), events -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        List<DomainEvent> fast = new CopyOnWriteArrayList<>();
+        DomainEventBus.Subscription fastSub = bus.subscribe("fast", EnumSet.allOf(DomainEventType.class), fast::addAll);
+        bus.start();
+        
+        try {
+            // 按快订阅者跟得上的速度发布，只有慢订阅者积压
+            for (int i = 0; i < 5000; i++) {
+                bus.publish(event(DomainEventType.CHAT_SENT, "p" + i));
+                if (i % 500 == 499) {
+                    final long expected = i + 1;
+                    awaitTrue("fast subscriber lagging", () -> fastSub.getDelivered() == expected);
+                }
+            }
+            
+            // 慢订阅者的积压封顶在 maxPending，之外的事件被丢弃
+            assertTrue(slow.getDropped() > 0);
+            assertEquals(5000, slow.getPublished() + slow.getDropped());
+            assertTrue(slow.getLag() <= 1000);
+            assertEquals(0, fastSub.getDropped());
+        } finally {
+            release.countDown();
+        }
+        awaitTrue("slow subscriber not drained", () -> slow.getDelivered() == slow.getPublished());
+        assertEquals(0, slow.getLag());
+    }
+    
+    @Test
+    public void testFailingSubscriberKeepsReceiving() throws Exception {
+        List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        DomainEventBus.Subscription subscription = bus.subscribe("flaky", EnumSet.allOf(DomainEventType.class),
+                events -> {
+                    received.addAll(events);
+                    throw new IllegalStateException("boom");
+                });
+        bus.start();
+        bus.publish(event(DomainEventType.PLAYER_LOGIN, "p1"));
+        awaitTrue("first event not delivered", () -> subscription.getFailures() == 1);
+        bus.publish(event(DomainEventType.PLAYER_OFFLINE, "p1"));
+        awaitTrue("second event not delivered", () -> received.size() == 2);
+    }
+    
+    @Test
+    public void testGameEventListenerBridgeAndDrainOnStop() {
+        List<String> types = Collections.synchronizedList(new ArrayList<>());
+        bus.subscribe("quests", event -> types.add(event.getEventType()));
+        bus.start();
+        bus.publish(event(DomainEventType.PLAYER_LOGIN, "p1"));
+        bus.publish(event(DomainEventType.CHAT_SENT, "p1"));
+        
+        // 停止前已发布的事件全部投递完
+        bus.stop();
+        assertEquals(Arrays.asList("PLAYER_LOGIN", "CHAT_SENT"), types);
+    }
+    
+    @Test
+    public void testHandlersPublishLoginChatAndOffline() throws Exception {
+        SessionManager sessionManager = new SessionManager();
+        sessionManager.setEventBus(bus);
+        List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        bus.subscribe("audit", EnumSet.allOf(DomainEventType.class), events -> {
+            threads.add(Thread.currentThread().getName());
+            received.addAll(events);
+        });
+        bus.start();
+        try {
+            EmbeddedChannel channel = new EmbeddedChannel();
+            GameSession session = new GameSession(channel);
+            sessionManager.addSession(session);
+            
+            new LoginHandler(sessionManager, 0, bus).handle(session, new LoginMessage("alice", "123456"));
+            ChatMessage chat = new ChatMessage(null, null, "hello", ChatMessage.ChatChannel.WORLD);
+            new ChatHandler(sessionManager, null, bus).handle(session, chat);
+            sessionManager.removeSession(session.getSessionId());
+            
+            awaitTrue("events not delivered", () -> received.size() == 3);
+            assertEquals(DomainEventType.PLAYER_LOGIN, received.get(0).getType());
+            assertEquals("player_alice", received.get(0).getPlayerId());
+            assertEquals(DomainEventType.CHAT_SENT, received.get(1).getType());
+            assertEquals("WORLD", received.get(1).getDetail());
+            assertEquals(DomainEventType.PLAYER_OFFLINE, received.get(2).getType());
+            assertEquals(session.getSessionId(), received.get(2).getSessionId());
+            
+            // IO线程只入队，回调发生在订阅者线程上
+            for (String thread : threads) {
+                assertEquals("DomainEvent-audit", thread);
+            }
+        } finally {
+            sessionManager.shutdown();
+        }
+    }
+    
+    private static DomainEvent event(DomainEventType type, String playerId) {
+        return new DomainEvent(type, playerId, playerId, "s-" + playerId, null);
+    }
+    
+    private static void awaitTrue(String message, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(message, System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.jeffrey.gameserver.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jeffrey.gameserver.handler.ChatHandler;
+import com.jeffrey.gameserver.handler.LoginHandler;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.network.codec.CodecNegotiationHandler;
+import com.jeffrey.gameserver.network.codec.MessageCodec;
+import com.jeffrey.gameserver.network.codec.MessageEncoder;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import com.jeffrey.gameserver.protocol.messages.HeartbeatMessage;
+import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+import com.jeffrey.gameserver.util.JsonUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+
+/**
+ * 压测连接
+ * 每个连接维护按响应类型划分的待响应队列：服务器对同一连接按顺序处理请求，
+ * 因此收到某类响应时，对应队列的队首就是它的请求，由此计算往返延迟。
+ * 所有发送和接收都在连接所属的EventLoop线程内执行，队列不需要加锁。
+ * 请求非JSON格式时，连接建立后先发送握手帧并立即切换编码器，服务器回退到JSON时再切换回来。
+ * 
+ * @author jeffrey
+ */
+public class LoadConnection extends SimpleChannelInboundHandler<ByteBuf> {
+    
+    /** 所有连接的编码器共享的指标，避免每个连接各自分配直方图 */
+    static final MessageMetrics ENCODER_METRICS = new MessageMetrics();
+    
+    private final int index;
+    private final String username;
+    private final LoadStats stats;
+    private final CodecType requestedCodec;
+    
+    private final PendingRequests pendingLogins = new PendingRequests();
+    private final PendingRequests pendingHeartbeats = new PendingRequests();
+    private final PendingRequests pendingChats = new PendingRequests();
+    
+    private volatile Channel channel;
+    private volatile boolean loggedIn;
+    private MessageCodec codec = CodecNegotiationHandler.codecFor(CodecType.JSON);
+    
+    public LoadConnection(int index, LoadStats stats) {
+        this(index, stats, CodecType.JSON);
+    }
+    
+    public LoadConnection(int index, LoadStats stats, CodecType requestedCodec) {
+        this.index = index;
+        this.username = "load_" + index;
+        this.stats = stats;
+        this.requestedCodec = requestedCodec;
+    }
+    
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        this.channel = ctx.channel();
+        if (requestedCodec != CodecType.JSON) {
+            ctx.writeAndFlush(CodecNegotiationHandler.writeHandshake(ctx.alloc().buffer(), requestedCodec));
+            switchCodec(ctx, requestedCodec);
+        }
+        super.channelActive(ctx);
+    }
+    
+    private void switchCodec(ChannelHandlerContext ctx, CodecType codecType) {
+        codec = CodecNegotiationHandler.codecFor(codecType);
+        ctx.pipeline().replace("messageEncoder", "messageEncoder", new MessageEncoder(codec, ENCODER_METRICS));
+    }
+    
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) throws Exception {
+        long now = System.nanoTime();
+        stats.recordReceivedBytes(frame.readableBytes() + 4);
+        MessageType type = MessageType.fromCode(frame.readInt());
+        if (type == null) {
+            return;
+        }
+        switch (type) {
+            case HANDSHAKE:
+                CodecType accepted = CodecType.fromId(frame.readUnsignedByte());
+                if (accepted != null && accepted != codec.getCodecType()) {
+                    switchCodec(ctx, accepted);
+                }
+                break;
+            case LOGIN_RESPONSE:
+                boolean success = isSuccess(type, frame);
+                loggedIn = success;
+                complete(pendingLogins, now, success);
+                break;
+            case HEARTBEAT:
+                complete(pendingHeartbeats, now, true);
+                break;
+            case CHAT_RESPONSE:
+                complete(pendingChats, now, isSuccess(type, frame));
+                break;
+            case CHAT:
+                // 其他玩家的世界聊天或发给自己的私聊
+                stats.recordPushed();
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void complete(PendingRequests pending, long now, boolean success) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        LoadStats.Op op = pending.peekOp();
+        long sendNanos = pending.poll();
+        stats.recordCompleted(op, now - sendNanos, success);
+    }
+    
+    private boolean isSuccess(MessageType type, ByteBuf frame) throws Exception {
+        if (codec.getCodecType() != CodecType.JSON) {
+            Message message = codec.decode(type, frame);
+            if (message instanceof LoginHandler.LoginResponseMessage) {
+                return ((LoginHandler.LoginResponseMessage) message).isSuccess();
+            }
+            return message instanceof ChatHandler.ChatResponseMessage 
+                    && ((ChatHandler.ChatResponseMessage) message).isSuccess();
+        }
+        JsonNode node = JsonUtil.getObjectMapper().readTree(new ByteBufInputStream(frame));
+        return node.path("success").asBoolean(false);
+    }
+    
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        ctx.close();
+    }
+    
+    /**
+     * 发送登录请求
+     */
+    public void login() {
+        LoginMessage message = new LoginMessage(username, "123456");
+        message.setClientVersion("loadtest");
+        send(message, pendingLogins, LoadStats.Op.LOGIN);
+    }
+    
+    /**
+     * 发送心跳
+     */
+    public void heartbeat() {
+        send(new HeartbeatMessage(), pendingHeartbeats, LoadStats.Op.HEARTBEAT);
+    }
+    
+    /**
+     * 发送世界聊天
+     */
+    public void worldChat() {
+        ChatMessage message = new ChatMessage();
+        message.setChannel(ChatMessage.ChatChannel.WORLD);
+        message.setContent("hello from " + username);
+        send(message, pendingChats, LoadStats.Op.WORLD_CHAT);
+    }
+    
+    /**
+     * 发送私聊
+     */
+    public void privateChat(String receiverId) {
+        ChatMessage message = new ChatMessage();
+        message.setChannel(ChatMessage.ChatChannel.PRIVATE);
+        message.setReceiverId(receiverId);
+        message.setContent("hi from " + username);
+        send(message, pendingChats, LoadStats.Op.PRIVATE_CHAT);
+    }
+    
+    private void send(Message message, PendingRequests pending, LoadStats.Op op) {
+        Channel ch = channel;
+        if (ch == null || !ch.isActive()) {
+            stats.recordFailed(op);
+            return;
+        }
+        if (ch.eventLoop().inEventLoop()) {
+            doSend(ch, message, pending, op);
+        } else {
+            ch.eventLoop().execute(() -> doSend(ch, message, pending, op));
+        }
+    }
+    
+    private void doSend(Channel ch, Message message, PendingRequests pending, LoadStats.Op op) {
+        pending.add(op, System.nanoTime());
+        stats.recordSent(op);
+        ch.writeAndFlush(message, ch.voidPromise());
+    }
+    
+    public void close() {
+        Channel ch = channel;
+        if (ch != null) {
+            ch.close();
+        }
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public String getPlayerId() {
+        return "player_" + username;
+    }
+    
+    public boolean isActive() {
+        Channel ch = channel;
+        return ch != null && ch.isActive();
+    }
+    
+    public boolean isLoggedIn() {
+        return loggedIn;
+    }
+    
+    public Channel getChannel() {
+        return channel;
+    }
+    
+    /**
+     * 待响应请求队列
+     * 基于数组的环形队列，保存发送时间和操作类型，避免每个请求分配对象
+     */
+    static class PendingRequests {
+        private long[] times = new long[16];
+        private LoadStats.Op[] ops = new LoadStats.Op[16];
+        private int head;
+        private int size;
+        
+        void add(LoadStats.Op op, long sendNanos) {
+            if (size == times.length) {
+                grow();
+            }
+            int tail = (head + size) & (times.length - 1);
+            times[tail] = sendNanos;
+            ops[tail] = op;
+            size++;
+        }
+        
+        boolean isEmpty() {
+            return size == 0;
+        }
+        
+        LoadStats.Op peekOp() {
+            return ops[head];
+        }
+        
+        long poll() {
+            long value = times[head];
+            head = (head + 1) & (times.length - 1);
+            size--;
+            return value;
+        }
+        
+        private void grow() {
+            long[] newTimes = new long[times.length * 2];
+            LoadStats.Op[] newOps = new LoadStats.Op[ops.length * 2];
+            for (int i = 0; i < size; i++) {
+                int from = (head + i) & (times.length - 1);
+                newTimes[i] = times[from];
+                newOps[i] = ops[from];
+            }
+            times = newTimes;
+            ops = newOps;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.jeffrey.gameserver.loadtest;
+
+import com.jeffrey.gameserver.network.codec.MessageEncoder;
+import com.jeffrey.gameserver.protocol.CodecType;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测工具
+ * 基于Netty建立大量连接，按脚本执行登录、心跳、聊天等场景，输出往返延迟分位数和吞吐量。
+ * 只需要本机运行的游戏服务器，不依赖其他基础设施。
+ * 
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass="com.jeffrey.gameserver.loadtest.LoadGenerator" \
+ *     -Dexec.args="--scenario chat-mix --connections 2000"
+ * </pre>
+ * 
+ * 参数：
+ * <ul>
+ *     <li>--host / --port: 服务器地址，默认 localhost:8888</li>
+ *     <li>--connections: 连接数，默认1000</li>
+ *     <li>--scenario: 内置场景 login-ramp / heartbeat / chat-mix / private-chat，默认 chat-mix</li>
+ *     <li>--script: 脚本文件路径，格式见 {@link LoadScript}</li>
+ *     <li>--threads: 客户端IO线程数，默认CPU核数</li>
+ *     <li>--codec: 消息格式 json / binary，默认json，非json时连接后先发送握手帧</li>
+ * </ul>
+ * 
+ * @author jeffrey
+ */
+public class LoadGenerator {
+    
+    /** 等待响应的最长时间(秒) */
+    private static final int RESPONSE_TIMEOUT_SECONDS = 30;
+    
+    private static final int MAX_FRAME_LENGTH = 1024 * 1024;
+    
+    private final String host;
+    private final int port;
+    private final int defaultConnections;
+    private final CodecType codec;
+    private final EventLoopGroup group;
+    private final Bootstrap bootstrap;
+    private final LoadStats stats = new LoadStats();
+    private final List<LoadConnection> connections = new ArrayList<>();
+    
+    public LoadGenerator(String host, int port, int defaultConnections, int threads) {
+        this(host, port, defaultConnections, threads, CodecType.JSON);
+    }
+    
+    public LoadGenerator(String host, int port, int defaultConnections, int threads, CodecType codec) {
+        this.host = host;
+        this.port = port;
+        this.defaultConnections = defaultConnections;
+        this.codec = codec;
+        this.group = new NioEventLoopGroup(threads);
+        this.bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = 8888;
+        int connections = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String scenario = "chat-mix";
+        String scriptFile = null;
+        CodecType codec = CodecType.JSON;
+        
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--host":
+                    host = args[i + 1];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--scenario":
+                    scenario = args[i + 1];
+                    break;
+                case "--script":
+                    scriptFile = args[i + 1];
+                    break;
+                case "--codec":
+                    codec = CodecType.fromName(args[i + 1]);
+                    if (codec == null) {
+                        System.err.println("Unknown codec: " + args[i + 1]);
+                        return;
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println("Built-in scenarios: " + LoadScript.builtInNames());
+                    return;
+            }
+        }
+        
+        LoadScript script = scriptFile != null ? LoadScript.fromFile(scriptFile) : LoadScript.builtIn(scenario);
+        LoadGenerator generator = new LoadGenerator(host, port, connections, threads, codec);
+        try {
+            generator.run(script);
+        } finally {
+            generator.shutdown();
+        }
+    }
+    
+    /**
+     * 执行脚本
+     */
+    public void run(LoadScript script) throws InterruptedException {
+        System.out.println("Running load script '" + script.getName() + "' against " + host + ":" + port
+                + " (" + codec.getFormatName() + ")");
+        for (LoadScript.Step step : script.getSteps()) {
+            System.out.println("> " + step);
+            switch (step.getCommand()) {
+                case "connect":
+                    connect((int) step.arg(0, defaultConnections), step.arg(1, 0));
+                    break;
+                case "login":
+                    login();
+                    break;
+                case "heartbeat":
+                    runPeriodic((long) step.arg(0, 1000), step.arg(1, 10), LoadConnection::heartbeat);
+                    break;
+                case "chat":
+                    double worldRatio = step.arg(0, 10) / 100.0;
+                    runAtRate(step.arg(1, 1), step.arg(2, 10), connection -> {
+                        if (ThreadLocalRandom.current().nextDouble() < worldRatio) {
+                            connection.worldChat();
+                        } else {
+                            connection.privateChat(randomPeer(connection));
+                        }
+                    });
+                    break;
+                case "private":
+                    runAtRate(step.arg(0, 1), step.arg(1, 10), 
+                            connection -> connection.privateChat(randomPeer(connection)));
+                    break;
+                case "sleep":
+                    Thread.sleep((long) (step.arg(0, 1) * 1000));
+                    break;
+                case "report":
+                    System.out.print(stats.report(script.getName()));
+                    stats.reset();
+                    break;
+                case "disconnect":
+                    disconnect();
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported command: " + step.getCommand());
+            }
+        }
+    }
+    
+    /**
+     * 在rampSeconds内均匀建立连接
+     */
+    private void connect(int count, double rampSeconds) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(count);
+        long rampNanos = (long) (rampSeconds * 1_000_000_000L);
+        long start = System.nanoTime();
+        int firstIndex = connections.size();
+        
+        for (int i = 0; i < count; i++) {
+            long due = start + (count > 1 ? rampNanos * i / (count - 1) : 0);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            
+            LoadConnection connection = new LoadConnection(firstIndex + i, stats, codec);
+            connections.add(connection);
+            long connectStart = System.nanoTime();
+            stats.recordSent(LoadStats.Op.CONNECT);
+            ChannelFuture future = bootstrap.clone().handler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel ch) throws Exception {
+                    ChannelPipeline pipeline = ch.pipeline();
+                    pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 0, 4, 0, 4));
+                    pipeline.addLast("frameEncoder", new LengthFieldPrepender(4));
+                    pipeline.addLast("messageEncoder", new MessageEncoder(LoadConnection.ENCODER_METRICS));
+                    pipeline.addLast("loadConnection", connection);
+                }
+            }).connect(host, port);
+            future.addListener(f -> {
+                stats.recordCompleted(LoadStats.Op.CONNECT, System.nanoTime() - connectStart, f.isSuccess());
+                latch.countDown();
+            });
+        }
+        
+        if (!latch.await(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            System.out.println("Timed out waiting for connections, pending: " + latch.getCount());
+        }
+    }
+    
+    /**
+     * 所有活跃连接登录并等待响应
+     */
+    private void login() throws InterruptedException {
+        long target = stats.getCompleted(LoadStats.Op.LOGIN);
+        for (LoadConnection connection : connections) {
+            if (connection.isActive() && !connection.isLoggedIn()) {
+                connection.login();
+                target++;
+            }
+        }
+        awaitCompleted(LoadStats.Op.LOGIN, target);
+    }
+    
+    private void awaitCompleted(LoadStats.Op op, long target) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(RESPONSE_TIMEOUT_SECONDS);
+        while (stats.getCompleted(op) < target && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        if (stats.getCompleted(op) < target) {
+            System.out.println("Timed out waiting for " + op + " responses: " 
+                    + stats.getCompleted(op) + "/" + target);
+        }
+    }
+    
+    /**
+     * 每个连接按固定间隔执行动作，首次执行时间随机打散
+     */
+    private void runPeriodic(long intervalMillis, double seconds, Action action) throws InterruptedException {
+        List<ScheduledFuture<?>> futures = new ArrayList<>();
+        for (LoadConnection connection : connections) {
+            if (!connection.isActive()) {
+                continue;
+            }
+            long initialDelay = ThreadLocalRandom.current().nextLong(Math.max(1, intervalMillis));
+            futures.add(connection.getChannel().eventLoop().scheduleAtFixedRate(
+                    () -> action.run(connection), initialDelay, intervalMillis, TimeUnit.MILLISECONDS));
+        }
+        Thread.sleep((long) (seconds * 1000));
+        for (ScheduledFuture<?> future : futures) {
+            future.cancel(false);
+        }
+        // 给在途请求留出返回时间
+        Thread.sleep(1000);
+    }
+    
+    private void runAtRate(double perConnectionRate, double seconds, Action action) throws InterruptedException {
+        long intervalMillis = Math.max(1, (long) (1000 / perConnectionRate));
+        runPeriodic(intervalMillis, seconds, action);
+    }
+    
+    private String randomPeer(LoadConnection self) {
+        int size = connections.size();
+        if (size <= 1) {
+            return self.getPlayerId();
+        }
+        int index = ThreadLocalRandom.current().nextInt(size - 1);
+        if (index >= self.getIndex()) {
+            index++;
+        }
+        return connections.get(index).getPlayerId();
+    }
+    
+    private void disconnect() {
+        for (LoadConnection connection : connections) {
+            connection.close();
+        }
+        connections.clear();
+    }
+    
+    public void shutdown() {
+        disconnect();
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+    
+    /**
+     * 对单个连接执行的动作
+     */
+    private interface Action {
+        void run(LoadConnection connection);
+    }
+}
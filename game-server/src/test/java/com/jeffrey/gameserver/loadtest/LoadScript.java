@@ -0,0 +1,189 @@
+package com.jeffrey.gameserver.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测脚本
+ * 每行一个步骤，# 开头为注释，按顺序执行：
+ * <pre>
+ * connect [count] [rampSeconds]            # 在rampSeconds内均匀建立count个连接，省略count时使用 --connections
+ * login                                    # 所有连接登录并等待响应
+ * heartbeat &lt;intervalMillis&gt; &lt;seconds&gt;     # 每个连接按固定间隔发送心跳
+ * chat &lt;worldPercent&gt; &lt;perConnRate&gt; &lt;seconds&gt;  # 每个连接每秒perConnRate条聊天，其中worldPercent%为世界聊天，其余为私聊
+ * private &lt;perConnRate&gt; &lt;seconds&gt;         # 只发私聊
+ * sleep &lt;seconds&gt;
+ * report                                   # 输出并清空当前统计
+ * disconnect
+ * </pre>
+ * 
+ * @author jeffrey
+ */
+public class LoadScript {
+    
+    /** 内置场景 */
+    private static final Map<String, String> BUILT_IN = new LinkedHashMap<>();
+    
+    static {
+        BUILT_IN.put("login-ramp", String.join("\n",
+                "connect * 10",
+                "login",
+                "report",
+                "sleep 2",
+                "disconnect"));
+        BUILT_IN.put("heartbeat", String.join("\n",
+                "connect * 5",
+                "login",
+                "report",
+                "heartbeat 1000 30",
+                "report",
+                "disconnect"));
+        BUILT_IN.put("chat-mix", String.join("\n",
+                "connect * 5",
+                "login",
+                "report",
+                "chat 10 0.5 30",
+                "report",
+                "disconnect"));
+        BUILT_IN.put("private-chat", String.join("\n",
+                "connect * 5",
+                "login",
+                "report",
+                "private 2 30",
+                "report",
+                "disconnect"));
+    }
+    
+    private final String name;
+    private final List<Step> steps;
+    
+    private LoadScript(String name, List<Step> steps) {
+        this.name = name;
+        this.steps = steps;
+    }
+    
+    /**
+     * 加载内置场景
+     */
+    public static LoadScript builtIn(String scenario) {
+        String text = BUILT_IN.get(scenario);
+        if (text == null) {
+            throw new IllegalArgumentException("Unknown scenario: " + scenario + ", available: " + BUILT_IN.keySet());
+        }
+        return parse(scenario, text);
+    }
+    
+    /**
+     * 从文件加载脚本
+     */
+    public static LoadScript fromFile(String path) throws IOException {
+        return parse(path, new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析脚本文本
+     */
+    public static LoadScript parse(String name, String text) {
+        List<Step> steps = new ArrayList<>();
+        String[] lines = text.split("\\r?\\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            Step step = new Step(parts[0].toLowerCase(), Arrays.copyOfRange(parts, 1, parts.length), i + 1);
+            step.validate();
+            steps.add(step);
+        }
+        return new LoadScript(name, Collections.unmodifiableList(steps));
+    }
+    
+    public static Iterable<String> builtInNames() {
+        return BUILT_IN.keySet();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public List<Step> getSteps() {
+        return steps;
+    }
+    
+    /**
+     * 脚本步骤
+     */
+    public static class Step {
+        private final String command;
+        private final String[] args;
+        private final int line;
+        
+        Step(String command, String[] args, int line) {
+            this.command = command;
+            this.args = args;
+            this.line = line;
+        }
+        
+        void validate() {
+            switch (command) {
+                case "connect":
+                case "login":
+                case "report":
+                case "disconnect":
+                    break;
+                case "sleep":
+                    requireArgs(1);
+                    break;
+                case "heartbeat":
+                case "private":
+                    requireArgs(2);
+                    break;
+                case "chat":
+                    requireArgs(3);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command at line " + line + ": " + command);
+            }
+        }
+        
+        private void requireArgs(int count) {
+            if (args.length < count) {
+                throw new IllegalArgumentException("Command '" + command + "' at line " + line 
+                        + " requires " + count + " arguments");
+            }
+        }
+        
+        public String getCommand() {
+            return command;
+        }
+        
+        /**
+         * 获取数值参数，参数缺省或为 * 时返回默认值
+         */
+        public double arg(int index, double defaultValue) {
+            if (index >= args.length || "*".equals(args[index])) {
+                return defaultValue;
+            }
+            return Double.parseDouble(args[index]);
+        }
+        
+        @Override
+        public String toString() {
+            return command + (args.length > 0 ? " " + String.join(" ", args) : "");
+        }
+    }
+}
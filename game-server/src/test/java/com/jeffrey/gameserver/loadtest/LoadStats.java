@@ -0,0 +1,130 @@
+package com.jeffrey.gameserver.loadtest;
+
+import com.jeffrey.gameserver.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 压测统计
+ * 每种操作一组计数器和往返延迟直方图，由所有连接的EventLoop线程并发写入。
+ * 
+ * @author jeffrey
+ */
+public class LoadStats {
+    
+    /**
+     * 压测操作类型
+     */
+    public enum Op {
+        /** 建立连接 */
+        CONNECT,
+        /** 登录 */
+        LOGIN,
+        /** 心跳 */
+        HEARTBEAT,
+        /** 世界聊天 */
+        WORLD_CHAT,
+        /** 私聊 */
+        PRIVATE_CHAT
+    }
+    
+    private static final Op[] OPS = Op.values();
+    
+    private final AtomicLongArray sent = new AtomicLongArray(OPS.length);
+    private final AtomicLongArray completed = new AtomicLongArray(OPS.length);
+    private final AtomicLongArray failed = new AtomicLongArray(OPS.length);
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPS.length];
+    
+    /** 收到的其他玩家广播/私聊消息数 */
+    private final AtomicLong pushedMessages = new AtomicLong();
+    
+    /** 收到的字节数 */
+    private final AtomicLong receivedBytes = new AtomicLong();
+    
+    private volatile long startNanos = System.nanoTime();
+    
+    public LoadStats() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+    
+    public void recordSent(Op op) {
+        sent.incrementAndGet(op.ordinal());
+    }
+    
+    public void recordCompleted(Op op, long rttNanos, boolean success) {
+        completed.incrementAndGet(op.ordinal());
+        if (!success) {
+            failed.incrementAndGet(op.ordinal());
+        }
+        latencies[op.ordinal()].record(rttNanos);
+    }
+    
+    public void recordFailed(Op op) {
+        failed.incrementAndGet(op.ordinal());
+    }
+    
+    public void recordPushed() {
+        pushedMessages.incrementAndGet();
+    }
+    
+    public void recordReceivedBytes(int bytes) {
+        receivedBytes.addAndGet(bytes);
+    }
+    
+    public long getCompleted(Op op) {
+        return completed.get(op.ordinal());
+    }
+    
+    public long getFailed(Op op) {
+        return failed.get(op.ordinal());
+    }
+    
+    /**
+     * 清空统计并重新开始计时，用于按阶段输出报告
+     */
+    public void reset() {
+        for (int i = 0; i < OPS.length; i++) {
+            sent.set(i, 0);
+            completed.set(i, 0);
+            failed.set(i, 0);
+            latencies[i].reset();
+        }
+        pushedMessages.set(0);
+        receivedBytes.set(0);
+        startNanos = System.nanoTime();
+    }
+    
+    /**
+     * 生成报告
+     */
+    public String report(String title) {
+        double elapsedSeconds = Math.max(0.001, (System.nanoTime() - startNanos) / 1_000_000_000.0);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("=== %s (%.1fs) ===%n", title, elapsedSeconds));
+        sb.append(String.format("%-13s %9s %9s %7s %10s %9s %9s %9s %9s %9s%n",
+                "op", "sent", "done", "failed", "ops/s", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+        for (Op op : OPS) {
+            int i = op.ordinal();
+            if (sent.get(i) == 0 && completed.get(i) == 0 && failed.get(i) == 0) {
+                continue;
+            }
+            LatencyHistogram histogram = latencies[i];
+            sb.append(String.format("%-13s %9d %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    op.name(), sent.get(i), completed.get(i), failed.get(i),
+                    completed.get(i) / elapsedSeconds,
+                    toMillis(histogram.getPercentile(50)), toMillis(histogram.getPercentile(90)),
+                    toMillis(histogram.getPercentile(99)), toMillis(histogram.getPercentile(99.9)),
+                    toMillis(histogram.getMax())));
+        }
+        sb.append(String.format("pushed messages: %d (%.1f/s), received: %.2f MB%n",
+                pushedMessages.get(), pushedMessages.get() / elapsedSeconds, receivedBytes.get() / 1048576.0));
+        return sb.toString();
+    }
+    
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,114 @@
+package com.jeffrey.gameserver.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 统计丢弃数量的异步Appender测试
+ * 
+ * @author jeffrey
+ */
+public class DropReportingAsyncAppenderTest {
+    
+    private final LoggerContext context = new LoggerContext();
+    
+    @Test
+    public void testNeverBlockDropsCountedUnderConcurrency() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingAppender target = new CountingAppender(release);
+        DropReportingAsyncAppender appender = createAppender(target, 16, 0, true);
+        
+        int threads = 4;
+        int perThread = 1000;
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    appender.doAppend(event(Level.WARN));
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        release.countDown();
+        appender.stop();
+        
+        // 每个事件要么进入队列被写出，要么计为丢弃
+        assertTrue(appender.getDroppedCount() > 0);
+        assertEquals(threads * perThread, appender.getAppendedCount() + appender.getDroppedCount());
+        assertEquals(appender.getAppendedCount(), target.count.get());
+    }
+    
+    @Test
+    public void testDiscardingThresholdDropsOnlyInfoAndBelow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingAppender target = new CountingAppender(release);
+        DropReportingAsyncAppender appender = createAppender(target, 64, 32, false);
+        
+        for (int i = 0; i < 40; i++) {
+            appender.doAppend(event(Level.INFO));
+        }
+        for (int i = 0; i < 10; i++) {
+            appender.doAppend(event(Level.ERROR));
+        }
+        release.countDown();
+        appender.stop();
+        
+        assertEquals(50, appender.getAppendedCount() + appender.getDroppedCount());
+        assertTrue(appender.getDroppedCount() > 0);
+        assertEquals(appender.getAppendedCount(), target.count.get());
+    }
+    
+    private DropReportingAsyncAppender createAppender(CountingAppender target, int queueSize,
+                                                      int discardingThreshold, boolean neverBlock) {
+        target.setContext(context);
+        target.start();
+        DropReportingAsyncAppender appender = new DropReportingAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(queueSize);
+        appender.setDiscardingThreshold(discardingThreshold);
+        appender.setNeverBlock(neverBlock);
+        appender.addAppender(target);
+        appender.start();
+        return appender;
+    }
+    
+    private ILoggingEvent event(Level level) {
+        return new LoggingEvent(getClass().getName(), context.getLogger("test"), level, "message", null, null);
+    }
+    
+    /**
+     * 第一个事件上阻塞到 release，让队列积压
+     */
+    private static class CountingAppender extends AppenderBase<ILoggingEvent> {
+        
+        private final CountDownLatch release;
+        private final AtomicLong count = new AtomicLong();
+        
+        CountingAppender(CountDownLatch release) {
+            this.release = release;
+        }
+        
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            count.incrementAndGet();
+        }
+    }
+}
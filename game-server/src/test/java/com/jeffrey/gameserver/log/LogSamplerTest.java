@@ -0,0 +1,65 @@
+package com.jeffrey.gameserver.log;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 日志采样与限流测试
+ * 
+ * @author jeffrey
+ */
+public class LogSamplerTest {
+    
+    @Test
+    public void testSampling() {
+        LogSampler sampler = new LogSampler("test-sample", 10, 0);
+        int accepted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (sampler.tryAcquire()) {
+                accepted++;
+            }
+        }
+        assertEquals(100, accepted);
+        assertEquals(900, sampler.getSuppressedCount());
+    }
+    
+    @Test
+    public void testRateLimit() {
+        LogSampler sampler = new LogSampler("test-rate", 1, 50);
+        int accepted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (sampler.tryAcquire()) {
+                accepted++;
+            }
+        }
+        // 循环可能跨越一个窗口边界
+        assertTrue("accepted=" + accepted, accepted >= 50 && accepted <= 100);
+        assertEquals(10_000 - accepted, sampler.getSuppressedCount());
+        assertEquals(10_000 - accepted, sampler.drainSuppressedSinceLastReport());
+        assertEquals(0, sampler.drainSuppressedSinceLastReport());
+    }
+    
+    @Test
+    public void testSuppressedEventsAreNotFormatted() {
+        HotPathLogger logger = HotPathLogger.getLogger(LogSamplerTest.class, "test-format");
+        CountingArg arg = new CountingArg();
+        for (int i = 0; i < 10_000; i++) {
+            logger.info("value={}", arg);
+        }
+        LogSampler sampler = HotPathLogger.sampler("test-format");
+        assertEquals(sampler.getAcceptedCount(), arg.formatted);
+        assertTrue(sampler.getSuppressedCount() > 0);
+    }
+    
+    private static class CountingArg {
+        int formatted;
+        
+        @Override
+        public String toString() {
+            formatted++;
+            return "arg";
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.jeffrey.gameserver.metrics;
+
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.session.SessionManager;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 指标统计测试
+ * 
+ * @author jeffrey
+ */
+public class MessageMetricsTest {
+    
+    @Test
+    public void testBucketBoundsAreContiguous() {
+        long previousUpper = -1;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long upper = LatencyHistogram.bucketUpperBound(i);
+            assertTrue(upper > previousUpper);
+            assertEquals(i, LatencyHistogram.bucketIndex(previousUpper + 1));
+            assertEquals(i, LatencyHistogram.bucketIndex(upper));
+            previousUpper = upper;
+        }
+    }
+    
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000L, histogram.getMax());
+        assertEquals(500_500.0, histogram.getMean(), 0.001);
+        
+        // 对数分桶的相对误差不超过12.5%
+        long p50 = histogram.getPercentile(50);
+        assertTrue("p50=" + p50, p50 >= 500_000 && p50 <= 562_500);
+        long p99 = histogram.getPercentile(99);
+        assertTrue("p99=" + p99, p99 >= 990_000 && p99 <= 1_000_000);
+        assertEquals(1_000_000L, histogram.getPercentile(100));
+    }
+    
+    @Test
+    public void testRecordPerTypeAndStage() {
+        MessageMetrics metrics = new MessageMetrics();
+        metrics.record(MessageType.CHAT, MessageMetrics.Stage.DECODE, 120, 5_000);
+        metrics.record(MessageType.CHAT, MessageMetrics.Stage.DECODE, 80, 7_000);
+        metrics.record(MessageType.CHAT, MessageMetrics.Stage.HANDLE, 0, 9_000);
+        
+        assertEquals(2, metrics.getCount(MessageType.CHAT, MessageMetrics.Stage.DECODE));
+        assertEquals(200, metrics.getBytes(MessageType.CHAT, MessageMetrics.Stage.DECODE));
+        assertEquals(1, metrics.getCount(MessageType.CHAT, MessageMetrics.Stage.HANDLE));
+        assertEquals(0, metrics.getCount(MessageType.LOGIN, MessageMetrics.Stage.DECODE));
+    }
+    
+    @Test
+    public void testJmxExport() throws Exception {
+        MessageMetrics metrics = new MessageMetrics();
+        SessionManager sessionManager = new SessionManager();
+        MetricsJmxExporter exporter = new MetricsJmxExporter(metrics, sessionManager, "metrics-test");
+        exporter.register();
+        try {
+            metrics.record(MessageType.LOGIN, MessageMetrics.Stage.ENCODE, 64, 3_000);
+            
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(
+                    "com.jeffrey.gameserver:type=MessageMetrics,server=\"metrics-test\",name=LOGIN");
+            CompositeData encode = (CompositeData) mBeanServer.getAttribute(name, "Encode");
+            assertEquals(1L, encode.get("count"));
+            assertEquals(64L, encode.get("bytes"));
+            
+            ObjectName serverName = new ObjectName("com.jeffrey.gameserver:type=Server,server=\"metrics-test\"");
+            assertEquals(0, mBeanServer.getAttribute(serverName, "SessionCount"));
+        } finally {
+            exporter.unregister();
+            sessionManager.shutdown();
+        }
+    }
+}
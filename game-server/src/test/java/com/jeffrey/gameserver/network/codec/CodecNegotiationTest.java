@@ -0,0 +1,139 @@
+package com.jeffrey.gameserver.network.codec;
+
+import com.jeffrey.gameserver.handler.LoginHandler;
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import com.jeffrey.gameserver.protocol.messages.LoginMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 编码格式协商测试
+ * 
+ * @author jeffrey
+ */
+public class CodecNegotiationTest {
+    
+    private final MessageMetrics metrics = new MessageMetrics();
+    
+    private EmbeddedChannel newChannel(EnumSet<CodecType> enabledCodecs) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast("codecNegotiator", new CodecNegotiationHandler(enabledCodecs, metrics));
+        channel.pipeline().addLast("messageDecoder", new MessageDecoder(metrics));
+        channel.pipeline().addLast("messageEncoder", new MessageEncoder(metrics));
+        return channel;
+    }
+    
+    @Test
+    public void testBinaryHandshake() throws Exception {
+        EmbeddedChannel channel = newChannel(EnumSet.allOf(CodecType.class));
+        channel.writeInbound(CodecNegotiationHandler.writeHandshake(Unpooled.buffer(), CodecType.BINARY));
+        
+        ByteBuf ack = channel.readOutbound();
+        assertEquals(CodecType.BINARY, CodecNegotiationHandler.readHandshake(ack));
+        ack.release();
+        assertNull(channel.pipeline().get("codecNegotiator"));
+        assertEquals(CodecType.BINARY, channel.attr(CodecType.CODEC_KEY).get());
+        
+        // 之后的帧按二进制解码
+        LoginMessage login = new LoginMessage("alice", "secret");
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeInt(MessageType.LOGIN.getCode());
+        BinaryMessageCodec.INSTANCE.encode(login, frame);
+        channel.writeInbound(frame);
+        
+        LoginMessage decoded = channel.readInbound();
+        assertEquals("alice", decoded.getUsername());
+        assertEquals("secret", decoded.getPassword());
+        assertEquals(login.getMessageId(), decoded.getMessageId());
+        
+        // 出站消息也按二进制编码
+        channel.writeOutbound(new LoginHandler.LoginResponseMessage());
+        ByteBuf out = channel.readOutbound();
+        assertEquals(MessageType.LOGIN_RESPONSE.getCode(), out.readInt());
+        assertTrue(out.getByte(out.readerIndex()) != '{');
+        out.release();
+        
+        assertEquals(1, metrics.getConnections(CodecType.BINARY));
+        assertEquals(1, metrics.getFrames(CodecType.BINARY, MessageMetrics.Direction.INBOUND));
+        assertEquals(1, metrics.getFrames(CodecType.BINARY, MessageMetrics.Direction.OUTBOUND));
+        assertEquals(100.0, metrics.getByteSharePercent(CodecType.BINARY), 0.001);
+    }
+    
+    @Test
+    public void testNoHandshakeDefaultsToJson() {
+        EmbeddedChannel channel = newChannel(EnumSet.allOf(CodecType.class));
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeInt(MessageType.LOGIN.getCode());
+        frame.writeCharSequence("{\"messageType\":\"LOGIN\",\"username\":\"bob\",\"password\":\"pw\"}", StandardCharsets.UTF_8);
+        channel.writeInbound(frame);
+        
+        LoginMessage decoded = channel.readInbound();
+        assertEquals("bob", decoded.getUsername());
+        assertNull(channel.readOutbound());
+        assertNull(channel.pipeline().get("codecNegotiator"));
+        assertEquals(CodecType.JSON, channel.attr(CodecType.CODEC_KEY).get());
+        assertEquals(1, metrics.getConnections(CodecType.JSON));
+    }
+    
+    @Test
+    public void testDisabledCodecFallsBackToJson() {
+        EmbeddedChannel channel = newChannel(EnumSet.of(CodecType.JSON));
+        channel.writeInbound(CodecNegotiationHandler.writeHandshake(Unpooled.buffer(), CodecType.BINARY));
+        
+        ByteBuf ack = channel.readOutbound();
+        assertEquals(CodecType.JSON, CodecNegotiationHandler.readHandshake(ack));
+        ack.release();
+        assertTrue(channel.pipeline().get(MessageDecoder.class).getCodec() instanceof JsonMessageCodec);
+    }
+    
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        ChatMessage chat = new ChatMessage("p1", "玩家一", "你好, world", ChatMessage.ChatChannel.PRIVATE);
+        chat.setReceiverId("p2");
+        
+        ByteBuf buf = Unpooled.buffer();
+        BinaryMessageCodec.INSTANCE.encode(chat, buf);
+        ChatMessage decoded = (ChatMessage) BinaryMessageCodec.INSTANCE.decode(MessageType.CHAT, buf);
+        
+        assertEquals(0, buf.readableBytes());
+        assertEquals(chat.getMessageId(), decoded.getMessageId());
+        assertEquals(chat.getTimestamp(), decoded.getTimestamp());
+        assertEquals("p1", decoded.getSenderId());
+        assertEquals("玩家一", decoded.getSenderName());
+        assertEquals("p2", decoded.getReceiverId());
+        assertEquals("你好, world", decoded.getContent());
+        assertEquals(ChatMessage.ChatChannel.PRIVATE, decoded.getChannel());
+        
+        // null字段
+        buf.clear();
+        BinaryMessageCodec.INSTANCE.encode(new ChatMessage(), buf);
+        Message empty = BinaryMessageCodec.INSTANCE.decode(MessageType.CHAT, buf);
+        assertNull(((ChatMessage) empty).getContent());
+        assertNull(((ChatMessage) empty).getChannel());
+    }
+    
+    @Test
+    public void testVarInt() {
+        ByteBuf buf = Unpooled.buffer();
+        int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE};
+        for (int value : values) {
+            BinaryMessageCodec.writeVarInt(buf, value);
+        }
+        for (int value : values) {
+            assertEquals(value, BinaryMessageCodec.readVarInt(buf));
+        }
+    }
+}
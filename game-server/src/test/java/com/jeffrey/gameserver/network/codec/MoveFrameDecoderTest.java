@@ -0,0 +1,84 @@
+package com.jeffrey.gameserver.network.codec;
+
+import com.jeffrey.gameserver.metrics.MessageMetrics;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.session.GameSession;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 移动帧解码器测试
+ *
+ * @author jeffrey
+ */
+public class MoveFrameDecoderTest {
+    
+    private final MessageMetrics metrics = new MessageMetrics();
+    
+    @Test
+    public void testPackRoundTrip() {
+        long move = MoveFrameDecoder.pack(123456, 0.5f, -1f);
+        assertEquals(123456, MoveFrameDecoder.inputSeq(move));
+        assertEquals(0.5f, MoveFrameDecoder.moveX(move), 0.0001f);
+        assertEquals(-1f, MoveFrameDecoder.moveY(move), 0.0001f);
+        
+        // 超出范围的方向被截断
+        long clamped = MoveFrameDecoder.pack(-1, 3f, -3f);
+        assertEquals(-1, MoveFrameDecoder.inputSeq(clamped));
+        assertEquals(1f, MoveFrameDecoder.moveX(clamped), 0.0001f);
+        assertEquals(-1f, MoveFrameDecoder.moveY(clamped), 0.0001f);
+    }
+    
+    @Test
+    public void testLatestMoveKeptWithoutMessage() {
+        EmbeddedChannel channel = newChannel(true);
+        GameSession session = channel.attr(GameSession.SESSION_KEY).get();
+        
+        ByteBuf first = MoveFrameDecoder.writeMove(Unpooled.buffer(), 1, 1f, 0f);
+        ByteBuf second = MoveFrameDecoder.writeMove(Unpooled.buffer(), 2, 0f, 1f);
+        channel.writeInbound(first, second);
+        
+        // 帧被消费并释放，不会传给后续的消息解码器
+        assertNull(channel.readInbound());
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+        assertEquals(2, MoveFrameDecoder.inputSeq(session.getMoveInput()));
+        assertEquals(1f, MoveFrameDecoder.moveY(session.getMoveInput()), 0.0001f);
+        assertEquals(2, metrics.getCount(MessageType.MOVE, MessageMetrics.Stage.DECODE));
+    }
+    
+    @Test
+    public void testMoveIgnoredBeforeLogin() {
+        EmbeddedChannel channel = newChannel(false);
+        GameSession session = channel.attr(GameSession.SESSION_KEY).get();
+        
+        channel.writeInbound(MoveFrameDecoder.writeMove(Unpooled.buffer(), 1, 1f, 0f));
+        assertNull(channel.readInbound());
+        assertEquals(0, session.getMoveInput());
+    }
+    
+    @Test
+    public void testOtherFramesPassThrough() {
+        EmbeddedChannel channel = newChannel(true);
+        ByteBuf frame = Unpooled.buffer().writeInt(MessageType.HEARTBEAT.getCode());
+        channel.writeInbound(frame);
+        
+        ByteBuf passed = channel.readInbound();
+        assertSame(frame, passed);
+        passed.release();
+    }
+    
+    private EmbeddedChannel newChannel(boolean authenticated) {
+        EmbeddedChannel channel = new EmbeddedChannel(new MoveFrameDecoder(metrics));
+        GameSession session = new GameSession(channel);
+        session.setAuthenticated(authenticated);
+        channel.attr(GameSession.SESSION_KEY).set(session);
+        return channel;
+    }
+}
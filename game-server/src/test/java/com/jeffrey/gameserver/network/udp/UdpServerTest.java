@@ -0,0 +1,195 @@
+package com.jeffrey.gameserver.network.udp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jeffrey.gameserver.GameServer;
+import com.jeffrey.gameserver.config.ServerConfig;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.util.JsonUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UDP服务器测试
+ * 客户端用TCP登录拿到令牌，之后场景输入和状态同步经UDP收发
+ *
+ * @author jeffrey
+ */
+public class UdpServerTest {
+    
+    private GameServer server;
+    private long token;
+    private int udpPort;
+    
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+    
+    @Test
+    public void testSceneInputAndStateSyncOverUdp() throws Exception {
+        startServer(1200);
+        try (Socket tcp = connect(); DatagramSocket udp = new DatagramSocket()) {
+            udp.setSoTimeout(5000);
+            login(tcp, "alice");
+            
+            // 心跳数据报绑定地址，回复经UDP返回
+            sendDatagram(udp, token, 1, MessageType.HEARTBEAT, "{\"messageType\":\"HEARTBEAT\"}");
+            ByteBuffer reply = receiveDatagram(udp);
+            assertEquals(1, reply.getInt());
+            assertEquals(MessageType.HEARTBEAT.getCode(), reply.getInt());
+            
+            // 进入场景后的全量快照经UDP到达
+            writeFrame(tcp, MessageType.SCENE_JOIN, "{\"messageType\":\"SCENE_JOIN\",\"sceneId\":1}");
+            ByteBuffer snapshot = receiveDatagram(udp);
+            int lastSeq = snapshot.getInt();
+            assertEquals(2, lastSeq);
+            assertEquals(MessageType.STATE_SYNC.getCode(), snapshot.getInt());
+            
+            // 之后的状态同步回带经UDP发送的输入序号，数据报序号递增
+            sendDatagram(udp, token, 2, MessageType.SCENE_INPUT,
+                    "{\"messageType\":\"SCENE_INPUT\",\"inputSeq\":7,\"moveX\":1.0,\"moveY\":0.0}");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (true) {
+                assertTrue("no state sync with input seq", System.currentTimeMillis() < deadline);
+                ByteBuffer datagram = receiveDatagram(udp);
+                int seq = datagram.getInt();
+                assertTrue(seq > lastSeq);
+                lastSeq = seq;
+                assertEquals(MessageType.STATE_SYNC.getCode(), datagram.getInt());
+                String body = StandardCharsets.UTF_8.decode(datagram).toString();
+                if (body.contains("\"lastInputSeq\":7")) {
+                    break;
+                }
+            }
+            
+            // 重放旧序号、无效令牌和不允许的类型都被丢弃
+            long dropped = server.getUdpServer().getDroppedCount();
+            sendDatagram(udp, token, 2, MessageType.SCENE_INPUT,
+                    "{\"messageType\":\"SCENE_INPUT\",\"inputSeq\":9,\"moveX\":0.0,\"moveY\":1.0}");
+            sendDatagram(udp, token + 1, 3, MessageType.SCENE_INPUT,
+                    "{\"messageType\":\"SCENE_INPUT\",\"inputSeq\":9,\"moveX\":0.0,\"moveY\":1.0}");
+            sendDatagram(udp, token, 4, MessageType.CHAT,
+                    "{\"messageType\":\"CHAT\",\"channel\":\"WORLD\",\"content\":\"hi\"}");
+            awaitTrue("datagrams not dropped", () -> server.getUdpServer().getDroppedCount() == dropped + 3);
+        }
+    }
+    
+    @Test
+    public void testOversizedMessageFallsBackToTcp() throws Exception {
+        startServer(16);
+        try (Socket tcp = connect(); DatagramSocket udp = new DatagramSocket()) {
+            login(tcp, "bob");
+            
+            sendDatagram(udp, token, 1, MessageType.HEARTBEAT, "{\"messageType\":\"HEARTBEAT\"}");
+            readFrame(tcp, MessageType.HEARTBEAT);
+        }
+    }
+    
+    @Test
+    public void testSequenceWrapsAround() {
+        UdpLink link = new UdpLink(null, null, null, EnumSet.noneOf(MessageType.class), 0);
+        assertTrue(link.accept(Integer.MAX_VALUE));
+        assertTrue(link.accept(Integer.MIN_VALUE));
+        assertFalse(link.accept(Integer.MAX_VALUE));
+        assertFalse(link.accept(Integer.MIN_VALUE));
+        assertTrue(link.accept(Integer.MIN_VALUE + 1));
+    }
+    
+    private void startServer(int maxDatagramSize) throws IOException {
+        try (DatagramSocket probe = new DatagramSocket()) {
+            udpPort = probe.getLocalPort();
+        }
+        ServerConfig config = new ServerConfig();
+        config.setHost("127.0.0.1");
+        config.setPort(freePort());
+        config.setUdpPort(udpPort);
+        config.setUdpMaxDatagramSize(maxDatagramSize);
+        config.setAdminEnabled(false);
+        config.setSceneCount(1);
+        server = new GameServer(config);
+        server.start();
+    }
+    
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", server.getConfig().getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+    
+    private void login(Socket socket, String username) throws IOException {
+        writeFrame(socket, MessageType.LOGIN, "{\"messageType\":\"LOGIN\",\"username\":\"" + username
+                + "\",\"password\":\"123456\"}");
+        JsonNode response = JsonUtil.getObjectMapper().readTree(readFrame(socket, MessageType.LOGIN_RESPONSE));
+        assertTrue(response.toString(), response.get("success").asBoolean());
+        assertEquals(udpPort, response.get("udpPort").asInt());
+        token = response.get("udpToken").asLong();
+        assertTrue(token != 0);
+    }
+    
+    private void sendDatagram(DatagramSocket socket, long datagramToken, int seq, MessageType type, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(UdpServer.CLIENT_HEADER_LENGTH + 4 + bytes.length);
+        buffer.putLong(datagramToken).putInt(seq).putInt(type.getCode()).put(bytes);
+        socket.send(new DatagramPacket(buffer.array(), buffer.position(), InetAddress.getByName("127.0.0.1"), udpPort));
+    }
+    
+    private static ByteBuffer receiveDatagram(DatagramSocket socket) throws IOException {
+        DatagramPacket packet = new DatagramPacket(new byte[2048], 2048);
+        socket.receive(packet);
+        return ByteBuffer.wrap(Arrays.copyOf(packet.getData(), packet.getLength()));
+    }
+    
+    private static void awaitTrue(String message, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(message, System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+    
+    private static void writeFrame(Socket socket, MessageType type, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeInt(4 + bytes.length);
+        out.writeInt(type.getCode());
+        out.write(bytes);
+        out.flush();
+    }
+    
+    private static byte[] readFrame(Socket socket, MessageType expectedType) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        int length = in.readInt();
+        assertEquals(expectedType.getCode(), in.readInt());
+        byte[] body = new byte[length - 4];
+        in.readFully(body);
+        return body;
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
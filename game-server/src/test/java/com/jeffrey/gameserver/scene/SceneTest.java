@@ -0,0 +1,351 @@
+package com.jeffrey.gameserver.scene;
+
+import com.jeffrey.gameserver.metrics.TickMetrics;
+import com.jeffrey.gameserver.network.codec.MoveFrameDecoder;
+import com.jeffrey.gameserver.protocol.messages.SceneInputMessage;
+import com.jeffrey.gameserver.protocol.messages.StateSyncMessage;
+import com.jeffrey.gameserver.session.GameSession;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 场景与tick调度测试
+ * 
+ * @author jeffrey
+ */
+public class SceneTest {
+    
+    private static GameSession newPlayer(String playerId) {
+        GameSession session = new GameSession(new EmbeddedChannel());
+        session.setPlayerId(playerId);
+        session.setAuthenticated(true);
+        return session;
+    }
+    
+    /** 位置量化精度 */
+    private static final float POSITION_TOLERANCE = 1f / 16;
+    
+    /**
+     * 读取一条同步并应用到客户端状态，没有同步时返回null
+     */
+    private static StateSyncMessage readSync(GameSession session, ClientSceneState state) {
+        StateSyncMessage sync = ((EmbeddedChannel) session.getChannel()).readOutbound();
+        if (sync != null) {
+            state.apply(sync);
+            sync.release();
+        }
+        return sync;
+    }
+    
+    private static void releaseOutbound(GameSession session) {
+        ((EmbeddedChannel) session.getChannel()).finishAndReleaseAll();
+    }
+    
+    @Test
+    public void testIntentsAppliedOnTickWithOneSyncPerClient() {
+        TickMetrics metrics = new TickMetrics();
+        Scene scene = new Scene(1, "test", metrics);
+        GameSession alice = newPlayer("alice");
+        GameSession bob = newPlayer("bob");
+        ClientSceneState aliceState = new ClientSceneState();
+        ClientSceneState bobState = new ClientSceneState();
+        
+        scene.join(alice);
+        scene.join(bob);
+        assertEquals(0, scene.getMemberCount());
+        
+        scene.tick(0, 0.05f);
+        assertEquals(2, scene.getMemberCount());
+        assertTrue(readSync(alice, aliceState).isFullSnapshot());
+        assertEquals(2, aliceState.size());
+        assertNull(readSync(alice, aliceState));
+        readSync(bob, bobState);
+        assertEquals(2, bobState.size());
+        
+        // 同一tick内的多条输入只产生一条同步
+        scene.input(alice, new SceneInputMessage(1, 1f, 0f));
+        scene.input(alice, new SceneInputMessage(2, 1f, 0f));
+        scene.tick(1, 0.05f);
+        
+        StateSyncMessage sync = readSync(alice, aliceState);
+        assertEquals(1, sync.getTick());
+        assertEquals(2, sync.getLastInputSeq());
+        assertNull(readSync(alice, aliceState));
+        assertEquals(0, readSync(bob, bobState).getLastInputSeq());
+        assertNull(readSync(bob, bobState));
+        
+        SceneEntity entity = scene.getEntity("alice");
+        assertEquals(Scene.DEFAULT_SIZE / 2 + 0.25f, entity.getX(), 0.0001f);
+        assertEquals(entity.getX(), bobState.getEntity("alice").getX(), POSITION_TOLERANCE);
+        assertEquals(1f, bobState.getEntity("alice").getMoveX(), 0.01f);
+        assertEquals(4, metrics.getIntents());
+        assertEquals(4, metrics.getSyncMessages());
+    }
+    
+    @Test
+    public void testOnlyLatestMoveBetweenTicksApplied() {
+        TickMetrics metrics = new TickMetrics();
+        Scene scene = new Scene(1, "test", metrics);
+        GameSession alice = newPlayer("alice");
+        ClientSceneState state = new ClientSceneState();
+        scene.join(alice);
+        scene.tick(0, 0.05f);
+        readSync(alice, state);
+        
+        // 两个tick之间的多次移动只有最后一次生效，且不经过意图队列
+        alice.offerMove(MoveFrameDecoder.pack(1, 1f, 0f));
+        alice.offerMove(MoveFrameDecoder.pack(2, 0f, -1f));
+        scene.tick(1, 0.05f);
+        
+        StateSyncMessage sync = readSync(alice, state);
+        assertEquals(2, sync.getLastInputSeq());
+        SceneEntity entity = scene.getEntity("alice");
+        assertEquals(Scene.DEFAULT_SIZE / 2, entity.getX(), 0.0001f);
+        assertEquals(Scene.DEFAULT_SIZE / 2 - 0.25f, entity.getY(), 0.0001f);
+        assertEquals(1, metrics.getIntents());
+        
+        // 序号不比已应用的新的移动被忽略
+        alice.offerMove(MoveFrameDecoder.pack(1, 1f, 0f));
+        scene.tick(2, 0.05f);
+        assertEquals(0f, scene.getEntity("alice").getMoveX(), 0.0001f);
+        assertEquals(-1f, scene.getEntity("alice").getMoveY(), 0.0001f);
+        releaseOutbound(alice);
+    }
+    
+    @Test
+    public void testIdleSceneDoesNotSync() {
+        Scene scene = new Scene(1, "test", new TickMetrics());
+        GameSession alice = newPlayer("alice");
+        ClientSceneState state = new ClientSceneState();
+        scene.join(alice);
+        scene.tick(0, 0.05f);
+        readSync(alice, state);
+        
+        scene.tick(1, 0.05f);
+        assertNull(readSync(alice, state));
+    }
+    
+    @Test
+    public void testDeltaAgainstAckedBaseline() {
+        TickMetrics metrics = new TickMetrics();
+        Scene scene = new Scene(1, "test", metrics);
+        GameSession alice = newPlayer("alice");
+        GameSession bob = newPlayer("bob");
+        ClientSceneState state = new ClientSceneState();
+        scene.join(alice);
+        scene.join(bob);
+        scene.tick(0, 0.05f);
+        StateSyncMessage full = readSync(alice, state);
+        int fullBytes = full.getPayload().readableBytes();
+        scene.ack(alice, full.getTick());
+        
+        // 只有bob移动，增量只包含bob的位置和方向
+        scene.input(bob, new SceneInputMessage(1, 0f, -1f));
+        scene.tick(1, 0.05f);
+        StateSyncMessage delta = readSync(alice, state);
+        assertFalse(delta.isFullSnapshot());
+        assertEquals(0, delta.getBaselineTick());
+        assertTrue(delta.getPayload().readableBytes() < fullBytes);
+        assertEquals(scene.getEntity("bob").getY(), state.getEntity("bob").getY(), POSITION_TOLERANCE);
+        assertEquals(-1f, state.getEntity("bob").getMoveY(), 0.01f);
+        assertEquals(Scene.DEFAULT_SIZE / 2, state.getEntity("alice").getY(), POSITION_TOLERANCE);
+        
+        // 未确认tick 1 时，tick 2 仍以 tick 0 为基线，重复携带bob的变化
+        scene.tick(2, 0.05f);
+        delta = readSync(alice, state);
+        assertEquals(0, delta.getBaselineTick());
+        assertEquals(scene.getEntity("bob").getY(), state.getEntity("bob").getY(), POSITION_TOLERANCE);
+        
+        // 未发送过的tick不能作为基线
+        scene.ack(alice, 100);
+        scene.tick(3, 0.05f);
+        assertEquals(0, readSync(alice, state).getBaselineTick());
+        // alice只有第一条是全量；bob从未确认，每次都是全量
+        assertEquals(5, metrics.getFullSnapshots());
+    }
+    
+    @Test
+    public void testFullSnapshotWhenBaselineTooOld() {
+        Scene scene = new Scene(1, "test", new TickMetrics());
+        GameSession alice = newPlayer("alice");
+        ClientSceneState state = new ClientSceneState();
+        scene.join(alice);
+        scene.input(alice, new SceneInputMessage(1, 1f, 0f));
+        scene.tick(0, 0.05f);
+        scene.ack(alice, readSync(alice, state).getTick());
+        
+        long tick = 1;
+        for (; tick <= Scene.HISTORY_TICKS; tick++) {
+            scene.tick(tick, 0.05f);
+            assertFalse(readSync(alice, state).isFullSnapshot());
+        }
+        scene.tick(tick, 0.05f);
+        assertTrue(readSync(alice, state).isFullSnapshot());
+        assertEquals(scene.getEntity("alice").getX(), state.getEntity("alice").getX(), POSITION_TOLERANCE);
+    }
+    
+    @Test
+    public void testDisconnectedMemberRemoved() {
+        Scene scene = new Scene(1, "test", new TickMetrics());
+        GameSession alice = newPlayer("alice");
+        GameSession bob = newPlayer("bob");
+        ClientSceneState state = new ClientSceneState();
+        scene.join(alice);
+        scene.join(bob);
+        scene.tick(0, 0.05f);
+        scene.ack(alice, readSync(alice, state).getTick());
+        assertNotNull(state.getEntity("bob"));
+        
+        bob.getChannel().close();
+        scene.tick(1, 0.05f);
+        
+        assertEquals(1, scene.getMemberCount());
+        StateSyncMessage sync = readSync(alice, state);
+        assertFalse(sync.isFullSnapshot());
+        assertEquals(1, state.size());
+        assertNull(state.getEntity("bob"));
+    }
+    
+    @Test
+    public void testTransferKeepsEntityAndLeavesFirst() {
+        SceneManager manager = new SceneManager(new TickScheduler("test-tick", 1, 20, new TickMetrics()));
+        Scene first = manager.createScene(1, "first");
+        Scene second = manager.createScene(2, "second");
+        GameSession alice = newPlayer("alice");
+        
+        manager.join(alice, 1);
+        manager.input(alice, new SceneInputMessage(1, 1f, 0f));
+        first.tick(0, 0.05f);
+        float x = first.getEntity("alice").getX();
+        
+        manager.join(alice, 2);
+        assertEquals(2, alice.getSceneId());
+        // 目标场景先tick时转移还没到达
+        second.tick(0, 0.05f);
+        assertEquals(0, second.getMemberCount());
+        first.tick(1, 0.05f);
+        assertEquals(0, first.getMemberCount());
+        second.tick(1, 0.05f);
+        
+        SceneEntity entity = second.getEntity("alice");
+        assertEquals(x + 0.25f, entity.getX(), 0.0001f);
+        assertEquals(1f, entity.getMoveX(), 0.0001f);
+        releaseOutbound(alice);
+    }
+    
+    @Test
+    public void testTransferSupersededByLaterJoin() {
+        SceneManager manager = new SceneManager(new TickScheduler("test-tick", 1, 20, new TickMetrics()));
+        Scene first = manager.createScene(1, "first");
+        Scene second = manager.createScene(2, "second");
+        Scene third = manager.createScene(3, "third");
+        GameSession alice = newPlayer("alice");
+        manager.join(alice, 1);
+        first.tick(0, 0.05f);
+        
+        manager.join(alice, 2);
+        manager.join(alice, 3);
+        second.tick(1, 0.05f);
+        third.tick(1, 0.05f);
+        first.tick(1, 0.05f);
+        second.tick(2, 0.05f);
+        third.tick(2, 0.05f);
+        
+        assertEquals(0, first.getMemberCount());
+        assertEquals(0, second.getMemberCount());
+        assertEquals(1, third.getMemberCount());
+        releaseOutbound(alice);
+    }
+    
+    @Test
+    public void testCrossSceneMessagesRunOnOwnerThread() throws Exception {
+        TickScheduler scheduler = new TickScheduler("test-tick", 2, 100, new TickMetrics());
+        CountDownLatch received = new CountDownLatch(100);
+        AtomicBoolean wrongThread = new AtomicBoolean();
+        Scene receiver = new Scene(2, "receiver", scheduler.getMetrics()) {
+            @Override
+            protected void onSceneMessage(int fromSceneId, Object message) {
+                if (!isInSceneThread() || fromSceneId != 1) {
+                    wrongThread.set(true);
+                }
+                received.countDown();
+            }
+        };
+        Scene sender = new Scene(1, "sender", scheduler.getMetrics());
+        scheduler.addScene(sender);
+        scheduler.addScene(receiver);
+        assertNotEquals(scheduler.getThreadName(sender), scheduler.getThreadName(receiver));
+        
+        scheduler.start();
+        try {
+            for (int i = 0; i < 100; i++) {
+                final int seq = i;
+                sender.execute(() -> sender.send(receiver, seq));
+            }
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.stop();
+        }
+        assertFalse(wrongThread.get());
+        assertFalse(receiver.isInSceneThread());
+    }
+    
+    @Test
+    public void testPlacementPrefersLeastLoadedThread() {
+        TickScheduler scheduler = new TickScheduler("test-tick", 2, 20, new TickMetrics());
+        Scene busy = new Scene(1, "busy", scheduler.getMetrics());
+        Scene idle = new Scene(2, "idle", scheduler.getMetrics());
+        scheduler.addScene(busy);
+        scheduler.addScene(idle);
+        busy.recordTickCost(TimeUnit.MILLISECONDS.toNanos(5));
+        
+        // 空闲线程已有一个场景，仍比busy所在线程负载低
+        Scene next = new Scene(3, "next", scheduler.getMetrics());
+        scheduler.addScene(next);
+        assertEquals(scheduler.getThreadName(idle), scheduler.getThreadName(next));
+        Scene another = new Scene(4, "another", scheduler.getMetrics());
+        scheduler.addScene(another);
+        assertEquals(scheduler.getThreadName(idle), scheduler.getThreadName(another));
+    }
+    
+    @Test
+    public void testSchedulerRecordsOverruns() throws Exception {
+        TickMetrics metrics = new TickMetrics();
+        TickScheduler scheduler = new TickScheduler("test-tick", 1, 100, metrics);
+        scheduler.addScene(new Scene(1, "slow", metrics) {
+            @Override
+            protected void update(float deltaSeconds) {
+                try {
+                    // 周期10ms，每个tick耗时15ms
+                    TimeUnit.MILLISECONDS.sleep(15);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        
+        scheduler.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (metrics.getOverruns() < 5 && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+        } finally {
+            scheduler.stop();
+        }
+        
+        assertTrue(metrics.getOverruns() >= 5);
+        assertTrue(metrics.getTickDuration().getPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(15));
+    }
+}
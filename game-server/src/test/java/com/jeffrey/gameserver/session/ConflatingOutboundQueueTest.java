@@ -0,0 +1,144 @@
+package com.jeffrey.gameserver.session;
+
+import com.jeffrey.gameserver.protocol.Message;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import com.jeffrey.gameserver.protocol.messages.StateSyncMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 合并发送队列测试
+ *
+ * @author jeffrey
+ */
+public class ConflatingOutboundQueueTest {
+    
+    private EmbeddedChannel channel;
+    private GameSession session;
+    
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel();
+        channel.config().setOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(1, 8));
+        session = new GameSession(channel);
+    }
+    
+    @Test
+    public void testWritableChannelWritesDirectly() {
+        session.sendMessage(newSync(1, 1));
+        session.sendMessage(newSync(1, 2));
+        
+        assertEquals(1, readSync().getTick());
+        assertEquals(2, readSync().getTick());
+        assertNull(channel.readOutbound());
+        assertEquals(0, session.getConflatedCount());
+    }
+    
+    @Test
+    public void testStateReplacedInPlaceAndEventsKeepOrder() {
+        // 未刷出的数据超过高水位，模拟读得慢的客户端
+        ByteBuf backlog = Unpooled.wrappedBuffer(new byte[16]);
+        channel.write(backlog);
+        assertFalse(channel.isWritable());
+        
+        StateSyncMessage first = newSync(1, 1);
+        session.sendMessage(first);
+        session.sendMessage(newChat("a"));
+        session.sendMessage(newSync(2, 1));
+        session.sendMessage(newChat("b"));
+        session.sendMessage(newSync(1, 2));
+        ByteBuf frame = Unpooled.wrappedBuffer(new byte[] {1});
+        session.sendFrame(frame);
+        
+        // 同一场景的同步原位替换，旧的被释放
+        assertEquals(0, first.refCnt());
+        assertEquals(1, session.getConflatedCount());
+        
+        // 恢复可写后按原顺序写出，场景1的同步位于第一个聊天之前
+        channel.flush();
+        assertSame(backlog, channel.readOutbound());
+        backlog.release();
+        assertTrue(channel.isWritable());
+        channel.config().setWriteBufferHighWaterMark(1024);
+        session.drainOutbound();
+        
+        StateSyncMessage sync = readSync();
+        assertEquals(1, sync.getSceneId());
+        assertEquals(2, sync.getTick());
+        assertEquals("a", ((ChatMessage) channel.readOutbound()).getContent());
+        assertEquals(2, readSync().getSceneId());
+        assertEquals("b", ((ChatMessage) channel.readOutbound()).getContent());
+        assertSame(frame, channel.readOutbound());
+        frame.release();
+        assertNull(channel.readOutbound());
+    }
+    
+    @Test
+    public void testDrainStopsWhenUnwritableAgain() {
+        channel.write(Unpooled.wrappedBuffer(new byte[16]));
+        ByteBuf first = Unpooled.wrappedBuffer(new byte[16]);
+        ByteBuf second = Unpooled.wrappedBuffer(new byte[16]);
+        session.sendFrame(first);
+        session.sendFrame(second);
+        
+        // 写出第一帧后再次超过高水位，第二帧留在队列中
+        channel.flush();
+        ((ByteBuf) channel.readOutbound()).release();
+        session.drainOutbound();
+        assertSame(first, channel.readOutbound());
+        first.release();
+        assertNull(channel.readOutbound());
+        
+        session.drainOutbound();
+        assertSame(second, channel.readOutbound());
+        second.release();
+    }
+    
+    @Test
+    public void testBacklogReleasedAfterClose() {
+        channel.write(Unpooled.wrappedBuffer(new byte[16]));
+        
+        StateSyncMessage sync = newSync(1, 1);
+        session.sendMessage(sync);
+        assertEquals(1, sync.refCnt());
+        channel.close();
+        session.drainOutbound();
+        assertEquals(0, sync.refCnt());
+        
+        // 断开后发送的消息直接释放
+        StateSyncMessage late = newSync(1, 2);
+        session.sendMessage(late);
+        assertEquals(0, late.refCnt());
+    }
+    
+    private StateSyncMessage readSync() {
+        StateSyncMessage sync = channel.readOutbound();
+        sync.release();
+        return sync;
+    }
+    
+    private static StateSyncMessage newSync(int sceneId, long tick) {
+        StateSyncMessage sync = new StateSyncMessage();
+        sync.setSceneId(sceneId);
+        sync.setTick(tick);
+        sync.setPayload(Unpooled.buffer(4).writeInt((int) tick));
+        return sync;
+    }
+    
+    private static Message newChat(String content) {
+        ChatMessage chat = new ChatMessage();
+        chat.setContent(content);
+        return chat;
+    }
+}
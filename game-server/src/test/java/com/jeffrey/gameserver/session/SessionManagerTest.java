@@ -0,0 +1,84 @@
+package com.jeffrey.gameserver.session;
+
+import com.jeffrey.gameserver.network.codec.BinaryMessageCodec;
+import com.jeffrey.gameserver.network.codec.JsonMessageCodec;
+import com.jeffrey.gameserver.protocol.CodecType;
+import com.jeffrey.gameserver.protocol.MessageType;
+import com.jeffrey.gameserver.protocol.messages.ChatMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 会话管理器测试
+ *
+ * @author jeffrey
+ */
+public class SessionManagerTest {
+    
+    private SessionManager sessionManager;
+    
+    @Before
+    public void setUp() {
+        sessionManager = new SessionManager();
+    }
+    
+    @After
+    public void tearDown() {
+        sessionManager.shutdown();
+    }
+    
+    @Test
+    public void testBroadcastEncodesOncePerCodec() throws Exception {
+        EmbeddedChannel sender = login("alice", CodecType.JSON);
+        EmbeddedChannel json1 = login("bob", CodecType.JSON);
+        EmbeddedChannel json2 = login("carol", CodecType.JSON);
+        EmbeddedChannel binary = login("dave", CodecType.BINARY);
+        EmbeddedChannel anonymous = new EmbeddedChannel();
+        sessionManager.addSession(new GameSession(anonymous));
+        
+        ChatMessage chat = new ChatMessage("player_alice", "alice", "hello", ChatMessage.ChatChannel.WORLD);
+        int sent = sessionManager.broadcast(chat, sessionManager.getSessionByPlayerId("player_alice"));
+        assertEquals(3, sent);
+        
+        assertNull(sender.readOutbound());
+        assertNull(anonymous.readOutbound());
+        
+        ByteBuf frame1 = json1.readOutbound();
+        ByteBuf frame2 = json2.readOutbound();
+        ByteBuf binaryFrame = binary.readOutbound();
+        try {
+            // 相同编码格式的会话共享同一份编码结果
+            assertSame(frame1.unwrap(), frame2.unwrap());
+            assertEquals(frame1, frame2);
+            
+            assertEquals(MessageType.CHAT.getCode(), frame1.readInt());
+            ChatMessage decoded = (ChatMessage) JsonMessageCodec.INSTANCE.decode(MessageType.CHAT, frame1);
+            assertEquals("hello", decoded.getContent());
+            
+            assertEquals(MessageType.CHAT.getCode(), binaryFrame.readInt());
+            decoded = (ChatMessage) BinaryMessageCodec.INSTANCE.decode(MessageType.CHAT, binaryFrame);
+            assertEquals("hello", decoded.getContent());
+        } finally {
+            frame1.release();
+            frame2.release();
+            binaryFrame.release();
+        }
+        assertEquals(0, frame1.unwrap().refCnt());
+    }
+    
+    private EmbeddedChannel login(String username, CodecType codecType) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.attr(CodecType.CODEC_KEY).set(codecType);
+        GameSession session = new GameSession(channel);
+        sessionManager.addSession(session);
+        sessionManager.bindPlayer(session, "player_" + username, username);
+        return channel;
+    }
+}